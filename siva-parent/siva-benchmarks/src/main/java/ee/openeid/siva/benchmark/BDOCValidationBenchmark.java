@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.benchmark;
+
+import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.siva.validation.service.parallel.ParallelSignatureExecutor;
+import ee.openeid.validation.service.bdoc.BDOCValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BDOC validation of containers with one and two time-mark signatures and of a container with two signed files,
+ * each validated with and without parallel signature validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BDOCValidationBenchmark {
+
+    @Param({"bdoc_tm_valid_1_signature.bdoc", "bdoc_tm_valid_2_signatures.bdoc", "2f_all_signed.bdoc"})
+    private String document;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private ConfigurableApplicationContext context;
+    private ParallelSignatureExecutor signatureExecutor;
+    private BDOCValidationService validationService;
+    private byte[] documentBytes;
+
+    @Setup
+    public void setUp() {
+        context = ValidationServiceContexts.bdoc();
+        signatureExecutor = ValidationServiceContexts.signatureExecutor(parallelism);
+        validationService = context.getBean(BDOCValidationService.class);
+        validationService.setSignatureExecutor(signatureExecutor);
+        documentBytes = Fixtures.read(document);
+    }
+
+    @TearDown
+    public void tearDown() {
+        signatureExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Reports validate() {
+        return validationService.validateDocument(Fixtures.document(document, documentBytes));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.benchmark;
+
+import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.validation.service.ddoc.DDOCValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DDOC validation, which guards against XML entity attacks on the same pass that feeds JDigiDoc, compared to
+ * validation preceded by a separate pass of a hardened SAX parser over the document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DDOCValidationBenchmark {
+
+    @Param({"DigiDoc 1.3 hashcode.ddoc", "ddoc_valid_2_signatures.ddoc"})
+    private String document;
+
+    private ConfigurableApplicationContext context;
+    private DDOCValidationService validationService;
+    private SAXParserFactory saxParserFactory;
+    private byte[] documentBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = ValidationServiceContexts.ddoc();
+        validationService = context.getBean(DDOCValidationService.class);
+        documentBytes = Fixtures.read(document);
+
+        saxParserFactory = SAXParserFactory.newInstance();
+        saxParserFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        saxParserFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        saxParserFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        saxParserFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        saxParserFactory.setXIncludeAware(false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Reports validate() {
+        return validationService.validateDocument(Fixtures.document(document, documentBytes));
+    }
+
+    @Benchmark
+    public Reports validateWithSeparateEntityAttackCheck() throws ParserConfigurationException, SAXException, IOException {
+        saxParserFactory.newSAXParser().getXMLReader().parse(new InputSource(new ByteArrayInputStream(documentBytes)));
+        return validationService.validateDocument(Fixtures.document(document, documentBytes));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.benchmark;
+
+import ee.openeid.siva.validation.document.Datafile;
+import ee.openeid.siva.validation.document.ValidationDocument;
+import eu.europa.esig.dss.DigestAlgorithm;
+import org.apache.commons.io.IOUtils;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixture documents of the validation service tests, packaged into the benchmarks jar under {@code test-files/}.
+ */
+final class Fixtures {
+
+    private static final String TEST_FILES_LOCATION = "test-files/";
+    private static final String XMLDSIG_NAMESPACE = "http://www.w3.org/2000/09/xmldsig#";
+
+    private Fixtures() {
+    }
+
+    static byte[] read(String fileName) {
+        try (InputStream inputStream = Fixtures.class.getClassLoader().getResourceAsStream(TEST_FILES_LOCATION + fileName)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("Fixture " + fileName + " not found");
+            }
+            return IOUtils.toByteArray(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Validation services keep state of the validated document on it, so every invocation gets a new document.
+     */
+    static ValidationDocument document(String fileName, byte[] bytes) {
+        ValidationDocument validationDocument = new ValidationDocument();
+        validationDocument.setName(fileName);
+        validationDocument.setBytes(bytes);
+        return validationDocument;
+    }
+
+    /**
+     * Data files of a detached XAdES signature, as they are sent with a hashcode validation request.
+     */
+    static List<Datafile> datafiles(byte[] signature) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            NodeList references = factory.newDocumentBuilder()
+                    .parse(new ByteArrayInputStream(signature))
+                    .getElementsByTagNameNS(XMLDSIG_NAMESPACE, "Reference");
+
+            List<Datafile> datafiles = new ArrayList<>();
+            for (int i = 0; i < references.getLength(); i++) {
+                Element reference = (Element) references.item(i);
+                String uri = reference.getAttribute("URI");
+                if (uri.startsWith("#")) {
+                    continue;
+                }
+                Element digestMethod = (Element) reference.getElementsByTagNameNS(XMLDSIG_NAMESPACE, "DigestMethod").item(0);
+                Element digestValue = (Element) reference.getElementsByTagNameNS(XMLDSIG_NAMESPACE, "DigestValue").item(0);
+                Datafile datafile = new Datafile();
+                datafile.setFilename(uri);
+                datafile.setHashAlgo(DigestAlgorithm.forXML(digestMethod.getAttribute("Algorithm")).name());
+                datafile.setHash(digestValue.getTextContent().trim());
+                datafiles.add(datafile);
+            }
+            return datafiles;
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalArgumentException("Signature fixture is not valid XML", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
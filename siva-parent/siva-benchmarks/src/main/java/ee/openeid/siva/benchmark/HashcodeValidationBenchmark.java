@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.benchmark;
+
+import ee.openeid.siva.validation.document.Datafile;
+import ee.openeid.siva.validation.document.ValidationDocument;
+import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.validation.service.generic.HashcodeGenericValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashcode validation of detached XAdES signatures over one and over several data files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HashcodeValidationBenchmark {
+
+    @Param({"Valid_XAdES_LT_TS.xml", "Valid_XAdES_LT_TS_multiple_datafiles.xml"})
+    private String signature;
+
+    private ConfigurableApplicationContext context;
+    private HashcodeGenericValidationService validationService;
+    private byte[] signatureBytes;
+    private List<Datafile> datafiles;
+
+    @Setup
+    public void setUp() {
+        context = ValidationServiceContexts.generic();
+        validationService = context.getBean(HashcodeGenericValidationService.class);
+        signatureBytes = Fixtures.read(signature);
+        datafiles = Fixtures.datafiles(signatureBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Reports validate() {
+        ValidationDocument validationDocument = Fixtures.document(signature, signatureBytes);
+        validationDocument.setDatafiles(datafiles);
+        return validationService.validateDocument(validationDocument);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ee.openeid.siva.signature.AsiceWithXadesSignatureService;
+import ee.openeid.siva.signature.SignatureService;
+import ee.openeid.siva.signature.batch.BatchingSignatureService;
+import ee.openeid.siva.signature.configuration.Pkcs12Properties;
+import ee.openeid.siva.signature.configuration.SignatureBatchProperties;
+import ee.openeid.siva.signature.configuration.SignatureServiceConfigurationProperties;
+import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.siva.webapp.response.ValidationResponse;
+import ee.openeid.validation.service.ddoc.DDOCValidationService;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing of JSON validation reports by concurrent requests, each report signed on its own or collected into
+ * batches signed once per batch. The XAdES baseline B level is used, so no TSA or OCSP responder is involved,
+ * and the reports are signed with a freshly generated self-signed certificate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class ReportSigningBenchmark {
+
+    private static final String REPORT_DOCUMENT = "ddoc_valid_2_signatures.ddoc";
+    private static final String KEYSTORE_PASSWORD = "password";
+
+    @Param({"DIRECT", "BATCHED"})
+    private String signing;
+
+    private AsiceWithXadesSignatureService asiceSignatureService;
+    private BatchingSignatureService batchingSignatureService;
+    private SignatureService signatureService;
+    private byte[] report;
+
+    @Setup
+    public void setUp() throws Exception {
+        Reports reports;
+        try (ConfigurableApplicationContext context = ValidationServiceContexts.ddoc()) {
+            reports = context.getBean(DDOCValidationService.class).validateDocument(Fixtures.document(REPORT_DOCUMENT, Fixtures.read(REPORT_DOCUMENT)));
+        }
+        report = new Jackson2ObjectMapperBuilder()
+                .serializationInclusion(JsonInclude.Include.NON_EMPTY)
+                .build()
+                .writeValueAsBytes(new ValidationResponse(reports.getSimpleReport()));
+
+        asiceSignatureService = new AsiceWithXadesSignatureService();
+        asiceSignatureService.setProperties(signatureServiceProperties(createKeystore()));
+        if ("BATCHED".equals(signing)) {
+            SignatureBatchProperties batchProperties = new SignatureBatchProperties();
+            batchProperties.setEnabled(true);
+            batchingSignatureService = new BatchingSignatureService(asiceSignatureService, batchProperties);
+            signatureService = batchingSignatureService;
+        } else {
+            signatureService = asiceSignatureService;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (batchingSignatureService != null) {
+            batchingSignatureService.close();
+        }
+        asiceSignatureService.close();
+    }
+
+    @Benchmark
+    public byte[] sign() throws IOException {
+        return signatureService.getSignature(report, "validationReport.json", "application/json");
+    }
+
+    private static SignatureServiceConfigurationProperties signatureServiceProperties(File keystore) {
+        SignatureServiceConfigurationProperties properties = new SignatureServiceConfigurationProperties();
+        properties.setSignatureLevel("XAdES_BASELINE_B");
+        properties.setTspUrl("http://demo.sk.ee/tsa");
+        properties.setOcspUrl("http://demo.sk.ee/ocsp");
+        Pkcs12Properties pkcs12Properties = new Pkcs12Properties();
+        pkcs12Properties.setPath(keystore.getAbsolutePath());
+        pkcs12Properties.setPassword(KEYSTORE_PASSWORD);
+        properties.setPkcs12(pkcs12Properties);
+        return properties;
+    }
+
+    private static File createKeystore() throws GeneralSecurityException, IOException, OperatorCreationException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        X500Name subject = new X500Name("CN=SiVa benchmark");
+        Date notBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        Date notAfter = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        X509CertificateHolder certificateHolder = new JcaX509v3CertificateBuilder(subject, BigInteger.ONE, notBefore, notAfter, subject, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()));
+        Certificate certificate = new JcaX509CertificateConverter().getCertificate(certificateHolder);
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("benchmark", keyPair.getPrivate(), KEYSTORE_PASSWORD.toCharArray(), new Certificate[]{certificate});
+        File keystore = File.createTempFile("siva-benchmark-", ".p12");
+        keystore.deleteOnExit();
+        try (OutputStream outputStream = new FileOutputStream(keystore)) {
+            keyStore.store(outputStream, KEYSTORE_PASSWORD.toCharArray());
+        }
+        return keystore;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.benchmark;
+
+import ee.openeid.siva.validation.configuration.ParallelValidationProperties;
+import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
+import ee.openeid.siva.validation.service.parallel.ParallelSignatureExecutor;
+import ee.openeid.siva.validation.service.signature.policy.ConstraintLoadingSignaturePolicyService;
+import ee.openeid.tsl.CustomCertificatesLoader;
+import ee.openeid.tsl.CustomTSLLoader;
+import ee.openeid.tsl.TSLLoader;
+import ee.openeid.tsl.TSLValidationJobFactory;
+import ee.openeid.tsl.configuration.TSLLoaderConfiguration;
+import ee.openeid.validation.service.bdoc.BDOCValidationService;
+import ee.openeid.validation.service.bdoc.configuration.BDOCValidationServiceConfiguration;
+import ee.openeid.validation.service.bdoc.signature.policy.BDOCConfigurationService;
+import ee.openeid.validation.service.bdoc.signature.policy.BDOCSignaturePolicyService;
+import ee.openeid.validation.service.ddoc.DDOCValidationService;
+import ee.openeid.validation.service.ddoc.configuration.DDOCValidationServiceConfiguration;
+import ee.openeid.validation.service.generic.GenericValidationService;
+import ee.openeid.validation.service.generic.HashcodeGenericValidationService;
+import ee.openeid.validation.service.generic.configuration.GenericValidationServiceConfiguration;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Application contexts wiring the validation services the same way as their integration tests do. Services
+ * validating against the trusted lists load the TSL on start up, either over the network or from the cache
+ * directory when {@code siva.tsl.loader.loadFromCache} is set.
+ */
+final class ValidationServiceContexts {
+
+    private static final String TEST_PROFILE = "test";
+
+    private ValidationServiceContexts() {
+    }
+
+    static ConfigurableApplicationContext generic() {
+        return start(
+                TSLLoaderConfiguration.class,
+                CustomTSLLoader.class,
+                CustomCertificatesLoader.class,
+                TSLValidationJobFactory.class,
+                GenericValidationServiceConfiguration.class,
+                GenericValidationService.class,
+                HashcodeGenericValidationService.class,
+                ReportConfigurationProperties.class
+        );
+    }
+
+    static ConfigurableApplicationContext bdoc() {
+        return start(
+                TSLLoaderConfiguration.class,
+                TSLLoader.class,
+                CustomCertificatesLoader.class,
+                TSLValidationJobFactory.class,
+                BDOCValidationServiceConfiguration.class,
+                BDOCValidationService.class,
+                BDOCSignaturePolicyService.class,
+                ConstraintLoadingSignaturePolicyService.class,
+                BDOCConfigurationService.class,
+                ReportConfigurationProperties.class
+        );
+    }
+
+    static ConfigurableApplicationContext ddoc() {
+        return start(
+                DDOCValidationServiceConfiguration.class,
+                DDOCValidationService.class,
+                ReportConfigurationProperties.class
+        );
+    }
+
+    /**
+     * Parallel signature validation over the given number of threads, disabled for a single thread.
+     */
+    static ParallelSignatureExecutor signatureExecutor(int parallelism) {
+        ParallelValidationProperties properties = new ParallelValidationProperties();
+        properties.setEnabled(parallelism > 1);
+        properties.setParallelism(parallelism);
+        properties.setMaxParallelismPerRequest(parallelism);
+        return new ParallelSignatureExecutor(properties);
+    }
+
+    private static ConfigurableApplicationContext start(Object... sources) {
+        return new SpringApplicationBuilder(sources)
+                .web(false)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles(TEST_PROFILE)
+                .run();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.benchmark;
+
+import ee.openeid.siva.proxy.http.RESTProxyService;
+import ee.openeid.siva.validation.document.report.Reports;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * X-Road container validation as seen by the validation proxy. The X-Road validation service is packaged as
+ * a standalone application, so it is called over REST at {@code siva.benchmark.xroadUrl}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XROADValidationBenchmark {
+
+    private static final String DEFAULT_XROAD_URL = "http://localhost:8081";
+
+    @Param({"xroad-simple.asice", "xroad-batchsignature.asice"})
+    private String document;
+
+    private RESTProxyService restProxyService;
+    private byte[] documentBytes;
+
+    @Setup
+    public void setUp() {
+        restProxyService = new RESTProxyService();
+        restProxyService.setRestTemplate(new RestTemplateBuilder()
+                .rootUri(System.getProperty("siva.benchmark.xroadUrl", DEFAULT_XROAD_URL))
+                .build());
+        documentBytes = Fixtures.read(document);
+    }
+
+    @Benchmark
+    public Reports validate() {
+        return restProxyService.validate(Fixtures.document(document, documentBytes));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+/**
+ * Container types of the load mix, each with a default test file from the validation service tests.
+ */
+public enum ContainerType {
+    PDF("hellopades-pades-lt-sha256-sign.pdf", null),
+    BDOC("bdoc_tm_valid_2_signatures.bdoc", null),
+    DDOC("ddoc_valid_2_signatures.ddoc", null),
+    ASICS("timestamptoken-ddoc.asics", null),
+    XROAD("xroad-simple.asice", "XROAD");
+
+    private final String defaultFile;
+    private final String documentType;
+
+    ContainerType(String defaultFile, String documentType) {
+        this.defaultFile = defaultFile;
+        this.documentType = documentType;
+    }
+
+    public String getDefaultFile() {
+        return defaultFile;
+    }
+
+    public String getDocumentType() {
+        return documentType;
+    }
+
+    public String getName() {
+        return name().toLowerCase();
+    }
+}
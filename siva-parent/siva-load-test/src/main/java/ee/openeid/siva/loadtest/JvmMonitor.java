@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples heap usage and counts garbage collections of the JVM while the load is measured.
+ * <p>
+ * SiVa runs in the same JVM as the load driver, so the figures include the small overhead of the driver itself.
+ */
+public class JvmMonitor {
+
+    private static final long SAMPLE_INTERVAL_IN_MILLIS = 500;
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final Map<String, long[]> gcBaseline = new LinkedHashMap<>();
+    private ScheduledExecutorService sampler;
+    private long heapSamples;
+    private long heapUsedSum;
+    private long heapUsedMax;
+
+    public void start() {
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcBaseline.put(gcBean.getName(), new long[]{gcBean.getCollectionCount(), gcBean.getCollectionTime()});
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jvm-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, 0, SAMPLE_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public JvmStatistics stop() throws InterruptedException {
+        sampler.shutdown();
+        sampler.awaitTermination(1, TimeUnit.SECONDS);
+        sample();
+
+        Map<String, long[]> collections = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long[] baseline = gcBaseline.getOrDefault(gcBean.getName(), new long[2]);
+            collections.put(gcBean.getName(), new long[]{gcBean.getCollectionCount() - baseline[0], gcBean.getCollectionTime() - baseline[1]});
+        }
+        MemoryUsage heapUsage = memoryBean.getHeapMemoryUsage();
+        synchronized (this) {
+            return new JvmStatistics(heapUsedSum / heapSamples, heapUsedMax, heapUsage.getCommitted(), heapUsage.getMax(), collections);
+        }
+    }
+
+    private synchronized void sample() {
+        long heapUsed = memoryBean.getHeapMemoryUsage().getUsed();
+        heapSamples++;
+        heapUsedSum += heapUsed;
+        heapUsedMax = Math.max(heapUsedMax, heapUsed);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Thread-safe recorder of response statuses and latencies per container type.
+ */
+public class LatencyRecorder {
+
+    static final int IO_ERROR_STATUS = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<ContainerType, long[]> latencies = new EnumMap<>(ContainerType.class);
+    private final Map<ContainerType, Integer> counts = new EnumMap<>(ContainerType.class);
+    private final Map<Integer, Integer> statuses = new TreeMap<>();
+    private final Map<ContainerType, Integer> errors = new EnumMap<>(ContainerType.class);
+
+    public synchronized void record(ContainerType type, int status, long latencyInNanos) {
+        long[] typeLatencies = latencies.computeIfAbsent(type, t -> new long[INITIAL_CAPACITY]);
+        int count = counts.getOrDefault(type, 0);
+        if (count == typeLatencies.length) {
+            typeLatencies = Arrays.copyOf(typeLatencies, count * 2);
+            latencies.put(type, typeLatencies);
+        }
+        typeLatencies[count] = latencyInNanos;
+        counts.put(type, count + 1);
+        statuses.merge(status, 1, Integer::sum);
+        if (status != 200) {
+            errors.merge(type, 1, Integer::sum);
+        }
+    }
+
+    public synchronized Map<ContainerType, LatencyStatistics> getStatisticsByType() {
+        Map<ContainerType, LatencyStatistics> statistics = new EnumMap<>(ContainerType.class);
+        latencies.forEach((type, typeLatencies) -> statistics.put(type, new LatencyStatistics(Arrays.copyOf(typeLatencies, counts.get(type)))));
+        return statistics;
+    }
+
+    public synchronized LatencyStatistics getStatistics() {
+        return new LatencyStatistics(latencies.entrySet().stream()
+                .flatMapToLong(entry -> Arrays.stream(entry.getValue(), 0, counts.get(entry.getKey())))
+                .toArray());
+    }
+
+    /**
+     * Response counts by HTTP status, {@value #IO_ERROR_STATUS} standing for requests failed without a response.
+     */
+    public synchronized Map<Integer, Integer> getStatuses() {
+        return new TreeMap<>(statuses);
+    }
+
+    public synchronized int getErrors() {
+        return errors.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public synchronized int getErrors(ContainerType type) {
+        return errors.getOrDefault(type, 0);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of the recorded requests, using the nearest-rank method.
+ */
+public class LatencyStatistics {
+
+    private final long[] sortedLatencies;
+
+    LatencyStatistics(long[] latencyInNanos) {
+        sortedLatencies = Arrays.copyOf(latencyInNanos, latencyInNanos.length);
+        Arrays.sort(sortedLatencies);
+    }
+
+    public int getCount() {
+        return sortedLatencies.length;
+    }
+
+    public double getPercentileInMillis(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in (0, 100], but was " + percentile);
+        }
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return toMillis(sortedLatencies[rank - 1]);
+    }
+
+    public double getMaxInMillis() {
+        return sortedLatencies.length == 0 ? 0 : toMillis(sortedLatencies[sortedLatencies.length - 1]);
+    }
+
+    public double getMeanInMillis() {
+        return sortedLatencies.length == 0 ? 0 : toMillis(Arrays.stream(sortedLatencies).sum() / sortedLatencies.length);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open-loop load generator sending validation requests at a fixed rate, regardless of how fast SiVa responds.
+ * <p>
+ * Latency is measured from the time a request was scheduled to be sent, so time spent waiting for a free
+ * connection counts against SiVa instead of silently lowering the offered load. Requests scheduled during the
+ * warm-up period are sent but not recorded.
+ */
+public class LoadDriver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+    private static final long RANDOM_SEED = 20170101L;
+
+    private final URL validationUrl;
+    private final RequestMix mix;
+    private final LoadTestProperties properties;
+
+    public LoadDriver(URL validationUrl, RequestMix mix, LoadTestProperties properties) {
+        this.validationUrl = validationUrl;
+        this.mix = mix;
+        this.properties = properties;
+    }
+
+    public LoadResult run() throws InterruptedException {
+        if (properties.getRequestsPerSecond() <= 0) {
+            throw new IllegalArgumentException("Requests per second must be positive");
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService senders = Executors.newFixedThreadPool(properties.getMaxConcurrentRequests(),
+                runnable -> new Thread(runnable, "load-driver-" + threadCounter.incrementAndGet()));
+        LatencyRecorder recorder = new LatencyRecorder();
+        JvmMonitor jvmMonitor = new JvmMonitor();
+        Random random = new Random(RANDOM_SEED);
+
+        long intervalInNanos = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getRequestsPerSecond());
+        long start = System.nanoTime();
+        long measurementStart = start + TimeUnit.SECONDS.toNanos(properties.getWarmupInSeconds());
+        long end = measurementStart + TimeUnit.SECONDS.toNanos(properties.getDurationInSeconds());
+        LOGGER.info("Warming up for {} s at {} requests per second", properties.getWarmupInSeconds(), properties.getRequestsPerSecond());
+        boolean measuring = false;
+        for (long scheduled = start; scheduled < end; scheduled += intervalInNanos) {
+            TimeUnit.NANOSECONDS.sleep(scheduled - System.nanoTime());
+            boolean measured = scheduled >= measurementStart;
+            if (measured && !measuring) {
+                LOGGER.info("Measuring for {} s", properties.getDurationInSeconds());
+                jvmMonitor.start();
+                measuring = true;
+            }
+            RequestMix.Request request = mix.next(random);
+            long scheduledTime = scheduled;
+            senders.execute(() -> {
+                int status = send(request);
+                if (measured) {
+                    recorder.record(request.getType(), status, System.nanoTime() - scheduledTime);
+                }
+            });
+        }
+        if (!measuring) {
+            jvmMonitor.start();
+        }
+        senders.shutdown();
+        if (!senders.awaitTermination(properties.getRequestTimeoutInSeconds(), TimeUnit.SECONDS)) {
+            LOGGER.warn("Requests still running after {} s, not waiting for them", properties.getRequestTimeoutInSeconds());
+            senders.shutdownNow();
+        }
+        long elapsedInNanos = System.nanoTime() - measurementStart;
+        return new LoadResult(properties.getRequestsPerSecond(), elapsedInNanos, recorder, jvmMonitor.stop());
+    }
+
+    private int send(RequestMix.Request request) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) validationUrl.openConnection();
+            int timeout = (int) TimeUnit.SECONDS.toMillis(properties.getRequestTimeoutInSeconds());
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(request.getBody().length);
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(request.getBody());
+            }
+            int status = connection.getResponseCode();
+            try (InputStream inputStream = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (inputStream != null) {
+                    IOUtils.toByteArray(inputStream);
+                }
+            }
+            if (status != 200) {
+                LOGGER.debug("Validation of {} returned status {}", request.getType().getName(), status);
+            }
+            return status;
+        } catch (IOException e) {
+            LOGGER.debug("Validation of {} failed: {}", request.getType().getName(), e.getMessage());
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return LatencyRecorder.IO_ERROR_STATUS;
+        }
+    }
+}
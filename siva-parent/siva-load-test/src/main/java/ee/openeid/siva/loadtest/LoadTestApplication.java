@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import ee.openeid.siva.SivaWebApplication;
+import ee.openeid.siva.loadtest.stub.StubEnvironment;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+
+import java.net.URL;
+
+/**
+ * Runs a load test of SiVa on a single machine: starts the stub servers, boots the SiVa web application with the
+ * {@code test} profile against them, replays the configured mix of validation requests and prints the results.
+ * <p>
+ * Load test options are given as {@code --siva.loadtest.*} arguments, any other argument is passed to SiVa.
+ */
+@Configuration
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestApplication {
+
+    private static final String SIVA_PROFILE = "test";
+    private static final String STUB_PROPERTY_SOURCE = "loadTestStubs";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestProperties properties;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadTestApplication.class)
+                .web(false)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args)) {
+            properties = context.getBean(LoadTestProperties.class);
+        }
+        RequestMix mix = RequestMix.of(properties);
+
+        try (StubEnvironment stubs = new StubEnvironment(properties.getStubThreads(), properties.getXroadDelayInMillis());
+             ConfigurableApplicationContext siva = startSiva(stubs, args)) {
+            URL validationUrl = new URL("http://localhost:" + siva.getEnvironment().getProperty("local.server.port") + "/validate");
+            LoadResult result = new LoadDriver(validationUrl, mix, properties).run();
+            new LoadTestReport(result).print(System.out);
+        }
+    }
+
+    private static ConfigurableApplicationContext startSiva(StubEnvironment stubs, String[] args) {
+        return new SpringApplicationBuilder(SivaWebApplication.class)
+                .profiles(SIVA_PROFILE)
+                .properties("server.port=0")
+                .initializers(context -> addStubProperties(context.getEnvironment().getPropertySources(), stubs))
+                .run(args);
+    }
+
+    /**
+     * Stub URLs override the packaged {@code application.yml}, but can still be overridden from the command line.
+     */
+    private static void addStubProperties(MutablePropertySources propertySources, StubEnvironment stubs) {
+        MapPropertySource stubProperties = new MapPropertySource(STUB_PROPERTY_SOURCE, stubs.getSivaProperties());
+        if (propertySources.contains(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME)) {
+            propertySources.addAfter(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME, stubProperties);
+        } else {
+            propertySources.addFirst(stubProperties);
+        }
+    }
+}
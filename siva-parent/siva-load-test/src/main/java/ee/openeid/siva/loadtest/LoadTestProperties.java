@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("siva.loadtest")
+public class LoadTestProperties {
+    private double requestsPerSecond = 10;
+    private long warmupInSeconds = 30;
+    private long durationInSeconds = 60;
+    private String mix = "pdf=3,bdoc=2,ddoc=2,asics=1,xroad=1";
+    private Map<String, String> files = new HashMap<>();
+    private String reportType = "Simple";
+    private int maxConcurrentRequests = 256;
+    private long requestTimeoutInSeconds = 120;
+    private int stubThreads = 16;
+    private long xroadDelayInMillis = 20;
+}
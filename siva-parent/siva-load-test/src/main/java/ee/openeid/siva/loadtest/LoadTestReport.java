@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plain text summary of a load test run.
+ */
+public class LoadTestReport {
+
+    private static final String ROW_FORMAT = "%-8s %9s %7s %9s %9s %9s %9s %9s%n";
+    private static final String STATISTICS_FORMAT = "%-8s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n";
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private final LoadResult result;
+
+    public LoadTestReport(LoadResult result) {
+        this.result = result;
+    }
+
+    public void print(PrintStream out) {
+        LatencyRecorder recorder = result.getRecorder();
+        out.printf("%nOffered load: %.1f requests/s, measured for %.1f s%n", result.getOfferedRequestsPerSecond(),
+                result.getElapsedInNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+        out.printf("Throughput:   %.1f validations/s%n%n", result.getThroughput());
+
+        out.printf(ROW_FORMAT, "type", "requests", "errors", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<ContainerType, LatencyStatistics> statistics : recorder.getStatisticsByType().entrySet()) {
+            printStatistics(out, statistics.getKey().getName(), statistics.getValue(), recorder.getErrors(statistics.getKey()));
+        }
+        printStatistics(out, "total", recorder.getStatistics(), recorder.getErrors());
+
+        out.printf("%nResponses:    ");
+        recorder.getStatuses().forEach((status, count) ->
+                out.printf("%s=%d ", status == LatencyRecorder.IO_ERROR_STATUS ? "io-error" : status.toString(), count));
+        out.println();
+
+        JvmStatistics jvm = result.getJvmStatistics();
+        out.printf("Heap used:    avg %d MB, max %d MB (committed %d MB, max %d MB)%n", jvm.getHeapUsedAverage() / MEGABYTE,
+                jvm.getHeapUsedMax() / MEGABYTE, jvm.getHeapCommitted() / MEGABYTE, jvm.getHeapMax() / MEGABYTE);
+        jvm.getCollections().forEach((collector, collections) ->
+                out.printf("GC:           %s %d collections, %d ms%n", collector, collections[0], collections[1]));
+    }
+
+    private static void printStatistics(PrintStream out, String name, LatencyStatistics statistics, int errors) {
+        out.printf(STATISTICS_FORMAT, name, statistics.getCount(), errors, statistics.getMeanInMillis(), statistics.getPercentileInMillis(50),
+                statistics.getPercentileInMillis(90), statistics.getPercentileInMillis(99), statistics.getMaxInMillis());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of validation requests, one prepared request body per container type.
+ * <p>
+ * The mix is given as comma separated {@code type=weight} pairs, e.g. {@code pdf=3,bdoc=2,xroad=1}. Every type
+ * uses its default test file unless another file is configured for it.
+ */
+public class RequestMix {
+
+    private static final String TEST_FILES_LOCATION = "test-files/";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final List<Request> requests = new ArrayList<>();
+    private final int totalWeight;
+
+    RequestMix(Map<ContainerType, Integer> weights, Map<String, String> files, String reportType) {
+        int weightSum = 0;
+        for (Map.Entry<ContainerType, Integer> weight : weights.entrySet()) {
+            ContainerType type = weight.getKey();
+            String file = files.getOrDefault(type.getName(), type.getDefaultFile());
+            requests.add(new Request(type, weight.getValue(), createBody(type, file, reportType)));
+            weightSum += weight.getValue();
+        }
+        totalWeight = weightSum;
+    }
+
+    public static RequestMix of(LoadTestProperties properties) {
+        return new RequestMix(parseWeights(properties.getMix()), properties.getFiles(), properties.getReportType());
+    }
+
+    static Map<ContainerType, Integer> parseWeights(String mix) {
+        Map<ContainerType, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] typeAndWeight = entry.trim().split("=");
+            if (typeAndWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "', expected type=weight");
+            }
+            int weight = Integer.parseInt(typeAndWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + typeAndWeight[0] + " must not be negative");
+            }
+            if (weight > 0) {
+                weights.put(parseType(typeAndWeight[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix '" + mix + "' has no container types with positive weight");
+        }
+        return weights;
+    }
+
+    Request next(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Request request : requests) {
+            value -= request.weight;
+            if (value < 0) {
+                return request;
+            }
+        }
+        throw new IllegalStateException("Weights of the mix changed");
+    }
+
+    List<Request> getRequests() {
+        return Collections.unmodifiableList(requests);
+    }
+
+    private static ContainerType parseType(String type) {
+        for (ContainerType containerType : ContainerType.values()) {
+            if (containerType.getName().equalsIgnoreCase(type)) {
+                return containerType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown container type '" + type + "'");
+    }
+
+    private static byte[] createBody(ContainerType type, String file, String reportType) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("document", Base64.getEncoder().encodeToString(read(file)));
+        body.put("filename", new File(file).getName());
+        if (type.getDocumentType() != null) {
+            body.put("documentType", type.getDocumentType());
+        }
+        body.put("reportType", reportType);
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to create validation request of " + file, e);
+        }
+    }
+
+    private static byte[] read(String file) {
+        try {
+            File fileSystemFile = new File(file);
+            if (fileSystemFile.isFile()) {
+                return FileUtils.readFileToByteArray(fileSystemFile);
+            }
+            try (InputStream inputStream = RequestMix.class.getClassLoader().getResourceAsStream(TEST_FILES_LOCATION + file)) {
+                if (inputStream == null) {
+                    throw new IllegalArgumentException("Test file " + file + " not found");
+                }
+                return IOUtils.toByteArray(inputStream);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static class Request {
+        private final ContainerType type;
+        private final int weight;
+        private final byte[] body;
+
+        Request(ContainerType type, int weight, byte[] body) {
+            this.type = type;
+            this.weight = weight;
+            this.body = body;
+        }
+
+        ContainerType getType() {
+            return type;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OCSP responder answering {@code good} for every certificate, signed by the stub CA.
+ */
+public class OcspStub implements StubServer.StubHandler {
+
+    static final String CONTENT_TYPE = "application/ocsp-response";
+    private static final long NEXT_UPDATE_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final StubCertificates certificates;
+
+    public OcspStub(StubCertificates certificates) {
+        this.certificates = certificates;
+    }
+
+    @Override
+    public StubResponse handle(byte[] request) throws Exception {
+        OCSPReq ocspRequest = new OCSPReq(request);
+        Date now = new Date();
+        BasicOCSPRespBuilder responseBuilder = new BasicOCSPRespBuilder(new RespID(certificates.getCaName()));
+        for (Req certificateRequest : ocspRequest.getRequestList()) {
+            responseBuilder.addResponse(certificateRequest.getCertID(), CertificateStatus.GOOD, now, new Date(now.getTime() + NEXT_UPDATE_IN_MILLIS), null);
+        }
+        Extension nonce = ocspRequest.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+        if (nonce != null) {
+            responseBuilder.setResponseExtensions(new Extensions(nonce));
+        }
+        X509CertificateHolder[] chain = {new JcaX509CertificateHolder(certificates.getCaCertificate())};
+        byte[] response = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL,
+                responseBuilder.build(StubCertificates.contentSigner(certificates.getCaPrivateKey()), chain, now)).getEncoded();
+        return StubResponse.ok(CONTENT_TYPE, response);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throwaway certificate authority of the stub servers, generated anew on every load test run.
+ * <p>
+ * The CA issues the certificates of the trusted list signer, the time-stamping unit and the report signer, and
+ * signs the OCSP responses itself.
+ */
+public class StubCertificates {
+
+    static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final long VALIDITY_IN_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final AtomicLong SERIAL_NUMBER = new AtomicLong(System.currentTimeMillis());
+
+    private final KeyPair caKeyPair;
+    private final X509Certificate caCertificate;
+    private final KeyPair trustedListSignerKeyPair;
+    private final X509Certificate trustedListSignerCertificate;
+    private final KeyPair timestampKeyPair;
+    private final X509Certificate timestampCertificate;
+    private final KeyPair reportSignerKeyPair;
+    private final X509Certificate reportSignerCertificate;
+
+    public StubCertificates() {
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048);
+            caKeyPair = keyPairGenerator.generateKeyPair();
+            caCertificate = issue(new X500Name("CN=SiVa load test CA"), caKeyPair, CertificateType.CA);
+            trustedListSignerKeyPair = keyPairGenerator.generateKeyPair();
+            trustedListSignerCertificate = issue(new X500Name("CN=SiVa load test trusted list signer, C=EU"), trustedListSignerKeyPair, CertificateType.SIGNER);
+            timestampKeyPair = keyPairGenerator.generateKeyPair();
+            timestampCertificate = issue(new X500Name("CN=SiVa load test TSA"), timestampKeyPair, CertificateType.TIMESTAMP);
+            reportSignerKeyPair = keyPairGenerator.generateKeyPair();
+            reportSignerCertificate = issue(new X500Name("CN=SiVa load test report signer"), reportSignerKeyPair, CertificateType.SIGNER);
+        } catch (GeneralSecurityException | OperatorCreationException | IOException e) {
+            throw new IllegalStateException("Failed to generate stub certificates", e);
+        }
+    }
+
+    /**
+     * Writes the keystore of trusted list signer certificates, as expected by {@code siva.keystore}.
+     */
+    public void writeTrustedListKeystore(File file, String password) {
+        writeKeystore(file, "JKS", password, keyStore -> keyStore.setCertificateEntry("lotl-signer", trustedListSignerCertificate));
+    }
+
+    /**
+     * Writes the PKCS#12 keystore of the report signer, as expected by {@code siva.signatureService.pkcs12}.
+     */
+    public void writeReportSignerKeystore(File file, String password) {
+        writeKeystore(file, "PKCS12", password, keyStore -> keyStore.setKeyEntry("report-signer", reportSignerKeyPair.getPrivate(),
+                password.toCharArray(), new Certificate[]{reportSignerCertificate, caCertificate}));
+    }
+
+    public X500Name getCaName() {
+        return X500Name.getInstance(caCertificate.getSubjectX500Principal().getEncoded());
+    }
+
+    public X509Certificate getCaCertificate() {
+        return caCertificate;
+    }
+
+    public PrivateKey getCaPrivateKey() {
+        return caKeyPair.getPrivate();
+    }
+
+    public X509Certificate getTrustedListSignerCertificate() {
+        return trustedListSignerCertificate;
+    }
+
+    public PrivateKey getTrustedListSignerPrivateKey() {
+        return trustedListSignerKeyPair.getPrivate();
+    }
+
+    public X509Certificate getTimestampCertificate() {
+        return timestampCertificate;
+    }
+
+    public PrivateKey getTimestampPrivateKey() {
+        return timestampKeyPair.getPrivate();
+    }
+
+    static ContentSigner contentSigner(PrivateKey privateKey) throws OperatorCreationException {
+        return new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(privateKey);
+    }
+
+    private X509Certificate issue(X500Name subject, KeyPair keyPair, CertificateType type) throws GeneralSecurityException, OperatorCreationException, IOException {
+        long now = System.currentTimeMillis();
+        X500Name issuer = type == CertificateType.CA ? subject : getCaName();
+        PrivateKey issuerKey = type == CertificateType.CA ? keyPair.getPrivate() : caKeyPair.getPrivate();
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(issuer, BigInteger.valueOf(SERIAL_NUMBER.incrementAndGet()),
+                new Date(now - TimeUnit.DAYS.toMillis(1)), new Date(now + VALIDITY_IN_MILLIS), subject, keyPair.getPublic());
+        switch (type) {
+            case CA:
+                builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+                builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign | KeyUsage.digitalSignature));
+                break;
+            case TIMESTAMP:
+                builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature));
+                builder.addExtension(Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+                break;
+            default:
+                builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature | KeyUsage.nonRepudiation));
+        }
+        return new JcaX509CertificateConverter().getCertificate(builder.build(contentSigner(issuerKey)));
+    }
+
+    private static void writeKeystore(File file, String type, String password, KeystoreInitializer initializer) {
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            KeyStore keyStore = KeyStore.getInstance(type);
+            keyStore.load(null, null);
+            initializer.initialize(keyStore);
+            keyStore.store(outputStream, password.toCharArray());
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Failed to write keystore " + file, e);
+        }
+    }
+
+    private enum CertificateType {
+        CA, SIGNER, TIMESTAMP
+    }
+
+    @FunctionalInterface
+    private interface KeystoreInitializer {
+        void initialize(KeyStore keyStore) throws GeneralSecurityException;
+    }
+}
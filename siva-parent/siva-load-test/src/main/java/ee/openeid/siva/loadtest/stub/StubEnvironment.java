@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stub servers of every external service SiVa calls, with the SiVa properties pointing at them.
+ * <p>
+ * DSS reads the trusted list signer keystore from the {@code DSS_DATA_FOLDER} directory only, so the system
+ * property is pointed at a temporary directory for as long as the environment is open.
+ */
+public class StubEnvironment implements AutoCloseable {
+
+    static final String DSS_DATA_FOLDER = "DSS_DATA_FOLDER";
+    static final String TIMESTAMP_PATH = "/tsa";
+    static final String OCSP_PATH = "/ocsp";
+    private static final String TRUSTED_LIST_KEYSTORE = "siva-keystore.jks";
+    private static final String REPORT_SIGNER_KEYSTORE = "report-signer.p12";
+
+    private final File dataFolder;
+    private final String previousDataFolder;
+    private final StubServer server;
+    private final Map<String, Object> sivaProperties = new LinkedHashMap<>();
+
+    public StubEnvironment(int threads, long xroadDelayInMillis) {
+        try {
+            dataFolder = Files.createTempDirectory("siva-load-test").toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create DSS data folder", e);
+        }
+        StubCertificates certificates = new StubCertificates();
+        String password = UUID.randomUUID().toString();
+        certificates.writeTrustedListKeystore(new File(dataFolder, TRUSTED_LIST_KEYSTORE), password);
+        File reportSignerKeystore = new File(dataFolder, REPORT_SIGNER_KEYSTORE);
+        certificates.writeReportSignerKeystore(reportSignerKeystore, password);
+        previousDataFolder = System.setProperty(DSS_DATA_FOLDER, dataFolder.getAbsolutePath());
+
+        server = new StubServer(threads);
+        String lotlUrl = server.getUrl(TrustedListStub.LOTL_PATH);
+        String ojUrl = server.getUrl(TrustedListStub.OJ_PATH);
+        String schemeInformationUrl = server.getUrl(TrustedListStub.SCHEME_INFORMATION_PATH);
+        String tlUrl = server.getUrl(TrustedListStub.TL_PATH);
+        server.register(TrustedListStub.LOTL_PATH, TrustedListStub.listOfTrustedLists(certificates, lotlUrl, ojUrl, schemeInformationUrl, tlUrl))
+                .register(TrustedListStub.TL_PATH, TrustedListStub.nationalTrustedList(certificates, tlUrl))
+                .register(TIMESTAMP_PATH, new TimestampStub(certificates))
+                .register(OCSP_PATH, new OcspStub(certificates))
+                .register(XROADValidationStub.VALIDATION_PATH, new XROADValidationStub(xroadDelayInMillis))
+                .register(XROADValidationStub.HEALTH_PATH, XROADValidationStub::health);
+
+        sivaProperties.put("siva.tsl.loader.loadFromCache", false);
+        sivaProperties.put("siva.tsl.loader.url", lotlUrl);
+        sivaProperties.put("siva.tsl.loader.ojUrl", ojUrl);
+        sivaProperties.put("siva.tsl.loader.lotlRootSchemeInfoUri", schemeInformationUrl);
+        sivaProperties.put("siva.keystore.type", "JKS");
+        sivaProperties.put("siva.keystore.filename", TRUSTED_LIST_KEYSTORE);
+        sivaProperties.put("siva.keystore.password", password);
+        sivaProperties.put("siva.proxy.xroadUrl", server.getUrl(""));
+        sivaProperties.put("siva.signatureService.signatureLevel", "XAdES_BASELINE_LT");
+        sivaProperties.put("siva.signatureService.tspUrl", server.getUrl(TIMESTAMP_PATH));
+        sivaProperties.put("siva.signatureService.ocspUrl", server.getUrl(OCSP_PATH));
+        sivaProperties.put("siva.signatureService.pkcs12.path", reportSignerKeystore.getAbsolutePath());
+        sivaProperties.put("siva.signatureService.pkcs12.password", password);
+    }
+
+    /**
+     * SiVa properties pointing the trusted list loader, the X-Road validation proxy and the report signature
+     * service at the stubs.
+     */
+    public Map<String, Object> getSivaProperties() {
+        return Collections.unmodifiableMap(sivaProperties);
+    }
+
+    public String getUrl(String path) {
+        return server.getUrl(path);
+    }
+
+    @Override
+    public void close() {
+        server.close();
+        if (previousDataFolder == null) {
+            System.clearProperty(DSS_DATA_FOLDER);
+        } else {
+            System.setProperty(DSS_DATA_FOLDER, previousDataFolder);
+        }
+        FileUtils.deleteQuietly(dataFolder);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP server on a free port, standing in for the external services SiVa calls.
+ */
+public class StubServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StubServer.class);
+
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+
+    public StubServer(int threads) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start stub server", e);
+        }
+        executorService = Executors.newFixedThreadPool(threads);
+        httpServer.setExecutor(executorService);
+        httpServer.start();
+        LOGGER.info("Stub server listening on {}", getUrl(""));
+    }
+
+    public StubServer register(String path, StubHandler handler) {
+        httpServer.createContext(path, exchange -> handle(exchange, handler));
+        return this;
+    }
+
+    public String getUrl(String path) {
+        InetSocketAddress address = httpServer.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + path;
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executorService.shutdownNow();
+    }
+
+    private static void handle(HttpExchange exchange, StubHandler handler) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody(); OutputStream responseBody = exchange.getResponseBody()) {
+            StubResponse response;
+            try {
+                response = handler.handle(IOUtils.toByteArray(requestBody));
+            } catch (Exception e) {
+                LOGGER.error("Stub {} failed to handle request: {}", exchange.getRequestURI(), e.getMessage(), e);
+                response = new StubResponse(500, "text/plain", String.valueOf(e.getMessage()).getBytes());
+            }
+            exchange.getResponseHeaders().set("Content-Type", response.getContentType());
+            exchange.sendResponseHeaders(response.getStatus(), response.getBody().length);
+            responseBody.write(response.getBody());
+        }
+    }
+
+    /**
+     * Handler of a single stub endpoint, given the request body.
+     */
+    @FunctionalInterface
+    public interface StubHandler {
+        StubResponse handle(byte[] request) throws Exception;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampResponseGenerator;
+import org.bouncycastle.tsp.TimeStampTokenGenerator;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RFC 3161 time-stamping authority, signing time-stamp tokens with a certificate of the stub CA.
+ */
+public class TimestampStub implements StubServer.StubHandler {
+
+    static final String CONTENT_TYPE = "application/timestamp-reply";
+    private static final ASN1ObjectIdentifier TSA_POLICY = new ASN1ObjectIdentifier("1.3.6.1.4.1.99999.1");
+
+    private final TimeStampResponseGenerator responseGenerator;
+    private final AtomicLong serialNumber = new AtomicLong();
+
+    public TimestampStub(StubCertificates certificates) {
+        try {
+            TimeStampTokenGenerator tokenGenerator = new TimeStampTokenGenerator(
+                    new JcaSimpleSignerInfoGeneratorBuilder().build(StubCertificates.SIGNATURE_ALGORITHM, certificates.getTimestampPrivateKey(), certificates.getTimestampCertificate()),
+                    new JcaDigestCalculatorProviderBuilder().build().get(new AlgorithmIdentifier(OIWObjectIdentifiers.idSHA1)),
+                    TSA_POLICY);
+            tokenGenerator.addCertificates(new JcaCertStore(Arrays.asList(certificates.getTimestampCertificate(), certificates.getCaCertificate())));
+            responseGenerator = new TimeStampResponseGenerator(tokenGenerator, TSPAlgorithms.ALLOWED);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize time-stamping stub", e);
+        }
+    }
+
+    @Override
+    public StubResponse handle(byte[] request) throws Exception {
+        TimeStampRequest timeStampRequest = new TimeStampRequest(request);
+        byte[] response;
+        synchronized (responseGenerator) {
+            response = responseGenerator.generate(timeStampRequest, BigInteger.valueOf(serialNumber.incrementAndGet()), new Date()).getEncoded();
+        }
+        return StubResponse.ok(CONTENT_TYPE, response);
+    }
+}
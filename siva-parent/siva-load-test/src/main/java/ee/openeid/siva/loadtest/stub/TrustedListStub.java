@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import eu.europa.esig.dss.DSSDocument;
+import eu.europa.esig.dss.DigestAlgorithm;
+import eu.europa.esig.dss.InMemoryDocument;
+import eu.europa.esig.dss.SignatureAlgorithm;
+import eu.europa.esig.dss.SignatureLevel;
+import eu.europa.esig.dss.SignaturePackaging;
+import eu.europa.esig.dss.SignatureValue;
+import eu.europa.esig.dss.ToBeSigned;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.x509.CertificateToken;
+import eu.europa.esig.dss.xades.XAdESSignatureParameters;
+import eu.europa.esig.dss.xades.signature.XAdESService;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Trusted list signed by the stub trusted list signer.
+ * <p>
+ * The list of trusted lists (LOTL) points to itself and to a single national trusted list trusting the stub CA,
+ * so report signatures can be extended with time-stamps and OCSP responses of the stubs. It names the configured
+ * Official Journal URL in its scheme information, so DSS accepts the signer from the {@code siva.keystore}
+ * keystore. Certificates of the validated test documents are trusted by the {@code test} profile of SiVa.
+ */
+public class TrustedListStub implements StubServer.StubHandler {
+
+    public static final String LOTL_PATH = "/lotl.xml";
+    public static final String TL_PATH = "/tl-ee.xml";
+    public static final String OJ_PATH = "/oj.html";
+    public static final String SCHEME_INFORMATION_PATH = "/tl.html";
+    static final String CONTENT_TYPE = "application/xml";
+
+    private final byte[] signedTrustedList;
+
+    private TrustedListStub(String template, StubCertificates certificates, Object... arguments) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Object[] templateArguments = new Object[arguments.length + 2];
+        templateArguments[0] = now;
+        templateArguments[1] = now.plus(30, ChronoUnit.DAYS);
+        System.arraycopy(arguments, 0, templateArguments, 2, arguments.length);
+        String trustedList = String.format(readTemplate(template), templateArguments);
+        signedTrustedList = sign(trustedList.getBytes(StandardCharsets.UTF_8), certificates);
+    }
+
+    public static TrustedListStub listOfTrustedLists(StubCertificates certificates, String lotlUrl, String ojUrl, String schemeInformationUrl, String tlUrl) {
+        return new TrustedListStub("lotl-template.xml", certificates, ojUrl, schemeInformationUrl, lotlUrl,
+                encode(certificates.getTrustedListSignerCertificate()), tlUrl);
+    }
+
+    public static TrustedListStub nationalTrustedList(StubCertificates certificates, String tlUrl) {
+        return new TrustedListStub("tl-template.xml", certificates, tlUrl, encode(certificates.getCaCertificate()));
+    }
+
+    @Override
+    public StubResponse handle(byte[] request) {
+        return StubResponse.ok(CONTENT_TYPE, signedTrustedList);
+    }
+
+    private static String readTemplate(String template) {
+        try (InputStream inputStream = TrustedListStub.class.getResourceAsStream(template)) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read trusted list template", e);
+        }
+    }
+
+    private static String encode(X509Certificate certificate) {
+        try {
+            return Base64.getEncoder().encodeToString(certificate.getEncoded());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encode certificate " + certificate.getSubjectX500Principal(), e);
+        }
+    }
+
+    private static byte[] sign(byte[] trustedList, StubCertificates certificates) {
+        XAdESSignatureParameters parameters = new XAdESSignatureParameters();
+        parameters.setSignatureLevel(SignatureLevel.XAdES_BASELINE_B);
+        parameters.setSignaturePackaging(SignaturePackaging.ENVELOPED);
+        parameters.setDigestAlgorithm(DigestAlgorithm.SHA256);
+        parameters.setSigningCertificate(new CertificateToken(certificates.getTrustedListSignerCertificate()));
+
+        XAdESService service = new XAdESService(new CommonCertificateVerifier());
+        DSSDocument document = new InMemoryDocument(trustedList, "lotl.xml");
+        ToBeSigned dataToSign = service.getDataToSign(document, parameters);
+        try {
+            Signature signature = Signature.getInstance(StubCertificates.SIGNATURE_ALGORITHM);
+            signature.initSign(certificates.getTrustedListSignerPrivateKey());
+            signature.update(dataToSign.getBytes());
+            SignatureValue signatureValue = new SignatureValue(SignatureAlgorithm.RSA_SHA256, signature.sign());
+            try (InputStream signedDocument = service.signDocument(document, parameters, signatureValue).openStream()) {
+                return IOUtils.toByteArray(signedDocument);
+            }
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Failed to sign trusted list", e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.validation.document.report.DetailedReport;
+import ee.openeid.siva.validation.document.report.Policy;
+import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.siva.validation.document.report.SignatureValidationData;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.ValidatedDocument;
+import ee.openeid.siva.validation.document.report.ValidationConclusion;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * X-Road validation service answering every validation with a canned report of one valid signature, after an
+ * optional delay simulating the validation time of the real service.
+ */
+public class XROADValidationStub implements StubServer.StubHandler {
+
+    public static final String VALIDATION_PATH = "/xroad-validation";
+    public static final String HEALTH_PATH = "/monitoring/health";
+    static final String CONTENT_TYPE = "application/json";
+    private static final byte[] HEALTH_RESPONSE = "{\"status\":\"UP\"}".getBytes();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long delayInMillis;
+
+    public XROADValidationStub(long delayInMillis) {
+        this.delayInMillis = delayInMillis;
+    }
+
+    @Override
+    public StubResponse handle(byte[] request) throws Exception {
+        JsonNode validationDocument = objectMapper.readTree(request);
+        if (delayInMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep(delayInMillis);
+        }
+        return StubResponse.ok(CONTENT_TYPE, objectMapper.writeValueAsBytes(createReports(validationDocument.path("name").asText())));
+    }
+
+    public static StubResponse health(byte[] request) {
+        return StubResponse.ok(CONTENT_TYPE, HEALTH_RESPONSE);
+    }
+
+    private static Reports createReports(String filename) {
+        String now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString();
+
+        Policy policy = new Policy();
+        policy.setPolicyName("POLv4");
+        policy.setPolicyDescription("Stub X-Road validation policy");
+        policy.setPolicyUrl("http://open-eid.github.io/SiVa/siva2/appendix/validation_policy/");
+
+        ValidatedDocument validatedDocument = new ValidatedDocument();
+        validatedDocument.setFilename(filename);
+
+        SignatureValidationData signature = new SignatureValidationData();
+        signature.setId("signature");
+        signature.setSignatureFormat("XAdES_BASELINE_LT");
+        signature.setSignedBy("SiVa load test");
+        signature.setIndication(SignatureValidationData.Indication.TOTAL_PASSED);
+        signature.setClaimedSigningTime(now);
+        signature.setErrors(Collections.emptyList());
+        signature.setWarnings(Collections.emptyList());
+
+        ValidationConclusion validationConclusion = new ValidationConclusion();
+        validationConclusion.setPolicy(policy);
+        validationConclusion.setValidationTime(now);
+        validationConclusion.setSignatureForm("ASiC-E_batchsignature");
+        validationConclusion.setValidatedDocument(validatedDocument);
+        validationConclusion.setSignatures(Collections.singletonList(signature));
+        validationConclusion.setSignaturesCount(1);
+        validationConclusion.setValidSignaturesCount(1);
+        return new Reports(new SimpleReport(validationConclusion), new DetailedReport(validationConclusion, null));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyStatisticsTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void percentilesUseNearestRank() {
+        LatencyStatistics statistics = new LatencyStatistics(LongStream.rangeClosed(1, 100)
+                .map(TimeUnit.MILLISECONDS::toNanos)
+                .map(latency -> 101 * TimeUnit.MILLISECONDS.toNanos(1) - latency)
+                .toArray());
+
+        assertEquals(100, statistics.getCount());
+        assertEquals(50, statistics.getPercentileInMillis(50), DELTA);
+        assertEquals(90, statistics.getPercentileInMillis(90), DELTA);
+        assertEquals(99, statistics.getPercentileInMillis(99), DELTA);
+        assertEquals(100, statistics.getMaxInMillis(), DELTA);
+        assertEquals(50.5, statistics.getMeanInMillis(), DELTA);
+    }
+
+    @Test
+    public void singleLatencyIsEveryPercentile() {
+        LatencyStatistics statistics = new LatencyStatistics(new long[]{TimeUnit.MILLISECONDS.toNanos(7)});
+
+        assertEquals(7, statistics.getPercentileInMillis(50), DELTA);
+        assertEquals(7, statistics.getPercentileInMillis(99.9), DELTA);
+    }
+
+    @Test
+    public void emptyStatisticsAreZero() {
+        LatencyStatistics statistics = new LatencyStatistics(new long[0]);
+
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getPercentileInMillis(99), DELTA);
+        assertEquals(0, statistics.getMaxInMillis(), DELTA);
+    }
+
+    @Test
+    public void recorderCountsErrorsByType() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(ContainerType.PDF, 200, 1);
+        recorder.record(ContainerType.PDF, 503, 2);
+        recorder.record(ContainerType.DDOC, LatencyRecorder.IO_ERROR_STATUS, 3);
+
+        assertEquals(2, recorder.getErrors());
+        assertEquals(1, recorder.getErrors(ContainerType.PDF));
+        assertEquals(3, recorder.getStatistics().getCount());
+        assertEquals(2, recorder.getStatisticsByType().get(ContainerType.PDF).getCount());
+        assertEquals(Integer.valueOf(1), recorder.getStatuses().get(503));
+    }
+}
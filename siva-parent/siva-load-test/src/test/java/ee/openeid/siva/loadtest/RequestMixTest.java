@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RequestMixTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void mixIsParsedInGivenOrderWithoutZeroWeights() {
+        Map<ContainerType, Integer> weights = RequestMix.parseWeights("pdf=3, XROAD=1,bdoc=0");
+
+        assertEquals(Arrays.asList(ContainerType.PDF, ContainerType.XROAD), Arrays.asList(weights.keySet().toArray()));
+        assertEquals(Integer.valueOf(3), weights.get(ContainerType.PDF));
+    }
+
+    @Test
+    public void unknownContainerTypeIsRejected() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Unknown container type 'docx'");
+        RequestMix.parseWeights("pdf=1,docx=1");
+    }
+
+    @Test
+    public void mixWithoutPositiveWeightsIsRejected() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("no container types with positive weight");
+        RequestMix.parseWeights("pdf=0");
+    }
+
+    @Test
+    public void requestsAreChosenByWeight() {
+        Map<ContainerType, Integer> weights = new LinkedHashMap<>();
+        weights.put(ContainerType.PDF, 3);
+        weights.put(ContainerType.XROAD, 1);
+        RequestMix mix = new RequestMix(weights, Collections.emptyMap(), "Simple");
+        Random random = new Random(1);
+
+        Map<ContainerType, Integer> counts = new EnumMap<>(ContainerType.class);
+        for (int i = 0; i < 4000; i++) {
+            counts.merge(mix.next(random).getType(), 1, Integer::sum);
+        }
+
+        assertTrue(Math.abs(counts.get(ContainerType.PDF) - 3000) < 150);
+        assertTrue(Math.abs(counts.get(ContainerType.XROAD) - 1000) < 150);
+    }
+
+    @Test
+    public void xroadRequestHasDocumentType() {
+        RequestMix mix = new RequestMix(Collections.singletonMap(ContainerType.XROAD, 1), Collections.emptyMap(), "Simple");
+
+        String body = new String(mix.getRequests().get(0).getBody());
+
+        assertTrue(body.contains("\"filename\":\"xroad-simple.asice\""));
+        assertTrue(body.contains("\"documentType\":\"XROAD\""));
+        assertTrue(body.contains("\"reportType\":\"Simple\""));
+    }
+}
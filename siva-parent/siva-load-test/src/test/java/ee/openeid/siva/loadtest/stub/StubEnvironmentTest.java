@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import eu.europa.esig.dss.client.http.commons.CommonsDataLoader;
+import eu.europa.esig.dss.tsl.TSLValidationModel;
+import eu.europa.esig.dss.tsl.TrustedListsCertificateSource;
+import eu.europa.esig.dss.tsl.service.TSLRepository;
+import eu.europa.esig.dss.tsl.service.TSLValidationJob;
+import eu.europa.esig.dss.validation.policy.rules.Indication;
+import eu.europa.esig.dss.x509.KeyStoreCertificateSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class StubEnvironmentTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StubEnvironment stubEnvironment;
+    private Map<String, Object> sivaProperties;
+
+    @Before
+    public void setUp() {
+        stubEnvironment = new StubEnvironment(2, 0);
+        sivaProperties = stubEnvironment.getSivaProperties();
+    }
+
+    @After
+    public void tearDown() {
+        stubEnvironment.close();
+    }
+
+    @Test
+    public void trustedListsAreValidatedWithConfiguredKeystore() throws Exception {
+        TrustedListsCertificateSource trustedListSource = new TrustedListsCertificateSource();
+        TSLRepository repository = new TSLRepository();
+        repository.setTrustedListsCertificateSource(trustedListSource);
+        repository.setCacheDirectoryPath(temporaryFolder.newFolder().getAbsolutePath());
+
+        TSLValidationJob validationJob = new TSLValidationJob();
+        validationJob.setDataLoader(new CommonsDataLoader());
+        validationJob.setRepository(repository);
+        validationJob.setLotlUrl(property("siva.tsl.loader.url"));
+        validationJob.setLotlCode("EU");
+        validationJob.setOjUrl(property("siva.tsl.loader.ojUrl"));
+        validationJob.setLotlRootSchemeInfoUri(property("siva.tsl.loader.lotlRootSchemeInfoUri"));
+        validationJob.setOjContentKeyStore(new KeyStoreCertificateSource(
+                new File(System.getProperty(StubEnvironment.DSS_DATA_FOLDER), property("siva.keystore.filename")),
+                property("siva.keystore.type"), property("siva.keystore.password")));
+        validationJob.setFilterTerritories(Collections.singletonList("EE"));
+        validationJob.setCheckLOTLSignature(true);
+        validationJob.setCheckTSLSignatures(true);
+        validationJob.refresh();
+
+        Map<String, TSLValidationModel> validationModels = repository.getAllMapTSLValidationModels();
+        assertEquals(2, validationModels.size());
+        for (TSLValidationModel validationModel : validationModels.values()) {
+            assertEquals(validationModel.getUrl(), Indication.TOTAL_PASSED, validationModel.getValidationResult().getIndication());
+        }
+        assertEquals(1, trustedListSource.getCertificates().size());
+    }
+
+    @Test
+    public void dssDataFolderIsRestoredOnClose() {
+        String dataFolder = System.getProperty(StubEnvironment.DSS_DATA_FOLDER);
+
+        stubEnvironment.close();
+
+        assertEquals(false, new File(dataFolder).exists());
+        assertEquals(null, System.getProperty(StubEnvironment.DSS_DATA_FOLDER));
+    }
+
+    private String property(String name) {
+        return (String) sivaProperties.get(name);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.loadtest.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.validation.document.report.Reports;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampRequestGenerator;
+import org.bouncycastle.tsp.TimeStampResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StubHandlersTest {
+
+    private static StubCertificates certificates;
+
+    @BeforeClass
+    public static void setUpClass() {
+        certificates = new StubCertificates();
+    }
+
+    @Test
+    public void ocspStubAnswersGoodSignedByCa() throws Exception {
+        CertificateID certificateId = new CertificateID(new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                new JcaX509CertificateHolder(certificates.getCaCertificate()), certificates.getTimestampCertificate().getSerialNumber());
+        byte[] request = new OCSPReqBuilder().addRequest(certificateId).build().getEncoded();
+
+        StubResponse response = new OcspStub(certificates).handle(request);
+
+        BasicOCSPResp basicResponse = (BasicOCSPResp) new OCSPResp(response.getBody()).getResponseObject();
+        assertEquals(OcspStub.CONTENT_TYPE, response.getContentType());
+        assertEquals(CertificateStatus.GOOD, basicResponse.getResponses()[0].getCertStatus());
+        assertTrue(basicResponse.isSignatureValid(new JcaContentVerifierProviderBuilder().build(certificates.getCaCertificate())));
+    }
+
+    @Test
+    public void timestampStubGrantsRequest() throws Exception {
+        TimeStampRequestGenerator requestGenerator = new TimeStampRequestGenerator();
+        requestGenerator.setCertReq(true);
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest("report".getBytes());
+        TimeStampRequest request = requestGenerator.generate(TSPAlgorithms.SHA256, digest, BigInteger.ONE);
+
+        StubResponse response = new TimestampStub(certificates).handle(request.getEncoded());
+
+        TimeStampResponse timeStampResponse = new TimeStampResponse(response.getBody());
+        timeStampResponse.validate(request);
+        timeStampResponse.getTimeStampToken().validate(new JcaSimpleSignerInfoVerifierBuilder().build(certificates.getTimestampCertificate()));
+    }
+
+    @Test
+    public void xroadStubReturnsValidReportOfRequestedDocument() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        StubResponse response = new XROADValidationStub(0).handle("{\"name\":\"xroad-simple.asice\"}".getBytes());
+
+        Reports reports = objectMapper.readValue(response.getBody(), Reports.class);
+        assertEquals("xroad-simple.asice", reports.getSimpleReport().getValidationConclusion().getValidatedDocument().getFilename());
+        assertEquals(Integer.valueOf(1), reports.getSimpleReport().getValidationConclusion().getValidSignaturesCount());
+        assertEquals("TOTAL-PASSED", reports.getDetailedReport().getValidationConclusion().getSignatures().get(0).getIndication());
+    }
+}
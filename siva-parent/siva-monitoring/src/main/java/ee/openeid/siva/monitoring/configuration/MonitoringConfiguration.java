@@ -28,25 +28,43 @@ import org.springframework.util.Assert;
 import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.ServletContext;
 import java.net.MalformedURLException;
 import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @EnableConfigurationProperties({MonitoringProperties.class})
 public abstract class MonitoringConfiguration implements BeanFactoryAware {
 
     public static final String DEFAULT_MONITORING_ENDPOINT = "/monitoring/health";
     public static final int DEFAULT_TIMEOUT = 10000;
+    public static final long DEFAULT_LINK_POLL_INTERVAL = 10000;
 
     private BeanFactory beanFactory;
 
     private MonitoringProperties healthProperties;
 
+    private ScheduledThreadPoolExecutor linkPoller;
+
+    private int polledLinks;
+
     @PostConstruct
     public void setUpLinkIndicators() throws MalformedURLException {
         setUpExternalLinkIndicators(beanFactory, healthProperties);
     }
 
+    @PreDestroy
+    public synchronized void stopLinkPolling() {
+        if (linkPoller != null) {
+            linkPoller.shutdownNow();
+            linkPoller = null;
+            polledLinks = 0;
+        }
+    }
+
     @Bean
     public ApplicationHealthIndicator health(ServletContext context) {
         return new ApplicationHealthIndicator(context);
@@ -66,28 +84,58 @@ public abstract class MonitoringConfiguration implements BeanFactoryAware {
         Assert.state(beanFactory instanceof ConfigurableBeanFactory, "wrong bean factory type");
         ConfigurableBeanFactory configurableBeanFactory = (ConfigurableBeanFactory) beanFactory;
 
+        long pollInterval = getLinkPollInterval(healthProperties);
         if (healthProperties == null || healthProperties.getLinks().size() == 0) {
-            setUpBeans(configurableBeanFactory, getDefaultExternalLinks());
+            setUpBeans(configurableBeanFactory, getDefaultExternalLinks(), pollInterval);
         } else {
-            setUpBeans(configurableBeanFactory, healthProperties.getLinks());
+            setUpBeans(configurableBeanFactory, healthProperties.getLinks(), pollInterval);
         }
     }
 
-    private void setUpBeans(ConfigurableBeanFactory configurableBeanFactory, List<UrlHealthIndicator.ExternalLink> list) throws MalformedURLException {
+    private void setUpBeans(ConfigurableBeanFactory configurableBeanFactory, List<UrlHealthIndicator.ExternalLink> list, long pollInterval) throws MalformedURLException {
         int linkIndex = 0;
         for (UrlHealthIndicator.ExternalLink link : list) {
-            addNewUrlHealthIndicator(("link" + (++linkIndex)), configurableBeanFactory, link);
+            addNewUrlHealthIndicator(("link" + (++linkIndex)), configurableBeanFactory, link, pollInterval);
         }
     }
 
     protected void addNewUrlHealthIndicator(String beanName, ConfigurableBeanFactory configurableBeanFactory, UrlHealthIndicator.ExternalLink link) throws MalformedURLException {
+        addNewUrlHealthIndicator(beanName, configurableBeanFactory, link, getLinkPollInterval(healthProperties));
+    }
+
+    protected void addNewUrlHealthIndicator(String beanName, ConfigurableBeanFactory configurableBeanFactory, UrlHealthIndicator.ExternalLink link, long pollInterval) throws MalformedURLException {
+        Assert.isTrue(pollInterval > 0, "link poll interval must be positive");
         UrlHealthIndicator indicator = new UrlHealthIndicator();
         indicator.setExternalLink(link);
+        int timeout = link.getTimeout() > 0 ? link.getTimeout() : DEFAULT_TIMEOUT;
         RestTemplate restTemplate = new RestTemplate();
-        ((SimpleClientHttpRequestFactory)restTemplate.getRequestFactory()).setConnectTimeout(link.getTimeout());
-        ((SimpleClientHttpRequestFactory)restTemplate.getRequestFactory()).setReadTimeout(link.getTimeout());
+        ((SimpleClientHttpRequestFactory)restTemplate.getRequestFactory()).setConnectTimeout(timeout);
+        ((SimpleClientHttpRequestFactory)restTemplate.getRequestFactory()).setReadTimeout(timeout);
         indicator.setRestTemplate(restTemplate);
         configurableBeanFactory.registerSingleton(beanName, indicator);
+        schedulePolling(indicator, pollInterval);
+    }
+
+    /**
+     * Every link is polled on its own thread of a single poller, so a slow link does not delay the others.
+     */
+    private synchronized void schedulePolling(UrlHealthIndicator indicator, long pollInterval) {
+        if (linkPoller == null) {
+            AtomicInteger pollerIndex = new AtomicInteger();
+            linkPoller = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "siva-health-link-poller-" + pollerIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        linkPoller.setCorePoolSize(++polledLinks);
+        linkPoller.scheduleWithFixedDelay(indicator::refresh, 0, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private static long getLinkPollInterval(MonitoringProperties healthProperties) {
+        long pollInterval = healthProperties != null ? healthProperties.getLinkPollIntervalInMillis() : DEFAULT_LINK_POLL_INTERVAL;
+        Assert.isTrue(pollInterval > 0, "link poll interval must be positive");
+        return pollInterval;
     }
 
     public abstract List<UrlHealthIndicator.ExternalLink> getDefaultExternalLinks();
@@ -26,6 +26,8 @@ public class MonitoringProperties {
 
     private List<UrlHealthIndicator.ExternalLink> links = new ArrayList<>();
 
+    private long linkPollIntervalInMillis = MonitoringConfiguration.DEFAULT_LINK_POLL_INTERVAL;
+
     public List<UrlHealthIndicator.ExternalLink> getLinks() {
         return links;
     }
@@ -33,4 +35,12 @@ public class MonitoringProperties {
     public void setLinks(List<UrlHealthIndicator.ExternalLink> links) {
         this.links = links;
     }
+
+    public long getLinkPollIntervalInMillis() {
+        return linkPollIntervalInMillis;
+    }
+
+    public void setLinkPollIntervalInMillis(long linkPollIntervalInMillis) {
+        this.linkPollIntervalInMillis = linkPollIntervalInMillis;
+    }
 }
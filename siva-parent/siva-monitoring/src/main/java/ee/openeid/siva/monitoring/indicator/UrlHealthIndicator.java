@@ -24,10 +24,19 @@ import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.Status;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Health of an external link. The link is polled in the background by calling {@link #refresh()}, a health check
+ * returns the result of the latest poll with the time it was checked, or {@link Status#UNKNOWN} before the first
+ * poll has completed.
+ */
 public class UrlHealthIndicator extends AbstractHealthIndicator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UrlHealthIndicator.class);
     public static final String RESPONSE_PARAM_NAME = "name";
+    public static final String CHECKED_AT_PARAM_NAME = "checkedAt";
 
     @Autowired
     private ExternalLink externalLink;
@@ -35,26 +44,41 @@ public class UrlHealthIndicator extends AbstractHealthIndicator {
     @Autowired
     private RestTemplate restTemplate;
 
+    private Clock clock = Clock.systemUTC();
+
+    private volatile CheckResult lastCheckResult;
+
     public UrlHealthIndicator() { }
 
-    @Override
-    protected void doHealthCheck(Health.Builder builder) throws Exception {
+    public void refresh() {
+        Status status;
         try {
-            builder.withDetail(RESPONSE_PARAM_NAME, externalLink.getName());
             HealthStatus response = restTemplate.getForObject(externalLink.getUrl(), UrlHealthIndicator.HealthStatus.class);
             LOGGER.debug(response.toString());
-            setHealtStatus(builder, response);
+            status = getHealthStatus(response);
         } catch (Exception e) {
             LOGGER.error("Failed to establish connection to '" + externalLink.getUrl() + "' > " + e.getMessage());
-            builder.down();
+            status = Status.DOWN;
+        }
+        lastCheckResult = new CheckResult(status, clock.instant());
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        builder.withDetail(RESPONSE_PARAM_NAME, externalLink.getName());
+        CheckResult checkResult = lastCheckResult;
+        if (checkResult == null) {
+            builder.unknown();
+            return;
         }
+        builder.status(checkResult.status).withDetail(CHECKED_AT_PARAM_NAME, checkResult.checkedAt.toString());
     }
 
-    private void setHealtStatus(Health.Builder builder, HealthStatus health) {
+    private Status getHealthStatus(HealthStatus health) {
         if (health.getStatus().equals(Status.UP.toString()))
-            builder.up();
+            return Status.UP;
         else
-            builder.down();
+            return Status.DOWN;
     }
 
     public void setExternalLink(ExternalLink externalLink) {
@@ -73,6 +97,20 @@ public class UrlHealthIndicator extends AbstractHealthIndicator {
         return externalLink;
     }
 
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private static class CheckResult {
+        private final Status status;
+        private final Instant checkedAt;
+
+        CheckResult(Status status, Instant checkedAt) {
+            this.status = status;
+            this.checkedAt = checkedAt;
+        }
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class HealthStatus {
         private String status;
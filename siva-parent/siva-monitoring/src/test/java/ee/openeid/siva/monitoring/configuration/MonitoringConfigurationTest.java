@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.monitoring.configuration;
+
+import ee.openeid.siva.monitoring.indicator.UrlHealthIndicator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MonitoringConfigurationTest {
+
+    private static final String LINK_POLLER_THREAD_PREFIX = "siva-health-link-poller-";
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private TestMonitoringConfiguration monitoringConfiguration;
+    private MonitoringProperties healthProperties;
+
+    @Before
+    public void setUp() {
+        healthProperties = new MonitoringProperties();
+        monitoringConfiguration = new TestMonitoringConfiguration();
+    }
+
+    @After
+    public void tearDown() {
+        monitoringConfiguration.stopLinkPolling();
+    }
+
+    @Test
+    public void urlHealthIndicatorCanBeAddedWithoutSettingUpLinks() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+        monitoringConfiguration.addNewUrlHealthIndicator("link", beanFactory, createLink());
+
+        assertTrue(beanFactory.getBean("link") instanceof UrlHealthIndicator);
+    }
+
+    @Test
+    public void linkPollerIsSharedByRepeatedSetUps() throws Exception {
+        monitoringConfiguration.setUpExternalLinkIndicators(new DefaultListableBeanFactory(), healthProperties);
+        monitoringConfiguration.setUpExternalLinkIndicators(new DefaultListableBeanFactory(), healthProperties);
+
+        monitoringConfiguration.stopLinkPolling();
+
+        assertEquals(0, awaitLinkPollerThreadsStopped());
+    }
+
+    @Test
+    public void nonPositivePollIntervalIsRejected() throws Exception {
+        healthProperties.setLinkPollIntervalInMillis(0);
+
+        expectedException.expect(IllegalArgumentException.class);
+        monitoringConfiguration.setUpExternalLinkIndicators(new DefaultListableBeanFactory(), healthProperties);
+    }
+
+    private static long awaitLinkPollerThreadsStopped() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        long linkPollerThreads = countLinkPollerThreads();
+        while (linkPollerThreads > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            linkPollerThreads = countLinkPollerThreads();
+        }
+        return linkPollerThreads;
+    }
+
+    private static long countLinkPollerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.isAlive() && thread.getName().startsWith(LINK_POLLER_THREAD_PREFIX))
+                .count();
+    }
+
+    private static UrlHealthIndicator.ExternalLink createLink() {
+        return new UrlHealthIndicator.ExternalLink("localLink", "http://localhost:1/monitoring/health", 100);
+    }
+
+    private static class TestMonitoringConfiguration extends MonitoringConfiguration {
+
+        @Override
+        public List<UrlHealthIndicator.ExternalLink> getDefaultExternalLinks() {
+            return Collections.singletonList(createLink());
+        }
+    }
+}
@@ -27,6 +27,11 @@ import org.springframework.boot.actuate.health.Status;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static ee.openeid.siva.monitoring.indicator.UrlHealthIndicator.CHECKED_AT_PARAM_NAME;
 import static ee.openeid.siva.monitoring.indicator.UrlHealthIndicator.RESPONSE_PARAM_NAME;
 import static org.junit.Assert.assertEquals;
 
@@ -36,6 +41,7 @@ public class UrlHealthIndicatorTest {
     public static final String TEST_LINK_NAME = "someLinkToExternalSystem";
     public static final String TEST_LINK_URL = "http://localhost:8080";
     public static final int TEST_TIMEOUT = 100;
+    public static final Instant TEST_CHECKED_AT = Instant.parse("2017-01-01T10:15:30Z");
     @Mock
     private RestTemplate restTemplate;
 
@@ -50,6 +56,7 @@ public class UrlHealthIndicatorTest {
         Mockito.when(externalLink.getName()).thenReturn(TEST_LINK_NAME);
         Mockito.when(externalLink.getUrl()).thenReturn(TEST_LINK_URL);
         Mockito.when(externalLink.getTimeout()).thenReturn(TEST_TIMEOUT);
+        urlHealthIndicator.setClock(Clock.fixed(TEST_CHECKED_AT, ZoneOffset.UTC));
     }
 
     @Test
@@ -57,6 +64,7 @@ public class UrlHealthIndicatorTest {
 
         Mockito.when(restTemplate.getForObject(Mockito.eq(externalLink.getUrl()), Mockito.eq(UrlHealthIndicator.HealthStatus.class))).thenReturn(new UrlHealthIndicator.HealthStatus(Status.UP.getCode()));
 
+        urlHealthIndicator.refresh();
         Health health = urlHealthIndicator.health();
         assertEquals(Status.UP, health.getStatus());
         assertEquals(TEST_LINK_NAME, health.getDetails().get(RESPONSE_PARAM_NAME));
@@ -67,6 +75,7 @@ public class UrlHealthIndicatorTest {
 
         Mockito.when(restTemplate.getForObject(Mockito.eq(externalLink.getUrl()), Mockito.eq(UrlHealthIndicator.HealthStatus.class))).thenReturn(new UrlHealthIndicator.HealthStatus(Status.DOWN.getCode()));
 
+        urlHealthIndicator.refresh();
         Health health = urlHealthIndicator.health();
         assertEquals(Status.DOWN, health.getStatus());
         assertEquals(TEST_LINK_NAME, health.getDetails().get(RESPONSE_PARAM_NAME));
@@ -77,8 +86,30 @@ public class UrlHealthIndicatorTest {
 
         Mockito.when(restTemplate.getForObject(Mockito.eq(externalLink.getUrl()), Mockito.eq(UrlHealthIndicator.HealthStatus.class))).thenThrow(new RestClientException("any rest exception"));
 
+        urlHealthIndicator.refresh();
         Health health = urlHealthIndicator.health();
         assertEquals(Status.DOWN, health.getStatus());
         assertEquals(TEST_LINK_NAME, health.getDetails().get(RESPONSE_PARAM_NAME));
     }
+
+    @Test
+    public void whenLinkIsNotPolledYet() {
+
+        Health health = urlHealthIndicator.health();
+        assertEquals(Status.UNKNOWN, health.getStatus());
+        assertEquals(TEST_LINK_NAME, health.getDetails().get(RESPONSE_PARAM_NAME));
+    }
+
+    @Test
+    public void healthIsReturnedFromLatestPoll() {
+
+        Mockito.when(restTemplate.getForObject(Mockito.eq(externalLink.getUrl()), Mockito.eq(UrlHealthIndicator.HealthStatus.class))).thenReturn(new UrlHealthIndicator.HealthStatus(Status.UP.getCode()));
+        urlHealthIndicator.refresh();
+
+        urlHealthIndicator.health();
+        Health health = urlHealthIndicator.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(TEST_CHECKED_AT.toString(), health.getDetails().get(CHECKED_AT_PARAM_NAME));
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(Mockito.anyString(), Mockito.eq(UrlHealthIndicator.HealthStatus.class));
+    }
 }
@@ -21,23 +21,28 @@ import ee.openeid.siva.signature.configuration.Pkcs12Properties;
 import ee.openeid.siva.signature.configuration.SignatureServiceConfigurationProperties;
 import ee.openeid.siva.signature.exception.SignatureServiceException;
 import ee.openeid.siva.signature.ocsp.SkOcspSource;
+import ee.openeid.siva.signature.token.SignatureTokenPool;
 import ee.openeid.siva.signature.tsp.SKTimestampDataLoader;
 import eu.europa.esig.dss.*;
 import eu.europa.esig.dss.asic.ASiCWithXAdESSignatureParameters;
 import eu.europa.esig.dss.asic.signature.ASiCWithXAdESService;
 import eu.europa.esig.dss.client.tsp.OnlineTSPSource;
-import eu.europa.esig.dss.token.AbstractSignatureTokenConnection;
 import eu.europa.esig.dss.token.DSSPrivateKeyEntry;
 import eu.europa.esig.dss.token.Pkcs11SignatureToken;
 import eu.europa.esig.dss.token.Pkcs12SignatureToken;
 import eu.europa.esig.dss.tsl.TrustedListsCertificateSource;
 import eu.europa.esig.dss.validation.CommonCertificateVerifier;
-import eu.europa.esig.dss.x509.ocsp.OCSPSource;
 import eu.europa.esig.dss.x509.tsp.TSPSource;
 import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -47,7 +52,12 @@ import java.util.Arrays;
 @Service
 public class AsiceWithXadesSignatureService implements SignatureService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsiceWithXadesSignatureService.class);
+
     private static final String CLASSPATH = "classpath:";
+    static final String SIGN_TIMER_METRIC = "timer.siva.signature.sign";
+    static final String SIGN_FAILURE_METRIC = "siva.signature.sign.failure";
+    static final String CONTEXT_RELOAD_METRIC = "siva.signature.context.reload";
 
     @Autowired
     private SignatureServiceConfigurationProperties properties;
@@ -55,19 +65,140 @@ public class AsiceWithXadesSignatureService implements SignatureService {
     @Autowired
     private TrustedListsCertificateSource trustedListSource;
 
+    @Autowired(required = false)
+    private GaugeService gaugeService;
+
+    @Autowired(required = false)
+    private CounterService counterService;
+
+    private volatile SigningContext signingContext;
+
     @Override
     public byte[] getSignature(byte[] dataToSign, String dataName, String mimeTypeString) throws IOException {
-        if (properties == null) {
+        long start = System.nanoTime();
+        try {
+            SigningContext context = acquireSigningContext();
+            try {
+                byte[] signature = sign(context, dataToSign, dataName, mimeTypeString);
+                submitGauge(SIGN_TIMER_METRIC, (System.nanoTime() - start) / 1_000_000.0);
+                return signature;
+            } finally {
+                context.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            incrementCounter(SIGN_FAILURE_METRIC);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (signingContext != null) {
+            signingContext.close();
+            signingContext = null;
+        }
+    }
+
+    public SignatureServiceConfigurationProperties getProperties() {
+        return properties;
+    }
+
+    public void setProperties(SignatureServiceConfigurationProperties signatureServiceConfigurationProperties) {
+        properties = signatureServiceConfigurationProperties;
+    }
+
+    public void setGaugeService(GaugeService gaugeService) {
+        this.gaugeService = gaugeService;
+    }
+
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
+    }
+
+    SigningContext getSigningContext() {
+        SignatureServiceConfigurationProperties configurationProperties = properties;
+        if (configurationProperties == null) {
             throw new SignatureServiceException("Signature configuration properties not set!");
         }
+        SigningContext context = signingContext;
+        if (context != null && context.isConfiguredWith(configurationProperties) && !context.isKeystoreModified()) {
+            return context;
+        }
+        synchronized (this) {
+            if (signingContext == context) {
+                SigningContext reloadedContext = reloadSigningContext(context, configurationProperties);
+                signingContext = reloadedContext;
+                if (context != null && reloadedContext != context) {
+                    context.close();
+                    incrementCounter(CONTEXT_RELOAD_METRIC);
+                }
+            }
+            return signingContext;
+        }
+    }
 
-        AbstractSignatureTokenConnection signatureToken = getSignatureToken(properties);
+    /**
+     * Returns the current signing context with a reference taken for the caller, the reference must be released
+     * after signing. A context that is replaced and closed concurrently is skipped in favour of its replacement.
+     */
+    private SigningContext acquireSigningContext() {
+        while (true) {
+            SigningContext context = getSigningContext();
+            if (context.acquire()) {
+                return context;
+            }
+        }
+    }
 
-        DSSPrivateKeyEntry privateKeyEntry = signatureToken.getKeys().get(0);
+    private SigningContext reloadSigningContext(SigningContext currentContext, SignatureServiceConfigurationProperties configurationProperties) {
+        if (currentContext != null && currentContext.isConfiguredWith(configurationProperties)) {
+            LOGGER.info("Keystore file has been modified, reloading signing context");
+            try {
+                return createSigningContext(configurationProperties);
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to reload modified keystore, using previously loaded keystore: {}", e.getMessage(), e);
+                return currentContext;
+            }
+        }
+        return createSigningContext(configurationProperties);
+    }
+
+    private SigningContext createSigningContext(SignatureServiceConfigurationProperties configurationProperties) {
+        SignatureServiceConfigurationProperties configuration = copyOf(configurationProperties);
+        File keystoreFile = getKeystoreFile(configuration.getPkcs12());
+        long keystoreLastModified = keystoreFile == null ? 0 : keystoreFile.lastModified();
+
+        SignatureTokenPool tokenPool = getSignatureTokenPool(configuration);
+        SkOcspSource ocspSource = null;
+        try {
+            SignatureLevel signatureLevel = getSingatureLevel(configuration.getSignatureLevel());
+
+            CommonCertificateVerifier commonCertificateVerifier = new CommonCertificateVerifier();
+            ocspSource = getOcspSource(configuration.getOcspUrl(), configuration.getOcspCacheMaxAgeInSeconds());
+            commonCertificateVerifier.setOcspSource(ocspSource);
+            commonCertificateVerifier.setTrustedCertSource(trustedListSource);
+
+            ASiCWithXAdESService service = new ASiCWithXAdESService(commonCertificateVerifier);
+            TSPSource tspSource = getTspSource(configuration.getTspUrl());
+            service.setTspSource(tspSource);
+
+            long reloadCheckInterval = configuration.getPkcs12() == null ? 0 : configuration.getPkcs12().getReloadCheckIntervalInSeconds();
+            return new SigningContext(configuration, tokenPool, signatureLevel, service, ocspSource, keystoreFile, keystoreLastModified, reloadCheckInterval);
+        } catch (RuntimeException e) {
+            tokenPool.close();
+            if (ocspSource != null) {
+                ocspSource.close();
+            }
+            throw e;
+        }
+    }
+
+    private byte[] sign(SigningContext context, byte[] dataToSign, String dataName, String mimeTypeString) throws IOException {
+        SignatureTokenPool tokenPool = context.getTokenPool();
+        DSSPrivateKeyEntry privateKeyEntry = tokenPool.getPrivateKeyEntry();
 
         ASiCWithXAdESSignatureParameters parameters = new ASiCWithXAdESSignatureParameters();
-        SignatureLevel signatureLevel = getSingatureLevel(properties.getSignatureLevel());
-        parameters.setSignatureLevel(signatureLevel);
+        parameters.setSignatureLevel(context.getSignatureLevel());
         parameters.setSignaturePackaging(SignaturePackaging.DETACHED);
         parameters.aSiC().setContainerType(ASiCContainerType.ASiC_E);
         parameters.setDigestAlgorithm(DigestAlgorithm.SHA256);
@@ -75,14 +206,7 @@ public class AsiceWithXadesSignatureService implements SignatureService {
         parameters.setSigningCertificate(privateKeyEntry.getCertificate());
         parameters.setEncryptionAlgorithm(privateKeyEntry.getEncryptionAlgorithm());
 
-        CommonCertificateVerifier commonCertificateVerifier = new CommonCertificateVerifier();
-        OCSPSource ocspSource = getOcspSource(properties.getOcspUrl());
-        commonCertificateVerifier.setOcspSource(ocspSource);
-        commonCertificateVerifier.setTrustedCertSource(trustedListSource);
-
-        ASiCWithXAdESService service = new ASiCWithXAdESService(commonCertificateVerifier);
-        TSPSource tspSource = getTspSource(properties.getTspUrl());
-        service.setTspSource(tspSource);
+        ASiCWithXAdESService service = context.getService();
 
         DSSDocument documentToBeSigned = new InMemoryDocument(dataToSign, dataName);
         MimeType mimeType = new MimeType();
@@ -90,33 +214,40 @@ public class AsiceWithXadesSignatureService implements SignatureService {
         documentToBeSigned.setMimeType(mimeType);
 
         ToBeSigned toBeSigned = service.getDataToSign(documentToBeSigned, parameters);
-        SignatureValue signatureValue = signatureToken.sign(toBeSigned, parameters.getDigestAlgorithm(), privateKeyEntry);
+        SignatureValue signatureValue = signDataToSign(tokenPool, toBeSigned, parameters.getDigestAlgorithm());
         DSSDocument signedDocument = service.signDocument(documentToBeSigned, parameters, signatureValue);
 
         return IOUtils.toByteArray(signedDocument.openStream());
     }
 
-    public SignatureServiceConfigurationProperties getProperties() {
-        return properties;
-    }
-
-    public void setProperties(SignatureServiceConfigurationProperties signatureServiceConfigurationProperties) {
-        properties = signatureServiceConfigurationProperties;
+    SignatureValue signDataToSign(SignatureTokenPool tokenPool, ToBeSigned toBeSigned, DigestAlgorithm digestAlgorithm) {
+        return tokenPool.sign(toBeSigned, digestAlgorithm);
     }
 
-    private AbstractSignatureTokenConnection getSignatureToken(SignatureServiceConfigurationProperties configurationProperties) {
+    private SignatureTokenPool getSignatureTokenPool(SignatureServiceConfigurationProperties configurationProperties) {
         Pkcs11Properties pkcs11Properties = configurationProperties.getPkcs11();
         Pkcs12Properties pkcs12Properties = configurationProperties.getPkcs12();
         if (pkcs11Properties != null) {
-            return new Pkcs11SignatureToken(pkcs11Properties.getPath(), pkcs11Properties.getPassword().toCharArray(), pkcs11Properties.getSlotIndex());
+            return SignatureTokenPool.exclusive(() -> new Pkcs11SignatureToken(pkcs11Properties.getPath(), pkcs11Properties.getPassword().toCharArray(), pkcs11Properties.getSlotIndex()),
+                    pkcs11Properties.getSessionPoolSize());
         } else if (pkcs12Properties != null) {
-            InputStream p12InputStream = getKeystoreInputStream(pkcs12Properties.getPath());
-            return new Pkcs12SignatureToken(p12InputStream, pkcs12Properties.getPassword());
+            try (InputStream p12InputStream = getKeystoreInputStream(pkcs12Properties.getPath())) {
+                return SignatureTokenPool.shared(new Pkcs12SignatureToken(p12InputStream, pkcs12Properties.getPassword()));
+            } catch (IOException e) {
+                throw new SignatureServiceException("Error reading keystore from path: " + pkcs12Properties.getPath(), e);
+            }
         } else {
             throw new SignatureServiceException("Either Pkcs11 or Pkcs12 must be configured! Currently there is none configured..");
         }
     }
 
+    private File getKeystoreFile(Pkcs12Properties pkcs12Properties) {
+        if (pkcs12Properties == null || pkcs12Properties.getPath() == null || pkcs12Properties.getPath().startsWith(CLASSPATH)) {
+            return null;
+        }
+        return new File(pkcs12Properties.getPath());
+    }
+
     private InputStream getKeystoreInputStream(String keystorePath) {
         try {
             if (keystorePath.startsWith(CLASSPATH)) {
@@ -141,8 +272,8 @@ public class AsiceWithXadesSignatureService implements SignatureService {
         }
     }
 
-    private OCSPSource getOcspSource(String ocspSourceUrl) {
-        return new SkOcspSource(ocspSourceUrl);
+    private SkOcspSource getOcspSource(String ocspSourceUrl, long cacheMaxAgeInSeconds) {
+        return new SkOcspSource(ocspSourceUrl, cacheMaxAgeInSeconds);
     }
 
     private TSPSource getTspSource(String tspSourceUrl) {
@@ -151,4 +282,42 @@ public class AsiceWithXadesSignatureService implements SignatureService {
         tspSource.setDataLoader(dataLoader);
         return tspSource;
     }
+
+    private void submitGauge(String metricName, double value) {
+        if (gaugeService != null) {
+            gaugeService.submit(metricName, value);
+        }
+    }
+
+    private void incrementCounter(String metricName) {
+        if (counterService != null) {
+            counterService.increment(metricName);
+        }
+    }
+
+    private static SignatureServiceConfigurationProperties copyOf(SignatureServiceConfigurationProperties configurationProperties) {
+        SignatureServiceConfigurationProperties copy = new SignatureServiceConfigurationProperties();
+        copy.setSignatureLevel(configurationProperties.getSignatureLevel());
+        copy.setTspUrl(configurationProperties.getTspUrl());
+        copy.setOcspUrl(configurationProperties.getOcspUrl());
+        copy.setOcspCacheMaxAgeInSeconds(configurationProperties.getOcspCacheMaxAgeInSeconds());
+        Pkcs11Properties pkcs11Properties = configurationProperties.getPkcs11();
+        if (pkcs11Properties != null) {
+            Pkcs11Properties pkcs11Copy = new Pkcs11Properties();
+            pkcs11Copy.setPath(pkcs11Properties.getPath());
+            pkcs11Copy.setPassword(pkcs11Properties.getPassword());
+            pkcs11Copy.setSlotIndex(pkcs11Properties.getSlotIndex());
+            pkcs11Copy.setSessionPoolSize(pkcs11Properties.getSessionPoolSize());
+            copy.setPkcs11(pkcs11Copy);
+        }
+        Pkcs12Properties pkcs12Properties = configurationProperties.getPkcs12();
+        if (pkcs12Properties != null) {
+            Pkcs12Properties pkcs12Copy = new Pkcs12Properties();
+            pkcs12Copy.setPath(pkcs12Properties.getPath());
+            pkcs12Copy.setPassword(pkcs12Properties.getPassword());
+            pkcs12Copy.setReloadCheckIntervalInSeconds(pkcs12Properties.getReloadCheckIntervalInSeconds());
+            copy.setPkcs12(pkcs12Copy);
+        }
+        return copy;
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.signature;
+
+import ee.openeid.siva.signature.configuration.SignatureServiceConfigurationProperties;
+import ee.openeid.siva.signature.ocsp.SkOcspSource;
+import ee.openeid.siva.signature.token.SignatureTokenPool;
+import eu.europa.esig.dss.SignatureLevel;
+import eu.europa.esig.dss.asic.signature.ASiCWithXAdESService;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived signing state built from one snapshot of the signature service configuration: opened
+ * signature tokens, the signature level, the OCSP source and a configured {@link ASiCWithXAdESService}.
+ * <p>
+ * The context is outdated when the configuration changes or when the keystore file it was loaded
+ * from has been modified. The keystore file is checked at most once per reload check interval.
+ * <p>
+ * The context is reference counted: every signing acquires it and releases it when done, and the owning
+ * service drops its own reference with {@link #close()}. Tokens and the OCSP source are closed when the
+ * last reference is released, so signings that started on an outdated context still complete with it.
+ */
+class SigningContext implements Closeable {
+
+    private final SignatureServiceConfigurationProperties configuration;
+    private final SignatureTokenPool tokenPool;
+    private final SignatureLevel signatureLevel;
+    private final ASiCWithXAdESService service;
+    private final SkOcspSource ocspSource;
+    private final File keystoreFile;
+    private final long keystoreLastModified;
+    private final long reloadCheckIntervalInMillis;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicBoolean ownerReferenceReleased = new AtomicBoolean();
+    private volatile long nextReloadCheck;
+
+    SigningContext(SignatureServiceConfigurationProperties configuration, SignatureTokenPool tokenPool, SignatureLevel signatureLevel,
+                   ASiCWithXAdESService service, SkOcspSource ocspSource, File keystoreFile, long keystoreLastModified, long reloadCheckIntervalInSeconds) {
+        this.configuration = configuration;
+        this.tokenPool = tokenPool;
+        this.signatureLevel = signatureLevel;
+        this.service = service;
+        this.ocspSource = ocspSource;
+        this.keystoreFile = keystoreFile;
+        this.keystoreLastModified = keystoreLastModified;
+        this.reloadCheckIntervalInMillis = TimeUnit.SECONDS.toMillis(reloadCheckIntervalInSeconds);
+        this.nextReloadCheck = System.currentTimeMillis() + reloadCheckIntervalInMillis;
+    }
+
+    boolean isConfiguredWith(SignatureServiceConfigurationProperties properties) {
+        return configuration.equals(properties);
+    }
+
+    boolean isKeystoreModified() {
+        if (keystoreFile == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextReloadCheck) {
+            return false;
+        }
+        nextReloadCheck = now + reloadCheckIntervalInMillis;
+        return keystoreFile.lastModified() != keystoreLastModified;
+    }
+
+    SignatureTokenPool getTokenPool() {
+        return tokenPool;
+    }
+
+    SignatureLevel getSignatureLevel() {
+        return signatureLevel;
+    }
+
+    ASiCWithXAdESService getService() {
+        return service;
+    }
+
+    /**
+     * Takes a reference for a signing, fails when the context has already been closed.
+     */
+    boolean acquire() {
+        while (true) {
+            int currentReferences = references.get();
+            if (currentReferences == 0) {
+                return false;
+            }
+            if (references.compareAndSet(currentReferences, currentReferences + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            tokenPool.close();
+            ocspSource.close();
+        }
+    }
+
+    boolean isClosed() {
+        return references.get() == 0;
+    }
+
+    /**
+     * Releases the reference of the owning service, resources are closed once all signings have released the context.
+     */
+    @Override
+    public void close() {
+        if (ownerReferenceReleased.compareAndSet(false, true)) {
+            release();
+        }
+    }
+}
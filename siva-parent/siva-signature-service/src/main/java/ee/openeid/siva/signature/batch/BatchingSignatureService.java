@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.signature.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.signature.SignatureService;
+import ee.openeid.siva.signature.configuration.SignatureBatchProperties;
+import ee.openeid.siva.signature.exception.SignatureServiceException;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Signs validation reports in batches, so a batch of reports costs a single signature, timestamp and OCSP request.
+ * <p>
+ * Reports arriving within the configured window are collected and their digests are written into a
+ * {@link ValidationReportManifest}, which is then signed by the underlying signature service. Every
+ * report receives a copy of the signed container with the exact signed report bytes added next to the
+ * manifest, the digest of the added report in the signed manifest proves that the report is covered by
+ * the signature without disclosing the other reports in the batch.
+ * <p>
+ * Reports signed after the service has been closed are signed one by one in the calling thread.
+ */
+public class BatchingSignatureService implements SignatureService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingSignatureService.class);
+
+    private final SignatureService signatureService;
+    private final SignatureBatchProperties properties;
+    private final ScheduledExecutorService executorService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<PendingSignature> pendingSignatures = new ArrayList<>();
+    private ScheduledFuture<?> scheduledBatch;
+    private boolean closed;
+
+    public BatchingSignatureService(SignatureService signatureService, SignatureBatchProperties properties) {
+        if (properties.getMaxSize() < 1) {
+            throw new IllegalArgumentException("Signature batch max size must be at least 1, but was " + properties.getMaxSize());
+        }
+        this.signatureService = signatureService;
+        this.properties = properties;
+        this.executorService = Executors.newScheduledThreadPool(properties.getSigningThreads());
+    }
+
+    @Override
+    public byte[] getSignature(byte[] dataToSign, String dataName, String mimeTypeString) throws IOException {
+        PendingSignature pendingSignature = new PendingSignature(ValidationReportManifest.digest(dataToSign));
+        if (!enqueue(pendingSignature)) {
+            signBatch(Collections.singletonList(pendingSignature));
+        }
+        try {
+            return addReport(pendingSignature.signature.get(), dataName, dataToSign);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SignatureServiceException("Interrupted while waiting for report signature", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SignatureServiceException("Error signing report batch", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        List<PendingSignature> batch;
+        synchronized (this) {
+            closed = true;
+            batch = takeBatch();
+        }
+        if (!batch.isEmpty()) {
+            signBatch(batch);
+        }
+        executorService.shutdown();
+    }
+
+    /**
+     * Adds the report to the pending batch, fails when the service is closed and the batch would never be signed.
+     */
+    private synchronized boolean enqueue(PendingSignature pendingSignature) {
+        if (closed) {
+            return false;
+        }
+        pendingSignatures.add(pendingSignature);
+        if (pendingSignatures.size() >= properties.getMaxSize()) {
+            List<PendingSignature> batch = takeBatch();
+            executorService.execute(() -> signBatch(batch));
+        } else if (scheduledBatch == null) {
+            scheduledBatch = executorService.schedule(this::signScheduledBatch, properties.getWindowInMilliseconds(), TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private synchronized List<PendingSignature> takeBatch() {
+        if (scheduledBatch != null) {
+            scheduledBatch.cancel(false);
+            scheduledBatch = null;
+        }
+        List<PendingSignature> batch = pendingSignatures;
+        pendingSignatures = new ArrayList<>();
+        return batch;
+    }
+
+    private void signScheduledBatch() {
+        List<PendingSignature> batch = takeBatch();
+        if (!batch.isEmpty()) {
+            signBatch(batch);
+        }
+    }
+
+    private void signBatch(List<PendingSignature> batch) {
+        ValidationReportManifest manifest = new ValidationReportManifest();
+        batch.forEach(pendingSignature -> manifest.getReportDigests().add(pendingSignature.reportDigest));
+        try {
+            byte[] signature = signatureService.getSignature(objectMapper.writeValueAsBytes(manifest), ValidationReportManifest.FILE_NAME, ValidationReportManifest.MIME_TYPE);
+            LOGGER.debug("Signed batch of {} validation reports", batch.size());
+            batch.forEach(pendingSignature -> pendingSignature.signature.complete(signature));
+        } catch (Exception e) {
+            LOGGER.error("Error signing batch of {} validation reports", batch.size(), e);
+            batch.forEach(pendingSignature -> pendingSignature.signature.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Copies the signed container and adds the signed report bytes as a separate file, so the report can
+     * be checked against the signed manifest. The container signature itself covers only the manifest.
+     */
+    private static byte[] addReport(byte[] container, String reportName, byte[] report) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(container.length + report.length);
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(container));
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                byte[] content = IOUtils.toByteArray(zipInputStream);
+                zipOutputStream.putNextEntry(copyOf(entry, content));
+                zipOutputStream.write(content);
+                zipOutputStream.closeEntry();
+            }
+            zipOutputStream.putNextEntry(new ZipEntry(reportName));
+            zipOutputStream.write(report);
+            zipOutputStream.closeEntry();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static ZipEntry copyOf(ZipEntry entry, byte[] content) {
+        ZipEntry copy = new ZipEntry(entry.getName());
+        copy.setTime(entry.getTime());
+        copy.setComment(entry.getComment());
+        if (entry.getMethod() == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            copy.setMethod(ZipEntry.STORED);
+            copy.setSize(content.length);
+            copy.setCompressedSize(content.length);
+            copy.setCrc(crc.getValue());
+        }
+        return copy;
+    }
+
+    private static class PendingSignature {
+        private final String reportDigest;
+        private final CompletableFuture<byte[]> signature = new CompletableFuture<>();
+
+        PendingSignature(String reportDigest) {
+            this.reportDigest = reportDigest;
+        }
+    }
+}
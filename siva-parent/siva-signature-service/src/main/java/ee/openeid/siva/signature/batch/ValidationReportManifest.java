@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.signature.batch;
+
+import eu.europa.esig.dss.DSSUtils;
+import eu.europa.esig.dss.DigestAlgorithm;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Signed content of a report signature batch. Lists digests of all validation reports signed with
+ * the same signature, a report is covered by the signature when its digest is present in the manifest.
+ */
+@Data
+public class ValidationReportManifest {
+
+    public static final String FILE_NAME = "validationReportManifest.json";
+    public static final String MIME_TYPE = "application/json";
+
+    private String digestAlgorithm = DigestAlgorithm.SHA256.getName();
+    private List<String> reportDigests = new ArrayList<>();
+
+    public static String digest(byte[] report) {
+        return Base64.getEncoder().encodeToString(DSSUtils.digest(DigestAlgorithm.SHA256, report));
+    }
+
+    public boolean containsReport(byte[] report) {
+        return DigestAlgorithm.SHA256.getName().equals(digestAlgorithm) && reportDigests.contains(digest(report));
+    }
+}
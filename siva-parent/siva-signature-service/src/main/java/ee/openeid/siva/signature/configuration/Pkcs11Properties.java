@@ -23,4 +23,5 @@ public class Pkcs11Properties {
     private String path;
     private String password;
     private int slotIndex;
+    private int sessionPoolSize = 1;
 }
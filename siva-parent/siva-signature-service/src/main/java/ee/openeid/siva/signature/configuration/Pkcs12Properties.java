@@ -22,4 +22,5 @@ import lombok.Data;
 public class Pkcs12Properties {
     private String path;
     private String password;
+    private long reloadCheckIntervalInSeconds = 60;
 }
@@ -16,11 +16,23 @@
 
 package ee.openeid.siva.signature.configuration;
 
+import ee.openeid.siva.signature.AsiceWithXadesSignatureService;
+import ee.openeid.siva.signature.SignatureService;
+import ee.openeid.siva.signature.batch.BatchingSignatureService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
-@EnableConfigurationProperties({SignatureServiceConfigurationProperties.class})
+@EnableConfigurationProperties({SignatureServiceConfigurationProperties.class, SignatureBatchProperties.class})
 public class SignatureServiceConfiguration {
 
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "siva.signatureService.batch", name = "enabled", havingValue = "true")
+    public SignatureService batchingSignatureService(AsiceWithXadesSignatureService signatureService, SignatureBatchProperties properties) {
+        return new BatchingSignatureService(signatureService, properties);
+    }
 }
@@ -25,6 +25,7 @@ public class SignatureServiceConfigurationProperties {
     private String signatureLevel;
     private String tspUrl;
     private String ocspUrl;
+    private long ocspCacheMaxAgeInSeconds = 0;
     private Pkcs11Properties pkcs11;
     private Pkcs12Properties pkcs12;
 }
@@ -30,20 +30,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class SkOcspDataLoader extends OCSPDataLoader {
+/**
+ * OCSP data loader that keeps one pooling HTTP client per responder URL for the lifetime of the loader.
+ */
+public class SkOcspDataLoader extends OCSPDataLoader implements Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SkOcspDataLoader.class);
 
+    private final Map<String, CloseableHttpClient> httpClients = new ConcurrentHashMap<>();
+
     @Override
     public byte[] post(final String url, final byte[] content) throws DSSException {
         LOGGER.info("Getting OCSP response from " + url);
 
         HttpPost httpRequest = null;
         HttpResponse httpResponse = null;
-        CloseableHttpClient client = null;
         try {
             final URI uri = URI.create(url.trim());
             httpRequest = new HttpPost(uri);
@@ -61,24 +68,26 @@ public class SkOcspDataLoader extends OCSPDataLoader {
                 httpRequest.setHeader(CONTENT_TYPE, contentType);
             }
 
-            client = getHttpClient(url);
+            CloseableHttpClient client = httpClients.computeIfAbsent(url, this::getHttpClient);
             httpResponse = getHttpResponse(client, httpRequest, url);
 
             return readHttpResponse(url, httpResponse);
         } catch (IOException e) {
             throw new DSSException(e);
         } finally {
-            try {
-                if (httpRequest != null) {
-                    httpRequest.releaseConnection();
-                }
-                if (httpResponse != null) {
-                    EntityUtils.consumeQuietly(httpResponse.getEntity());
-                }
-            } finally {
-                IOUtils.closeQuietly(client);
+            if (httpRequest != null) {
+                httpRequest.releaseConnection();
+            }
+            if (httpResponse != null) {
+                EntityUtils.consumeQuietly(httpResponse.getEntity());
             }
         }
     }
+
+    @Override
+    public void close() {
+        httpClients.values().forEach(IOUtils::closeQuietly);
+        httpClients.clear();
+    }
 }
 
@@ -30,15 +30,32 @@ import org.bouncycastle.cert.ocsp.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
-public class SkOcspSource implements OCSPSource {
+/**
+ * OCSP source for signing certificates that caches responses when cache max age is set.
+ * <p>
+ * Cached response is used until its next update time or the cache max age is reached, whichever is
+ * earlier. Responses are refreshed in the background when 80% of their cache lifetime has passed, so
+ * in the steady state signing does not wait for the OCSP responder. At most one refresh is scheduled
+ * per certificate, concurrent cache misses do not schedule refreshes of their own.
+ */
+public class SkOcspSource implements OCSPSource, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SkOcspSource.class);
 
     private static final int NONCE_LENGTH = 20;
+    private static final double REFRESH_AT_LIFETIME_RATIO = 0.8;
     /**
      * The data loader used to retrieve the OCSP response.
      */
@@ -46,9 +63,28 @@ public class SkOcspSource implements OCSPSource {
 
     private String url;
 
+    private final long cacheMaxAgeInMillis;
+    private final Map<CertificateID, CachedOcspResponse> cachedResponses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CertificateID, ScheduledFuture<?>> scheduledRefreshes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refreshExecutor;
+
     public SkOcspSource(String url) {
+        this(url, 0);
+    }
+
+    public SkOcspSource(String url, long cacheMaxAgeInSeconds) {
+        this(url, cacheMaxAgeInSeconds, cacheMaxAgeInSeconds > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ocsp-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }) : null);
+    }
+
+    SkOcspSource(String url, long cacheMaxAgeInSeconds, ScheduledExecutorService refreshExecutor) {
         dataLoader = new SkOcspDataLoader();
         this.url = url;
+        this.cacheMaxAgeInMillis = TimeUnit.SECONDS.toMillis(cacheMaxAgeInSeconds);
+        this.refreshExecutor = cacheMaxAgeInMillis > 0 ? refreshExecutor : null;
         LOGGER.debug("Initialized SK Online OCSP source");
     }
 
@@ -69,6 +105,82 @@ public class SkOcspSource implements OCSPSource {
 
     @Override
     public OCSPToken getOCSPToken(CertificateToken certificateToken, CertificateToken issuerCertificateToken) {
+        if (refreshExecutor == null) {
+            return fetchOCSPToken(certificateToken, issuerCertificateToken);
+        }
+        final CertificateID certId = DSSRevocationUtils.getOCSPCertificateID(certificateToken, issuerCertificateToken);
+        CachedOcspResponse cachedResponse = cachedResponses.get(certId);
+        if (cachedResponse != null && cachedResponse.isValid(System.currentTimeMillis())) {
+            LOGGER.debug("Using cached OCSP response");
+            return cachedResponse.toOCSPToken();
+        }
+        return fetchAndCacheOCSPToken(certId, certificateToken, issuerCertificateToken, false);
+    }
+
+    @Override
+    public void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            scheduledRefreshes.clear();
+        }
+        dataLoader.close();
+    }
+
+    private OCSPToken fetchAndCacheOCSPToken(CertificateID certId, CertificateToken certificateToken, CertificateToken issuerCertificateToken,
+                                             boolean rescheduleRefresh) {
+        OCSPToken ocspToken = fetchOCSPToken(certificateToken, issuerCertificateToken);
+        if (ocspToken == null) {
+            cachedResponses.remove(certId);
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = now + cacheMaxAgeInMillis;
+        Date nextUpdate = getNextUpdate(ocspToken.getBasicOCSPResp(), certId);
+        if (nextUpdate != null) {
+            expiresAt = Math.min(expiresAt, nextUpdate.getTime());
+        }
+        if (expiresAt > now) {
+            cachedResponses.put(certId, new CachedOcspResponse(ocspToken, expiresAt));
+            long refreshDelay = (long) ((expiresAt - now) * REFRESH_AT_LIFETIME_RATIO);
+            if (rescheduleRefresh) {
+                scheduledRefreshes.put(certId, scheduleRefresh(certId, certificateToken, issuerCertificateToken, refreshDelay));
+            } else {
+                scheduledRefreshes.computeIfAbsent(certId, id -> scheduleRefresh(id, certificateToken, issuerCertificateToken, refreshDelay));
+            }
+            return ocspToken;
+        }
+        if (rescheduleRefresh) {
+            scheduledRefreshes.remove(certId);
+        }
+        return ocspToken;
+    }
+
+    private ScheduledFuture<?> scheduleRefresh(CertificateID certId, CertificateToken certificateToken, CertificateToken issuerCertificateToken, long refreshDelay) {
+        return refreshExecutor.schedule(() -> refresh(certId, certificateToken, issuerCertificateToken), refreshDelay, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh(CertificateID certId, CertificateToken certificateToken, CertificateToken issuerCertificateToken) {
+        try {
+            LOGGER.debug("Refreshing cached OCSP response");
+            if (fetchAndCacheOCSPToken(certId, certificateToken, issuerCertificateToken, true) == null) {
+                scheduledRefreshes.remove(certId);
+            }
+        } catch (RuntimeException e) {
+            scheduledRefreshes.remove(certId);
+            LOGGER.warn("Failed to refresh cached OCSP response, response is fetched again when cached response expires: {}", e.getMessage());
+        }
+    }
+
+    private static Date getNextUpdate(BasicOCSPResp basicOCSPResp, CertificateID certId) {
+        for (final SingleResp singleResp : basicOCSPResp.getResponses()) {
+            if (DSSRevocationUtils.matches(certId, singleResp)) {
+                return singleResp.getNextUpdate();
+            }
+        }
+        return null;
+    }
+
+    private OCSPToken fetchOCSPToken(CertificateToken certificateToken, CertificateToken issuerCertificateToken) {
         LOGGER.debug("Getting OCSP token");
         if (dataLoader == null) {
             throw new RuntimeException("Data loader is null");
@@ -158,6 +270,33 @@ public class SkOcspSource implements OCSPSource {
         this.dataLoader = dataLoader;
     }
 
+    private static class CachedOcspResponse {
+        private final OCSPRespStatus responseStatus;
+        private final CertificateID certId;
+        private final BasicOCSPResp basicOCSPResp;
+        private final long expiresAt;
+
+        CachedOcspResponse(OCSPToken ocspToken, long expiresAt) {
+            this.responseStatus = ocspToken.getResponseStatus();
+            this.certId = ocspToken.getCertId();
+            this.basicOCSPResp = ocspToken.getBasicOCSPResp();
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid(long now) {
+            return now < expiresAt;
+        }
+
+        OCSPToken toOCSPToken() {
+            final OCSPToken ocspToken = new OCSPToken();
+            ocspToken.setResponseStatus(responseStatus);
+            ocspToken.setCertId(certId);
+            ocspToken.setAvailable(true);
+            ocspToken.setBasicOCSPResp(basicOCSPResp);
+            return ocspToken;
+        }
+    }
+
     public static class InvalidOcspNonceException extends RuntimeException {
         public InvalidOcspNonceException(String message) {
             super(message);
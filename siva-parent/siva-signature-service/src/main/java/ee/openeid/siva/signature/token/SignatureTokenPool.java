@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.signature.token;
+
+import eu.europa.esig.dss.DigestAlgorithm;
+import eu.europa.esig.dss.SignatureValue;
+import eu.europa.esig.dss.ToBeSigned;
+import eu.europa.esig.dss.token.AbstractSignatureTokenConnection;
+import eu.europa.esig.dss.token.DSSPrivateKeyEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Holds opened signature tokens together with their private key entries, so keys are looked up only once.
+ * <p>
+ * A shared pool wraps a single token that can sign concurrently (software keystores create a new
+ * {@link java.security.Signature} for every signing operation). An exclusive pool hands every signing
+ * operation its own token, which bounds the number of concurrently used PKCS#11 sessions.
+ * <p>
+ * Signing with a closed pool fails with {@link IllegalStateException}, including for callers that are
+ * still waiting for a free token when the pool is closed.
+ */
+public class SignatureTokenPool implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignatureTokenPool.class);
+    private static final PooledSignatureToken CLOSED_POOL_MARKER = new PooledSignatureToken(null, null);
+
+    private final List<PooledSignatureToken> tokens;
+    private final BlockingQueue<PooledSignatureToken> idleTokens;
+    private final AtomicInteger signingsInProgress = new AtomicInteger();
+    private final AtomicBoolean sharedTokenClosed = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private SignatureTokenPool(List<PooledSignatureToken> tokens, boolean exclusive) {
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.idleTokens = exclusive ? new ArrayBlockingQueue<>(tokens.size() + 1, true, tokens) : null;
+    }
+
+    public static SignatureTokenPool shared(AbstractSignatureTokenConnection token) {
+        return new SignatureTokenPool(Collections.singletonList(open(token)), false);
+    }
+
+    public static SignatureTokenPool exclusive(Supplier<AbstractSignatureTokenConnection> tokenFactory, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Signature token pool size must be at least 1, but was " + size);
+        }
+        List<PooledSignatureToken> tokens = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                tokens.add(open(tokenFactory.get()));
+            }
+        } catch (RuntimeException e) {
+            tokens.forEach(PooledSignatureToken::close);
+            throw e;
+        }
+        return new SignatureTokenPool(tokens, true);
+    }
+
+    public DSSPrivateKeyEntry getPrivateKeyEntry() {
+        return tokens.get(0).privateKeyEntry;
+    }
+
+    public SignatureValue sign(ToBeSigned toBeSigned, DigestAlgorithm digestAlgorithm) {
+        if (idleTokens == null) {
+            return signWithSharedToken(toBeSigned, digestAlgorithm);
+        }
+        PooledSignatureToken token = acquire();
+        try {
+            return token.sign(toBeSigned, digestAlgorithm);
+        } finally {
+            release(token);
+        }
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Closes idle tokens immediately, tokens that are in use are closed as soon as they are released.
+     * Callers waiting for a free token are woken up and fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (idleTokens == null) {
+            if (signingsInProgress.get() == 0) {
+                closeSharedToken();
+            }
+            return;
+        }
+        PooledSignatureToken token;
+        while ((token = idleTokens.poll()) != null) {
+            if (token != CLOSED_POOL_MARKER) {
+                token.close();
+            }
+        }
+        idleTokens.offer(CLOSED_POOL_MARKER);
+    }
+
+    private SignatureValue signWithSharedToken(ToBeSigned toBeSigned, DigestAlgorithm digestAlgorithm) {
+        signingsInProgress.incrementAndGet();
+        try {
+            if (closed) {
+                throw poolClosed();
+            }
+            return tokens.get(0).sign(toBeSigned, digestAlgorithm);
+        } finally {
+            if (signingsInProgress.decrementAndGet() == 0 && closed) {
+                closeSharedToken();
+            }
+        }
+    }
+
+    private void closeSharedToken() {
+        if (sharedTokenClosed.compareAndSet(false, true)) {
+            tokens.get(0).close();
+        }
+    }
+
+    private PooledSignatureToken acquire() {
+        if (closed) {
+            throw poolClosed();
+        }
+        PooledSignatureToken token;
+        try {
+            token = idleTokens.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free signature token", e);
+        }
+        if (token == CLOSED_POOL_MARKER) {
+            idleTokens.offer(CLOSED_POOL_MARKER);
+            throw poolClosed();
+        }
+        return token;
+    }
+
+    private void release(PooledSignatureToken token) {
+        if (closed) {
+            token.close();
+        } else {
+            idleTokens.offer(token);
+            if (closed && idleTokens.remove(token)) {
+                token.close();
+            }
+        }
+    }
+
+    private static IllegalStateException poolClosed() {
+        return new IllegalStateException("Signature token pool is closed");
+    }
+
+    private static PooledSignatureToken open(AbstractSignatureTokenConnection token) {
+        try {
+            return new PooledSignatureToken(token, token.getKeys().get(0));
+        } catch (RuntimeException e) {
+            token.close();
+            throw e;
+        }
+    }
+
+    private static class PooledSignatureToken {
+        private final AbstractSignatureTokenConnection token;
+        private final DSSPrivateKeyEntry privateKeyEntry;
+
+        PooledSignatureToken(AbstractSignatureTokenConnection token, DSSPrivateKeyEntry privateKeyEntry) {
+            this.token = token;
+            this.privateKeyEntry = privateKeyEntry;
+        }
+
+        SignatureValue sign(ToBeSigned toBeSigned, DigestAlgorithm digestAlgorithm) {
+            return token.sign(toBeSigned, digestAlgorithm, privateKeyEntry);
+        }
+
+        void close() {
+            try {
+                token.close();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to close signature token: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -19,21 +19,59 @@ package ee.openeid.siva.signature;
 import ee.openeid.siva.signature.configuration.Pkcs12Properties;
 import ee.openeid.siva.signature.configuration.SignatureServiceConfigurationProperties;
 import ee.openeid.siva.signature.exception.SignatureServiceException;
+import ee.openeid.siva.signature.token.SignatureTokenPool;
 import eu.europa.esig.dss.DSSException;
+import eu.europa.esig.dss.DigestAlgorithm;
+import eu.europa.esig.dss.SignatureValue;
+import eu.europa.esig.dss.ToBeSigned;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.actuate.metrics.CounterService;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AsiceWithXadesSignatureServiceTest {
 
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     AsiceWithXadesSignatureService asiceSignatureService;
 
     @Before
@@ -50,6 +88,11 @@ public class AsiceWithXadesSignatureServiceTest {
         asiceSignatureService.setProperties(properties);
     }
 
+    @After
+    public void tearDown() {
+        asiceSignatureService.close();
+    }
+
     @Test
     public void AsiceSignatureServiceNotConfiguredWithProperties_shouldThrowException() throws IOException {
         expectedException.expect(SignatureServiceException.class);
@@ -101,4 +144,134 @@ public class AsiceWithXadesSignatureServiceTest {
         assertNotNull(signature);
     }
 
-} 
+    @Test
+    public void signingContextIsReusedBetweenSignatures() {
+        SigningContext signingContext = asiceSignatureService.getSigningContext();
+        assertSame(signingContext, asiceSignatureService.getSigningContext());
+    }
+
+    @Test
+    public void signingContextIsRebuiltWhenConfigurationChanges() {
+        SigningContext signingContext = asiceSignatureService.getSigningContext();
+
+        asiceSignatureService.getProperties().setSignatureLevel("XAdES_BASELINE_T");
+
+        SigningContext reloadedContext = asiceSignatureService.getSigningContext();
+        assertNotSame(signingContext, reloadedContext);
+        assertEquals("XAdES_BASELINE_T", reloadedContext.getSignatureLevel().name());
+    }
+
+    @Test
+    public void signingContextIsRebuiltWhenKeystoreFileIsModified() throws IOException {
+        File keystoreFile = copyKeystoreToFile();
+        SigningContext signingContext = asiceSignatureService.getSigningContext();
+
+        assertSame(signingContext, asiceSignatureService.getSigningContext());
+        keystoreFile.setLastModified(keystoreFile.lastModified() - 10_000);
+
+        assertNotSame(signingContext, asiceSignatureService.getSigningContext());
+    }
+
+    @Test
+    public void previousSigningContextIsKeptWhenModifiedKeystoreCannotBeLoaded() throws IOException {
+        File keystoreFile = copyKeystoreToFile();
+        SigningContext signingContext = asiceSignatureService.getSigningContext();
+
+        FileUtils.writeStringToFile(keystoreFile, "not a keystore");
+        keystoreFile.setLastModified(keystoreFile.lastModified() - 10_000);
+
+        assertSame(signingContext, asiceSignatureService.getSigningContext());
+    }
+
+    @Test
+    public void replacedSigningContextIsClosedAfterSigningInProgressCompletes() throws Exception {
+        CountDownLatch signingPaused = new CountDownLatch(1);
+        CountDownLatch signingResumed = new CountDownLatch(1);
+        AsiceWithXadesSignatureService pausingSignatureService = new AsiceWithXadesSignatureService() {
+            @Override
+            SignatureValue signDataToSign(SignatureTokenPool tokenPool, ToBeSigned toBeSigned, DigestAlgorithm digestAlgorithm) {
+                signingPaused.countDown();
+                try {
+                    signingResumed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.signDataToSign(tokenPool, toBeSigned, digestAlgorithm);
+            }
+        };
+        pausingSignatureService.setProperties(asiceSignatureService.getProperties());
+        asiceSignatureService = pausingSignatureService;
+        createCurrentlyValidKeystore();
+        SigningContext signingContext = pausingSignatureService.getSigningContext();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<byte[]> signature = executorService.submit(() -> pausingSignatureService.getSignature("Hello".getBytes(), "hello.txt", "application/text"));
+            assertTrue(signingPaused.await(10, TimeUnit.SECONDS));
+
+            pausingSignatureService.getProperties().setTspUrl("http://demo.sk.ee/tsa2");
+            assertNotSame(signingContext, pausingSignatureService.getSigningContext());
+            assertFalse(signingContext.isClosed());
+
+            signingResumed.countDown();
+            assertNotNull(signature.get(10, TimeUnit.SECONDS));
+            assertTrue(signingContext.isClosed());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedSignatureIsCounted() throws IOException {
+        List<String> counters = new ArrayList<>();
+        asiceSignatureService.setCounterService(new CounterService() {
+            @Override
+            public void increment(String metricName) {
+                counters.add(metricName);
+            }
+
+            @Override
+            public void decrement(String metricName) {
+            }
+
+            @Override
+            public void reset(String metricName) {
+            }
+        });
+        asiceSignatureService.getProperties().setSignatureLevel("SOME_INVALID_LEVEL");
+        try {
+            asiceSignatureService.getSignature("Hello".getBytes(), "hello.txt", "application/text");
+            fail("Signature with invalid signature level should have failed");
+        } catch (SignatureServiceException e) {
+            assertEquals(1, counters.size());
+            assertEquals(AsiceWithXadesSignatureService.SIGN_FAILURE_METRIC, counters.get(0));
+        }
+    }
+
+    private void createCurrentlyValidKeystore() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        X500Name subject = new X500Name("CN=SiVa test");
+        Date notBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        Date notAfter = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        Certificate certificate = new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(subject, BigInteger.ONE, notBefore, notAfter, subject, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("test", keyPair.getPrivate(), "password".toCharArray(), new Certificate[]{certificate});
+        File keystoreFile = temporaryFolder.newFile("valid.p12");
+        try (OutputStream outputStream = new FileOutputStream(keystoreFile)) {
+            keyStore.store(outputStream, "password".toCharArray());
+        }
+        asiceSignatureService.getProperties().getPkcs12().setPath(keystoreFile.getPath());
+    }
+
+    private File copyKeystoreToFile() throws IOException {
+        File keystoreFile = temporaryFolder.newFile("test.p12");
+        FileUtils.writeByteArrayToFile(keystoreFile, IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("test.p12")));
+        asiceSignatureService.getProperties().getPkcs12().setPath(keystoreFile.getPath());
+        asiceSignatureService.getProperties().getPkcs12().setReloadCheckIntervalInSeconds(0);
+        return keystoreFile;
+    }
+}
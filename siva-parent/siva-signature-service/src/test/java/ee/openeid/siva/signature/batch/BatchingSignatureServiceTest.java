@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.signature.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.signature.configuration.SignatureBatchProperties;
+import ee.openeid.siva.signature.exception.SignatureServiceException;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchingSignatureServiceTest {
+
+    private static final int REPORTS = 10;
+    private static final String REPORT_FILE_NAME = "validationReport.json";
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final List<byte[]> signedManifests = new CopyOnWriteArrayList<>();
+    private final ExecutorService executorService = Executors.newFixedThreadPool(REPORTS);
+    private BatchingSignatureService batchingSignatureService;
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+        batchingSignatureService.close();
+    }
+
+    @Test
+    public void reportsWithinBatchWindowAreSignedOnce() throws Exception {
+        batchingSignatureService = createService(10_000, REPORTS);
+
+        List<byte[]> signatures = signConcurrently();
+
+        assertEquals(1, signedManifests.size());
+        ValidationReportManifest manifest = new ObjectMapper().readValue(signedManifests.get(0), ValidationReportManifest.class);
+        assertEquals(REPORTS, manifest.getReportDigests().size());
+        for (int i = 0; i < REPORTS; i++) {
+            Map<String, byte[]> containerFiles = readContainer(signatures.get(i));
+            assertEquals("mimetype", containerFiles.keySet().iterator().next());
+            assertArrayEquals(signedManifests.get(0), containerFiles.get(ValidationReportManifest.FILE_NAME));
+            assertArrayEquals(report(i), containerFiles.get(REPORT_FILE_NAME));
+            assertTrue(manifest.containsReport(containerFiles.get(REPORT_FILE_NAME)));
+        }
+    }
+
+    @Test
+    public void batchIsSignedWhenMaxSizeIsReached() throws Exception {
+        batchingSignatureService = createService(10_000, REPORTS / 2);
+
+        signConcurrently();
+
+        assertEquals(2, signedManifests.size());
+    }
+
+    @Test
+    public void batchIsSignedAfterBatchWindow() throws Exception {
+        batchingSignatureService = createService(10, REPORTS);
+
+        byte[] signature = batchingSignatureService.getSignature(report(0), REPORT_FILE_NAME, "application/json");
+
+        Map<String, byte[]> containerFiles = readContainer(signature);
+        ValidationReportManifest manifest = new ObjectMapper().readValue(containerFiles.get(ValidationReportManifest.FILE_NAME), ValidationReportManifest.class);
+        assertTrue(manifest.containsReport(containerFiles.get(REPORT_FILE_NAME)));
+    }
+
+    @Test
+    public void reportIsSignedSeparatelyAfterClose() throws Exception {
+        batchingSignatureService = createService(10_000, REPORTS);
+        batchingSignatureService.close();
+
+        byte[] signature = batchingSignatureService.getSignature(report(0), REPORT_FILE_NAME, "application/json");
+
+        assertEquals(1, signedManifests.size());
+        Map<String, byte[]> containerFiles = readContainer(signature);
+        ValidationReportManifest manifest = new ObjectMapper().readValue(containerFiles.get(ValidationReportManifest.FILE_NAME), ValidationReportManifest.class);
+        assertEquals(1, manifest.getReportDigests().size());
+        assertTrue(manifest.containsReport(report(0)));
+    }
+
+    @Test
+    public void signatureErrorIsPassedToAllReportsInBatch() throws Exception {
+        SignatureBatchProperties properties = new SignatureBatchProperties();
+        properties.setWindowInMilliseconds(10);
+        batchingSignatureService = new BatchingSignatureService((dataToSign, dataName, mimeTypeString) -> {
+            throw new SignatureServiceException("Signing failed");
+        }, properties);
+
+        expectedException.expect(SignatureServiceException.class);
+        expectedException.expectMessage("Signing failed");
+        batchingSignatureService.getSignature(report(0), REPORT_FILE_NAME, "application/json");
+    }
+
+    private BatchingSignatureService createService(long windowInMilliseconds, int maxSize) {
+        SignatureBatchProperties properties = new SignatureBatchProperties();
+        properties.setWindowInMilliseconds(windowInMilliseconds);
+        properties.setMaxSize(maxSize);
+        return new BatchingSignatureService((dataToSign, dataName, mimeTypeString) -> {
+            assertEquals(ValidationReportManifest.FILE_NAME, dataName);
+            signedManifests.add(dataToSign);
+            return container(dataToSign);
+        }, properties);
+    }
+
+    private List<byte[]> signConcurrently() throws Exception {
+        List<Callable<byte[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < REPORTS; i++) {
+            byte[] report = report(i);
+            tasks.add(() -> batchingSignatureService.getSignature(report, REPORT_FILE_NAME, "application/json"));
+        }
+        List<byte[]> signatures = new ArrayList<>();
+        for (Future<byte[]> signature : executorService.invokeAll(tasks)) {
+            signatures.add(signature.get());
+        }
+        return signatures;
+    }
+
+    private static byte[] container(byte[] manifest) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            ZipEntry mimeTypeEntry = new ZipEntry("mimetype");
+            byte[] mimeType = "application/vnd.etsi.asic-e+zip".getBytes(StandardCharsets.UTF_8);
+            mimeTypeEntry.setMethod(ZipEntry.STORED);
+            mimeTypeEntry.setSize(mimeType.length);
+            CRC32 crc = new CRC32();
+            crc.update(mimeType);
+            mimeTypeEntry.setCrc(crc.getValue());
+            zipOutputStream.putNextEntry(mimeTypeEntry);
+            zipOutputStream.write(mimeType);
+            zipOutputStream.putNextEntry(new ZipEntry(ValidationReportManifest.FILE_NAME));
+            zipOutputStream.write(manifest);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static Map<String, byte[]> readContainer(byte[] container) throws IOException {
+        Map<String, byte[]> containerFiles = new LinkedHashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(container))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                containerFiles.put(entry.getName(), IOUtils.toByteArray(zipInputStream));
+            }
+        }
+        return containerFiles;
+    }
+
+    private static byte[] report(int index) {
+        return ("{\"validationReport\":" + index + "}").getBytes(StandardCharsets.UTF_8);
+    }
+}
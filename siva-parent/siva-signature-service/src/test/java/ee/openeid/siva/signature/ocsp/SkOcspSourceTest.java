@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.signature.ocsp;
+
+import eu.europa.esig.dss.DSSException;
+import eu.europa.esig.dss.x509.CertificateToken;
+import eu.europa.esig.dss.x509.ocsp.OCSPToken;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.util.Date;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SkOcspSourceTest {
+
+    private static final String OCSP_URL = "http://localhost/ocsp";
+
+    private static KeyPair issuerKeyPair;
+    private static CertificateToken issuerCertificate;
+    private static CertificateToken signerCertificate;
+
+    private SkOcspSource ocspSource;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(1024);
+        issuerKeyPair = keyPairGenerator.generateKeyPair();
+        issuerCertificate = createCertificate("CN=Test CA", issuerKeyPair);
+        signerCertificate = createCertificate("CN=Test signer", keyPairGenerator.generateKeyPair());
+    }
+
+    @After
+    public void tearDown() {
+        ocspSource.close();
+    }
+
+    @Test
+    public void responseIsRequestedEveryTimeWhenCacheIsDisabled() {
+        StubOcspDataLoader dataLoader = createOcspSource(0, TimeUnit.HOURS.toMillis(1));
+
+        assertNotNull(ocspSource.getOCSPToken(signerCertificate, issuerCertificate));
+        assertNotNull(ocspSource.getOCSPToken(signerCertificate, issuerCertificate));
+
+        assertEquals(2, dataLoader.requestCount.get());
+    }
+
+    @Test
+    public void cachedResponseIsReturnedWithinMaxAge() {
+        StubOcspDataLoader dataLoader = createOcspSource(3600, TimeUnit.HOURS.toMillis(1));
+
+        OCSPToken firstToken = ocspSource.getOCSPToken(signerCertificate, issuerCertificate);
+        OCSPToken secondToken = ocspSource.getOCSPToken(signerCertificate, issuerCertificate);
+
+        assertEquals(1, dataLoader.requestCount.get());
+        assertEquals(firstToken.getBasicOCSPResp(), secondToken.getBasicOCSPResp());
+        assertTrue(secondToken.isAvailable());
+    }
+
+    @Test
+    public void responseIsNotCachedAfterNextUpdate() {
+        StubOcspDataLoader dataLoader = createOcspSource(3600, -1000);
+
+        ocspSource.getOCSPToken(signerCertificate, issuerCertificate);
+        ocspSource.getOCSPToken(signerCertificate, issuerCertificate);
+
+        assertEquals(2, dataLoader.requestCount.get());
+    }
+
+    @Test
+    public void cachedResponseIsRefreshedInBackgroundBeforeExpiry() throws Exception {
+        StubOcspDataLoader dataLoader = createOcspSource(3600, 1500);
+
+        ocspSource.getOCSPToken(signerCertificate, issuerCertificate);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dataLoader.requestCount.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(dataLoader.requestCount.get() >= 2);
+    }
+
+    @Test
+    public void cachedResponseIsUsedWhileResponderIsUnavailable() throws Exception {
+        StubOcspDataLoader dataLoader = createOcspSource(3600, TimeUnit.HOURS.toMillis(1));
+        ocspSource.getOCSPToken(signerCertificate, issuerCertificate);
+
+        dataLoader.failing = true;
+
+        assertNotNull(ocspSource.getOCSPToken(signerCertificate, issuerCertificate));
+        assertEquals(1, dataLoader.requestCount.get());
+    }
+
+    @Test
+    public void concurrentCacheMissesScheduleOneRefresh() throws Exception {
+        CountingScheduledExecutor refreshExecutor = new CountingScheduledExecutor();
+        ocspSource = new SkOcspSource(OCSP_URL, 3600, refreshExecutor);
+        StubOcspDataLoader dataLoader = new StubOcspDataLoader(TimeUnit.HOURS.toMillis(1));
+        dataLoader.requestBarrier = new CyclicBarrier(2);
+        ocspSource.setDataLoader(dataLoader);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<OCSPToken> first = executorService.submit(() -> ocspSource.getOCSPToken(signerCertificate, issuerCertificate));
+            Future<OCSPToken> second = executorService.submit(() -> ocspSource.getOCSPToken(signerCertificate, issuerCertificate));
+            assertNotNull(first.get(5, TimeUnit.SECONDS));
+            assertNotNull(second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(2, dataLoader.requestCount.get());
+        assertEquals(1, refreshExecutor.scheduleCount.get());
+    }
+
+    private StubOcspDataLoader createOcspSource(long cacheMaxAgeInSeconds, long nextUpdateInMillis) {
+        ocspSource = new SkOcspSource(OCSP_URL, cacheMaxAgeInSeconds);
+        StubOcspDataLoader dataLoader = new StubOcspDataLoader(nextUpdateInMillis);
+        ocspSource.setDataLoader(dataLoader);
+        return dataLoader;
+    }
+
+    private static CertificateToken createCertificate(String subject, KeyPair keyPair) throws Exception {
+        Date notBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        Date notAfter = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        X509CertificateHolder certificateHolder = new JcaX509v3CertificateBuilder(new X500Name("CN=Test CA"), BigInteger.valueOf(System.nanoTime()),
+                notBefore, notAfter, new X500Name(subject), keyPair.getPublic()).build(issuerSigner());
+        return new CertificateToken(new JcaX509CertificateConverter().getCertificate(certificateHolder));
+    }
+
+    private static ContentSigner issuerSigner() throws Exception {
+        return new JcaContentSignerBuilder("SHA256withRSA").build(issuerKeyPair.getPrivate());
+    }
+
+    private static class StubOcspDataLoader extends SkOcspDataLoader {
+        private final AtomicInteger requestCount = new AtomicInteger();
+        private final long nextUpdateInMillis;
+        private volatile boolean failing;
+        private volatile CyclicBarrier requestBarrier;
+
+        StubOcspDataLoader(long nextUpdateInMillis) {
+            this.nextUpdateInMillis = nextUpdateInMillis;
+        }
+
+        @Override
+        public byte[] post(String url, byte[] content) {
+            if (failing) {
+                throw new DSSException("OCSP responder is not available");
+            }
+            requestCount.incrementAndGet();
+            try {
+                if (requestBarrier != null) {
+                    requestBarrier.await(5, TimeUnit.SECONDS);
+                }
+                OCSPReq request = new OCSPReq(content);
+                Date now = new Date();
+                BasicOCSPRespBuilder responseBuilder = new BasicOCSPRespBuilder(new RespID(new X500Name("CN=Test CA")));
+                responseBuilder.addResponse(request.getRequestList()[0].getCertID(), CertificateStatus.GOOD, now, new Date(now.getTime() + nextUpdateInMillis), null);
+                responseBuilder.setResponseExtensions(new Extensions(request.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce)));
+                return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, responseBuilder.build(issuerSigner(), null, now)).getEncoded();
+            } catch (Exception e) {
+                throw new DSSException(e);
+            }
+        }
+    }
+
+    private static class CountingScheduledExecutor extends ScheduledThreadPoolExecutor {
+        private final AtomicInteger scheduleCount = new AtomicInteger();
+
+        CountingScheduledExecutor() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            scheduleCount.incrementAndGet();
+            return super.schedule(command, delay, unit);
+        }
+    }
+}
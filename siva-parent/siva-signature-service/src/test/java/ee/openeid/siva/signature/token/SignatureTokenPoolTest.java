@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.signature.token;
+
+import eu.europa.esig.dss.DigestAlgorithm;
+import eu.europa.esig.dss.SignatureValue;
+import eu.europa.esig.dss.ToBeSigned;
+import eu.europa.esig.dss.token.AbstractSignatureTokenConnection;
+import eu.europa.esig.dss.token.DSSPrivateKeyEntry;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SignatureTokenPoolTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void signingWithClosedPoolFails() {
+        SignatureTokenPool pool = SignatureTokenPool.exclusive(() -> new StubSignatureToken(null), 1);
+        pool.close();
+
+        expectedException.expect(IllegalStateException.class);
+        pool.sign(new ToBeSigned(new byte[]{1}), DigestAlgorithm.SHA256);
+    }
+
+    @Test
+    public void callerWaitingForFreeTokenFailsWhenPoolIsClosed() throws Exception {
+        CountDownLatch signingStarted = new CountDownLatch(1);
+        CountDownLatch finishSigning = new CountDownLatch(1);
+        StubSignatureToken token = new StubSignatureToken(signingStarted, finishSigning);
+        SignatureTokenPool pool = SignatureTokenPool.exclusive(() -> token, 1);
+
+        Future<SignatureValue> inFlight = executorService.submit(() -> pool.sign(new ToBeSigned(new byte[]{1}), DigestAlgorithm.SHA256));
+        assertTrue(signingStarted.await(5, TimeUnit.SECONDS));
+        Future<SignatureValue> waiting = executorService.submit(() -> pool.sign(new ToBeSigned(new byte[]{2}), DigestAlgorithm.SHA256));
+        Thread.sleep(100);
+
+        pool.close();
+
+        assertCausedByIllegalState(waiting);
+        assertFalse(token.closed);
+        finishSigning.countDown();
+        assertNotNull(inFlight.get(5, TimeUnit.SECONDS));
+        assertTrue(token.closed);
+    }
+
+    @Test
+    public void sharedTokenIsClosedAfterSigningInProgressFinishes() throws Exception {
+        CountDownLatch signingStarted = new CountDownLatch(1);
+        CountDownLatch finishSigning = new CountDownLatch(1);
+        StubSignatureToken token = new StubSignatureToken(signingStarted, finishSigning);
+        SignatureTokenPool pool = SignatureTokenPool.shared(token);
+
+        Future<SignatureValue> inFlight = executorService.submit(() -> pool.sign(new ToBeSigned(new byte[]{1}), DigestAlgorithm.SHA256));
+        assertTrue(signingStarted.await(5, TimeUnit.SECONDS));
+
+        pool.close();
+
+        assertFalse(token.closed);
+        finishSigning.countDown();
+        assertNotNull(inFlight.get(5, TimeUnit.SECONDS));
+        assertTrue(token.closed);
+        assertEquals(1, token.closeCount);
+    }
+
+    private static void assertCausedByIllegalState(Future<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected signing to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private static class StubSignatureToken extends AbstractSignatureTokenConnection {
+        private final CountDownLatch signingStarted;
+        private final CountDownLatch finishSigning;
+        private volatile boolean closed;
+        private volatile int closeCount;
+
+        StubSignatureToken(CountDownLatch finishSigning) {
+            this(new CountDownLatch(1), finishSigning);
+        }
+
+        StubSignatureToken(CountDownLatch signingStarted, CountDownLatch finishSigning) {
+            this.signingStarted = signingStarted;
+            this.finishSigning = finishSigning;
+        }
+
+        @Override
+        public List<DSSPrivateKeyEntry> getKeys() {
+            return Collections.singletonList(null);
+        }
+
+        @Override
+        public SignatureValue sign(ToBeSigned toBeSigned, DigestAlgorithm digestAlgorithm, DSSPrivateKeyEntry keyEntry) {
+            signingStarted.countDown();
+            try {
+                if (finishSigning != null) {
+                    finishSigning.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new SignatureValue();
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            closeCount++;
+        }
+    }
+}
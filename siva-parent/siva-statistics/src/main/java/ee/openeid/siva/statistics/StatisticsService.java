@@ -19,95 +19,209 @@ package ee.openeid.siva.statistics;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import ee.openeid.siva.statistics.aggregate.ValidationStatisticsAggregator;
+import ee.openeid.siva.statistics.configuration.properties.StatisticsProperties;
 import ee.openeid.siva.statistics.googleanalytics.GoogleAnalyticsMeasurementProtocolClient;
 import ee.openeid.siva.statistics.model.SimpleSignatureReport;
 import ee.openeid.siva.statistics.model.SimpleValidationReport;
+import ee.openeid.siva.statistics.model.ValidationStatistic;
+import ee.openeid.siva.statistics.model.ValidationStatistic.SignatureStatistic;
 import ee.openeid.siva.validation.document.report.SignatureValidationData;
 import ee.openeid.siva.validation.document.report.ValidationConclusion;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
-import javax.servlet.http.HttpServletRequest;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
 import static ee.openeid.siva.statistics.SignatureFormToContainerTypeTransormer.transformToContainerTypeOrEmpty;
 
+/**
+ * Publishes validation statistics to the log and to Google Analytics without delaying the validation response.
+ * <p>
+ * The statistic is captured on the validating thread and handed over to background publisher threads through a
+ * bounded queue. When the publishers fall behind and the queue is full, the statistic is dropped and counted
+ * instead of blocking the validation.
+ */
 @Service
 public class StatisticsService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StatisticsService.class);
-
-    private HttpServletRequest httpRequest;
+    static final String DROPPED_METRIC = "siva.statistics.dropped";
+    private static final String USER_IDENTIFIER_HEADER = "x-authenticated-user";
+    private static final long PUBLISHER_IDLE_WAIT_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long PUBLISHER_STOP_WAIT_IN_MILLIS = 5000;
+    private static final ObjectWriter STATISTICS_WRITER = new ObjectMapper().writer().withRootName("stats");
+
+    private final List<Thread> publishers = new ArrayList<>();
+    private volatile boolean running;
+    private BoundedEventQueue<ValidationStatistic> queue;
+    private StatisticsProperties properties;
     private GoogleAnalyticsMeasurementProtocolClient googleAnalyticsMeasurementProtocolClient;
+    private ValidationStatisticsAggregator aggregator;
+    private CounterService counterService;
+
+    @PostConstruct
+    public void start() {
+        queue = new BoundedEventQueue<>(properties.getQueueCapacity());
+        running = true;
+        for (int i = 1; i <= properties.getPublisherThreads(); i++) {
+            Thread publisher = new Thread(this::publishUntilStopped, "siva-statistics-" + i);
+            publisher.setDaemon(true);
+            publisher.start();
+            publishers.add(publisher);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread publisher : publishers) {
+            LockSupport.unpark(publisher);
+            publisher.join(PUBLISHER_STOP_WAIT_IN_MILLIS);
+        }
+        publishers.clear();
+        publishQueuedStatistics();
+    }
 
     public void publishValidationStatistic(long validationDurationInNanos, ValidationConclusion validationConclusion) {
-        SimpleValidationReport simpleValidationReport = createValidationResult(validationDurationInNanos, validationConclusion);
+        ValidationStatistic statistic = createValidationStatistic(validationDurationInNanos, validationConclusion);
+        if (!queue.offer(statistic)) {
+            if (counterService != null) {
+                counterService.increment(DROPPED_METRIC);
+            }
+            LOGGER.warn("Statistics queue is full, dropped statistics of validation");
+        }
+    }
+
+    private void publishUntilStopped() {
+        while (running) {
+            if (publishQueuedStatistics() == 0) {
+                LockSupport.parkNanos(this, PUBLISHER_IDLE_WAIT_IN_NANOS);
+            }
+        }
+    }
+
+    int publishQueuedStatistics() {
+        int published = 0;
+        ValidationStatistic statistic;
+        while ((statistic = queue.poll()) != null) {
+            publish(statistic);
+            published++;
+        }
+        return published;
+    }
+
+    private void publish(ValidationStatistic statistic) {
+        try {
+            SimpleValidationReport simpleValidationReport = createValidationResult(statistic);
+            aggregator.record(simpleValidationReport);
+            if (!aggregator.isSummaryLogEnabled()) {
+                logValidationResult(simpleValidationReport);
+            }
+            googleAnalyticsMeasurementProtocolClient.sendStatisticalData(simpleValidationReport);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error publishing statistics: {}", e.getMessage(), e);
+        }
+    }
+
+    private void logValidationResult(SimpleValidationReport simpleValidationReport) {
         try {
-            LOGGER.info(toJson(simpleValidationReport));
+            LOGGER.info(STATISTICS_WRITER.writeValueAsString(simpleValidationReport));
         } catch (JsonProcessingException e) {
             LOGGER.error("Error generating json: {}", e.getMessage(), e);
         }
-        googleAnalyticsMeasurementProtocolClient.sendStatisticalData(simpleValidationReport);
     }
 
-    private SimpleValidationReport createValidationResult(long validationDurationInNanos, ValidationConclusion report) {
-        SimpleValidationReport simpleValidationReport = new SimpleValidationReport();
-        simpleValidationReport.setDuration(TimeUnit.NANOSECONDS.toMillis(validationDurationInNanos));
-        simpleValidationReport.setSignatureCount(report.getSignaturesCount());
-        simpleValidationReport.setValidSignatureCount(report.getValidSignaturesCount());
-        simpleValidationReport.setSimpleSignatureReports(createSimpleSignatureReports(report));
-        simpleValidationReport.setContainerType(transformToContainerTypeOrEmpty(report.getSignatureForm()));
-        simpleValidationReport.setUserIdentifier(getUserIdentifier());
-        return simpleValidationReport;
+    private ValidationStatistic createValidationStatistic(long validationDurationInNanos, ValidationConclusion report) {
+        return new ValidationStatistic(
+                validationDurationInNanos,
+                report.getSignatureForm(),
+                report.getSignaturesCount(),
+                report.getValidSignaturesCount(),
+                createSignatureStatistics(report),
+                getUserIdentifier()
+        );
     }
 
-    private List<SimpleSignatureReport> createSimpleSignatureReports(ValidationConclusion report) {
+    private List<SignatureStatistic> createSignatureStatistics(ValidationConclusion report) {
         if (report.getSignatures() != null)
-            return report.getSignatures().stream().map(this::createSimpleSignatureReport).collect(Collectors.toList());
+            return Collections.unmodifiableList(report.getSignatures().stream().map(this::createSignatureStatistic).collect(Collectors.toList()));
         return Collections.emptyList();
     }
 
-    private SimpleSignatureReport createSimpleSignatureReport(SignatureValidationData signatureValidationData) {
+    private SignatureStatistic createSignatureStatistic(SignatureValidationData signatureValidationData) {
+        return new SignatureStatistic(
+                signatureValidationData.getIndication(),
+                signatureValidationData.getSubIndication(),
+                signatureValidationData.getCountryCode(),
+                signatureValidationData.getSignatureFormat()
+        );
+    }
+
+    private SimpleValidationReport createValidationResult(ValidationStatistic statistic) {
+        SimpleValidationReport simpleValidationReport = new SimpleValidationReport();
+        simpleValidationReport.setDuration(TimeUnit.NANOSECONDS.toMillis(statistic.getDurationInNanos()));
+        simpleValidationReport.setSignatureCount(statistic.getSignatureCount());
+        simpleValidationReport.setValidSignatureCount(statistic.getValidSignatureCount());
+        simpleValidationReport.setSimpleSignatureReports(statistic.getSignatures().stream().map(this::createSimpleSignatureReport).collect(Collectors.toList()));
+        simpleValidationReport.setContainerType(transformToContainerTypeOrEmpty(statistic.getSignatureForm()));
+        simpleValidationReport.setUserIdentifier(statistic.getUserIdentifier());
+        return simpleValidationReport;
+    }
+
+    private SimpleSignatureReport createSimpleSignatureReport(SignatureStatistic signatureStatistic) {
         SimpleSignatureReport simpleSignatureReport = new SimpleSignatureReport();
-        simpleSignatureReport.setIndication(signatureValidationData.getIndication());
-        simpleSignatureReport.setSubIndication(signatureValidationData.getSubIndication());
-        simpleSignatureReport.setSignatureFormat(signatureValidationData.getSignatureFormat());
+        simpleSignatureReport.setIndication(signatureStatistic.getIndication());
+        simpleSignatureReport.setSubIndication(signatureStatistic.getSubIndication());
+        simpleSignatureReport.setSignatureFormat(signatureStatistic.getSignatureFormat());
 
-        String countryCode = StringUtils.isEmpty(signatureValidationData.getCountryCode()) ? "XX" : signatureValidationData.getCountryCode();
+        String countryCode = StringUtils.isEmpty(signatureStatistic.getCountryCode()) ? "XX" : signatureStatistic.getCountryCode();
         simpleSignatureReport.setCountryCode(countryCode);
 
         return simpleSignatureReport;
     }
 
-    private String toJson(SimpleValidationReport simpleValidationReport) throws JsonProcessingException {
-        Map<String, SimpleValidationReport> stats = new HashMap<>();
-        stats.put("stats", simpleValidationReport);
-
-        ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
-        return ow.writeValueAsString(stats);
-    }
-
     private String getUserIdentifier() {
-        String userIdentifier = httpRequest.getHeader("x-authenticated-user");
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        // batch and asynchronous job workers validate with the request attributes of the submitting request
+        String userIdentifier = requestAttributes instanceof ServletRequestAttributes
+                ? ((ServletRequestAttributes) requestAttributes).getRequest().getHeader(USER_IDENTIFIER_HEADER)
+                : null;
         return StringUtils.isEmpty(userIdentifier) ? "N/A" : userIdentifier;
     }
 
+    @Autowired
+    public void setProperties(StatisticsProperties properties) {
+        this.properties = properties;
+    }
+
     @Autowired
     public void setGoogleAnalyticsMeasurementClient(GoogleAnalyticsMeasurementProtocolClient googleAnalyticsMeasurementProtocolClient) {
         this.googleAnalyticsMeasurementProtocolClient = googleAnalyticsMeasurementProtocolClient;
     }
 
     @Autowired
-    public void setHttpRequest(HttpServletRequest httpRequest) {
-        this.httpRequest = httpRequest;
+    public void setAggregator(ValidationStatisticsAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    @Autowired(required = false)
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
     }
 
 }
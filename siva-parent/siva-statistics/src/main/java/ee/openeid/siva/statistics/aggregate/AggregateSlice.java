@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.aggregate;
+
+import ee.openeid.siva.statistics.model.SimpleSignatureReport;
+import ee.openeid.siva.statistics.model.SimpleValidationReport;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Statistics of the validations completed within one time slice, in total and broken down by container type,
+ * user identifier and country code. The number of groups of a breakdown is limited, validations of further groups
+ * are counted in the {@value #OTHER_GROUP} group.
+ */
+class AggregateSlice {
+
+    static final String OTHER_GROUP = "OTHER";
+    private static final String NOT_PRESENT = "N/A";
+
+    private final long epochSlice;
+    private final int maxGroups;
+    private final GroupAggregate total = new GroupAggregate();
+    private final ConcurrentMap<String, GroupAggregate> containerTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, GroupAggregate> users = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, GroupAggregate> countries = new ConcurrentHashMap<>();
+
+    AggregateSlice(long epochSlice, int maxGroups) {
+        this.epochSlice = epochSlice;
+        this.maxGroups = maxGroups;
+    }
+
+    void record(SimpleValidationReport report) {
+        GroupAggregate containerType = group(containerTypes, report.getContainerType());
+        GroupAggregate user = group(users, report.getUserIdentifier());
+        total.recordValidation(report);
+        containerType.recordValidation(report);
+        user.recordValidation(report);
+        if (report.getSimpleSignatureReports() == null) {
+            return;
+        }
+        for (SimpleSignatureReport signature : report.getSimpleSignatureReports()) {
+            total.recordSignature(signature);
+            containerType.recordSignature(signature);
+            user.recordSignature(signature);
+            group(countries, signature.getCountryCode()).recordSignature(signature);
+        }
+    }
+
+    private GroupAggregate group(ConcurrentMap<String, GroupAggregate> groups, String name) {
+        String key = StringUtils.defaultIfEmpty(name, NOT_PRESENT);
+        GroupAggregate group = groups.get(key);
+        if (group != null) {
+            return group;
+        }
+        if (groups.size() >= maxGroups) {
+            key = OTHER_GROUP;
+        }
+        GroupAggregate newGroup = new GroupAggregate();
+        group = groups.putIfAbsent(key, newGroup);
+        return group != null ? group : newGroup;
+    }
+
+    long getEpochSlice() {
+        return epochSlice;
+    }
+
+    GroupAggregate getTotal() {
+        return total;
+    }
+
+    Map<String, GroupAggregate> getContainerTypes() {
+        return containerTypes;
+    }
+
+    Map<String, GroupAggregate> getUsers() {
+        return users;
+    }
+
+    Map<String, GroupAggregate> getCountries() {
+        return countries;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.aggregate;
+
+import ee.openeid.siva.statistics.aggregate.ValidationStatisticsSnapshot.Latency;
+import ee.openeid.siva.statistics.aggregate.ValidationStatisticsSnapshot.SignatureGroup;
+import ee.openeid.siva.statistics.aggregate.ValidationStatisticsSnapshot.ValidationGroup;
+import ee.openeid.siva.statistics.model.SimpleSignatureReport;
+import ee.openeid.siva.statistics.model.SimpleValidationReport;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the validations or signatures sharing a container type, user identifier or country code within
+ * a time slice.
+ */
+class GroupAggregate {
+
+    private final LongAdder validations = new LongAdder();
+    private final LongAdder signatures = new LongAdder();
+    private final LongAdder validSignatures = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ConcurrentMap<String, LongAdder> indications = new ConcurrentHashMap<>();
+
+    void recordValidation(SimpleValidationReport report) {
+        validations.increment();
+        if (report.getSignatureCount() != null) {
+            signatures.add(report.getSignatureCount());
+        }
+        if (report.getValidSignatureCount() != null) {
+            validSignatures.add(report.getValidSignatureCount());
+        }
+        latency.record(report.getDuration());
+    }
+
+    void recordSignature(SimpleSignatureReport report) {
+        String indication = StringUtils.defaultIfEmpty(report.getIndication(), "N/A")
+                + (StringUtils.isEmpty(report.getSubIndication()) ? "" : "/" + report.getSubIndication());
+        LongAdder count = indications.get(indication);
+        if (count == null) {
+            LongAdder newCount = new LongAdder();
+            count = indications.putIfAbsent(indication, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.increment();
+    }
+
+    /**
+     * Sums the statistics of a group over several time slices.
+     */
+    static class Merger {
+
+        private long validations;
+        private long signatures;
+        private long validSignatures;
+        private long latencySum;
+        private long latencyMax;
+        private final long[] latencyCounts = new long[LatencyHistogram.BUCKET_COUNT];
+        private final Map<String, Long> indications = new TreeMap<>();
+
+        void add(GroupAggregate group) {
+            validations += group.validations.sum();
+            signatures += group.signatures.sum();
+            validSignatures += group.validSignatures.sum();
+            latencySum += group.latency.getSum();
+            latencyMax = Math.max(latencyMax, group.latency.getMax());
+            group.latency.addTo(latencyCounts);
+            group.indications.forEach((indication, count) -> indications.merge(indication, count.sum(), Long::sum));
+        }
+
+        ValidationGroup toValidationGroup() {
+            ValidationGroup group = new ValidationGroup();
+            group.setValidations(validations);
+            group.setSignatures(signatures);
+            group.setValidSignatures(validSignatures);
+            group.setLatency(toLatency());
+            group.setIndications(indications);
+            return group;
+        }
+
+        SignatureGroup toSignatureGroup() {
+            SignatureGroup group = new SignatureGroup();
+            group.setSignatures(indications.values().stream().mapToLong(Long::longValue).sum());
+            group.setIndications(indications);
+            return group;
+        }
+
+        private Latency toLatency() {
+            Latency latency = new Latency();
+            if (validations == 0) {
+                return latency;
+            }
+            latency.setMean(latencySum / validations);
+            latency.setP50(LatencyHistogram.percentile(latencyCounts, validations, latencyMax, 50));
+            latency.setP90(LatencyHistogram.percentile(latencyCounts, validations, latencyMax, 90));
+            latency.setP99(LatencyHistogram.percentile(latencyCounts, validations, latencyMax, 99));
+            latency.setMax(latencyMax);
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.aggregate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import ee.openeid.siva.statistics.configuration.properties.StatisticsProperties;
+import ee.openeid.siva.statistics.model.SimpleValidationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps rolling in-memory aggregates of the validation statistics.
+ * <p>
+ * Statistics are aggregated into time slices held in a ring, a slice is replaced by compare-and-set when its
+ * place in the ring is taken by a new time slice. A snapshot sums the slices of the rolling window. Optionally,
+ * the statistics of every completed slice are logged as a compact summary line.
+ */
+@Component
+public class ValidationStatisticsAggregator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationStatisticsAggregator.class);
+    private static final long SUMMARY_LOG_DELAY_IN_MILLIS = 1000;
+    private static final ObjectWriter SUMMARY_WRITER = new ObjectMapper().writer().withRootName("statsSummary");
+
+    private StatisticsProperties.Aggregate properties;
+    private AtomicReferenceArray<AggregateSlice> slices;
+    private long sliceDurationInMillis;
+    private ScheduledExecutorService summaryLogger;
+    private LongSupplier clock = System::currentTimeMillis;
+
+    @PostConstruct
+    public void start() {
+        sliceDurationInMillis = TimeUnit.SECONDS.toMillis(properties.getSliceDurationInSeconds());
+        slices = new AtomicReferenceArray<>(properties.getWindowSlices() + 1);
+        if (properties.isSummaryLogEnabled()) {
+            summaryLogger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "siva-statistics-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long untilNextSlice = sliceDurationInMillis - clock.getAsLong() % sliceDurationInMillis;
+            summaryLogger.scheduleAtFixedRate(this::logSummary, untilNextSlice + SUMMARY_LOG_DELAY_IN_MILLIS, sliceDurationInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (summaryLogger != null) {
+            summaryLogger.shutdownNow();
+        }
+    }
+
+    public void record(SimpleValidationReport report) {
+        long epochSlice = currentEpochSlice();
+        int index = (int) (epochSlice % slices.length());
+        while (true) {
+            AggregateSlice slice = slices.get(index);
+            if (slice != null && slice.getEpochSlice() == epochSlice) {
+                slice.record(report);
+                return;
+            }
+            if (slice != null && slice.getEpochSlice() > epochSlice) {
+                // The clock has moved past this slice on another thread
+                return;
+            }
+            slices.compareAndSet(index, slice, new AggregateSlice(epochSlice, properties.getMaxGroups()));
+        }
+    }
+
+    /**
+     * @return statistics of the validations completed within the rolling window
+     */
+    public ValidationStatisticsSnapshot snapshot() {
+        long currentEpochSlice = currentEpochSlice();
+        return snapshot(currentEpochSlice - properties.getWindowSlices() + 1, currentEpochSlice);
+    }
+
+    public boolean isSummaryLogEnabled() {
+        return properties.isSummaryLogEnabled();
+    }
+
+    void logSummary() {
+        long previousEpochSlice = currentEpochSlice() - 1;
+        ValidationStatisticsSnapshot summary = snapshot(previousEpochSlice, previousEpochSlice);
+        if (summary.getTotal().getValidations() == 0) {
+            return;
+        }
+        try {
+            LOGGER.info(SUMMARY_WRITER.writeValueAsString(summary));
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Error generating json: {}", e.getMessage(), e);
+        }
+    }
+
+    ValidationStatisticsSnapshot snapshot(long fromEpochSlice, long toEpochSlice) {
+        GroupAggregate.Merger total = new GroupAggregate.Merger();
+        Map<String, GroupAggregate.Merger> containerTypes = new TreeMap<>();
+        Map<String, GroupAggregate.Merger> users = new TreeMap<>();
+        Map<String, GroupAggregate.Merger> countries = new TreeMap<>();
+        for (int i = 0; i < slices.length(); i++) {
+            AggregateSlice slice = slices.get(i);
+            if (slice == null || slice.getEpochSlice() < fromEpochSlice || slice.getEpochSlice() > toEpochSlice) {
+                continue;
+            }
+            total.add(slice.getTotal());
+            merge(slice.getContainerTypes(), containerTypes);
+            merge(slice.getUsers(), users);
+            merge(slice.getCountries(), countries);
+        }
+
+        ValidationStatisticsSnapshot snapshot = new ValidationStatisticsSnapshot();
+        snapshot.setFrom(Instant.ofEpochMilli(fromEpochSlice * sliceDurationInMillis).toString());
+        snapshot.setTo(Instant.ofEpochMilli((toEpochSlice + 1) * sliceDurationInMillis).toString());
+        snapshot.setTotal(total.toValidationGroup());
+        snapshot.setContainerTypes(convert(containerTypes, GroupAggregate.Merger::toValidationGroup));
+        snapshot.setUsers(convert(users, GroupAggregate.Merger::toValidationGroup));
+        snapshot.setCountries(convert(countries, GroupAggregate.Merger::toSignatureGroup));
+        return snapshot;
+    }
+
+    private static void merge(Map<String, GroupAggregate> groups, Map<String, GroupAggregate.Merger> mergers) {
+        groups.forEach((name, group) -> mergers.computeIfAbsent(name, key -> new GroupAggregate.Merger()).add(group));
+    }
+
+    private static <T> Map<String, T> convert(Map<String, GroupAggregate.Merger> mergers, Function<GroupAggregate.Merger, T> converter) {
+        Map<String, T> groups = new TreeMap<>();
+        mergers.forEach((name, merger) -> groups.put(name, converter.apply(merger)));
+        return groups;
+    }
+
+    private long currentEpochSlice() {
+        return clock.getAsLong() / sliceDurationInMillis;
+    }
+
+    @Autowired
+    public void setProperties(StatisticsProperties properties) {
+        this.properties = properties.getAggregate();
+    }
+
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.aggregate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the rolling validation statistics, by default at {@code /monitoring/statistics}.
+ */
+@Component
+@ConfigurationProperties(prefix = "endpoints.statistics")
+public class ValidationStatisticsEndpoint extends AbstractEndpoint<ValidationStatisticsSnapshot> {
+
+    private ValidationStatisticsAggregator aggregator;
+
+    public ValidationStatisticsEndpoint() {
+        super("statistics");
+    }
+
+    @Override
+    public ValidationStatisticsSnapshot invoke() {
+        return aggregator.snapshot();
+    }
+
+    @Autowired
+    public void setAggregator(ValidationStatisticsAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+}
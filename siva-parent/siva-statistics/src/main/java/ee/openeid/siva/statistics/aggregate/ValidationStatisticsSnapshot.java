@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.aggregate;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Aggregated statistics of the validations completed in a time window.
+ */
+@Data
+public class ValidationStatisticsSnapshot {
+
+    private String from;
+    private String to;
+    private ValidationGroup total;
+    private Map<String, ValidationGroup> containerTypes;
+    private Map<String, ValidationGroup> users;
+    private Map<String, SignatureGroup> countries;
+
+    @Data
+    public static class ValidationGroup {
+
+        private long validations;
+        private long signatures;
+        private long validSignatures;
+        private Latency latency;
+        private Map<String, Long> indications;
+
+    }
+
+    @Data
+    public static class SignatureGroup {
+
+        private long signatures;
+        private Map<String, Long> indications;
+
+    }
+
+    /**
+     * Validation durations in milliseconds.
+     */
+    @Data
+    public static class Latency {
+
+        private long mean;
+        private long p50;
+        private long p90;
+        private long p99;
+        private long max;
+
+    }
+}
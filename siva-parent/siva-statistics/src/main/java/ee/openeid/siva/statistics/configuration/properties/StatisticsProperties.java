@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "siva.statistics")
+public class StatisticsProperties {
+
+    /**
+     * Statistics waiting to be logged and sent, statistics of validations arriving at a full queue are dropped.
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * Background threads logging and sending the queued statistics.
+     */
+    private int publisherThreads = 1;
+
+    private Aggregate aggregate = new Aggregate();
+
+    @Data
+    public static class Aggregate {
+
+        /**
+         * Validation statistics are aggregated in time slices, the rolling window consists of the latest slices.
+         */
+        private int sliceDurationInSeconds = 300;
+        private int windowSlices = 12;
+
+        /**
+         * Maximum number of container types, users and countries each, further ones are aggregated together.
+         */
+        private int maxGroups = 100;
+
+        /**
+         * Log a summary of every time slice instead of a line for every validation.
+         */
+        private boolean summaryLogEnabled = false;
+
+    }
+}
@@ -16,62 +16,204 @@
 
 package ee.openeid.siva.statistics.googleanalytics;
 
+import ee.openeid.siva.statistics.BoundedEventQueue;
 import ee.openeid.siva.statistics.googleanalytics.configuration.properties.GoogleAnalyticsMeasurementProtocolProperties;
 import ee.openeid.siva.statistics.model.SimpleSignatureReport;
 import ee.openeid.siva.statistics.model.SimpleValidationReport;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
+ * Sends the statistics as Google Analytics events.
+ * <p>
+ * The hits of many validations are collected and sent together in batch requests of up to
+ * {@value #MAX_HITS_PER_BATCH_REQUEST} hits. A batch is sent by a background sender thread as soon as it is full,
+ * hits of a partial batch are sent when the batch interval has passed. Batch requests failing with a server error
+ * or an I/O error are retried with exponential backoff.
+ *
  * @see <a href="https://developers.google.com/analytics/devguides/collection/protocol/v1/">Google Analytics Measurement Protocol</a>
  */
 @Component
 public class GoogleAnalyticsMeasurementProtocolClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GoogleAnalyticsMeasurementProtocolClient.class);
+    static final int MAX_HITS_PER_BATCH_REQUEST = 20;
+    static final String DROPPED_METRIC = "siva.statistics.google-analytics.dropped";
+    private static final int MAX_CONNECTIONS = 2;
+    private static final long SENDER_STOP_WAIT_IN_MILLIS = 5000;
 
-    private RestTemplate restTemplate = new RestTemplateBuilder().build();
+    private final AtomicBoolean batchSendScheduled = new AtomicBoolean();
+    private BoundedEventQueue<String> pendingHits;
+    private ScheduledExecutorService sender;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private Supplier<String> clientIdGenerator = GoogleAnalyticsMeasurementProtocolClient::randomClientId;
 
     private GoogleAnalyticsMeasurementProtocolProperties properties;
+    private CounterService counterService;
+
+    @PostConstruct
+    public void start() {
+        pendingHits = new BoundedEventQueue<>(properties.getMaxPendingHits());
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (restTemplate == null) {
+            restTemplate = createPooledRestTemplate();
+        }
+        sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "siva-statistics-google-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.scheduleWithFixedDelay(this::flush, properties.getBatchIntervalInMillis(), properties.getBatchIntervalInMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (sender != null) {
+            sender.shutdown();
+            sender.awaitTermination(SENDER_STOP_WAIT_IN_MILLIS, TimeUnit.MILLISECONDS);
+            sender = null;
+        }
+        flush();
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
 
     public void sendStatisticalData(SimpleValidationReport simpleValidationReport) {
         if (!properties.isEnabled()) {
             return;
         }
         try {
-            HttpEntity<String> entity = new HttpEntity<>(composeBatchRequestBody(simpleValidationReport));
-            restTemplate.postForObject(properties.getUrl(), entity, byte[].class);
+            for (String hit : composeHits(simpleValidationReport)) {
+                if (!pendingHits.offer(hit)) {
+                    if (counterService != null) {
+                        counterService.increment(DROPPED_METRIC);
+                    }
+                    LOGGER.warn("Google Analytics hit queue is full, dropped hit");
+                }
+            }
         } catch (UnsupportedEncodingException e) {
             LOGGER.error("Error on URI-encoding request body: {}", e.getMessage(), e);
-        } catch (HttpStatusCodeException e) {
-            LOGGER.error("Batch request failed with status code: {}", e.getStatusCode(), e);
+        }
+        if (sender != null && pendingHits.size() >= getMaxHitsPerBatch() && batchSendScheduled.compareAndSet(false, true)) {
+            sender.execute(() -> {
+                batchSendScheduled.set(false);
+                sendBatches(false);
+            });
         }
     }
 
-    private String composeBatchRequestBody(SimpleValidationReport report) throws UnsupportedEncodingException {
+    /**
+     * Sends all pending hits, including a partial batch.
+     */
+    public void flush() {
+        sendBatches(true);
+    }
+
+    private synchronized void sendBatches(boolean includePartialBatch) {
+        int maxHitsPerBatch = getMaxHitsPerBatch();
+        while (pendingHits.size() >= maxHitsPerBatch || (includePartialBatch && pendingHits.size() > 0)) {
+            StringBuilder batch = new StringBuilder();
+            int hitCount = 0;
+            String hit;
+            while (hitCount < maxHitsPerBatch && (hit = pendingHits.poll()) != null) {
+                batch.append(hit).append('\n');
+                hitCount++;
+            }
+            if (hitCount == 0) {
+                return;
+            }
+            post(batch.toString(), hitCount);
+        }
+    }
+
+    private void post(String batch, int hitCount) {
+        long backoffInMillis = properties.getRetryBackoffInMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                restTemplate.postForObject(properties.getUrl(), new HttpEntity<>(batch), byte[].class);
+                return;
+            } catch (HttpClientErrorException e) {
+                LOGGER.error("Batch request failed with status code: {}", e.getStatusCode(), e);
+                return;
+            } catch (RestClientException e) {
+                if (attempt > properties.getMaxRetries()) {
+                    LOGGER.error("Batch request of {} hits failed after {} attempts: {}", hitCount, attempt, e.getMessage(), e);
+                    return;
+                }
+                LOGGER.warn("Batch request failed, retrying in {} ms: {}", backoffInMillis, e.getMessage());
+            }
+            try {
+                Thread.sleep(backoffInMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("Interrupted while retrying batch request, dropped {} hits", hitCount);
+                return;
+            }
+            backoffInMillis *= 2;
+        }
+    }
+
+    private int getMaxHitsPerBatch() {
+        return Math.max(1, Math.min(MAX_HITS_PER_BATCH_REQUEST, properties.getMaxHitsPerBatch()));
+    }
+
+    private RestTemplate createPooledRestTemplate() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeoutInMillis())
+                .setSocketTimeout(properties.getReadTimeoutInMillis())
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        return new RestTemplateBuilder().requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient)).build();
+    }
+
+    private List<String> composeHits(SimpleValidationReport report) throws UnsupportedEncodingException {
         List<String> events = new ArrayList<>();
         events.addAll(getContainerEvents(report));
         report.getSimpleSignatureReports().forEach(sigReport -> events.add(createSignatureEvent(sigReport, report.getContainerType(), report.getUserIdentifier())));
-        StringBuilder requestBodyBuilder = new StringBuilder();
+        List<String> hits = new ArrayList<>(events.size());
         for (String event : events) {
-            String encodedEvent = UriUtils.encodeFragment(event, "UTF-8");
-            requestBodyBuilder.append(encodedEvent + "\n");
+            hits.add(UriUtils.encodeFragment(event, "UTF-8"));
         }
-
-        return requestBodyBuilder.toString();
+        return hits;
     }
 
     private List<String> getContainerEvents(SimpleValidationReport report) {
@@ -83,7 +225,7 @@ public class GoogleAnalyticsMeasurementProtocolClient {
     }
 
     private String createContainerEvent(String elementLabel, String elementValue, String eventCategory, String userIdentifier) {
-        String clientId = UUID.randomUUID().toString();
+        String clientId = clientIdGenerator.get();
         String eventAction  = "Container validation";
         return "v=1&t=event&ds=" + properties.getDataSourceName() +
                 "&tid=" + properties.getTrackingId() +
@@ -98,7 +240,7 @@ public class GoogleAnalyticsMeasurementProtocolClient {
     private String createSignatureEvent(SimpleSignatureReport report, String containerType, String userIdentifier) {
         String elementLabel = report.getIndication() + (StringUtils.isEmpty(report.getSubIndication()) ? "" : "/" + report.getSubIndication());
         String eventCategory = containerType + "/" + report.getSignatureFormat();
-        String clientId = UUID.randomUUID().toString();
+        String clientId = clientIdGenerator.get();
         String eventAction  = "Signature validation";
         return "v=1&t=event&ds=" + properties.getDataSourceName() +
                 "&tid=" + properties.getTrackingId() +
@@ -115,8 +257,28 @@ public class GoogleAnalyticsMeasurementProtocolClient {
         this.properties = properties;
     }
 
+    @Autowired(required = false)
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
+    }
+
     public void setRestTemplate(RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
     }
 
+    public void setClientIdGenerator(Supplier<String> clientIdGenerator) {
+        this.clientIdGenerator = clientIdGenerator;
+    }
+
+    /**
+     * Random version 4 UUID from a thread local generator, the client ID is anonymous and need not be
+     * cryptographically strong.
+     */
+    private static String randomClientId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+
 }
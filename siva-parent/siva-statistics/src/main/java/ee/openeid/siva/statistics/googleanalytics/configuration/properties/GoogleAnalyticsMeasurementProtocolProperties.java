@@ -28,4 +28,16 @@ public class GoogleAnalyticsMeasurementProtocolProperties {
     private String trackingId = "UA-83206619-1";
     private String dataSourceName = "SiVa";
 
+    /**
+     * Hits of many validations are sent together, a batch is sent when it is full or when the interval has passed.
+     */
+    private int maxHitsPerBatch = 20;
+    private long batchIntervalInMillis = 5000;
+    private int maxPendingHits = 10000;
+
+    private int maxRetries = 3;
+    private long retryBackoffInMillis = 500;
+    private int connectTimeoutInMillis = 5000;
+    private int readTimeoutInMillis = 10000;
+
 }
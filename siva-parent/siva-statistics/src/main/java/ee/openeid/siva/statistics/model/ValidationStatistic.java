@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Statistic of a single validation captured on the validating thread, composed into a {@link SimpleValidationReport}
+ * when it is published.
+ */
+@Value
+public class ValidationStatistic {
+
+    private long durationInNanos;
+    private String signatureForm;
+    private Integer signatureCount;
+    private Integer validSignatureCount;
+    private List<SignatureStatistic> signatures;
+    private String userIdentifier;
+
+    @Value
+    public static class SignatureStatistic {
+
+        private String indication;
+        private String subIndication;
+        private String countryCode;
+        private String signatureFormat;
+
+    }
+}
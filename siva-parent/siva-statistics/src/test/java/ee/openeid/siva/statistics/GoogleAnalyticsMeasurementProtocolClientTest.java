@@ -20,39 +20,43 @@ import ee.openeid.siva.statistics.googleanalytics.GoogleAnalyticsMeasurementProt
 import ee.openeid.siva.statistics.googleanalytics.configuration.properties.GoogleAnalyticsMeasurementProtocolProperties;
 import ee.openeid.siva.statistics.model.SimpleSignatureReport;
 import ee.openeid.siva.statistics.model.SimpleValidationReport;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.BDDMockito;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriUtils;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.powermock.api.mockito.PowerMockito.mock;
-import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
-
-@PrepareForTest({ UUID.class, GoogleAnalyticsMeasurementProtocolClient.class })
-@RunWith(PowerMockRunner.class)
 public class GoogleAnalyticsMeasurementProtocolClientTest {
 
     private static final String CONTAINER_TYPE = "some container type";
 
-    private static final String MOCKED_UUID_STRING = "mocked-uuid";
+    private static final String MOCKED_CLIENT_ID = "mocked-client-id";
 
     private GoogleAnalyticsMeasurementProtocolClient gaClient = new GoogleAnalyticsMeasurementProtocolClient();
 
@@ -60,7 +64,7 @@ public class GoogleAnalyticsMeasurementProtocolClientTest {
 
     private MockRestServiceServer mockServer;
 
-    private UUID uuid;
+    private HttpServer stubServer;
 
     @Before
     public void setUp() {
@@ -69,11 +73,15 @@ public class GoogleAnalyticsMeasurementProtocolClientTest {
         mockServer = MockRestServiceServer.createServer(restTemplate);
 
         gaClient.setProperties(properties);
+        gaClient.setClientIdGenerator(() -> MOCKED_CLIENT_ID);
+    }
 
-        uuid = mock(UUID.class);
-        mockStatic(UUID.class);
-        BDDMockito.given(UUID.randomUUID()).willReturn(uuid);
-        BDDMockito.given(uuid.toString()).willReturn(MOCKED_UUID_STRING);
+    @After
+    public void tearDown() throws Exception {
+        gaClient.stop();
+        if (stubServer != null) {
+            stubServer.stop(0);
+        }
     }
 
     @Test
@@ -93,9 +101,11 @@ public class GoogleAnalyticsMeasurementProtocolClientTest {
 
         RestTemplate restTemplateMock = mock(RestTemplate.class);
         gaClient.setRestTemplate(restTemplateMock);
-        Mockito.verify(restTemplateMock, Mockito.never()).postForObject(Matchers.any(String.class), Matchers.any(HttpEntity.class), Matchers.any());
+        gaClient.start();
 
         gaClient.sendStatisticalData(report);
+        gaClient.flush();
+        Mockito.verify(restTemplateMock, Mockito.never()).postForObject(Matchers.any(String.class), Matchers.any(HttpEntity.class), Matchers.any());
     }
 
     @Test
@@ -118,8 +128,10 @@ public class GoogleAnalyticsMeasurementProtocolClientTest {
                 .andExpect(content().string(getExpectedHttpRequestBody(report, "N/A")))
                 .andRespond(withSuccess());
 
-
+        gaClient.start();
         gaClient.sendStatisticalData(report);
+        gaClient.flush();
+        mockServer.verify();
     }
 
     @Test
@@ -150,7 +162,85 @@ public class GoogleAnalyticsMeasurementProtocolClientTest {
                 .andExpect(content().string(getExpectedHttpRequestBody(report, xAuthenticatedUser)))
                 .andRespond(withSuccess());
 
+        gaClient.start();
         gaClient.sendStatisticalData(report);
+        gaClient.flush();
+        mockServer.verify();
+    }
+
+    @Test
+    public void hitsOfManyValidationsAreSentInFullBatches() throws Exception {
+        BlockingQueue<String> receivedBatches = new LinkedBlockingQueue<>();
+        startStubServer(receivedBatches, new AtomicInteger());
+        properties.setEnabled(true);
+        properties.setBatchIntervalInMillis(TimeUnit.MINUTES.toMillis(1));
+        gaClient.setRestTemplate(null);
+        gaClient.start();
+
+        for (int i = 0; i < 7; i++) {
+            SimpleValidationReport report = createDummySimpleValidationReport(i, 1, 1, "N/A");
+            addSimpleSignatureReport(report, "TOTAL_PASSED", "", "EE", "FORMAT");
+            gaClient.sendStatisticalData(report);
+        }
+
+        String fullBatch = receivedBatches.poll(5, TimeUnit.SECONDS);
+        assertEquals(20, countHits(fullBatch));
+        assertNull(receivedBatches.poll(200, TimeUnit.MILLISECONDS));
+
+        gaClient.stop();
+        assertEquals(8, countHits(receivedBatches.poll(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    public void partialBatchIsSentWhenBatchIntervalHasPassed() throws Exception {
+        BlockingQueue<String> receivedBatches = new LinkedBlockingQueue<>();
+        startStubServer(receivedBatches, new AtomicInteger());
+        properties.setEnabled(true);
+        properties.setBatchIntervalInMillis(100);
+        gaClient.setRestTemplate(null);
+        gaClient.start();
+
+        SimpleValidationReport report = createDummySimpleValidationReport(1000L, 1, 1, "N/A");
+        addSimpleSignatureReport(report, "TOTAL_PASSED", "", "EE", "FORMAT");
+        gaClient.sendStatisticalData(report);
+
+        assertEquals(4, countHits(receivedBatches.poll(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    public void failedBatchRequestIsRetried() throws Exception {
+        BlockingQueue<String> receivedBatches = new LinkedBlockingQueue<>();
+        startStubServer(receivedBatches, new AtomicInteger(2));
+        properties.setEnabled(true);
+        properties.setRetryBackoffInMillis(10);
+        gaClient.setRestTemplate(null);
+        gaClient.start();
+
+        SimpleValidationReport report = createDummySimpleValidationReport(1000L, 1, 1, "N/A");
+        addSimpleSignatureReport(report, "TOTAL_PASSED", "", "EE", "FORMAT");
+        gaClient.sendStatisticalData(report);
+        gaClient.flush();
+
+        List<String> batches = new ArrayList<>();
+        receivedBatches.drainTo(batches);
+        assertEquals(3, batches.size());
+        assertEquals(getExpectedHttpRequestBody(report, "N/A"), batches.get(2));
+        assertTrue(batches.stream().allMatch(batches.get(0)::equals));
+    }
+
+    private void startStubServer(BlockingQueue<String> receivedBatches, AtomicInteger failuresBeforeSuccess) throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubServer.createContext("/batch", exchange -> {
+            receivedBatches.add(IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(failuresBeforeSuccess.getAndDecrement() > 0 ? 503 : 200, -1);
+            exchange.close();
+        });
+        stubServer.start();
+        properties.setUrl("http://localhost:" + stubServer.getAddress().getPort() + "/batch");
+    }
+
+    private int countHits(String batch) {
+        return batch.split("\n").length;
     }
 
     private SimpleValidationReport createDummySimpleValidationReport(long duration, int validSignaturesCount, int totalSignaturesCount, String xAuthenticatedUser) {
@@ -177,13 +267,13 @@ public class GoogleAnalyticsMeasurementProtocolClientTest {
 
     private String getExpectedHttpRequestBody(SimpleValidationReport report, String userIdentifier) throws UnsupportedEncodingException {
         StringBuilder sb = new StringBuilder();
-        sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_UUID_STRING + "&cd1=" + userIdentifier + "&ec=" + CONTAINER_TYPE + "&ea=Container validation&el=duration&ev=" + report.getDuration(), "UTF-8") + "\n");
-        sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_UUID_STRING + "&cd1=" + userIdentifier + "&ec=" + CONTAINER_TYPE + "&ea=Container validation&el=signaturesCount&ev=" + report.getSignatureCount(), "UTF-8") + "\n");
-        sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_UUID_STRING + "&cd1=" + userIdentifier + "&ec=" + CONTAINER_TYPE + "&ea=Container validation&el=validSignaturesCount&ev=" + report.getValidSignatureCount(), "UTF-8") + "\n");
+        sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_CLIENT_ID + "&cd1=" + userIdentifier + "&ec=" + CONTAINER_TYPE + "&ea=Container validation&el=duration&ev=" + report.getDuration(), "UTF-8") + "\n");
+        sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_CLIENT_ID + "&cd1=" + userIdentifier + "&ec=" + CONTAINER_TYPE + "&ea=Container validation&el=signaturesCount&ev=" + report.getSignatureCount(), "UTF-8") + "\n");
+        sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_CLIENT_ID + "&cd1=" + userIdentifier + "&ec=" + CONTAINER_TYPE + "&ea=Container validation&el=validSignaturesCount&ev=" + report.getValidSignatureCount(), "UTF-8") + "\n");
         for (SimpleSignatureReport sigReport : report.getSimpleSignatureReports()) {
             String indicationSubIndicationPair = expectedIndicationSubIndicationPair(sigReport.getIndication(), sigReport.getSubIndication());
             String containerTypeSigFormatPair = CONTAINER_TYPE + "/" + sigReport.getSignatureFormat();
-            sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_UUID_STRING + "&cd1=" + userIdentifier + "&ec=" + containerTypeSigFormatPair + "&ea=Signature validation&el=" + indicationSubIndicationPair + "&geoid=" + sigReport.getCountryCode(), "UTF-8") + "\n");
+            sb.append(UriUtils.encodeFragment("v=1&t=event&ds=" + properties.getDataSourceName() + "&tid=" + properties.getTrackingId() + "&cid=" + MOCKED_CLIENT_ID + "&cd1=" + userIdentifier + "&ec=" + containerTypeSigFormatPair + "&ea=Signature validation&el=" + indicationSubIndicationPair + "&geoid=" + sigReport.getCountryCode(), "UTF-8") + "\n");
         }
         return sb.toString();
     }
@@ -16,11 +16,14 @@
 
 package ee.openeid.siva.statistics;
 
+import ee.openeid.siva.statistics.aggregate.ValidationStatisticsAggregator;
+import ee.openeid.siva.statistics.configuration.properties.StatisticsProperties;
 import ee.openeid.siva.statistics.googleanalytics.GoogleAnalyticsMeasurementProtocolClient;
 import ee.openeid.siva.statistics.model.SimpleValidationReport;
 import ee.openeid.siva.validation.document.report.SimpleReport;
 import ee.openeid.siva.validation.document.report.SignatureValidationData;
 import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,12 +31,19 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 
@@ -41,10 +51,10 @@ import static org.powermock.api.mockito.PowerMockito.mockStatic;
 @PrepareForTest({LoggerFactory.class})
 public class StatisticsServiceTest {
 
-    private static final String LINE_SEPARATOR = System.lineSeparator();
     private static final String X_AUTHENTICATED_USER = "x-authenticated-user";
     private static StatisticsService statisticsService;
     private static Logger loggerMock;
+    private static GoogleAnalyticsMeasurementProtocolClient ga;
 
     @BeforeClass
     public static void setUp() {
@@ -52,13 +62,17 @@ public class StatisticsServiceTest {
         loggerMock = mock(Logger.class);
         when(LoggerFactory.getLogger(StatisticsService.class)).thenReturn(loggerMock);
 
-        statisticsService = new StatisticsService();
-        GoogleAnalyticsMeasurementProtocolClient ga = mock(GoogleAnalyticsMeasurementProtocolClient.class);
-        statisticsService.setGoogleAnalyticsMeasurementClient(ga);
+        ga = mock(GoogleAnalyticsMeasurementProtocolClient.class);
         doNothing().when(ga).sendStatisticalData(any(SimpleValidationReport.class));
 
-        HttpServletRequest mockedRequest = mock(HttpServletRequest.class);
-        statisticsService.setHttpRequest(mockedRequest);
+        StatisticsProperties properties = new StatisticsProperties();
+        properties.setPublisherThreads(0);
+        statisticsService = createStatisticsService(properties);
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
     }
 
     @Test
@@ -77,25 +91,21 @@ public class StatisticsServiceTest {
         SimpleReport report = createDummySimpleReport(signatureForm, validSignaturesCount, totalSignatureCount);
         addSignatureValidationData(report.getValidationConclusion(), indication, subindication, countryCode, signatureFormat);
 
-        HttpServletRequest mockedRequest = mock(HttpServletRequest.class);
-        statisticsService.setHttpRequest(mockedRequest);
-        when(mockedRequest.getHeader(X_AUTHENTICATED_USER)).thenReturn("");
+        bindRequestWithAuthenticatedUser("");
 
         statisticsService.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(validationDurationInMillis), report.getValidationConclusion());
-        verify(loggerMock).info("{" + LINE_SEPARATOR +
-                "  \"stats\" : {" + LINE_SEPARATOR +
-                "    \"type\" : \"" + expectedContainerType + "\"," + LINE_SEPARATOR +
-                "    \"usrId\" : \"" + xAuthenticatedUser + "\"," + LINE_SEPARATOR +
-                "    \"dur\" : " + validationDurationInMillis + "," + LINE_SEPARATOR +
-                "    \"sigCt\" : " + totalSignatureCount + "," + LINE_SEPARATOR +
-                "    \"vSigCt\" : " + validSignaturesCount + "," + LINE_SEPARATOR +
-                "    \"sigRslt\" : [ {" + LINE_SEPARATOR +
-                "      \"i\" : \"" + indication + "\"," + LINE_SEPARATOR +
-                "      \"cc\" : \"" + countryCode + "\"," + LINE_SEPARATOR +
-                "      \"sf\" : \"" + signatureFormat + "\"" + LINE_SEPARATOR +
-                "    } ]" + LINE_SEPARATOR +
-                "  }" + LINE_SEPARATOR +
-                "}"
+        statisticsService.publishQueuedStatistics();
+        verify(loggerMock).info("{\"stats\":{" +
+                "\"type\":\"" + expectedContainerType + "\"," +
+                "\"usrId\":\"" + xAuthenticatedUser + "\"," +
+                "\"dur\":" + validationDurationInMillis + "," +
+                "\"sigCt\":" + totalSignatureCount + "," +
+                "\"vSigCt\":" + validSignaturesCount + "," +
+                "\"sigRslt\":[{" +
+                "\"i\":\"" + indication + "\"," +
+                "\"cc\":\"" + countryCode + "\"," +
+                "\"sf\":\"" + signatureFormat + "\"" +
+                "}]}}"
         );
     }
 
@@ -119,32 +129,112 @@ public class StatisticsServiceTest {
         addSignatureValidationData(report.getValidationConclusion(), firstSignatureIndication, firstSignatureSubindication, firstSignatureCountryCode, firstSignatureFormat);
         addSignatureValidationData(report.getValidationConclusion(), secondSignatureIndication, secondSignatureSubindication, secondSignatureCountryCode, secondSignatureFormat);
 
-        HttpServletRequest mockedRequest = mock(HttpServletRequest.class);
-        statisticsService.setHttpRequest(mockedRequest);
-        when(mockedRequest.getHeader(X_AUTHENTICATED_USER)).thenReturn(xAuthenticatedUser);
+        bindRequestWithAuthenticatedUser(xAuthenticatedUser);
 
         statisticsService.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(validationDurationInMillis), report.getValidationConclusion());
-        verify(loggerMock).info("{" + LINE_SEPARATOR +
-                "  \"stats\" : {" + LINE_SEPARATOR +
-                "    \"type\" : \"" + signatureForm + "\"," + LINE_SEPARATOR +
-                "    \"usrId\" : \"" + xAuthenticatedUser + "\"," + LINE_SEPARATOR +
-                "    \"dur\" : " + validationDurationInMillis + "," + LINE_SEPARATOR +
-                "    \"sigCt\" : " + totalSignatureCount + "," + LINE_SEPARATOR +
-                "    \"vSigCt\" : " + validSignaturesCount + "," + LINE_SEPARATOR +
-                "    \"sigRslt\" : [ {" + LINE_SEPARATOR +
-                "      \"i\" : \"" + firstSignatureIndication + "\"," + LINE_SEPARATOR +
-                "      \"cc\" : \"" + firstSignatureCountryCode + "\"," + LINE_SEPARATOR +
-                "      \"sf\" : \"" + firstSignatureFormat + "\"" + LINE_SEPARATOR +
-                "    }, {" + LINE_SEPARATOR +
-                "      \"i\" : \"" + secondSignatureIndication + "\"," + LINE_SEPARATOR +
-                "      \"si\" : \"" + secondSignatureSubindication + "\"," + LINE_SEPARATOR +
-                "      \"cc\" : \"" + secondSignatureCountryCode + "\"" + LINE_SEPARATOR +
-                "    } ]" + LINE_SEPARATOR +
-                "  }" + LINE_SEPARATOR +
-                "}"
+        statisticsService.publishQueuedStatistics();
+        verify(loggerMock).info("{\"stats\":{" +
+                "\"type\":\"" + signatureForm + "\"," +
+                "\"usrId\":\"" + xAuthenticatedUser + "\"," +
+                "\"dur\":" + validationDurationInMillis + "," +
+                "\"sigCt\":" + totalSignatureCount + "," +
+                "\"vSigCt\":" + validSignaturesCount + "," +
+                "\"sigRslt\":[{" +
+                "\"i\":\"" + firstSignatureIndication + "\"," +
+                "\"cc\":\"" + firstSignatureCountryCode + "\"," +
+                "\"sf\":\"" + firstSignatureFormat + "\"" +
+                "},{" +
+                "\"i\":\"" + secondSignatureIndication + "\"," +
+                "\"si\":\"" + secondSignatureSubindication + "\"," +
+                "\"cc\":\"" + secondSignatureCountryCode + "\"" +
+                "}]}}"
         );
     }
 
+    @Test
+    public void testValidationStatisticsLoggingOutsideOfRequest() {
+        long validationDurationInMillis = 3000L;
+        SimpleReport report = createDummySimpleReport("ASiC-E", 0, 0);
+
+        statisticsService.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(validationDurationInMillis), report.getValidationConclusion());
+        statisticsService.publishQueuedStatistics();
+        verify(loggerMock).info(contains("\"usrId\":\"N/A\",\"dur\":" + validationDurationInMillis));
+    }
+
+    @Test
+    public void testUserIdentifierIsCapturedOnValidatingThread() {
+        SimpleReport report = createDummySimpleReport("ASiC-E", 0, 0);
+
+        bindRequestWithAuthenticatedUser("captured_user");
+        statisticsService.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(4000L), report.getValidationConclusion());
+        RequestContextHolder.resetRequestAttributes();
+        statisticsService.publishQueuedStatistics();
+
+        verify(loggerMock).info(contains("\"usrId\":\"captured_user\",\"dur\":4000"));
+    }
+
+    @Test
+    public void testStatisticsAreDroppedWhenQueueIsFull() {
+        StatisticsProperties properties = new StatisticsProperties();
+        properties.setQueueCapacity(1);
+        properties.setPublisherThreads(0);
+        StatisticsService service = createStatisticsService(properties);
+        CounterService counterService = mock(CounterService.class);
+        service.setCounterService(counterService);
+        SimpleReport report = createDummySimpleReport("ASiC-E", 0, 0);
+
+        service.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(5000L), report.getValidationConclusion());
+        service.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(5001L), report.getValidationConclusion());
+
+        verify(counterService).increment(StatisticsService.DROPPED_METRIC);
+        assertEquals(1, service.publishQueuedStatistics());
+    }
+
+    @Test
+    public void testStatisticsArePublishedByBackgroundThread() throws Exception {
+        StatisticsService service = createStatisticsService(new StatisticsProperties());
+        SimpleReport report = createDummySimpleReport("ASiC-E", 0, 0);
+        try {
+            service.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(6000L), report.getValidationConclusion());
+            verify(loggerMock, timeout(5000)).info(contains("\"dur\":6000"));
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    public void testValidationIsNotLoggedSeparatelyWhenSummaryLogIsEnabled() {
+        StatisticsProperties properties = new StatisticsProperties();
+        properties.setPublisherThreads(0);
+        properties.getAggregate().setSummaryLogEnabled(true);
+        StatisticsService service = createStatisticsService(properties);
+        SimpleReport report = createDummySimpleReport("ASiC-E", 0, 0);
+
+        service.publishValidationStatistic(TimeUnit.MILLISECONDS.toNanos(7000L), report.getValidationConclusion());
+        service.publishQueuedStatistics();
+
+        verify(loggerMock, never()).info(contains("\"dur\":7000"));
+        verify(ga).sendStatisticalData(argThat(hasProperty("duration", equalTo(7000L))));
+    }
+
+    private static StatisticsService createStatisticsService(StatisticsProperties properties) {
+        StatisticsService service = new StatisticsService();
+        service.setProperties(properties);
+        service.setGoogleAnalyticsMeasurementClient(ga);
+        ValidationStatisticsAggregator aggregator = new ValidationStatisticsAggregator();
+        aggregator.setProperties(properties);
+        aggregator.start();
+        service.setAggregator(aggregator);
+        service.start();
+        return service;
+    }
+
+    private void bindRequestWithAuthenticatedUser(String userIdentifier) {
+        HttpServletRequest mockedRequest = mock(HttpServletRequest.class);
+        when(mockedRequest.getHeader(X_AUTHENTICATED_USER)).thenReturn(userIdentifier);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(mockedRequest));
+    }
+
     private SimpleReport createDummySimpleReport(String signatureForm, int validSignaturesCount, int totalSignaturesCount) {
         ValidationConclusion validationConclusion = new ValidationConclusion();
         validationConclusion.setSignaturesCount(totalSignaturesCount);
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.aggregate;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void everyLatencyFallsWithinItsBucket() {
+        for (long latency = 0; latency < 1 << 20; latency++) {
+            int index = LatencyHistogram.bucketIndex(latency);
+            assertTrue(latency <= LatencyHistogram.bucketUpperBound(index));
+            assertTrue(index == 0 || latency > LatencyHistogram.bucketUpperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void bucketUpperBoundIsWithinRelativeErrorOfLatency() {
+        for (long latency = 1; latency < 1 << 20; latency += 7) {
+            long upperBound = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(latency));
+            assertTrue(upperBound - latency <= latency / LatencyHistogram.SUB_BUCKET_COUNT);
+        }
+    }
+
+    @Test
+    public void latenciesBeyondRangeAreCountedInLastBucket() {
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesAreCalculatedFromBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long latency = 1; latency <= 100; latency++) {
+            histogram.record(latency);
+        }
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        histogram.addTo(counts);
+
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(51, LatencyHistogram.percentile(counts, 100, histogram.getMax(), 50));
+        assertEquals(95, LatencyHistogram.percentile(counts, 100, histogram.getMax(), 90));
+        assertEquals(100, LatencyHistogram.percentile(counts, 100, histogram.getMax(), 99));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.statistics.aggregate;
+
+import ee.openeid.siva.statistics.configuration.properties.StatisticsProperties;
+import ee.openeid.siva.statistics.model.SimpleSignatureReport;
+import ee.openeid.siva.statistics.model.SimpleValidationReport;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationStatisticsAggregatorTest {
+
+    private static final long SLICE_DURATION_IN_MILLIS = TimeUnit.SECONDS.toMillis(300);
+
+    private final AtomicLong currentTime = new AtomicLong(100 * SLICE_DURATION_IN_MILLIS);
+    private StatisticsProperties properties;
+    private ValidationStatisticsAggregator aggregator;
+
+    @Before
+    public void setUp() {
+        properties = new StatisticsProperties();
+        properties.getAggregate().setWindowSlices(2);
+        aggregator = new ValidationStatisticsAggregator();
+        aggregator.setProperties(properties);
+        aggregator.setClock(currentTime::get);
+        aggregator.start();
+    }
+
+    @Test
+    public void validationsAreAggregatedInTotalAndByGroup() {
+        aggregator.record(createReport("ASiC-E", "user1", 100, "EE", "LV"));
+        aggregator.record(createReport("ASiC-E", "user2", 300, "EE"));
+        aggregator.record(createReport("", "user1", 50));
+
+        ValidationStatisticsSnapshot snapshot = aggregator.snapshot();
+
+        assertEquals(3, snapshot.getTotal().getValidations());
+        assertEquals(3, snapshot.getTotal().getSignatures());
+        assertEquals(150, snapshot.getTotal().getLatency().getMean());
+        assertEquals(300, snapshot.getTotal().getLatency().getMax());
+        assertEquals(Long.valueOf(2), snapshot.getTotal().getIndications().get("TOTAL_PASSED"));
+        assertEquals(Long.valueOf(1), snapshot.getTotal().getIndications().get("TOTAL_FAILED/FORMAT_FAILURE"));
+        assertEquals(2, snapshot.getContainerTypes().get("ASiC-E").getValidations());
+        assertEquals(1, snapshot.getContainerTypes().get("N/A").getValidations());
+        assertEquals(2, snapshot.getUsers().get("user1").getValidations());
+        assertEquals(2, snapshot.getCountries().get("EE").getSignatures());
+        assertEquals(Long.valueOf(1), snapshot.getCountries().get("LV").getIndications().get("TOTAL_FAILED/FORMAT_FAILURE"));
+    }
+
+    @Test
+    public void validationsOutsideOfRollingWindowAreExcluded() {
+        aggregator.record(createReport("ASiC-E", "user1", 100));
+        currentTime.addAndGet(SLICE_DURATION_IN_MILLIS);
+        aggregator.record(createReport("ASiC-E", "user1", 100));
+        assertEquals(2, aggregator.snapshot().getTotal().getValidations());
+
+        currentTime.addAndGet(SLICE_DURATION_IN_MILLIS);
+        aggregator.record(createReport("ASiC-E", "user1", 100));
+        ValidationStatisticsSnapshot snapshot = aggregator.snapshot();
+
+        assertEquals(2, snapshot.getTotal().getValidations());
+        assertEquals(Instant.ofEpochMilli(101 * SLICE_DURATION_IN_MILLIS).toString(), snapshot.getFrom());
+    }
+
+    @Test
+    public void groupsAboveLimitAreAggregatedTogether() {
+        properties.getAggregate().setMaxGroups(2);
+        for (int i = 0; i < 5; i++) {
+            aggregator.record(createReport("ASiC-E", "user" + i, 100));
+        }
+
+        ValidationStatisticsSnapshot snapshot = aggregator.snapshot();
+
+        assertEquals(3, snapshot.getUsers().size());
+        assertEquals(3, snapshot.getUsers().get(AggregateSlice.OTHER_GROUP).getValidations());
+    }
+
+    @Test
+    public void concurrentlyRecordedValidationsAreAllCounted() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4000; i++) {
+            executorService.execute(() -> aggregator.record(createReport("ASiC-E", "user1", 100, "EE")));
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        ValidationStatisticsSnapshot snapshot = aggregator.snapshot();
+
+        assertEquals(4000, snapshot.getTotal().getValidations());
+        assertEquals(4000, snapshot.getCountries().get("EE").getSignatures());
+    }
+
+    private SimpleValidationReport createReport(String containerType, String userIdentifier, long duration, String... countryCodes) {
+        SimpleValidationReport report = new SimpleValidationReport();
+        report.setContainerType(containerType);
+        report.setUserIdentifier(userIdentifier);
+        report.setDuration(duration);
+        report.setSignatureCount(countryCodes.length);
+        report.setValidSignatureCount(0);
+        report.setSimpleSignatureReports(new ArrayList<>());
+        for (int i = 0; i < countryCodes.length; i++) {
+            SimpleSignatureReport signature = new SimpleSignatureReport();
+            signature.setIndication(i == 0 ? "TOTAL_PASSED" : "TOTAL_FAILED");
+            signature.setSubIndication(i == 0 ? "" : "FORMAT_FAILURE");
+            signature.setCountryCode(countryCodes[i]);
+            report.getSimpleSignatureReports().add(signature);
+            report.setValidSignatureCount(i == 0 ? 1 : report.getValidSignatureCount());
+        }
+        return report;
+    }
+}
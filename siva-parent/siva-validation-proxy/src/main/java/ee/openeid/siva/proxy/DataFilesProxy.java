@@ -18,24 +18,30 @@ package ee.openeid.siva.proxy;
 
 import ee.openeid.siva.proxy.document.DocumentType;
 import ee.openeid.siva.proxy.document.ProxyDocument;
-import ee.openeid.siva.proxy.exception.DataFilesServiceNotFoundException;
+import ee.openeid.siva.proxy.registry.DataFilesServiceRegistry;
 import ee.openeid.siva.validation.document.DataFilesDocument;
 import ee.openeid.siva.validation.document.report.DataFilesReport;
-import ee.openeid.siva.validation.service.DataFilesService;
 import org.apache.commons.io.FilenameUtils;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
 @Service
 public class DataFilesProxy {
 
     private static final String SERVICE_BEAN_NAME_POSTFIX = "DataFilesService";
-    private ApplicationContext applicationContext;
+    private DataFilesServiceRegistry dataFilesServiceRegistry;
 
     public DataFilesReport getDataFiles(ProxyDocument proxyDocument) {
-        return getServiceForType(extractDocumentType(proxyDocument.getName())).getDataFiles(createDataFilesDocument(proxyDocument));
+        DataFilesDocument dataFilesDocument = createDataFilesDocument(proxyDocument);
+        return dataFilesServiceRegistry.dispatch(getServiceName(proxyDocument), dataFilesService -> dataFilesService.getDataFiles(dataFilesDocument));
+    }
+
+    private String getServiceName(ProxyDocument proxyDocument) {
+        String routedServiceName = dataFilesServiceRegistry.route(proxyDocument);
+        if (routedServiceName != null) {
+            return routedServiceName;
+        }
+        return constructDataFilesServiceName(extractDocumentType(proxyDocument.getName()));
     }
 
     private static DocumentType extractDocumentType(String filename) {
@@ -53,17 +59,8 @@ public class DataFilesProxy {
         return dataFilesDocument;
     }
 
-    private DataFilesService getServiceForType(DocumentType documentType) {
-        String dataFilesServiceName = constructDataFilesServiceName(documentType);
-        try {
-            return (DataFilesService) applicationContext.getBean(dataFilesServiceName);
-        } catch (NoSuchBeanDefinitionException e) {
-            throw new DataFilesServiceNotFoundException(dataFilesServiceName + " not found");
-        }
-    }
-
     @Autowired
-    public void setApplicationContext(ApplicationContext applicationContext) {
-        this.applicationContext = applicationContext;
+    public void setDataFilesServiceRegistry(DataFilesServiceRegistry dataFilesServiceRegistry) {
+        this.dataFilesServiceRegistry = dataFilesServiceRegistry;
     }
 }
@@ -28,11 +28,11 @@ import java.util.stream.Collectors;
 @Service
 public class HashcodeValidationProxy extends ValidationProxy {
 
-    private static final String HASHCODE_GENERIC_SERVICE = "hashcodeGeneric";
+    private static final String HASHCODE_GENERIC_SERVICE = "hashcodeGeneric" + SERVICE_BEAN_NAME_POSTFIX;
 
     @Override
     protected String constructValidatorName(ProxyDocument proxyDocument) {
-        return HASHCODE_GENERIC_SERVICE + SERVICE_BEAN_NAME_POSTFIX;
+        return HASHCODE_GENERIC_SERVICE;
     }
 
     @Override
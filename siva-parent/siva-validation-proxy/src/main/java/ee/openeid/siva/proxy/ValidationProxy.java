@@ -16,45 +16,48 @@
 
 package ee.openeid.siva.proxy;
 
+import ee.openeid.siva.proxy.admission.ValidationAdmissionControl;
+import ee.openeid.siva.proxy.cache.ValidationResultCache;
 import ee.openeid.siva.proxy.document.DocumentType;
 import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.proxy.document.ReportType;
-import ee.openeid.siva.proxy.exception.ValidatonServiceNotFoundException;
 import ee.openeid.siva.proxy.http.RESTProxyService;
+import ee.openeid.siva.proxy.registry.ValidationServiceRegistry;
 import ee.openeid.siva.statistics.StatisticsService;
 import ee.openeid.siva.validation.document.ValidationDocument;
+import ee.openeid.siva.validation.document.ZipContainer;
 import ee.openeid.siva.validation.document.report.*;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
-import ee.openeid.siva.validation.service.ValidationService;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageMetrics;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.validation.service.ddoc.report.DDOCValidationReportBuilder;
 import ee.openeid.validation.service.timestamptoken.TimeStampTokenValidationService;
-import eu.europa.esig.dss.InMemoryDocument;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.function.Supplier;
+import java.util.zip.ZipException;
 
 @Service
 public class ValidationProxy {
     private static final Logger LOGGER = LoggerFactory.getLogger(ValidationProxy.class);
     protected static final String SERVICE_BEAN_NAME_POSTFIX = "ValidationService";
-    private static final String GENERIC_SERVICE = "generic";
+    private static final String GENERIC_SERVICE = "generic" + SERVICE_BEAN_NAME_POSTFIX;
+    private static final String DDOC_SERVICE = DocumentType.DDOC.name() + SERVICE_BEAN_NAME_POSTFIX;
+    private static final String BDOC_SERVICE = DocumentType.BDOC.name() + SERVICE_BEAN_NAME_POSTFIX;
+    private static final String XROAD_SERVICE = DocumentType.XROAD.name() + SERVICE_BEAN_NAME_POSTFIX;
     private static final String ASICS_EXTENSION = "ASICS";
     private static final String SCS_FILE_TYPE = "SCS";
     private static final String ZIP_FILE_TYPE = "ZIP";
     private static final String TIMESTAMP_EXTENSION = ".TST";
-    private static final String TIMESTAMP_TOKEN_SERVICE = "timeStampToken";
+    private static final String TIMESTAMP_TOKEN_SERVICE = "timeStampToken" + SERVICE_BEAN_NAME_POSTFIX;
     private static final String MIME_TYPE_FILE_NAME = "mimetype";
     private static final String ASICS_MIME_TYPE = "application/vnd.etsi.asic-s+zip";
     private static final String META_INF_FOLDER = "META-INF/";
@@ -62,26 +65,43 @@ public class ValidationProxy {
 
     private RESTProxyService restProxyService;
     private StatisticsService statisticsService;
-    private ApplicationContext applicationContext;
-
+    private ValidationServiceRegistry validationServiceRegistry;
+    private ValidationResultCache validationResultCache;
+    private ValidationAdmissionControl admissionControl;
+    private ValidationStageMetrics stageMetrics = new ValidationStageMetrics();
 
     public SimpleReport validate(ProxyDocument proxyDocument) {
         long validationStartTime = System.nanoTime();
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            ValidationStageTimings.tagDocument(getDocumentTypeTag(proxyDocument), null,
+                    proxyDocument.getReportType() == null ? null : proxyDocument.getReportType().getValue());
+            SimpleReport report = validationResultCache == null
+                    ? createReport(proxyDocument)
+                    : validationResultCache.getOrValidate(getClass().getSimpleName(), proxyDocument, this::createReport);
+            statisticsService.publishValidationStatistic(System.nanoTime() - validationStartTime, report.getValidationConclusion());
+            return report;
+        }
+    }
+
+    private SimpleReport createReport(ProxyDocument proxyDocument) {
         Reports reports;
         SimpleReport report;
         if (proxyDocument.getDocumentType() != null && proxyDocument.getDocumentType() == DocumentType.XROAD) {
-            reports = restProxyService.validate(createValidationDocument(proxyDocument));
+            ValidationStageTimings.tagService(XROAD_SERVICE);
+            ValidationDocument validationDocument = createValidationDocument(proxyDocument);
+            reports = admit(XROAD_SERVICE, proxyDocument, () -> restProxyService.validate(validationDocument));
             report = chooseReport(reports, proxyDocument.getReportType());
         } else {
-            ValidationService validationService = getServiceForType(proxyDocument);
-            reports = validationService.validateDocument(createValidationDocument(proxyDocument));
+            String validationServiceName = ValidationStageTimings.time(ValidationStage.ROUTE, () -> getServiceName(proxyDocument));
+            ValidationStageTimings.tagService(validationServiceRegistry.hasService(validationServiceName) ? validationServiceName : ValidationStageTimings.OTHER_TAG);
+            reports = validateDocument(validationServiceName, proxyDocument);
             report = chooseReport(reports, proxyDocument.getReportType());
-            if (validationService instanceof TimeStampTokenValidationService && TimeStampTokenValidationData.Indication.TOTAL_PASSED == report.getValidationConclusion().getTimeStampTokens().get(0).getIndication()) {
+            if (validationServiceRegistry.getService(validationServiceName) instanceof TimeStampTokenValidationService && TimeStampTokenValidationData.Indication.TOTAL_PASSED == report.getValidationConclusion().getTimeStampTokens().get(0).getIndication()) {
                 ProxyDocument dataFileProxyDocument = generateDataFileProxyDocument(proxyDocument);
-                ValidationService dataFileValidationService = getServiceForType(dataFileProxyDocument);
+                String dataFileValidationServiceName = ValidationStageTimings.time(ValidationStage.ROUTE, () -> getServiceName(dataFileProxyDocument));
                 SimpleReport dataFileReport = null;
                 try {
-                    dataFileReport = chooseReport(dataFileValidationService.validateDocument(createValidationDocument(dataFileProxyDocument)), proxyDocument.getReportType());
+                    dataFileReport = chooseReport(validateDocument(dataFileValidationServiceName, dataFileProxyDocument), proxyDocument.getReportType());
                     removeUnnecessaryWarning(dataFileReport.getValidationConclusion());
                 } catch (MalformedDocumentException e) {
                     if (e.getCause() == null || !DOCUMENT_FORMAT_NOT_RECOGNIZED.equalsIgnoreCase(e.getCause().getMessage())) {
@@ -91,10 +111,32 @@ public class ValidationProxy {
                 report = mergeReports(report, dataFileReport);
             }
         }
-        statisticsService.publishValidationStatistic(System.nanoTime() - validationStartTime, report.getValidationConclusion());
         return report;
     }
 
+    /**
+     * Name of the validation service the document is routed to, X-Road documents are routed to the remote X-Road service.
+     */
+    public String getValidationServiceName(ProxyDocument proxyDocument) {
+        if (proxyDocument.getDocumentType() == DocumentType.XROAD) {
+            return XROAD_SERVICE;
+        }
+        return getServiceName(proxyDocument);
+    }
+
+    /**
+     * Document type the validation is tagged with in the stage metrics. The tag is the given type or the document type
+     * matching the file extension, any other extension is tagged as other. The policy is tagged by the signature policy
+     * service with the name of the policy it loaded, so request input never becomes a metric name.
+     */
+    private String getDocumentTypeTag(ProxyDocument proxyDocument) {
+        DocumentType documentType = proxyDocument.getDocumentType();
+        if (documentType == null && proxyDocument.getName() != null) {
+            documentType = DocumentType.documentTypeFromString(FilenameUtils.getExtension(proxyDocument.getName()));
+        }
+        return documentType == null ? ValidationStageTimings.OTHER_TAG : documentType.name();
+    }
+
     void removeUnnecessaryWarning(ValidationConclusion validationConclusion) {
         List<ValidationWarning> warnings = validationConclusion.getValidationWarnings();
         if (warnings == null || warnings.isEmpty())
@@ -123,83 +165,111 @@ public class ValidationProxy {
 
     private ProxyDocument generateDataFileProxyDocument(ProxyDocument proxyDocument) {
         ProxyDocument dataFileDocument = new ProxyDocument();
-        InMemoryDocument inMemoryDocument = getDataFile(proxyDocument.getBytes());
-        dataFileDocument.setName(inMemoryDocument.getName());
+        ZipContainer container = openZipContainer(proxyDocument);
+        ZipContainer.Entry dataFile = getDataFile(container);
+        dataFileDocument.setName(dataFile.getName());
         dataFileDocument.setSignaturePolicy(proxyDocument.getSignaturePolicy());
-        dataFileDocument.setBytes(inMemoryDocument.getBytes());
+        dataFileDocument.setBytes(getContent(container, dataFile));
         return dataFileDocument;
     }
 
-    private InMemoryDocument getDataFile(byte[] proxyDocument) {
-        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(proxyDocument))) {
-            ZipEntry entry;
-            while ((entry = zipStream.getNextEntry()) != null) {
+    private ZipContainer.Entry getDataFile(ZipContainer container) {
+        if (container != null) {
+            for (ZipContainer.Entry entry : container.getEntries()) {
                 if (!entry.getName().startsWith(META_INF_FOLDER) && !entry.getName().equalsIgnoreCase(MIME_TYPE_FILE_NAME)) {
-                    return new InMemoryDocument(zipStream, entry.getName());
+                    return entry;
                 }
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
         throw new IllegalArgumentException("Invalid document");
     }
 
     protected String constructValidatorName(ProxyDocument proxyDocument) {
+        String routedValidatorName = validationServiceRegistry.route(proxyDocument);
+        if (routedValidatorName != null) {
+            return routedValidatorName;
+        }
         String filename = proxyDocument.getName();
         String extension = FilenameUtils.getExtension(filename).toUpperCase();
         if (!StringUtils.isNotBlank(extension)) {
             throw new IllegalArgumentException("Invalid file format:" + filename);
         }
-        if (DocumentType.DDOC.name().equals(extension) || DocumentType.BDOC.name().equals(extension)) {
-            return extension + SERVICE_BEAN_NAME_POSTFIX;
+        if (DocumentType.DDOC.name().equals(extension)) {
+            return DDOC_SERVICE;
+        } else if (DocumentType.BDOC.name().equals(extension)) {
+            return BDOC_SERVICE;
         } else if (extension.equals(ASICS_EXTENSION) || extension.equals(SCS_FILE_TYPE) || extension.equals(ZIP_FILE_TYPE)) {
-            return decideAsicsValidatorService(proxyDocument.getBytes(), extension);
+            return decideAsicsValidatorService(proxyDocument, extension);
         }
-        return GENERIC_SERVICE + SERVICE_BEAN_NAME_POSTFIX;
+        return GENERIC_SERVICE;
     }
 
-    private String decideAsicsValidatorService(byte[] document, String extension) {
-        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(document))) {
-            ZipEntry entry;
-            boolean isAsicsMimeType = false;
-            boolean isTimeStampExtension = false;
-            while ((entry = zipStream.getNextEntry()) != null) {
-                if (isAsicsMimeType(entry, zipStream)) {
-                    isAsicsMimeType = true;
-                } else if (entry.getName().toUpperCase().endsWith(TIMESTAMP_EXTENSION)) {
-                    isTimeStampExtension = true;
-                }
+    private String decideAsicsValidatorService(ProxyDocument proxyDocument, String extension) {
+        ZipContainer container = openZipContainer(proxyDocument);
+        if (container == null) {
+            return GENERIC_SERVICE;
+        }
+        boolean isAsicsMimeType = false;
+        boolean isTimeStampExtension = false;
+        for (ZipContainer.Entry entry : container.getEntries()) {
+            if (isAsicsMimeType(container, entry)) {
+                isAsicsMimeType = true;
+            } else if (entry.getName().toUpperCase().endsWith(TIMESTAMP_EXTENSION)) {
+                isTimeStampExtension = true;
             }
+        }
 
-            if (extension.equals(ZIP_FILE_TYPE)) {
-                if (isAsicsMimeType && isTimeStampExtension) {
-                    return TIMESTAMP_TOKEN_SERVICE + SERVICE_BEAN_NAME_POSTFIX;
-                }
-            } else {
-                if (isTimeStampExtension) {
-                    return TIMESTAMP_TOKEN_SERVICE + SERVICE_BEAN_NAME_POSTFIX;
-                }
+        if (extension.equals(ZIP_FILE_TYPE)) {
+            if (isAsicsMimeType && isTimeStampExtension) {
+                return TIMESTAMP_TOKEN_SERVICE;
+            }
+        } else {
+            if (isTimeStampExtension) {
+                return TIMESTAMP_TOKEN_SERVICE;
             }
+        }
+        return GENERIC_SERVICE;
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private boolean isAsicsMimeType(ZipContainer container, ZipContainer.Entry entry) {
+        return entry.getName().equals(MIME_TYPE_FILE_NAME) && ASICS_MIME_TYPE.equals(new String(getContent(container, entry)));
+    }
+
+    private ZipContainer openZipContainer(ProxyDocument proxyDocument) {
+        try {
+            proxyDocument.setZipContainer(ZipContainer.open(proxyDocument.getBytes(), proxyDocument.getZipContainer()));
+            return proxyDocument.getZipContainer();
+        } catch (ZipException e) {
+            LOGGER.debug("Document {} is not a readable ZIP container: {}", proxyDocument.getName(), e.getMessage());
+            return null;
         }
-        return GENERIC_SERVICE + SERVICE_BEAN_NAME_POSTFIX;
     }
 
-    private boolean isAsicsMimeType(ZipEntry entry, ZipInputStream zipStream) {
-        return entry.getName().equals(MIME_TYPE_FILE_NAME) && ASICS_MIME_TYPE.equals(new String(new InMemoryDocument(zipStream, entry.getName()).getBytes()));
+    private byte[] getContent(ZipContainer container, ZipContainer.Entry entry) {
+        try {
+            return container.getContent(entry);
+        } catch (ZipException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    private ValidationService getServiceForType(ProxyDocument proxyDocument) {
+    private String getServiceName(ProxyDocument proxyDocument) {
         String validatorName = constructValidatorName(proxyDocument);
-        LOGGER.info("Validation service: {}", validatorName);
-        try {
-            return (ValidationService) applicationContext.getBean(validatorName);
-        } catch (NoSuchBeanDefinitionException e) {
-            LOGGER.error("{} not found", validatorName, e);
-            throw new ValidatonServiceNotFoundException(validatorName + " not found");
+        LOGGER.debug("Validation service: {}", validatorName);
+        return validatorName;
+    }
+
+    private Reports validateDocument(String validationServiceName, ProxyDocument proxyDocument) {
+        ValidationDocument validationDocument = createValidationDocument(proxyDocument);
+        return admit(validationServiceName, proxyDocument, () -> validationServiceRegistry.dispatch(validationServiceName, validationService -> validationService.validateDocument(validationDocument)));
+    }
+
+    private <R> R admit(String validationServiceName, ProxyDocument proxyDocument, Supplier<R> validation) {
+        if (admissionControl == null) {
+            return validation.get();
         }
+        long documentSize = proxyDocument.getBytes() == null ? 0 : proxyDocument.getBytes().length;
+        return admissionControl.admit(validationServiceName, documentSize, validation);
     }
 
     protected ValidationDocument createValidationDocument(ProxyDocument proxyDocument) {
@@ -207,6 +277,7 @@ public class ValidationProxy {
         validationDocument.setName(proxyDocument.getName());
         validationDocument.setBytes(proxyDocument.getBytes());
         validationDocument.setSignaturePolicy(proxyDocument.getSignaturePolicy());
+        validationDocument.setZipContainer(proxyDocument.getZipContainer());
         return validationDocument;
     }
 
@@ -221,8 +292,23 @@ public class ValidationProxy {
     }
 
     @Autowired
-    public void setApplicationContext(ApplicationContext applicationContext) {
-        this.applicationContext = applicationContext;
+    public void setValidationResultCache(ValidationResultCache validationResultCache) {
+        this.validationResultCache = validationResultCache;
+    }
+
+    @Autowired
+    public void setAdmissionControl(ValidationAdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Autowired(required = false)
+    public void setStageMetrics(ValidationStageMetrics stageMetrics) {
+        this.stageMetrics = stageMetrics;
+    }
+
+    @Autowired
+    public void setValidationServiceRegistry(ValidationServiceRegistry validationServiceRegistry) {
+        this.validationServiceRegistry = validationServiceRegistry;
     }
 
 }
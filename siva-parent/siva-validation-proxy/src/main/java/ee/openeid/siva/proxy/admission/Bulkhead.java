@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.admission;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit of a single validation service with a bounded queue of waiting validations.
+ * <p>
+ * Waiting validations are queued in the lane of their document and admitted in arrival order within the lane.
+ * When validations are waiting in both lanes, a freed slot is given to the lanes in proportion to their
+ * weights using smooth weighted round robin, so the fast lane is preferred without starving the heavy lane.
+ */
+class Bulkhead {
+
+    private final String serviceName;
+    private final int queueCapacity;
+    private final long maxWaitInMillis;
+    private final Map<Lane, Integer> weights;
+    private final ValidationAdmissionControl admissionControl;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Lane, Deque<Waiter>> queues = new EnumMap<>(Lane.class);
+    private final Map<Lane, Integer> currentWeights = new EnumMap<>(Lane.class);
+    private int availableSlots;
+    private int queueDepth;
+
+    Bulkhead(String serviceName, int maxConcurrentValidations, int queueCapacity, long maxWaitInMillis,
+             Map<Lane, Integer> weights, ValidationAdmissionControl admissionControl) {
+        if (maxConcurrentValidations < 1) {
+            throw new IllegalArgumentException("Max concurrent validations of " + serviceName + " must be at least 1, but was " + maxConcurrentValidations);
+        }
+        this.serviceName = serviceName;
+        this.availableSlots = maxConcurrentValidations;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitInMillis = maxWaitInMillis;
+        this.weights = weights;
+        this.admissionControl = admissionControl;
+        for (Lane lane : Lane.values()) {
+            queues.put(lane, new ArrayDeque<>());
+            currentWeights.put(lane, 0);
+        }
+    }
+
+    void enter(Lane lane) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (availableSlots > 0 && queueDepth == 0) {
+                availableSlots--;
+                admissionControl.waited(serviceName, lane, System.nanoTime() - start);
+                return;
+            }
+            if (queueDepth >= queueCapacity) {
+                throw admissionControl.rejected(serviceName, "wait queue is full");
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            queues.get(lane).add(waiter);
+            admissionControl.queueChanged(serviceName, ++queueDepth);
+            boolean interrupted = awaitSlot(waiter);
+            if (!waiter.admitted) {
+                queues.get(lane).remove(waiter);
+                admissionControl.queueChanged(serviceName, --queueDepth);
+            }
+            admissionControl.waited(serviceName, lane, System.nanoTime() - start);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+                if (waiter.admitted) {
+                    releaseSlot();
+                }
+                throw admissionControl.rejected(serviceName, "interrupted while waiting");
+            }
+            if (!waiter.admitted) {
+                throw admissionControl.rejected(serviceName, "waited longer than " + maxWaitInMillis + " ms");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void leave() {
+        lock.lock();
+        try {
+            releaseSlot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean awaitSlot(Waiter waiter) {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitInMillis);
+        while (!waiter.admitted && remainingNanos > 0) {
+            try {
+                remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+            } catch (InterruptedException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void releaseSlot() {
+        availableSlots++;
+        while (availableSlots > 0 && queueDepth > 0) {
+            Waiter waiter = queues.get(nextLane()).poll();
+            availableSlots--;
+            waiter.admitted = true;
+            waiter.condition.signal();
+            admissionControl.queueChanged(serviceName, --queueDepth);
+        }
+    }
+
+    private Lane nextLane() {
+        Lane selected = null;
+        int totalWeight = 0;
+        for (Lane lane : Lane.values()) {
+            if (queues.get(lane).isEmpty()) {
+                currentWeights.put(lane, 0);
+                continue;
+            }
+            int weight = weights.get(lane);
+            totalWeight += weight;
+            currentWeights.put(lane, currentWeights.get(lane) + weight);
+            if (selected == null || currentWeights.get(lane) > currentWeights.get(selected)) {
+                selected = lane;
+            }
+        }
+        currentWeights.put(selected, currentWeights.get(selected) - totalWeight);
+        return selected;
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private boolean admitted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
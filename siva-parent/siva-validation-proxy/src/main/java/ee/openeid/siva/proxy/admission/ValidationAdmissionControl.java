@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.admission;
+
+import ee.openeid.siva.proxy.configuration.AdmissionControlProperties;
+import ee.openeid.siva.proxy.exception.ValidationServiceOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bulkheads in front of the validation services, so a burst of expensive documents routed to one service
+ * cannot take every request thread away from the other services.
+ * <p>
+ * Every validation service has its own limit of concurrent validations and its own bounded wait queue. A
+ * validation arriving at a full queue, or waiting longer than the configured maximum wait time, is rejected
+ * with {@link ValidationServiceOverloadedException}. Queue depth, wait time and rejections are published as
+ * metrics per service.
+ * <p>
+ * Documents up to the fast lane size threshold of their validation service wait in the fast lane, larger
+ * documents in the heavy lane. Both lanes share the slots of the service by their configured weights.
+ */
+@Component
+public class ValidationAdmissionControl {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationAdmissionControl.class);
+    static final String METRIC_PREFIX = "siva.proxy.admission.";
+    static final String QUEUE_METRIC_POSTFIX = ".queue";
+    static final String WAIT_METRIC_POSTFIX = ".wait";
+    static final String REJECTED_METRIC_POSTFIX = ".rejected";
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private AdmissionControlProperties properties;
+    private GaugeService gaugeService;
+    private CounterService counterService;
+
+    public <R> R admit(String serviceName, long documentSize, Supplier<R> validation) {
+        if (!properties.isEnabled()) {
+            return validation.get();
+        }
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(serviceName, this::createBulkhead);
+        bulkhead.enter(classify(serviceName, documentSize));
+        try {
+            return validation.get();
+        } finally {
+            bulkhead.leave();
+        }
+    }
+
+    private Bulkhead createBulkhead(String serviceName) {
+        int maxConcurrentValidations = properties.getServiceMaxConcurrentValidations().getOrDefault(serviceName, properties.getMaxConcurrentValidations());
+        int queueCapacity = properties.getServiceQueueCapacity().getOrDefault(serviceName, properties.getQueueCapacity());
+        LOGGER.info("Creating bulkhead for {} with {} concurrent validations and queue capacity {}", serviceName, maxConcurrentValidations, queueCapacity);
+        Map<Lane, Integer> weights = new EnumMap<>(Lane.class);
+        weights.put(Lane.FAST, properties.getFastLaneWeight());
+        weights.put(Lane.HEAVY, properties.getHeavyLaneWeight());
+        return new Bulkhead(serviceName, maxConcurrentValidations, queueCapacity, properties.getMaxWaitInMillis(), weights, this);
+    }
+
+    Lane classify(String serviceName, long documentSize) {
+        long fastLaneMaxBytes = properties.getServiceFastLaneMaxBytes().getOrDefault(serviceName, properties.getFastLaneMaxBytes());
+        return documentSize <= fastLaneMaxBytes ? Lane.FAST : Lane.HEAVY;
+    }
+
+    void queueChanged(String serviceName, int queueDepth) {
+        if (gaugeService != null) {
+            gaugeService.submit(METRIC_PREFIX + serviceName + QUEUE_METRIC_POSTFIX, queueDepth);
+        }
+    }
+
+    void waited(String serviceName, Lane lane, long waitInNanos) {
+        if (gaugeService != null) {
+            gaugeService.submit("timer." + METRIC_PREFIX + serviceName + "." + lane.getMetricName() + WAIT_METRIC_POSTFIX, waitInNanos / 1_000_000.0);
+        }
+    }
+
+    ValidationServiceOverloadedException rejected(String serviceName, String reason) {
+        if (counterService != null) {
+            counterService.increment(METRIC_PREFIX + serviceName + REJECTED_METRIC_POSTFIX);
+        }
+        LOGGER.warn("Rejected validation by {}: {}", serviceName, reason);
+        return new ValidationServiceOverloadedException("Validation service " + serviceName + " is overloaded, " + reason);
+    }
+
+    @Autowired
+    public void setProperties(AdmissionControlProperties properties) {
+        this.properties = properties;
+    }
+
+    @Autowired(required = false)
+    public void setGaugeService(GaugeService gaugeService) {
+        this.gaugeService = gaugeService;
+    }
+
+    @Autowired(required = false)
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
+    }
+}
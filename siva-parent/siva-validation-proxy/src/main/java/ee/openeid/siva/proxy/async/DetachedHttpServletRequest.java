@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.async;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copy of the headers, attributes and user of a request, so that they can be read by a validation job after the
+ * request itself is completed and recycled by the servlet container.
+ */
+class DetachedHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final String remoteUser;
+    private final Principal userPrincipal;
+
+    private DetachedHttpServletRequest(HttpServletRequest request) {
+        super(request);
+        for (String headerName : Collections.list(request.getHeaderNames())) {
+            headers.put(headerName, Collections.list(request.getHeaders(headerName)));
+        }
+        for (String attributeName : Collections.list(request.getAttributeNames())) {
+            attributes.put(attributeName, request.getAttribute(attributeName));
+        }
+        remoteUser = request.getRemoteUser();
+        userPrincipal = request.getUserPrincipal();
+    }
+
+    /**
+     * @return attributes of a copy of the given servlet request, other attributes are returned as they are
+     */
+    static RequestAttributes detach(RequestAttributes requestAttributes) {
+        if (!(requestAttributes instanceof ServletRequestAttributes)) {
+            return requestAttributes;
+        }
+        return new ServletRequestAttributes(new DetachedHttpServletRequest(((ServletRequestAttributes) requestAttributes).getRequest()));
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return Collections.enumeration(headers.getOrDefault(name, Collections.emptyList()));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(new ArrayList<>(headers.keySet()));
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            removeAttribute(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return remoteUser;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return userPrincipal;
+    }
+}
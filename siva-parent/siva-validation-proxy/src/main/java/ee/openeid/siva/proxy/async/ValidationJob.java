@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.async;
+
+import ee.openeid.siva.validation.document.report.SimpleReport;
+
+/**
+ * State of an asynchronously validated document. The report or the failure of a done job is the same
+ * as a synchronous validation of the document would have returned or thrown.
+ */
+public class ValidationJob {
+
+    private final String id;
+    private final String callbackUrl;
+    private volatile ValidationJobStatus status = ValidationJobStatus.QUEUED;
+    private volatile SimpleReport report;
+    private volatile String reportSignature;
+    private volatile RuntimeException failure;
+
+    ValidationJob(String id, String callbackUrl) {
+        this.id = id;
+        this.callbackUrl = callbackUrl;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ValidationJobStatus getStatus() {
+        return status;
+    }
+
+    public SimpleReport getReport() {
+        return report;
+    }
+
+    public String getReportSignature() {
+        return reportSignature;
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    void running() {
+        status = ValidationJobStatus.RUNNING;
+    }
+
+    void finished(SimpleReport report, String reportSignature) {
+        this.report = report;
+        this.reportSignature = reportSignature;
+        status = ValidationJobStatus.FINISHED;
+    }
+
+    void failed(RuntimeException failure) {
+        this.failure = failure;
+        status = ValidationJobStatus.FAILED;
+    }
+}
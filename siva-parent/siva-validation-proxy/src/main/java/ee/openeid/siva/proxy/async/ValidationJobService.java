@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.async;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ee.openeid.siva.proxy.ValidationProxy;
+import ee.openeid.siva.proxy.configuration.AsyncValidationProperties;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.exception.InvalidCallbackUrlException;
+import ee.openeid.siva.proxy.exception.ValidationJobNotFoundException;
+import ee.openeid.siva.proxy.exception.ValidationJobRejectedException;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates documents in the background through the same {@link ValidationProxy} as synchronous requests.
+ * <p>
+ * Every validation service has its own worker pool with a bounded queue, a job is rejected when the queue of
+ * its service is full. Done jobs are kept for the configured time to live and an optional callback URL is
+ * notified when a job is done. A job sees the headers and attributes of the request that submitted it, and the
+ * report of a finished job is signed once by the optional {@link ValidationReportSigner}.
+ */
+@Service
+public class ValidationJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationJobService.class);
+    static final String SUBMITTED_METRIC = "siva.proxy.async.submitted";
+    static final String REJECTED_METRIC = "siva.proxy.async.rejected";
+    static final String FINISHED_METRIC = "siva.proxy.async.finished";
+    static final String FAILED_METRIC = "siva.proxy.async.failed";
+
+    private final Map<String, ValidationJob> activeJobs = new ConcurrentHashMap<>();
+    private final Map<String, ThreadPoolExecutor> workerPools = new ConcurrentHashMap<>();
+    private AsyncValidationProperties properties;
+    private ValidationProxy validationProxy;
+    private CounterService counterService;
+    private Cache<String, ValidationJob> doneJobs;
+    private RestTemplate callbackRestTemplate;
+    private ValidationReportSigner reportSigner;
+
+    @PostConstruct
+    public void init() {
+        doneJobs = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxRetainedResults())
+                .expireAfterWrite(properties.getResultTtlInSeconds(), TimeUnit.SECONDS)
+                .build();
+        callbackRestTemplate = new RestTemplateBuilder()
+                .setConnectTimeout(properties.getCallbackTimeoutInMillis())
+                .setReadTimeout(properties.getCallbackTimeoutInMillis())
+                .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        workerPools.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    public ValidationJob submit(ProxyDocument proxyDocument, String callbackUrl) {
+        verifyCallbackUrl(callbackUrl);
+        String serviceName = validationProxy.getValidationServiceName(proxyDocument);
+        ValidationJob job = new ValidationJob(UUID.randomUUID().toString(), callbackUrl);
+        RequestAttributes requestAttributes = DetachedHttpServletRequest.detach(RequestContextHolder.getRequestAttributes());
+        activeJobs.put(job.getId(), job);
+        try {
+            getWorkerPool(serviceName).execute(() -> run(job, proxyDocument, requestAttributes));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getId());
+            incrementCounter(REJECTED_METRIC);
+            throw new ValidationJobRejectedException("Validation queue of " + serviceName + " is full");
+        }
+        incrementCounter(SUBMITTED_METRIC);
+        return job;
+    }
+
+    public ValidationJob getJob(String jobId) {
+        ValidationJob job = activeJobs.get(jobId);
+        if (job == null) {
+            job = doneJobs.getIfPresent(jobId);
+        }
+        if (job == null) {
+            throw new ValidationJobNotFoundException("Validation job " + jobId + " not found");
+        }
+        return job;
+    }
+
+    private void run(ValidationJob job, ProxyDocument proxyDocument, RequestAttributes requestAttributes) {
+        job.running();
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        try {
+            SimpleReport report = validationProxy.validate(proxyDocument);
+            job.finished(report, reportSigner == null ? null : reportSigner.sign(report));
+            incrementCounter(FINISHED_METRIC);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Validation job {} failed", job.getId(), e);
+            job.failed(e);
+            incrementCounter(FAILED_METRIC);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        doneJobs.put(job.getId(), job);
+        activeJobs.remove(job.getId());
+        notifyCallback(job);
+    }
+
+    private ThreadPoolExecutor getWorkerPool(String serviceName) {
+        return workerPools.computeIfAbsent(serviceName, name -> {
+            int workerThreads = properties.getServiceWorkerThreads().getOrDefault(name, properties.getWorkerThreads());
+            LOGGER.info("Creating async validation pool for {} with {} workers and queue capacity {}", name, workerThreads, properties.getQueueCapacity());
+            return new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("siva-async-" + name + "-"));
+        });
+    }
+
+    private void verifyCallbackUrl(String callbackUrl) {
+        if (callbackUrl == null) {
+            return;
+        }
+        URI callbackUri = parseUrl(callbackUrl);
+        if (callbackUri == null || callbackUri.getRawUserInfo() != null
+                || properties.getAllowedCallbackUrls().stream().map(ValidationJobService::parseUrl).noneMatch(allowedUri -> isAllowedCallbackUrl(callbackUri, allowedUri))) {
+            throw new InvalidCallbackUrlException("Callback URL is not allowed");
+        }
+    }
+
+    /**
+     * Callback URL must have the scheme, host and port of an allowed URL and its path must be the path of the allowed
+     * URL or below it.
+     */
+    private static boolean isAllowedCallbackUrl(URI callbackUri, URI allowedUri) {
+        if (allowedUri == null
+                || !allowedUri.getScheme().equalsIgnoreCase(callbackUri.getScheme())
+                || !allowedUri.getHost().equalsIgnoreCase(callbackUri.getHost())
+                || getEffectivePort(allowedUri) != getEffectivePort(callbackUri)) {
+            return false;
+        }
+        String allowedPath = getPath(allowedUri);
+        String callbackPath = getPath(callbackUri);
+        if (Arrays.asList(callbackUri.getPath().split("/")).contains("..") || !callbackPath.startsWith(allowedPath)) {
+            return false;
+        }
+        return allowedPath.endsWith("/") || callbackPath.length() == allowedPath.length() || callbackPath.charAt(allowedPath.length()) == '/';
+    }
+
+    private static URI parseUrl(String url) {
+        try {
+            URI uri = new URI(url).normalize();
+            return uri.getScheme() == null || uri.getHost() == null ? null : uri;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static String getPath(URI uri) {
+        return uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+    }
+
+    private static int getEffectivePort(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        if ("https".equalsIgnoreCase(uri.getScheme())) {
+            return 443;
+        }
+        return "http".equalsIgnoreCase(uri.getScheme()) ? 80 : -1;
+    }
+
+    private void notifyCallback(ValidationJob job) {
+        if (job.getCallbackUrl() == null) {
+            return;
+        }
+        try {
+            callbackRestTemplate.postForLocation(job.getCallbackUrl(), new ValidationJobNotification(job.getId(), job.getStatus()));
+        } catch (RestClientException e) {
+            LOGGER.warn("Unable to notify callback URL of validation job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void incrementCounter(String metricName) {
+        if (counterService != null) {
+            counterService.increment(metricName);
+        }
+    }
+
+    @Autowired
+    public void setProperties(AsyncValidationProperties properties) {
+        this.properties = properties;
+    }
+
+    @Autowired
+    public void setValidationProxy(ValidationProxy validationProxy) {
+        this.validationProxy = validationProxy;
+    }
+
+    @Autowired(required = false)
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
+    }
+
+    @Autowired(required = false)
+    public void setReportSigner(ValidationReportSigner reportSigner) {
+        this.reportSigner = reportSigner;
+    }
+}
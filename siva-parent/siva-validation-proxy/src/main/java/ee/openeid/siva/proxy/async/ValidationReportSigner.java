@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.async;
+
+import ee.openeid.siva.validation.document.report.SimpleReport;
+
+/**
+ * Signs the report of a finished validation job. The report is signed once when the job is done and the signature
+ * is returned with every poll of the job.
+ */
+@FunctionalInterface
+public interface ValidationReportSigner {
+
+    /**
+     * @return signature of the report or {@code null} when the report is not signed
+     */
+    String sign(SimpleReport report);
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.batch;
+
+import ee.openeid.siva.validation.document.report.SimpleReport;
+
+/**
+ * Outcome of validating one document of a batch, either the report or the exception thrown by its validation.
+ */
+public class BatchValidationResult {
+
+    private final int index;
+    private final SimpleReport report;
+    private final RuntimeException failure;
+
+    private BatchValidationResult(int index, SimpleReport report, RuntimeException failure) {
+        this.index = index;
+        this.report = report;
+        this.failure = failure;
+    }
+
+    static BatchValidationResult validated(int index, SimpleReport report) {
+        return new BatchValidationResult(index, report, null);
+    }
+
+    static BatchValidationResult failed(int index, RuntimeException failure) {
+        return new BatchValidationResult(index, null, failure);
+    }
+
+    /**
+     * Position of the document in the validated batch.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public SimpleReport getReport() {
+        return report;
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
+    }
+}
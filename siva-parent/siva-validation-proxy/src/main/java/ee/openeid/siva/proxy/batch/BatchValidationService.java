@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.batch;
+
+import ee.openeid.siva.proxy.ValidationProxy;
+import ee.openeid.siva.proxy.configuration.ProxyConfigurationProperties;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.exception.BatchLimitExceededException;
+import ee.openeid.siva.validation.exception.ValidationServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Validates a batch of documents in parallel through the same {@link ValidationProxy} as single document requests.
+ * <p>
+ * A failing document does not affect the other documents of the batch, its exception is returned in its result.
+ * Results are passed to the consumer on the calling thread in the order the documents are done. A single batch
+ * validates at most the configured number of documents at the same time, so one large batch does not take all
+ * the workers shared by concurrent batches.
+ */
+@Service
+public class BatchValidationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchValidationService.class);
+    static final String DOCUMENTS_METRIC = "siva.proxy.batch.documents";
+    static final String FAILED_METRIC = "siva.proxy.batch.failed";
+
+    private ProxyConfigurationProperties properties;
+    private ValidationProxy validationProxy;
+    private CounterService counterService;
+    private ExecutorService executorService;
+
+    @PostConstruct
+    public void init() {
+        int workerThreads = properties.getBatch().getWorkerThreads();
+        executorService = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("siva-batch-"));
+    }
+
+    @PreDestroy
+    public void close() {
+        executorService.shutdown();
+    }
+
+    public void validate(List<ProxyDocument> documents, Consumer<BatchValidationResult> resultConsumer) {
+        verifyLimits(documents);
+        CompletionService<BatchValidationResult> completionService = new ExecutorCompletionService<>(executorService);
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        int parallelism = Math.max(1, properties.getBatch().getMaxParallelismPerBatch());
+        int submitted = 0;
+        while (submitted < documents.size() && submitted < parallelism) {
+            completionService.submit(validationTask(submitted, documents.get(submitted), requestAttributes));
+            submitted++;
+        }
+        for (int done = 0; done < documents.size(); done++) {
+            BatchValidationResult result = takeResult(completionService);
+            if (submitted < documents.size()) {
+                completionService.submit(validationTask(submitted, documents.get(submitted), requestAttributes));
+                submitted++;
+            }
+            resultConsumer.accept(result);
+        }
+    }
+
+    private Callable<BatchValidationResult> validationTask(int index, ProxyDocument document, RequestAttributes requestAttributes) {
+        return () -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                return BatchValidationResult.validated(index, validationProxy.validate(document));
+            } catch (RuntimeException e) {
+                LOGGER.debug("Validation of batch document {} failed", index, e);
+                incrementCounter(FAILED_METRIC);
+                return BatchValidationResult.failed(index, e);
+            } finally {
+                incrementCounter(DOCUMENTS_METRIC);
+                RequestContextHolder.resetRequestAttributes();
+            }
+        };
+    }
+
+    private BatchValidationResult takeResult(CompletionService<BatchValidationResult> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValidationServiceException(getClass().getSimpleName(), e);
+        } catch (ExecutionException e) {
+            throw new ValidationServiceException(getClass().getSimpleName(), e.getCause());
+        }
+    }
+
+    /**
+     * Rejects a batch over the configured limits before its documents are transformed for validation.
+     *
+     * @param documentCount number of documents in the batch
+     * @param totalBytes    size of the decoded documents of the batch
+     * @throws BatchLimitExceededException when the batch has too many or too large documents
+     */
+    public void verifyLimits(int documentCount, long totalBytes) {
+        ProxyConfigurationProperties.Batch limits = properties.getBatch();
+        if (documentCount > limits.getMaxDocuments()) {
+            throw new BatchLimitExceededException("Batch contains more than " + limits.getMaxDocuments() + " documents");
+        }
+        if (totalBytes > limits.getMaxTotalBytes()) {
+            throw new BatchLimitExceededException("Documents of the batch are larger than " + limits.getMaxTotalBytes() + " bytes");
+        }
+    }
+
+    private void verifyLimits(List<ProxyDocument> documents) {
+        verifyLimits(documents.size(), documents.stream().mapToLong(document -> document.getBytes() == null ? 0 : document.getBytes().length).sum());
+    }
+
+    private void incrementCounter(String metricName) {
+        if (counterService != null) {
+            counterService.increment(metricName);
+        }
+    }
+
+    @Autowired
+    public void setProperties(ProxyConfigurationProperties properties) {
+        this.properties = properties;
+    }
+
+    @Autowired
+    public void setValidationProxy(ValidationProxy validationProxy) {
+        this.validationProxy = validationProxy;
+    }
+
+    @Autowired(required = false)
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
+    }
+}
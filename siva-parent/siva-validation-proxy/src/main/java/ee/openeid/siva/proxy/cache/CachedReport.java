@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.cache;
+
+import ee.openeid.siva.validation.document.report.DetailedReport;
+import ee.openeid.siva.validation.document.report.Error;
+import ee.openeid.siva.validation.document.report.Info;
+import ee.openeid.siva.validation.document.report.Policy;
+import ee.openeid.siva.validation.document.report.SignatureScope;
+import ee.openeid.siva.validation.document.report.SignatureValidationData;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.TimeStampTokenValidationData;
+import ee.openeid.siva.validation.document.report.ValidatedDocument;
+import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import ee.openeid.siva.validation.document.report.ValidationWarning;
+import ee.openeid.siva.validation.document.report.Warning;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of a validation report kept in the {@link ValidationResultCache}.
+ * <p>
+ * The validation conclusion is deep copied when the snapshot is taken and again for every report created from
+ * it, the validation process of a detailed report is kept as XML. Callers can modify the returned reports without
+ * affecting the cached snapshot.
+ */
+final class CachedReport {
+
+    private final ValidationConclusion validationConclusion;
+    private final byte[] validationProcess;
+
+    private CachedReport(ValidationConclusion validationConclusion, byte[] validationProcess) {
+        this.validationConclusion = validationConclusion;
+        this.validationProcess = validationProcess;
+    }
+
+    static CachedReport of(SimpleReport report) throws JAXBException {
+        byte[] validationProcess = null;
+        if (report instanceof DetailedReport) {
+            validationProcess = marshal(((DetailedReport) report).getValidationProcess());
+        }
+        return new CachedReport(copyOf(report.getValidationConclusion()), validationProcess);
+    }
+
+    SimpleReport toReport(String validationTime) throws JAXBException {
+        ValidationConclusion conclusion = copyOf(validationConclusion);
+        conclusion.setValidationTime(validationTime);
+        if (validationProcess != null) {
+            return new DetailedReport(conclusion, unmarshal(validationProcess));
+        }
+        return new SimpleReport(conclusion);
+    }
+
+    private static byte[] marshal(eu.europa.esig.dss.jaxb.detailedreport.DetailedReport validationProcess) throws JAXBException {
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        DetailedReportContext.INSTANCE.createMarshaller().marshal(validationProcess, xml);
+        return xml.toByteArray();
+    }
+
+    private static eu.europa.esig.dss.jaxb.detailedreport.DetailedReport unmarshal(byte[] validationProcess) throws JAXBException {
+        return (eu.europa.esig.dss.jaxb.detailedreport.DetailedReport) DetailedReportContext.INSTANCE.createUnmarshaller()
+                .unmarshal(new ByteArrayInputStream(validationProcess));
+    }
+
+    private static ValidationConclusion copyOf(ValidationConclusion validationConclusion) {
+        ValidationConclusion copy = new ValidationConclusion();
+        copy.setPolicy(copyOf(validationConclusion.getPolicy()));
+        copy.setValidationTime(validationConclusion.getValidationTime());
+        copy.setSignatureForm(validationConclusion.getSignatureForm());
+        copy.setValidationWarnings(copyOf(validationConclusion.getValidationWarnings(), CachedReport::copyOf));
+        copy.setValidatedDocument(copyOf(validationConclusion.getValidatedDocument()));
+        copy.setValidationLevel(validationConclusion.getValidationLevel());
+        copy.setSignatures(copyOf(validationConclusion.getSignatures(), CachedReport::copyOf));
+        copy.setValidSignaturesCount(validationConclusion.getValidSignaturesCount());
+        copy.setSignaturesCount(validationConclusion.getSignaturesCount());
+        copy.setTimeStampTokens(copyOf(validationConclusion.getTimeStampTokens(), CachedReport::copyOf));
+        return copy;
+    }
+
+    private static SignatureValidationData copyOf(SignatureValidationData signature) {
+        SignatureValidationData copy = new SignatureValidationData();
+        copy.setId(signature.getId());
+        copy.setSignatureFormat(signature.getSignatureFormat());
+        copy.setSignatureLevel(signature.getSignatureLevel());
+        copy.setSignedBy(signature.getSignedBy());
+        copy.setIndication(indicationOf(signature.getIndication()));
+        copy.setSubIndication(signature.getSubIndication());
+        copy.setErrors(copyOf(signature.getErrors(), CachedReport::copyOf));
+        copy.setSignatureScopes(copyOf(signature.getSignatureScopes(), CachedReport::copyOf));
+        copy.setClaimedSigningTime(signature.getClaimedSigningTime());
+        copy.setWarnings(copyOf(signature.getWarnings(), CachedReport::copyOf));
+        copy.setInfo(copyOf(signature.getInfo()));
+        copy.setCountryCode(signature.getCountryCode());
+        return copy;
+    }
+
+    private static SignatureValidationData.Indication indicationOf(String indication) {
+        for (SignatureValidationData.Indication value : SignatureValidationData.Indication.values()) {
+            if (value.toString().equals(indication)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown signature indication: " + indication);
+    }
+
+    private static TimeStampTokenValidationData copyOf(TimeStampTokenValidationData timeStampToken) {
+        TimeStampTokenValidationData copy = new TimeStampTokenValidationData();
+        copy.setIndication(timeStampToken.getIndication());
+        copy.setSignedBy(timeStampToken.getSignedBy());
+        copy.setSignedTime(timeStampToken.getSignedTime());
+        copy.setError(copyOf(timeStampToken.getError(), CachedReport::copyOf));
+        return copy;
+    }
+
+    private static Policy copyOf(Policy policy) {
+        if (policy == null) {
+            return null;
+        }
+        Policy copy = new Policy();
+        copy.setPolicyDescription(policy.getPolicyDescription());
+        copy.setPolicyName(policy.getPolicyName());
+        copy.setPolicyUrl(policy.getPolicyUrl());
+        return copy;
+    }
+
+    private static ValidatedDocument copyOf(ValidatedDocument validatedDocument) {
+        if (validatedDocument == null) {
+            return null;
+        }
+        ValidatedDocument copy = new ValidatedDocument();
+        copy.setFilename(validatedDocument.getFilename());
+        copy.setFileHashInHex(validatedDocument.getFileHashInHex());
+        copy.setHashAlgo(validatedDocument.getHashAlgo());
+        return copy;
+    }
+
+    private static ValidationWarning copyOf(ValidationWarning validationWarning) {
+        ValidationWarning copy = new ValidationWarning();
+        copy.setContent(validationWarning.getContent());
+        return copy;
+    }
+
+    private static SignatureScope copyOf(SignatureScope signatureScope) {
+        SignatureScope copy = new SignatureScope();
+        copy.setName(signatureScope.getName());
+        copy.setScope(signatureScope.getScope());
+        copy.setContent(signatureScope.getContent());
+        return copy;
+    }
+
+    private static Error copyOf(Error error) {
+        Error copy = new Error();
+        copy.setContent(error.getContent());
+        return copy;
+    }
+
+    private static Warning copyOf(Warning warning) {
+        Warning copy = new Warning();
+        copy.setContent(warning.getContent());
+        return copy;
+    }
+
+    private static Info copyOf(Info info) {
+        if (info == null) {
+            return null;
+        }
+        Info copy = new Info();
+        copy.setBestSignatureTime(info.getBestSignatureTime());
+        return copy;
+    }
+
+    private static <T> List<T> copyOf(List<T> values, Function<T, T> copier) {
+        if (values == null) {
+            return null;
+        }
+        return values.stream().map(copier).collect(Collectors.toList());
+    }
+
+    private static final class DetailedReportContext {
+        private static final JAXBContext INSTANCE = createContext();
+
+        private static JAXBContext createContext() {
+            try {
+                return JAXBContext.newInstance(eu.europa.esig.dss.jaxb.detailedreport.DetailedReport.class);
+            } catch (JAXBException e) {
+                throw new IllegalStateException("Failed to create JAXB context for detailed report", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ee.openeid.siva.proxy.configuration.ValidationResultCacheProperties;
+import ee.openeid.siva.proxy.document.Datafile;
+import ee.openeid.siva.proxy.document.DocumentType;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.document.ReportType;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.builder.ReportBuilderUtils;
+import ee.openeid.tsl.TSLLoadedEvent;
+import eu.europa.esig.dss.DSSUtils;
+import eu.europa.esig.dss.DigestAlgorithm;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.xml.bind.JAXBException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Optional cache of validation reports keyed by the SHA-256 digest of the validated document, its name and type,
+ * the signature policy, the report type and the version of the loaded trusted lists.
+ * <p>
+ * The cache is bounded by size and time to live and is emptied whenever the trusted lists are reloaded. Cached
+ * reports are stored as {@link CachedReport} snapshots and returned as deep copies with the validation time of the
+ * current request.
+ */
+@Component
+public class ValidationResultCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationResultCache.class);
+    static final String HIT_METRIC = "siva.proxy.resultCache.hit";
+    static final String MISS_METRIC = "siva.proxy.resultCache.miss";
+
+    private final AtomicLong tslVersion = new AtomicLong();
+    private ValidationResultCacheProperties properties;
+    private CounterService counterService;
+    private Cache<CacheKey, CachedReport> cache;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            cache = null;
+            return;
+        }
+        LOGGER.info("Validation result cache enabled with max size {} and time to live {}s", properties.getMaxSize(), properties.getTtlInSeconds());
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtlInSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    public SimpleReport getOrValidate(String scope, ProxyDocument proxyDocument, Function<ProxyDocument, SimpleReport> validation) {
+        Cache<CacheKey, CachedReport> reports = cache;
+        if (reports == null) {
+            return validation.apply(proxyDocument);
+        }
+        CacheKey key = new CacheKey(scope, digest(proxyDocument.getBytes()), proxyDocument.getName(), proxyDocument.getDocumentType(),
+                proxyDocument.getSignaturePolicy(), proxyDocument.getReportType(), proxyDocument.getDatafiles(), tslVersion.get());
+        CachedReport cachedReport = reports.getIfPresent(key);
+        if (cachedReport != null) {
+            try {
+                SimpleReport report = cachedReport.toReport(ReportBuilderUtils.getValidationTime());
+                incrementCounter(HIT_METRIC);
+                return report;
+            } catch (JAXBException e) {
+                LOGGER.warn("Failed to read cached validation report, validating again: {}", e.getMessage());
+                reports.invalidate(key);
+            }
+        }
+        incrementCounter(MISS_METRIC);
+        SimpleReport report = validation.apply(proxyDocument);
+        try {
+            reports.put(key, CachedReport.of(report));
+        } catch (JAXBException e) {
+            LOGGER.warn("Failed to cache validation report: {}", e.getMessage());
+        }
+        return report;
+    }
+
+    @EventListener
+    public void onTSLLoaded(TSLLoadedEvent event) {
+        tslVersion.incrementAndGet();
+        Cache<CacheKey, CachedReport> reports = cache;
+        if (reports != null) {
+            reports.invalidateAll();
+        }
+    }
+
+    @Autowired
+    public void setProperties(ValidationResultCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    @Autowired(required = false)
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
+    }
+
+    private void incrementCounter(String metricName) {
+        if (counterService != null) {
+            counterService.increment(metricName);
+        }
+    }
+
+    private static String digest(byte[] bytes) {
+        return bytes == null ? null : Base64.getEncoder().encodeToString(DSSUtils.digest(DigestAlgorithm.SHA256, bytes));
+    }
+
+    @Data
+    private static class CacheKey {
+        private final String scope;
+        private final String digest;
+        private final String name;
+        private final DocumentType documentType;
+        private final String signaturePolicy;
+        private final ReportType reportType;
+        private final List<Datafile> datafiles;
+        private final long tslVersion;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("siva.proxy.admission")
+public class AdmissionControlProperties {
+    private boolean enabled = false;
+    private int maxConcurrentValidations = 8;
+    private Map<String, Integer> serviceMaxConcurrentValidations = new HashMap<>();
+    private int queueCapacity = 50;
+    private Map<String, Integer> serviceQueueCapacity = new HashMap<>();
+    private long maxWaitInMillis = 30000;
+    private long fastLaneMaxBytes = 1024 * 1024;
+    private Map<String, Long> serviceFastLaneMaxBytes = new HashMap<>();
+    private int fastLaneWeight = 3;
+    private int heavyLaneWeight = 1;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("siva.proxy.async")
+public class AsyncValidationProperties {
+    private int workerThreads = 2;
+    private Map<String, Integer> serviceWorkerThreads = new HashMap<>();
+    private int queueCapacity = 50;
+    private long resultTtlInSeconds = 600;
+    private long maxRetainedResults = 10000;
+    private List<String> allowedCallbackUrls = new ArrayList<>();
+    private int callbackTimeoutInMillis = 5000;
+}
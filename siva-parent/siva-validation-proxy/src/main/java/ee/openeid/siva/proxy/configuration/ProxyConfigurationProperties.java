@@ -23,4 +23,13 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties("siva.proxy")
 public class ProxyConfigurationProperties {
     private String xroadUrl = "http://localhost:8081";
+    private Batch batch = new Batch();
+
+    @Data
+    public static class Batch {
+        private int maxDocuments = 100;
+        private long maxTotalBytes = 50 * 1024 * 1024;
+        private int workerThreads = Runtime.getRuntime().availableProcessors();
+        private int maxParallelismPerBatch = 4;
+    }
 }
@@ -28,7 +28,8 @@ import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
-@EnableConfigurationProperties({ProxyConfigurationProperties.class})
+@EnableConfigurationProperties({ProxyConfigurationProperties.class, ValidationResultCacheProperties.class, AsyncValidationProperties.class,
+        AdmissionControlProperties.class})
 public class ProxyServiceConfiguration {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProxyServiceConfiguration.class);
     private ProxyConfigurationProperties properties;
@@ -16,11 +16,16 @@
 
 package ee.openeid.siva.proxy.document;
 
+import ee.openeid.siva.validation.document.ZipContainer;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.List;
 
 @Data
+@EqualsAndHashCode(exclude = "zipContainer")
+@ToString(exclude = "zipContainer")
 public class ProxyDocument {
 
     private byte[] bytes;
@@ -34,4 +39,6 @@ public class ProxyDocument {
     private ReportType reportType;
 
     private List<Datafile> datafiles;
+
+    private ZipContainer zipContainer;
 }
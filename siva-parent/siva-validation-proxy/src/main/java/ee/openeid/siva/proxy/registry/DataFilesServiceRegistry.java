@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.registry;
+
+import ee.openeid.siva.proxy.exception.DataFilesServiceNotFoundException;
+import ee.openeid.siva.validation.service.DataFilesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class DataFilesServiceRegistry extends ServiceRegistry<DataFilesService> {
+
+    @Override
+    protected RuntimeException serviceNotFound(String serviceName) {
+        return new DataFilesServiceNotFoundException(serviceName + " not found");
+    }
+
+    @Override
+    @Autowired(required = false)
+    public void setServices(Map<String, DataFilesService> services) {
+        super.setServices(services);
+    }
+
+    @Override
+    @Autowired(required = false)
+    public void setRoutes(List<ServiceRoute<DataFilesService>> routes) {
+        super.setRoutes(routes);
+    }
+
+    @Override
+    @Autowired(required = false)
+    public void setGaugeService(GaugeService gaugeService) {
+        super.setGaugeService(gaugeService);
+    }
+
+    @Override
+    @Autowired(required = false)
+    public void setCounterService(CounterService counterService) {
+        super.setCounterService(counterService);
+    }
+}
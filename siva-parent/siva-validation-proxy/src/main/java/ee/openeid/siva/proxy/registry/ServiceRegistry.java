@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.registry;
+
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Routing table of services of type {@code S}, keyed by bean name.
+ * <p>
+ * The table is built once when the services are injected and is not modified afterwards, so looking up a
+ * service is a map lookup instead of an application context query. Every dispatch is counted and timed per
+ * service, failed dispatches are counted separately.
+ *
+ * @param <S> type of the registered services
+ */
+public abstract class ServiceRegistry<S> {
+
+    private static final String METRIC_PREFIX = "siva.proxy.dispatch.";
+    private static final String TIMER_METRIC_PREFIX = "timer." + METRIC_PREFIX;
+    private static final String FAILURE_METRIC_POSTFIX = ".failure";
+
+    private Map<String, RegisteredService<S>> services = Collections.emptyMap();
+    private List<ServiceRoute<S>> routes = Collections.emptyList();
+    private GaugeService gaugeService;
+    private CounterService counterService;
+
+    public S getService(String serviceName) {
+        return getRegisteredService(serviceName).service;
+    }
+
+    public boolean hasService(String serviceName) {
+        return services.containsKey(serviceName);
+    }
+
+    public <R> R dispatch(String serviceName, Function<S, R> call) {
+        RegisteredService<S> registeredService = getRegisteredService(serviceName);
+        long start = System.nanoTime();
+        try {
+            R result = call.apply(registeredService.service);
+            submitGauge(registeredService.timerMetric, (System.nanoTime() - start) / 1_000_000.0);
+            incrementCounter(registeredService.dispatchMetric);
+            return result;
+        } catch (RuntimeException e) {
+            incrementCounter(registeredService.failureMetric);
+            throw e;
+        }
+    }
+
+    public String route(ProxyDocument proxyDocument) {
+        for (ServiceRoute<S> route : routes) {
+            String serviceName = route.route(proxyDocument);
+            if (serviceName != null) {
+                return serviceName;
+            }
+        }
+        return null;
+    }
+
+    public void setServices(Map<String, S> services) {
+        Map<String, RegisteredService<S>> registeredServices = new HashMap<>();
+        services.forEach((serviceName, service) -> registeredServices.put(serviceName, new RegisteredService<>(serviceName, service)));
+        this.services = Collections.unmodifiableMap(registeredServices);
+    }
+
+    public void setRoutes(List<ServiceRoute<S>> routes) {
+        this.routes = Collections.unmodifiableList(routes);
+    }
+
+    public void setGaugeService(GaugeService gaugeService) {
+        this.gaugeService = gaugeService;
+    }
+
+    public void setCounterService(CounterService counterService) {
+        this.counterService = counterService;
+    }
+
+    protected abstract RuntimeException serviceNotFound(String serviceName);
+
+    private RegisteredService<S> getRegisteredService(String serviceName) {
+        RegisteredService<S> registeredService = services.get(serviceName);
+        if (registeredService == null) {
+            throw serviceNotFound(serviceName);
+        }
+        return registeredService;
+    }
+
+    private void submitGauge(String metricName, double value) {
+        if (gaugeService != null) {
+            gaugeService.submit(metricName, value);
+        }
+    }
+
+    private void incrementCounter(String metricName) {
+        if (counterService != null) {
+            counterService.increment(metricName);
+        }
+    }
+
+    private static class RegisteredService<S> {
+        private final S service;
+        private final String dispatchMetric;
+        private final String timerMetric;
+        private final String failureMetric;
+
+        RegisteredService(String serviceName, S service) {
+            this.service = service;
+            this.dispatchMetric = METRIC_PREFIX + serviceName;
+            this.timerMetric = TIMER_METRIC_PREFIX + serviceName;
+            this.failureMetric = METRIC_PREFIX + serviceName + FAILURE_METRIC_POSTFIX;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.registry;
+
+import ee.openeid.siva.proxy.document.ProxyDocument;
+
+/**
+ * Extension point for routing documents to validation or data files services of type {@code S}.
+ * <p>
+ * Routes registered as Spring beans are consulted in their {@link org.springframework.core.Ordered order}
+ * before the built-in routing of the proxy, so new document formats can be handled without changing the proxy.
+ *
+ * @param <S> type of the routed service
+ */
+public interface ServiceRoute<S> {
+
+    /**
+     * @param proxyDocument document to route, its bytes must not be modified
+     * @return bean name of the service handling the document or {@code null} when this route does not apply
+     */
+    String route(ProxyDocument proxyDocument);
+}
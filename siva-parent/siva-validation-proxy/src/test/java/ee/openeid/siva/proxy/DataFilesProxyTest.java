@@ -18,6 +18,7 @@ package ee.openeid.siva.proxy;
 
 import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.proxy.exception.DataFilesServiceNotFoundException;
+import ee.openeid.siva.proxy.registry.DataFilesServiceRegistry;
 import ee.openeid.siva.validation.document.DataFilesDocument;
 import ee.openeid.siva.validation.document.report.DataFileData;
 import ee.openeid.siva.validation.document.report.DataFilesReport;
@@ -28,16 +29,14 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
-import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.BDDMockito.given;
-import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -48,7 +47,9 @@ public class DataFilesProxyTest {
 
     private DataFilesProxy dataFilesProxy;
 
-    private ApplicationContext applicationContext;
+    private DataFilesServiceRegistry dataFilesServiceRegistry;
+
+    private final Map<String, DataFilesService> services = new HashMap<>();
 
     private DataFilesServiceSpy dataFilesServiceSpy;
 
@@ -56,27 +57,23 @@ public class DataFilesProxyTest {
     public void setUp() {
         dataFilesProxy = new DataFilesProxy();
 
-        applicationContext = mock(ApplicationContext.class);
-        dataFilesProxy.setApplicationContext(applicationContext);
+        dataFilesServiceRegistry = new DataFilesServiceRegistry();
+        dataFilesProxy.setDataFilesServiceRegistry(dataFilesServiceRegistry);
 
         dataFilesServiceSpy = new DataFilesServiceSpy();
     }
 
     @Test
-    public void applicationContextHasNoBeanWithGivenNameThrowsException() throws Exception {
-        given(applicationContext.getBean(anyString())).willThrow(new NoSuchBeanDefinitionException("Bean not loaded"));
-
+    public void serviceNotRegisteredThrowsException() throws Exception {
         exception.expect(DataFilesServiceNotFoundException.class);
         exception.expectMessage("BDOCDataFilesService not found");
         ProxyDocument proxyDocument = mockProxyDocumentWithDocument("filename.bdoc");
         dataFilesProxy.getDataFiles(proxyDocument);
-
-        verify(applicationContext).getBean(anyString());
     }
 
     @Test
     public void ProxyDocumentWithDDOCDocumentTypeShouldReturnDataFilesReport() throws Exception {
-        when(applicationContext.getBean(DDOCDataFilesService.class.getSimpleName())).thenReturn(dataFilesServiceSpy);
+        registerService(DDOCDataFilesService.class.getSimpleName(), dataFilesServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocumentWithDocument("filename.ddoc");
         DataFilesReport report = dataFilesProxy.getDataFiles(proxyDocument);
@@ -89,6 +86,11 @@ public class DataFilesProxyTest {
         return proxyDocument;
     }
 
+    private void registerService(String serviceName, DataFilesService service) {
+        services.put(serviceName, service);
+        dataFilesServiceRegistry.setServices(services);
+    }
+
     private class DataFilesServiceSpy implements DataFilesService {
 
         DataFilesReport dataFilesReport;
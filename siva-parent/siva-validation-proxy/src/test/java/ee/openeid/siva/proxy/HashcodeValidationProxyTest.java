@@ -20,6 +20,7 @@ import ee.openeid.siva.proxy.document.Datafile;
 import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.proxy.exception.ValidatonServiceNotFoundException;
 import ee.openeid.siva.proxy.http.RESTProxyService;
+import ee.openeid.siva.proxy.registry.ValidationServiceRegistry;
 import ee.openeid.siva.statistics.StatisticsService;
 import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.Error;
@@ -36,17 +37,15 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
-import org.mockito.BDDMockito;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
-import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -60,7 +59,9 @@ public class HashcodeValidationProxyTest {
 
     private HashcodeValidationProxy hashcodeValidationProxy;
 
-    private ApplicationContext applicationContext;
+    private ValidationServiceRegistry validationServiceRegistry;
+
+    private final Map<String, ValidationService> services = new HashMap<>();
 
     private ValidationServiceSpy validationServiceSpy;
 
@@ -68,8 +69,8 @@ public class HashcodeValidationProxyTest {
     public void setUp() {
         hashcodeValidationProxy = new HashcodeValidationProxy();
 
-        applicationContext = mock(ApplicationContext.class);
-        hashcodeValidationProxy.setApplicationContext(applicationContext);
+        validationServiceRegistry = new ValidationServiceRegistry();
+        hashcodeValidationProxy.setValidationServiceRegistry(validationServiceRegistry);
 
         RESTProxyService restProxyService = mock(RESTProxyService.class);
         hashcodeValidationProxy.setRestProxyService(restProxyService);
@@ -81,21 +82,17 @@ public class HashcodeValidationProxyTest {
     }
 
     @Test
-    public void applicationContextHasNoBeanWithGivenNameThrowsException() {
-        BDDMockito.given(applicationContext.getBean(anyString())).willThrow(new NoSuchBeanDefinitionException("Bean not loaded"));
-
+    public void serviceNotRegisteredThrowsException() {
         exception.expect(ValidatonServiceNotFoundException.class);
         exception.expectMessage("hashcodeGenericValidationService not found");
 
         ProxyDocument proxyDocument = mockProxyDocument();
         hashcodeValidationProxy.validate(proxyDocument);
-
-        verify(applicationContext).getBean(anyString());
     }
 
     @Test
     public void proxyDocumentShouldReturnValidationReport() {
-        when(applicationContext.getBean("hashcodeGenericValidationService")).thenReturn(validationServiceSpy);
+        registerService("hashcodeGenericValidationService", validationServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocument();
         SimpleReport report = hashcodeValidationProxy.validate(proxyDocument);
@@ -121,6 +118,11 @@ public class HashcodeValidationProxyTest {
         return datafile;
     }
 
+    private void registerService(String serviceName, ValidationService service) {
+        services.put(serviceName, service);
+        validationServiceRegistry.setServices(services);
+    }
+
     private class ValidationServiceSpy implements ValidationService {
 
         Reports reports;
@@ -18,16 +18,20 @@ package ee.openeid.siva.proxy;
 
 import ee.openeid.siva.proxy.document.DocumentType;
 import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.document.ReportType;
 import ee.openeid.siva.proxy.exception.ValidatonServiceNotFoundException;
 import ee.openeid.siva.proxy.http.RESTProxyService;
+import ee.openeid.siva.proxy.registry.ValidationServiceRegistry;
 import ee.openeid.siva.statistics.StatisticsService;
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
 import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.Error;
 import ee.openeid.siva.validation.document.report.*;
 import ee.openeid.siva.validation.exception.DocumentRequirementsException;
+import ee.openeid.siva.validation.metrics.ValidationStageMetrics;
 import ee.openeid.siva.validation.service.ValidationService;
 import ee.openeid.siva.validation.service.signature.policy.ConstraintLoadingSignaturePolicyService;
+import ee.openeid.siva.validation.service.signature.policy.InvalidPolicyException;
 import ee.openeid.siva.validation.service.signature.policy.SignaturePolicyService;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
 import ee.openeid.validation.service.bdoc.BDOCValidationService;
@@ -45,8 +49,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.BDDMockito;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
-import org.springframework.context.ApplicationContext;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.io.IOException;
@@ -54,11 +57,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -70,7 +76,9 @@ public class ValidationProxyTest {
 
     private ValidationProxy validationProxy;
 
-    private ApplicationContext applicationContext;
+    private ValidationServiceRegistry validationServiceRegistry;
+
+    private final Map<String, ValidationService> services = new HashMap<>();
 
     private ValidationServiceSpy validationServiceSpy;
 
@@ -82,8 +90,8 @@ public class ValidationProxyTest {
     public void setUp() {
         validationProxy = new ValidationProxy();
 
-        applicationContext = mock(ApplicationContext.class);
-        validationProxy.setApplicationContext(applicationContext);
+        validationServiceRegistry = new ValidationServiceRegistry();
+        validationProxy.setValidationServiceRegistry(validationServiceRegistry);
 
         restProxyService = mock(RESTProxyService.class);
         validationProxy.setRestProxyService(restProxyService);
@@ -112,20 +120,16 @@ public class ValidationProxyTest {
     }
 
     @Test
-    public void applicationContextHasNoBeanWithGivenNameThrowsException() throws Exception {
-        BDDMockito.given(applicationContext.getBean(anyString())).willThrow(new NoSuchBeanDefinitionException("Bean not loaded"));
-
+    public void serviceNotRegisteredThrowsException() throws Exception {
         exception.expect(ValidatonServiceNotFoundException.class);
         exception.expectMessage("genericValidationService not found");
         ProxyDocument proxyDocument = mockProxyDocumentWithDocument(DocumentType.PDF);
         validationProxy.validate(proxyDocument);
-
-        verify(applicationContext).getBean(anyString());
     }
 
     @Test
     public void proxyDocumentWithBDOCDocumentTypeShouldReturnValidationReport() throws Exception {
-        when(applicationContext.getBean(BDOCValidationService.class.getSimpleName())).thenReturn(validationServiceSpy);
+        registerService(BDOCValidationService.class.getSimpleName(), validationServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocumentWithDocument(DocumentType.BDOC);
         SimpleReport report = validationProxy.validate(proxyDocument);
@@ -134,7 +138,7 @@ public class ValidationProxyTest {
 
     @Test
     public void proxyDocumentWithPDFDocumentTypeShouldReturnValidationReport() throws Exception {
-        when(applicationContext.getBean("genericValidationService")).thenReturn(validationServiceSpy);
+        registerService("genericValidationService", validationServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocumentWithDocument(DocumentType.PDF);
         SimpleReport report = validationProxy.validate(proxyDocument);
@@ -143,7 +147,7 @@ public class ValidationProxyTest {
 
     @Test
     public void proxyDocumentWithDDOCDocumentTypeShouldReturnValidationReport() throws Exception {
-        when(applicationContext.getBean(DDOCValidationService.class.getSimpleName())).thenReturn(validationServiceSpy);
+        registerService(DDOCValidationService.class.getSimpleName(), validationServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocumentWithDocument(DocumentType.DDOC);
         SimpleReport report = validationProxy.validate(proxyDocument);
@@ -153,8 +157,8 @@ public class ValidationProxyTest {
     @Test
     public void proxyDocumentWithAsicsExtensionShouldReturnValidationReport() throws Exception {
 
-        when(applicationContext.getBean("timeStampTokenValidationService")).thenReturn(getTimeStampValidationService());
-        when(applicationContext.getBean(DDOCValidationService.class.getSimpleName())).thenReturn(validationServiceSpy);
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+        registerService(DDOCValidationService.class.getSimpleName(), validationServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocumentWithExtension("asics");
         proxyDocument.setBytes(buildValidationDocument("timestamptoken-ddoc.asics"));
@@ -167,8 +171,8 @@ public class ValidationProxyTest {
     @Test
     public void proxyDocumentWithZipExtensionShouldReturnValidationReport() throws Exception {
 
-        when(applicationContext.getBean("timeStampTokenValidationService")).thenReturn(getTimeStampValidationService());
-        when(applicationContext.getBean(DDOCValidationService.class.getSimpleName())).thenReturn(validationServiceSpy);
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+        registerService(DDOCValidationService.class.getSimpleName(), validationServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocumentWithExtension("zip");
         proxyDocument.setBytes(buildValidationDocument("timestamptoken-ddoc.zip"));
@@ -181,8 +185,8 @@ public class ValidationProxyTest {
     @Test
     public void proxyDocumentWithScsExtensionShouldReturnValidationReport() throws Exception {
 
-        when(applicationContext.getBean("timeStampTokenValidationService")).thenReturn(getTimeStampValidationService());
-        when(applicationContext.getBean(DDOCValidationService.class.getSimpleName())).thenReturn(validationServiceSpy);
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+        registerService(DDOCValidationService.class.getSimpleName(), validationServiceSpy);
 
         ProxyDocument proxyDocument = mockProxyDocumentWithExtension("scs");
         proxyDocument.setBytes(buildValidationDocument("timestamptoken-ddoc.asics"));
@@ -192,10 +196,49 @@ public class ValidationProxyTest {
         assertSimpleReport(report);
     }
 
+    @Test
+    public void validationStagesArePublishedWithTagsOfRoutedService() throws Exception {
+        GaugeService gaugeService = mock(GaugeService.class);
+        ValidationStageMetrics stageMetrics = new ValidationStageMetrics();
+        stageMetrics.setGaugeService(gaugeService);
+        validationProxy.setStageMetrics(stageMetrics);
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+        registerService(DDOCValidationService.class.getSimpleName(), validationServiceSpy);
+
+        ProxyDocument proxyDocument = mockProxyDocumentWithExtension("asics");
+        proxyDocument.setBytes(buildValidationDocument("timestamptoken-ddoc.asics"));
+        proxyDocument.setSignaturePolicy("POLv4");
+        proxyDocument.setReportType(ReportType.SIMPLE);
+        validationProxy.validate(proxyDocument);
+
+        for (String stage : new String[]{"route", "parse", "validate", "report"}) {
+            verify(gaugeService).submit(eq("timer.siva.validation." + stage + ".timeStampTokenValidationService.OTHER.POLv4.Simple"), anyDouble());
+        }
+    }
+
+    @Test
+    public void documentTypeAndPolicyOutsideOfKnownValuesAreTaggedAsOther() throws Exception {
+        GaugeService gaugeService = mock(GaugeService.class);
+        ValidationStageMetrics stageMetrics = new ValidationStageMetrics();
+        stageMetrics.setGaugeService(gaugeService);
+        validationProxy.setStageMetrics(stageMetrics);
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+
+        ProxyDocument proxyDocument = mockProxyDocumentWithExtension("asics");
+        proxyDocument.setBytes(buildValidationDocument("timestamptoken-ddoc.asics"));
+        proxyDocument.setSignaturePolicy("POLICY" + System.nanoTime());
+        try {
+            validationProxy.validate(proxyDocument);
+            Assert.fail("Validation with an unknown policy must fail");
+        } catch (InvalidPolicyException e) {
+            verify(gaugeService).submit(eq("timer.siva.validation.route.timeStampTokenValidationService.OTHER.OTHER.unknown"), anyDouble());
+        }
+    }
+
     @Test
     public void proxyDocumentAsicsWithRandomDataFile() throws Exception {
-        when(applicationContext.getBean("timeStampTokenValidationService")).thenReturn(getTimeStampValidationService());
-        when(applicationContext.getBean("genericValidationService")).thenReturn(getGenericValidationService());
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+        registerService("genericValidationService", getGenericValidationService());
         ProxyDocument proxyDocument = mockProxyDocumentWithExtension("asics");
         proxyDocument.setBytes(buildValidationDocument("TXTinsideAsics.asics"));
         SimpleReport report = validationProxy.validate(proxyDocument);
@@ -206,7 +249,7 @@ public class ValidationProxyTest {
     @Test
     public void proxyDocumentAsicsWithTwoDataFiles() throws Exception {
         exception.expect(DocumentRequirementsException.class);
-        when(applicationContext.getBean("timeStampTokenValidationService")).thenReturn(getTimeStampValidationService());
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
         ProxyDocument proxyDocument = mockProxyDocumentWithExtension("asics");
         proxyDocument.setBytes(buildValidationDocument("TwoDataFilesAsics.asics"));
         validationProxy.validate(proxyDocument);
@@ -214,8 +257,8 @@ public class ValidationProxyTest {
 
     @Test
     public void proxyDocumentAsicsWithDifferentMimeType() throws Exception {
-        when(applicationContext.getBean("timeStampTokenValidationService")).thenReturn(getTimeStampValidationService());
-        when(applicationContext.getBean("genericValidationService")).thenReturn(validationServiceSpy);
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+        registerService("genericValidationService", validationServiceSpy);
         ProxyDocument proxyDocument = mockProxyDocumentWithExtension("zip");
         proxyDocument.setBytes(buildValidationDocument("timestamptoken-different-mimetype.zip"));
         SimpleReport report = validationProxy.validate(proxyDocument);
@@ -224,8 +267,8 @@ public class ValidationProxyTest {
 
     @Test
     public void proxyDocumentAsicsNoTeraWarning() throws Exception {
-        when(applicationContext.getBean("timeStampTokenValidationService")).thenReturn(getTimeStampValidationService());
-        when(applicationContext.getBean(DDOCValidationService.class.getSimpleName())).thenReturn(validationServiceSpy);
+        registerService("timeStampTokenValidationService", getTimeStampValidationService());
+        registerService(DDOCValidationService.class.getSimpleName(), validationServiceSpy);
         ProxyDocument proxyDocument = mockProxyDocumentWithExtension("asics");
         proxyDocument.setBytes(buildValidationDocument("timestamptoken-ddoc.asics"));
         SimpleReport report = validationProxy.validate(proxyDocument);
@@ -285,6 +328,11 @@ public class ValidationProxyTest {
         return Files.readAllBytes(documentPath);
     }
 
+    private void registerService(String serviceName, ValidationService service) {
+        services.put(serviceName, service);
+        validationServiceRegistry.setServices(services);
+    }
+
     private class ValidationServiceSpy implements ValidationService {
 
         Reports reports;
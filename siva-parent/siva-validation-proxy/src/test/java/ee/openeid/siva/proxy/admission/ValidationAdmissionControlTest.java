@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.admission;
+
+import ee.openeid.siva.proxy.configuration.AdmissionControlProperties;
+import ee.openeid.siva.proxy.exception.ValidationServiceOverloadedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ValidationAdmissionControlTest {
+
+    private static final String PDF_SERVICE = "genericValidationService";
+    private static final String XROAD_SERVICE = "XROADValidationService";
+    private static final long SMALL_DOCUMENT = 100 * 1024;
+    private static final long LARGE_DOCUMENT = 10 * 1024 * 1024;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final CountDownLatch validationStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseValidation = new CountDownLatch(1);
+    private AdmissionControlProperties properties;
+    private ValidationAdmissionControl admissionControl;
+    private CounterService counterService;
+    private GaugeService gaugeService;
+
+    @Before
+    public void setUp() {
+        properties = new AdmissionControlProperties();
+        properties.setEnabled(true);
+        properties.setMaxConcurrentValidations(1);
+        properties.setQueueCapacity(0);
+        counterService = mock(CounterService.class);
+        gaugeService = mock(GaugeService.class);
+        admissionControl = new ValidationAdmissionControl();
+        admissionControl.setProperties(properties);
+        admissionControl.setCounterService(counterService);
+        admissionControl.setGaugeService(gaugeService);
+    }
+
+    @After
+    public void tearDown() {
+        releaseValidation.countDown();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void validationWithinLimitIsAdmitted() {
+        assertEquals("report", admissionControl.admit(PDF_SERVICE, SMALL_DOCUMENT, () -> "report"));
+        verify(gaugeService).submit(eq("timer.siva.proxy.admission." + PDF_SERVICE + ".fast.wait"), anyDouble());
+    }
+
+    @Test
+    public void validationIsRejectedWhenQueueIsFull() throws Exception {
+        occupy(PDF_SERVICE);
+
+        try {
+            admissionControl.admit(PDF_SERVICE, SMALL_DOCUMENT, () -> "report");
+        } catch (ValidationServiceOverloadedException e) {
+            verify(counterService).increment("siva.proxy.admission." + PDF_SERVICE + ".rejected");
+            return;
+        }
+        throw new AssertionError("Validation was not rejected");
+    }
+
+    @Test
+    public void validationIsRejectedAfterMaxWait() throws Exception {
+        properties.setQueueCapacity(1);
+        properties.setMaxWaitInMillis(50);
+        occupy(PDF_SERVICE);
+
+        expectedException.expect(ValidationServiceOverloadedException.class);
+        expectedException.expectMessage("waited longer than 50 ms");
+        try {
+            admissionControl.admit(PDF_SERVICE, SMALL_DOCUMENT, () -> "report");
+        } finally {
+            verify(gaugeService, atLeastOnce()).submit("siva.proxy.admission." + PDF_SERVICE + ".queue", 1);
+        }
+    }
+
+    @Test
+    public void queuedValidationIsAdmittedWhenRunningValidationIsDone() throws Exception {
+        properties.setQueueCapacity(1);
+        Future<String> running = occupy(PDF_SERVICE);
+
+        Future<String> queued = executorService.submit(() -> admissionControl.admit(PDF_SERVICE, SMALL_DOCUMENT, () -> "queued"));
+        releaseValidation.countDown();
+
+        assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void servicesHaveSeparateBulkheads() throws Exception {
+        properties.getServiceMaxConcurrentValidations().put(XROAD_SERVICE, 2);
+        occupy(PDF_SERVICE);
+
+        assertEquals("report", admissionControl.admit(XROAD_SERVICE, SMALL_DOCUMENT, () -> "report"));
+    }
+
+    @Test
+    public void validationsAreNotLimitedWhenAdmissionControlIsDisabled() throws Exception {
+        properties.setEnabled(false);
+        occupy(PDF_SERVICE);
+
+        assertEquals("report", admissionControl.admit(PDF_SERVICE, SMALL_DOCUMENT, () -> "report"));
+    }
+
+    @Test
+    public void documentsAreClassifiedBySizeAndService() {
+        properties.getServiceFastLaneMaxBytes().put(XROAD_SERVICE, LARGE_DOCUMENT);
+
+        assertEquals(Lane.FAST, admissionControl.classify(PDF_SERVICE, SMALL_DOCUMENT));
+        assertEquals(Lane.HEAVY, admissionControl.classify(PDF_SERVICE, LARGE_DOCUMENT));
+        assertEquals(Lane.FAST, admissionControl.classify(XROAD_SERVICE, LARGE_DOCUMENT));
+    }
+
+    @Test
+    public void fastLaneIsPreferredWithoutStarvingHeavyLane() throws Exception {
+        properties.setQueueCapacity(10);
+        List<String> admissionOrder = new CopyOnWriteArrayList<>();
+        AtomicInteger queueDepth = new AtomicInteger();
+        admissionControl.setGaugeService((metricName, value) -> {
+            if (metricName.endsWith(".queue")) {
+                queueDepth.set((int) value);
+            }
+        });
+        occupy(PDF_SERVICE);
+
+        List<Future<String>> queued = new ArrayList<>();
+        queued.add(enqueue("heavy", LARGE_DOCUMENT, admissionOrder, queueDepth));
+        for (int i = 1; i <= 4; i++) {
+            queued.add(enqueue("fast" + i, SMALL_DOCUMENT, admissionOrder, queueDepth));
+        }
+        releaseValidation.countDown();
+        for (Future<String> validation : queued) {
+            validation.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(Arrays.asList("fast1", "fast2", "heavy", "fast3", "fast4"), admissionOrder);
+    }
+
+    private Future<String> enqueue(String name, long documentSize, List<String> admissionOrder, AtomicInteger queueDepth) throws InterruptedException {
+        int expectedQueueDepth = queueDepth.get() + 1;
+        Future<String> validation = executorService.submit(() -> admissionControl.admit(PDF_SERVICE, documentSize, () -> {
+            admissionOrder.add(name);
+            return name;
+        }));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queueDepth.get() < expectedQueueDepth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return validation;
+    }
+
+    private Future<String> occupy(String serviceName) throws InterruptedException {
+        Future<String> running = executorService.submit(() -> admissionControl.admit(serviceName, SMALL_DOCUMENT, () -> {
+            validationStarted.countDown();
+            awaitRelease();
+            return "running";
+        }));
+        assertTrue(validationStarted.await(5, TimeUnit.SECONDS));
+        return running;
+    }
+
+    private void awaitRelease() {
+        try {
+            releaseValidation.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
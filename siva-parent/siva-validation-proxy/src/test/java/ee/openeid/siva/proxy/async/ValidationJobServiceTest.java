@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.async;
+
+import ee.openeid.siva.proxy.ValidationProxy;
+import ee.openeid.siva.proxy.configuration.AsyncValidationProperties;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.exception.InvalidCallbackUrlException;
+import ee.openeid.siva.proxy.exception.ValidationJobNotFoundException;
+import ee.openeid.siva.proxy.exception.ValidationJobRejectedException;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import ee.openeid.siva.validation.exception.MalformedDocumentException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ValidationJobServiceTest {
+
+    private static final String SERVICE_NAME = "genericValidationService";
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private ValidationJobService validationJobService;
+    private AsyncValidationProperties properties;
+    private ValidationProxy validationProxy;
+
+    @Before
+    public void setUp() {
+        properties = new AsyncValidationProperties();
+        properties.setWorkerThreads(1);
+        properties.setQueueCapacity(1);
+        validationProxy = mock(ValidationProxy.class);
+        when(validationProxy.getValidationServiceName(any(ProxyDocument.class))).thenReturn(SERVICE_NAME);
+
+        validationJobService = new ValidationJobService();
+        validationJobService.setProperties(properties);
+        validationJobService.setValidationProxy(validationProxy);
+        validationJobService.init();
+    }
+
+    @After
+    public void tearDown() {
+        validationJobService.close();
+    }
+
+    @Test
+    public void finishedJobHasReportOfValidationProxy() throws Exception {
+        SimpleReport report = new SimpleReport(new ValidationConclusion());
+        when(validationProxy.validate(any(ProxyDocument.class))).thenReturn(report);
+
+        ValidationJob job = validationJobService.submit(new ProxyDocument(), null);
+
+        awaitDone(job);
+        assertEquals(ValidationJobStatus.FINISHED, job.getStatus());
+        assertSame(report, validationJobService.getJob(job.getId()).getReport());
+    }
+
+    @Test
+    public void failedJobKeepsValidationException() throws Exception {
+        MalformedDocumentException exception = new MalformedDocumentException();
+        when(validationProxy.validate(any(ProxyDocument.class))).thenThrow(exception);
+
+        ValidationJob job = validationJobService.submit(new ProxyDocument(), null);
+
+        awaitDone(job);
+        assertEquals(ValidationJobStatus.FAILED, job.getStatus());
+        assertSame(exception, validationJobService.getJob(job.getId()).getFailure());
+    }
+
+    @Test
+    public void jobIsRejectedWhenServiceQueueIsFull() throws Exception {
+        CountDownLatch validationStarted = new CountDownLatch(1);
+        CountDownLatch releaseValidation = new CountDownLatch(1);
+        when(validationProxy.validate(any(ProxyDocument.class))).then(invocation -> {
+            validationStarted.countDown();
+            releaseValidation.await();
+            return new SimpleReport(new ValidationConclusion());
+        });
+        try {
+            validationJobService.submit(new ProxyDocument(), null);
+            validationStarted.await(5, TimeUnit.SECONDS);
+            validationJobService.submit(new ProxyDocument(), null);
+
+            expectedException.expect(ValidationJobRejectedException.class);
+            validationJobService.submit(new ProxyDocument(), null);
+        } finally {
+            releaseValidation.countDown();
+        }
+    }
+
+    @Test
+    public void unknownJobThrowsException() {
+        expectedException.expect(ValidationJobNotFoundException.class);
+        validationJobService.getJob("unknown");
+    }
+
+    @Test
+    public void reportIsSignedOnceWhenJobFinishes() throws Exception {
+        SimpleReport report = new SimpleReport(new ValidationConclusion());
+        when(validationProxy.validate(any(ProxyDocument.class))).thenReturn(report);
+        AtomicInteger signatureCount = new AtomicInteger();
+        validationJobService.setReportSigner(signedReport -> signedReport == report ? "signature-" + signatureCount.incrementAndGet() : null);
+
+        ValidationJob job = validationJobService.submit(new ProxyDocument(), null);
+
+        awaitDone(job);
+        assertEquals("signature-1", validationJobService.getJob(job.getId()).getReportSignature());
+        assertEquals("signature-1", validationJobService.getJob(job.getId()).getReportSignature());
+        assertEquals(1, signatureCount.get());
+    }
+
+    @Test
+    public void jobSeesRequestOfSubmitterAfterRequestIsCompleted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("x-authenticated-user", "submitter");
+        ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
+        CountDownLatch requestCompleted = new CountDownLatch(1);
+        AtomicReference<String> jobUser = new AtomicReference<>();
+        when(validationProxy.validate(any(ProxyDocument.class))).then(invocation -> {
+            requestCompleted.await(5, TimeUnit.SECONDS);
+            ServletRequestAttributes jobRequestAttributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+            jobUser.set(jobRequestAttributes.getRequest().getHeader("X-Authenticated-User"));
+            return new SimpleReport(new ValidationConclusion());
+        });
+
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        ValidationJob job;
+        try {
+            job = validationJobService.submit(new ProxyDocument(), null);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        requestAttributes.requestCompleted();
+        request.close();
+        request.removeHeader("x-authenticated-user");
+        requestCompleted.countDown();
+
+        awaitDone(job);
+        assertEquals(ValidationJobStatus.FINISHED, job.getStatus());
+        assertEquals("submitter", jobUser.get());
+    }
+
+    @Test
+    public void jobWithoutRequestHasNoRequestBound() throws Exception {
+        when(validationProxy.validate(any(ProxyDocument.class))).then(invocation -> {
+            assertNull(RequestContextHolder.getRequestAttributes());
+            return new SimpleReport(new ValidationConclusion());
+        });
+
+        ValidationJob job = validationJobService.submit(new ProxyDocument(), null);
+
+        awaitDone(job);
+        assertEquals(ValidationJobStatus.FINISHED, job.getStatus());
+    }
+
+    @Test
+    public void callbackUrlMustBeAllowed() {
+        properties.getAllowedCallbackUrls().add("https://allowed.example/");
+
+        expectedException.expect(InvalidCallbackUrlException.class);
+        validationJobService.submit(new ProxyDocument(), "https://other.example/");
+    }
+
+    @Test
+    public void callbackUrlWithAllowedHostAsUserInfoIsRejected() {
+        properties.getAllowedCallbackUrls().add("https://allowed.example.com");
+
+        expectedException.expect(InvalidCallbackUrlException.class);
+        validationJobService.submit(new ProxyDocument(), "https://allowed.example.com@evil.com/");
+    }
+
+    @Test
+    public void callbackUrlWithAllowedHostAsSubdomainIsRejected() {
+        properties.getAllowedCallbackUrls().add("https://allowed.example.com");
+
+        expectedException.expect(InvalidCallbackUrlException.class);
+        validationJobService.submit(new ProxyDocument(), "https://allowed.example.com.evil.com/x");
+    }
+
+    @Test
+    public void callbackUrlWithOtherPortIsRejected() {
+        properties.getAllowedCallbackUrls().add("https://allowed.example.com/");
+
+        expectedException.expect(InvalidCallbackUrlException.class);
+        validationJobService.submit(new ProxyDocument(), "https://allowed.example.com:8443/");
+    }
+
+    @Test
+    public void callbackUrlOutsideOfAllowedPathIsRejected() {
+        properties.getAllowedCallbackUrls().add("https://allowed.example.com/callbacks");
+
+        expectedException.expect(InvalidCallbackUrlException.class);
+        validationJobService.submit(new ProxyDocument(), "https://allowed.example.com/callbacks-other/x");
+    }
+
+    @Test
+    public void callbackUrlEscapingAllowedPathIsRejected() {
+        properties.getAllowedCallbackUrls().add("https://allowed.example.com/callbacks/");
+
+        expectedException.expect(InvalidCallbackUrlException.class);
+        validationJobService.submit(new ProxyDocument(), "https://allowed.example.com/callbacks/%2e%2e/admin");
+    }
+
+    @Test
+    public void callbackUrlBelowAllowedUrlIsAccepted() throws Exception {
+        when(validationProxy.validate(any(ProxyDocument.class))).thenReturn(new SimpleReport(new ValidationConclusion()));
+        properties.getAllowedCallbackUrls().add("http://localhost:1/callbacks");
+
+        ValidationJob job = validationJobService.submit(new ProxyDocument(), "HTTP://LocalHost:1/callbacks/./jobs?id=1");
+
+        awaitDone(job);
+        assertEquals(ValidationJobStatus.FINISHED, job.getStatus());
+    }
+
+    private static void awaitDone(ValidationJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((job.getStatus() == ValidationJobStatus.QUEUED || job.getStatus() == ValidationJobStatus.RUNNING) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
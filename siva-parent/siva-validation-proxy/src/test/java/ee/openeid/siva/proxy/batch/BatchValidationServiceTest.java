@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.proxy.batch;
+
+import ee.openeid.siva.proxy.ValidationProxy;
+import ee.openeid.siva.proxy.configuration.ProxyConfigurationProperties;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.exception.BatchLimitExceededException;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.ValidatedDocument;
+import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import ee.openeid.siva.validation.exception.MalformedDocumentException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BatchValidationServiceTest {
+
+    private static final int DOCUMENTS = 20;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final List<BatchValidationResult> results = new ArrayList<>();
+    private BatchValidationService batchValidationService;
+    private ProxyConfigurationProperties properties;
+    private ValidationProxyStub validationProxy;
+
+    @Before
+    public void setUp() {
+        properties = new ProxyConfigurationProperties();
+        properties.getBatch().setWorkerThreads(8);
+        properties.getBatch().setMaxParallelismPerBatch(3);
+        validationProxy = new ValidationProxyStub();
+
+        batchValidationService = new BatchValidationService();
+        batchValidationService.setProperties(properties);
+        batchValidationService.setValidationProxy(validationProxy);
+        batchValidationService.init();
+    }
+
+    @After
+    public void tearDown() {
+        batchValidationService.close();
+    }
+
+    @Test
+    public void everyDocumentOfBatchIsValidated() {
+        batchValidationService.validate(createDocuments(DOCUMENTS), results::add);
+
+        assertEquals(DOCUMENTS, results.size());
+        boolean[] validated = new boolean[DOCUMENTS];
+        for (BatchValidationResult result : results) {
+            assertEquals("document" + result.getIndex(), result.getReport().getValidationConclusion().getValidatedDocument().getFilename());
+            validated[result.getIndex()] = true;
+        }
+        for (boolean documentValidated : validated) {
+            assertTrue(documentValidated);
+        }
+    }
+
+    @Test
+    public void failingDocumentDoesNotAffectOtherDocuments() {
+        List<ProxyDocument> documents = createDocuments(3);
+        documents.get(1).setName("malformed");
+
+        batchValidationService.validate(documents, results::add);
+
+        assertEquals(3, results.size());
+        for (BatchValidationResult result : results) {
+            if (result.getIndex() == 1) {
+                assertNull(result.getReport());
+                assertTrue(result.getFailure() instanceof MalformedDocumentException);
+            } else {
+                assertNull(result.getFailure());
+            }
+        }
+    }
+
+    @Test
+    public void batchDoesNotValidateMoreDocumentsInParallelThanAllowed() {
+        batchValidationService.validate(createDocuments(DOCUMENTS), results::add);
+
+        assertTrue(validationProxy.maxConcurrentValidations.get() <= 3);
+    }
+
+    @Test
+    public void batchWithTooManyDocumentsIsRejected() {
+        properties.getBatch().setMaxDocuments(2);
+
+        expectedException.expect(BatchLimitExceededException.class);
+        batchValidationService.validate(createDocuments(3), results::add);
+    }
+
+    @Test
+    public void batchWithTooLargeDocumentsIsRejected() {
+        properties.getBatch().setMaxTotalBytes(10);
+
+        expectedException.expect(BatchLimitExceededException.class);
+        batchValidationService.validate(createDocuments(3), results::add);
+    }
+
+    private static List<ProxyDocument> createDocuments(int count) {
+        List<ProxyDocument> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProxyDocument document = new ProxyDocument();
+            document.setName("document" + i);
+            document.setBytes(new byte[4]);
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    private static class ValidationProxyStub extends ValidationProxy {
+        private final AtomicInteger concurrentValidations = new AtomicInteger();
+        private final AtomicInteger maxConcurrentValidations = new AtomicInteger();
+
+        @Override
+        public SimpleReport validate(ProxyDocument proxyDocument) {
+            int concurrent = concurrentValidations.incrementAndGet();
+            maxConcurrentValidations.accumulateAndGet(concurrent, Math::max);
+            try {
+                Thread.sleep(10);
+                if ("malformed".equals(proxyDocument.getName())) {
+                    throw new MalformedDocumentException();
+                }
+                ValidationConclusion validationConclusion = new ValidationConclusion();
+                ValidatedDocument validatedDocument = new ValidatedDocument();
+                validatedDocument.setFilename(proxyDocument.getName());
+                validationConclusion.setValidatedDocument(validatedDocument);
+                return new SimpleReport(validationConclusion);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                concurrentValidations.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.cache;
+
+import ee.openeid.siva.proxy.configuration.ValidationResultCacheProperties;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.document.ReportType;
+import ee.openeid.siva.validation.document.report.DetailedReport;
+import ee.openeid.siva.validation.document.report.Error;
+import ee.openeid.siva.validation.document.report.SignatureValidationData;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import ee.openeid.siva.validation.document.report.ValidationWarning;
+import ee.openeid.tsl.TSLLoadedEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ValidationResultCacheTest {
+
+    private static final String SCOPE = "ValidationProxy";
+    private static final String VALIDATION_TIME = "2017-01-01T00:00:00Z";
+
+    private ValidationResultCache validationResultCache;
+    private ValidationResultCacheProperties properties;
+    private CounterService counterService;
+    private final AtomicInteger validationCount = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        properties = new ValidationResultCacheProperties();
+        properties.setEnabled(true);
+        counterService = mock(CounterService.class);
+
+        validationResultCache = new ValidationResultCache();
+        validationResultCache.setProperties(properties);
+        validationResultCache.setCounterService(counterService);
+        validationResultCache.init();
+    }
+
+    @Test
+    public void sameDocumentIsValidatedOnce() {
+        SimpleReport firstReport = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+        SimpleReport secondReport = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+
+        assertEquals(1, validationCount.get());
+        assertNotSame(firstReport, secondReport);
+        assertEquals(firstReport.getValidationConclusion().getSignatures(), secondReport.getValidationConclusion().getSignatures());
+        verify(counterService).increment(ValidationResultCache.MISS_METRIC);
+        verify(counterService).increment(ValidationResultCache.HIT_METRIC);
+    }
+
+    @Test
+    public void cachedReportHasCurrentValidationTime() {
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+        SimpleReport cachedReport = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+
+        assertNotEquals(VALIDATION_TIME, cachedReport.getValidationConclusion().getValidationTime());
+    }
+
+    @Test
+    public void differentPolicyIsValidatedAgain() {
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv3"), this::validate);
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+
+        assertEquals(2, validationCount.get());
+    }
+
+    @Test
+    public void differentDocumentNameIsValidatedAgain() {
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.asics", "POLv4"), this::validate);
+
+        assertEquals(2, validationCount.get());
+    }
+
+    @Test
+    public void cacheIsInvalidatedWhenTrustedListsAreLoaded() {
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+        validationResultCache.onTSLLoaded(mock(TSLLoadedEvent.class));
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+
+        assertEquals(2, validationCount.get());
+    }
+
+    @Test
+    public void disabledCacheValidatesEveryTime() {
+        properties.setEnabled(false);
+        validationResultCache.init();
+
+        SimpleReport report = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validate);
+
+        assertEquals(2, validationCount.get());
+        assertEquals(VALIDATION_TIME, report.getValidationConclusion().getValidationTime());
+    }
+
+    @Test
+    public void firstValidationReturnsOriginalReport() {
+        SimpleReport[] validatedReport = new SimpleReport[1];
+        SimpleReport report = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), document -> {
+            validatedReport[0] = validate(document);
+            return validatedReport[0];
+        });
+
+        assertSame(validatedReport[0], report);
+    }
+
+    @Test
+    public void modifyingReturnedReportDoesNotChangeCachedReport() {
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateWithSignature);
+        SimpleReport cachedReport = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateWithSignature);
+        ValidationConclusion conclusion = cachedReport.getValidationConclusion();
+        conclusion.getSignatures().get(0).getErrors().add(error("added error"));
+        conclusion.getSignatures().get(0).setIndication(SignatureValidationData.Indication.TOTAL_FAILED);
+        conclusion.getValidationWarnings().clear();
+
+        SimpleReport nextReport = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateWithSignature);
+
+        assertEquals(validateWithSignature(null).getValidationConclusion().getSignatures(), nextReport.getValidationConclusion().getSignatures());
+        assertEquals(1, nextReport.getValidationConclusion().getValidationWarnings().size());
+    }
+
+    @Test
+    public void modifyingValidatedReportDoesNotChangeCachedReport() {
+        SimpleReport report = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateWithSignature);
+        report.getValidationConclusion().getSignatures().clear();
+
+        SimpleReport cachedReport = validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateWithSignature);
+
+        assertEquals(1, cachedReport.getValidationConclusion().getSignatures().size());
+    }
+
+    @Test
+    public void cachedDetailedReportHasCopyOfValidationProcess() {
+        validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateDetailed);
+        DetailedReport cachedReport = (DetailedReport) validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateDetailed);
+        cachedReport.getValidationProcess().getSignatures().clear();
+
+        DetailedReport nextReport = (DetailedReport) validationResultCache.getOrValidate(SCOPE, createDocument("document.pdf", "POLv4"), this::validateDetailed);
+
+        assertEquals(1, validationCount.get());
+        assertNotSame(cachedReport.getValidationProcess(), nextReport.getValidationProcess());
+        assertEquals(1, nextReport.getValidationProcess().getSignatures().size());
+        assertEquals("S0", nextReport.getValidationProcess().getSignatures().get(0).getId());
+    }
+
+    private SimpleReport validate(ProxyDocument proxyDocument) {
+        validationCount.incrementAndGet();
+        ValidationConclusion validationConclusion = new ValidationConclusion();
+        validationConclusion.setValidationTime(VALIDATION_TIME);
+        validationConclusion.setSignaturesCount(1);
+        return new SimpleReport(validationConclusion);
+    }
+
+    private SimpleReport validateWithSignature(ProxyDocument proxyDocument) {
+        SimpleReport report = validate(proxyDocument);
+        SignatureValidationData signature = new SignatureValidationData();
+        signature.setId("S0");
+        signature.setIndication(SignatureValidationData.Indication.TOTAL_PASSED);
+        signature.setErrors(new ArrayList<>(Collections.singletonList(error("error"))));
+        report.getValidationConclusion().setSignatures(new ArrayList<>(Collections.singletonList(signature)));
+        ValidationWarning validationWarning = new ValidationWarning();
+        validationWarning.setContent("warning");
+        report.getValidationConclusion().setValidationWarnings(new ArrayList<>(Collections.singletonList(validationWarning)));
+        return report;
+    }
+
+    private SimpleReport validateDetailed(ProxyDocument proxyDocument) {
+        SimpleReport report = validate(proxyDocument);
+        eu.europa.esig.dss.jaxb.detailedreport.DetailedReport validationProcess = new eu.europa.esig.dss.jaxb.detailedreport.DetailedReport();
+        eu.europa.esig.dss.jaxb.detailedreport.XmlSignature signature = new eu.europa.esig.dss.jaxb.detailedreport.XmlSignature();
+        signature.setId("S0");
+        validationProcess.getSignatures().add(signature);
+        return new DetailedReport(report.getValidationConclusion(), validationProcess);
+    }
+
+    private static Error error(String content) {
+        Error error = new Error();
+        error.setContent(content);
+        return error;
+    }
+
+    private static ProxyDocument createDocument(String name, String signaturePolicy) {
+        ProxyDocument proxyDocument = new ProxyDocument();
+        proxyDocument.setName(name);
+        proxyDocument.setBytes("document".getBytes());
+        proxyDocument.setSignaturePolicy(signaturePolicy);
+        proxyDocument.setReportType(ReportType.SIMPLE);
+        return proxyDocument;
+    }
+}
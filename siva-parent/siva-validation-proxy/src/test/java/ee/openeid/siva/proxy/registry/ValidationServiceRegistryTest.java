@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.proxy.registry;
+
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.exception.ValidatonServiceNotFoundException;
+import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.siva.validation.service.ValidationService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ValidationServiceRegistryTest {
+
+    private static final String SERVICE_NAME = "genericValidationService";
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private ValidationServiceRegistry registry;
+    private ValidationService validationService;
+    private GaugeService gaugeService;
+    private CounterService counterService;
+
+    @Before
+    public void setUp() {
+        validationService = mock(ValidationService.class);
+        gaugeService = mock(GaugeService.class);
+        counterService = mock(CounterService.class);
+
+        registry = new ValidationServiceRegistry();
+        registry.setServices(Collections.singletonMap(SERVICE_NAME, validationService));
+        registry.setGaugeService(gaugeService);
+        registry.setCounterService(counterService);
+    }
+
+    @Test
+    public void registeredServiceIsReturnedByName() {
+        assertSame(validationService, registry.getService(SERVICE_NAME));
+    }
+
+    @Test
+    public void unknownServiceNameThrowsException() {
+        exception.expect(ValidatonServiceNotFoundException.class);
+        exception.expectMessage("unknownValidationService not found");
+        registry.getService("unknownValidationService");
+    }
+
+    @Test
+    public void dispatchIsCountedAndTimed() {
+        Reports reports = new Reports();
+
+        assertSame(reports, registry.dispatch(SERVICE_NAME, service -> reports));
+
+        verify(counterService).increment("siva.proxy.dispatch." + SERVICE_NAME);
+        verify(gaugeService).submit(eq("timer.siva.proxy.dispatch." + SERVICE_NAME), anyDouble());
+    }
+
+    @Test
+    public void failedDispatchIsCountedAsFailure() {
+        exception.expect(IllegalStateException.class);
+        try {
+            registry.dispatch(SERVICE_NAME, service -> {
+                throw new IllegalStateException();
+            });
+        } finally {
+            verify(counterService).increment("siva.proxy.dispatch." + SERVICE_NAME + ".failure");
+            verify(gaugeService, never()).submit(eq("timer.siva.proxy.dispatch." + SERVICE_NAME), anyDouble());
+        }
+    }
+
+    @Test
+    public void firstMatchingRouteIsUsed() {
+        registry.setRoutes(Arrays.asList(
+                document -> null,
+                document -> "cdocValidationService",
+                document -> SERVICE_NAME));
+
+        assertEquals("cdocValidationService", registry.route(new ProxyDocument()));
+    }
+
+    @Test
+    public void noRouteIsFoundWithoutRegisteredRoutes() {
+        assertNull(registry.route(new ProxyDocument()));
+    }
+}
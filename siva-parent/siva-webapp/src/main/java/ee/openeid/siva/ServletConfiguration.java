@@ -17,10 +17,13 @@
 package ee.openeid.siva;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import ee.openeid.siva.monitoring.configuration.MonitoringConfiguration;
 import ee.openeid.siva.monitoring.indicator.UrlHealthIndicator;
 import ee.openeid.siva.proxy.configuration.ProxyConfigurationProperties;
+import ee.openeid.siva.validation.configuration.ParallelValidationProperties;
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
+import ee.openeid.siva.webapp.response.ValidationResponseHttpMessageConverter;
 import ee.openeid.siva.webapp.soap.DataFilesWebService;
 import ee.openeid.siva.webapp.soap.HashcodeValidationWebService;
 import ee.openeid.siva.webapp.soap.ValidationWebService;
@@ -45,6 +48,7 @@ import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.DispatcherServlet;
 
 import javax.xml.ws.Endpoint;
@@ -52,7 +56,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @SpringBootConfiguration
-@EnableConfigurationProperties({ReportConfigurationProperties.class, ProxyConfigurationProperties.class})
+@EnableConfigurationProperties({ReportConfigurationProperties.class, ProxyConfigurationProperties.class, ParallelValidationProperties.class})
 public class ServletConfiguration extends MonitoringConfiguration {
     private static final String VALIDATION_WEB_SERVICE_ENDPOINT = "/validationWebService";
     private static final String HASHCODE_VALIDATION_WEB_SERVICE_ENDPOINT = "/hashcodeValidationWebService";
@@ -99,6 +103,11 @@ public class ServletConfiguration extends MonitoringConfiguration {
         return builder;
     }
 
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new ValidationResponseHttpMessageConverter(objectMapper);
+    }
+
     @Bean
     public Endpoint validationEndpoint(SpringBus springBus, ValidationWebService validationWebService) {
         EndpointImpl endpoint = new EndpointImpl(springBus, validationWebService);
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.proxy.batch.BatchValidationResult;
+import ee.openeid.siva.proxy.batch.BatchValidationService;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
+import ee.openeid.siva.webapp.interceptor.ReportSignatureInterceptor;
+import ee.openeid.siva.webapp.request.JSONBatchValidationRequest;
+import ee.openeid.siva.webapp.request.JSONValidationRequest;
+import ee.openeid.siva.webapp.response.BatchValidationItemResponse;
+import ee.openeid.siva.webapp.response.erroneus.RequestValidationError;
+import ee.openeid.siva.webapp.transformer.ValidationRequestToProxyDocumentTransformer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Validates a batch of documents and streams the result of every document as a line of JSON as soon as the
+ * document is done, so results are in the order of completion and carry the index of their document.
+ */
+@RestController
+public class BatchValidationController {
+
+    static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final byte LINE_SEPARATOR = '\n';
+
+    private BatchValidationService batchValidationService;
+    private ValidationRequestToProxyDocumentTransformer transformer;
+    private ValidationExceptionHandler exceptionHandler;
+    private ReportSignatureInterceptor reportSignatureInterceptor;
+    private ObjectMapper objectMapper;
+
+    @RequestMapping(value = "/validateBatch", consumes = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
+    public void validateBatch(@Valid @RequestBody JSONBatchValidationRequest batchValidationRequest, HttpServletResponse response) {
+        List<JSONValidationRequest> validationRequests = batchValidationRequest.getDocuments();
+        batchValidationService.verifyLimits(validationRequests.size(), validationRequests.stream()
+                .mapToLong(validationRequest -> validationRequest.getDocument().getBytes().length)
+                .sum());
+        List<ProxyDocument> documents = validationRequests.stream()
+                .map(transformer::transform)
+                .collect(Collectors.toList());
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        batchValidationService.validate(documents, result -> writeResult(response, createItemResponse(result)));
+    }
+
+    private BatchValidationItemResponse createItemResponse(BatchValidationResult result) {
+        BatchValidationItemResponse itemResponse = new BatchValidationItemResponse();
+        itemResponse.setIndex(result.getIndex());
+        if (result.getFailure() == null) {
+            itemResponse.setStatus(HttpStatus.OK.value());
+            itemResponse.setValidationReport(result.getReport());
+            reportSignatureInterceptor.signReport(itemResponse);
+        } else {
+            ResponseEntity<?> errorResponse = exceptionHandler.createErrorResponse(result.getFailure());
+            itemResponse.setStatus(errorResponse.getStatusCodeValue());
+            RequestValidationError requestValidationError;
+            if (errorResponse.getBody() instanceof RequestValidationError) {
+                requestValidationError = (RequestValidationError) errorResponse.getBody();
+            } else {
+                requestValidationError = new RequestValidationError();
+                requestValidationError.addFieldError("document", String.valueOf(errorResponse.getBody()));
+            }
+            itemResponse.setRequestErrors(requestValidationError.getRequestErrors());
+        }
+        return itemResponse;
+    }
+
+    private void writeResult(HttpServletResponse response, BatchValidationItemResponse itemResponse) {
+        try {
+            OutputStream outputStream = response.getOutputStream();
+            outputStream.write(ValidationStageTimings.time(ValidationStage.SERIALIZE, () -> objectMapper.writeValueAsBytes(itemResponse)));
+            outputStream.write(LINE_SEPARATOR);
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Autowired
+    public void setBatchValidationService(BatchValidationService batchValidationService) {
+        this.batchValidationService = batchValidationService;
+    }
+
+    @Autowired
+    public void setTransformer(ValidationRequestToProxyDocumentTransformer transformer) {
+        this.transformer = transformer;
+    }
+
+    @Autowired
+    public void setExceptionHandler(ValidationExceptionHandler exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    @Autowired
+    public void setReportSignatureInterceptor(ReportSignatureInterceptor reportSignatureInterceptor) {
+        this.reportSignatureInterceptor = reportSignatureInterceptor;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+}
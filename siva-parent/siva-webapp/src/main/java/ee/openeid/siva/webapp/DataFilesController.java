@@ -18,28 +18,56 @@ package ee.openeid.siva.webapp;
 
 import ee.openeid.siva.proxy.DataFilesProxy;
 import ee.openeid.siva.validation.document.report.DataFilesReport;
+import ee.openeid.siva.webapp.request.BinaryDataFilesRequest;
+import ee.openeid.siva.webapp.request.BinaryRequestReader;
 import ee.openeid.siva.webapp.request.JSONDataFilesRequest;
 import ee.openeid.siva.webapp.transformer.DataFilesRequestToProxyDocumentTransformer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 
 @RestController
 public class DataFilesController {
 
     private DataFilesProxy dataFilesProxy;
     private DataFilesRequestToProxyDocumentTransformer transformer;
+    private BinaryRequestReader binaryRequestReader;
 
     @RequestMapping(value = "/getDataFiles", produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
     public DataFilesReport getDataFiles(@Valid @RequestBody JSONDataFilesRequest dataFilesRequest) {
         return dataFilesProxy.getDataFiles(transformer.transform(dataFilesRequest));
     }
 
+    @RequestMapping(value = "/getDataFiles", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
+    public DataFilesReport getDataFilesMultipart(BinaryDataFilesRequest dataFilesRequest) {
+        return getDataFilesBinary(dataFilesRequest);
+    }
+
+    @RequestMapping(value = "/getDataFiles", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
+    public DataFilesReport getDataFilesOctetStream(BinaryDataFilesRequest dataFilesRequest, HttpServletRequest request) throws IOException {
+        dataFilesRequest.setDocument(binaryRequestReader.readDocument(request));
+        return getDataFilesBinary(dataFilesRequest);
+    }
+
+    @InitBinder("binaryDataFilesRequest")
+    public void initBinaryDataFilesRequestBinder(WebDataBinder binder) {
+        binaryRequestReader.registerDocumentEditor(binder);
+    }
+
+    private DataFilesReport getDataFilesBinary(BinaryDataFilesRequest dataFilesRequest) {
+        binaryRequestReader.validate(dataFilesRequest);
+        return dataFilesProxy.getDataFiles(transformer.transform(dataFilesRequest));
+    }
+
     @Autowired
     public void setDataFilesProxy(DataFilesProxy dataFilesProxy) {
         this.dataFilesProxy = dataFilesProxy;
@@ -49,4 +77,9 @@ public class DataFilesController {
     public void setDataFilesTransformer(DataFilesRequestToProxyDocumentTransformer transformer) {
         this.transformer = transformer;
     }
+
+    @Autowired
+    public void setBinaryRequestReader(BinaryRequestReader binaryRequestReader) {
+        this.binaryRequestReader = binaryRequestReader;
+    }
 }
@@ -19,6 +19,8 @@ package ee.openeid.siva.webapp;
 import ee.openeid.siva.proxy.HashcodeValidationProxy;
 import ee.openeid.siva.proxy.ValidationProxy;
 import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.webapp.request.BinaryRequestReader;
+import ee.openeid.siva.webapp.request.BinaryValidationRequest;
 import ee.openeid.siva.webapp.request.JSONHashcodeValidationRequest;
 import ee.openeid.siva.webapp.request.JSONValidationRequest;
 import ee.openeid.siva.webapp.response.ValidationResponse;
@@ -26,12 +28,16 @@ import ee.openeid.siva.webapp.transformer.HashcodeValidationRequestToProxyDocume
 import ee.openeid.siva.webapp.transformer.ValidationRequestToProxyDocumentTransformer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 
 @RestController
 public class ValidationController {
@@ -40,18 +46,40 @@ public class ValidationController {
     private ValidationRequestToProxyDocumentTransformer transformer;
     private HashcodeValidationProxy hashcodeValidationProxy;
     private HashcodeValidationRequestToProxyDocumentTransformer hashRequestTransformer;
+    private BinaryRequestReader binaryRequestReader;
 
     @RequestMapping(value = "/validate", produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
     public ValidationResponse validate(@Valid @RequestBody JSONValidationRequest validationRequest) {
         return new ValidationResponse(validationProxy.validate(transformer.transform(validationRequest)));
     }
 
+    @RequestMapping(value = "/validate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
+    public ValidationResponse validateMultipart(BinaryValidationRequest validationRequest) {
+        return validateBinary(validationRequest);
+    }
+
+    @RequestMapping(value = "/validate", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
+    public ValidationResponse validateOctetStream(BinaryValidationRequest validationRequest, HttpServletRequest request) throws IOException {
+        validationRequest.setDocument(binaryRequestReader.readDocument(request));
+        return validateBinary(validationRequest);
+    }
+
     @RequestMapping(value = "/validateHashcode", produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
     public ValidationResponse validateHashcode(@Valid @RequestBody JSONHashcodeValidationRequest validationRequest) {
         ProxyDocument proxyDocument = hashRequestTransformer.transform(validationRequest);
         return new ValidationResponse(hashcodeValidationProxy.validate(proxyDocument));
     }
 
+    @InitBinder("binaryValidationRequest")
+    public void initBinaryValidationRequestBinder(WebDataBinder binder) {
+        binaryRequestReader.registerDocumentEditor(binder);
+    }
+
+    private ValidationResponse validateBinary(BinaryValidationRequest validationRequest) {
+        binaryRequestReader.validate(validationRequest);
+        return new ValidationResponse(validationProxy.validate(transformer.transform(validationRequest)));
+    }
+
     @Autowired
     public void setValidationProxy(ValidationProxy validationProxy) {
         this.validationProxy = validationProxy;
@@ -67,6 +95,11 @@ public class ValidationController {
         this.hashRequestTransformer = hashRequestTransformer;
     }
 
+    @Autowired
+    public void setBinaryRequestReader(BinaryRequestReader binaryRequestReader) {
+        this.binaryRequestReader = binaryRequestReader;
+    }
+
     @Autowired
     public void setHashcodeValidationProxy(HashcodeValidationProxy hashcodeValidationProxy) {
         this.hashcodeValidationProxy = hashcodeValidationProxy;
@@ -16,6 +16,11 @@
 
 package ee.openeid.siva.webapp;
 
+import ee.openeid.siva.proxy.exception.BatchLimitExceededException;
+import ee.openeid.siva.proxy.exception.InvalidCallbackUrlException;
+import ee.openeid.siva.proxy.exception.ValidationJobNotFoundException;
+import ee.openeid.siva.proxy.exception.ValidationJobRejectedException;
+import ee.openeid.siva.proxy.exception.ValidationServiceOverloadedException;
 import ee.openeid.siva.proxy.http.RESTValidationProxyException;
 import ee.openeid.siva.proxy.http.RESTValidationProxyRequestException;
 import ee.openeid.siva.validation.exception.DocumentRequirementsException;
@@ -26,6 +31,8 @@ import ee.openeid.siva.validation.service.signature.policy.InvalidPolicyExceptio
 import ee.openeid.siva.webapp.response.erroneus.RequestValidationError;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -33,10 +40,19 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import javax.validation.ConstraintViolationException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 
 @RestControllerAdvice
 public class ValidationExceptionHandler {
 
+    private static final String RETRY_AFTER_SECONDS = "5";
+    private static final ExceptionHandlerMethodResolver EXCEPTION_HANDLER_METHOD_RESOLVER = new ExceptionHandlerMethodResolver(ValidationExceptionHandler.class);
+
     private MessageSource messageSource;
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -48,6 +64,22 @@ public class ValidationExceptionHandler {
         return requestValidationError;
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public RequestValidationError invalidRequest(ConstraintViolationException exception) {
+        RequestValidationError requestValidationError = new RequestValidationError();
+        exception.getConstraintViolations().forEach(cv -> requestValidationError.addFieldError(cv.getPropertyPath().toString(), cv.getMessage()));
+        return requestValidationError;
+    }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    @ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+    public RequestValidationError handleMaxUploadSizeExceededException(MaxUploadSizeExceededException e) {
+        RequestValidationError requestValidationError = new RequestValidationError();
+        requestValidationError.addFieldError("document", getMessage("validation.error.message.document.tooLarge"));
+        return requestValidationError;
+    }
+
     @ExceptionHandler(MalformedDocumentException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public RequestValidationError handleMalformedDocumentException(MalformedDocumentException e) {
@@ -100,6 +132,71 @@ public class ValidationExceptionHandler {
         return ResponseEntity.status(e.getHttpStatus()).body(e.getMessage());
     }
 
+    @ExceptionHandler(InvalidCallbackUrlException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public RequestValidationError handleInvalidCallbackUrlException(InvalidCallbackUrlException e) {
+        RequestValidationError requestValidationError = new RequestValidationError();
+        requestValidationError.addFieldError("callbackUrl", e.getMessage());
+        return requestValidationError;
+    }
+
+    @ExceptionHandler(ValidationJobNotFoundException.class)
+    @ResponseStatus(value = HttpStatus.NOT_FOUND)
+    public RequestValidationError handleValidationJobNotFoundException(ValidationJobNotFoundException e) {
+        RequestValidationError requestValidationError = new RequestValidationError();
+        requestValidationError.addFieldError("jobId", getMessage("validation.job.error.message.notFound"));
+        return requestValidationError;
+    }
+
+    @ExceptionHandler(ValidationJobRejectedException.class)
+    public ResponseEntity<RequestValidationError> handleValidationJobRejectedException(ValidationJobRejectedException e) {
+        RequestValidationError requestValidationError = new RequestValidationError();
+        requestValidationError.addFieldError("document", getMessage("validation.job.error.message.rejected"));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(requestValidationError);
+    }
+
+    @ExceptionHandler(ValidationServiceOverloadedException.class)
+    public ResponseEntity<RequestValidationError> handleValidationServiceOverloadedException(ValidationServiceOverloadedException e) {
+        RequestValidationError requestValidationError = new RequestValidationError();
+        requestValidationError.addFieldError("document", getMessage("validation.service.error.message.overloaded"));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(requestValidationError);
+    }
+
+    @ExceptionHandler(BatchLimitExceededException.class)
+    @ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+    public RequestValidationError handleBatchLimitExceededException(BatchLimitExceededException e) {
+        RequestValidationError requestValidationError = new RequestValidationError();
+        requestValidationError.addFieldError("documents", e.getMessage());
+        return requestValidationError;
+    }
+
+    /**
+     * Error response the handler methods of this class create for the exception. Used for errors that can not be
+     * thrown to the dispatcher, e.g. for a failed document of a batch.
+     */
+    public ResponseEntity<?> createErrorResponse(Exception exception) {
+        Method handlerMethod = EXCEPTION_HANDLER_METHOD_RESOLVER.resolveMethod(exception);
+        if (handlerMethod == null) {
+            RequestValidationError requestValidationError = new RequestValidationError();
+            requestValidationError.addFieldError("document", getMessage("validation.service.error.message"));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(requestValidationError);
+        }
+        Object response;
+        try {
+            response = handlerMethod.invoke(this, exception);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Unable to create error response for " + exception.getClass().getName(), e);
+        }
+        if (response instanceof ResponseEntity) {
+            return (ResponseEntity<?>) response;
+        }
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(handlerMethod, ResponseStatus.class);
+        return ResponseEntity.status(responseStatus == null ? HttpStatus.OK : responseStatus.value()).body(response);
+    }
 
     private String getMessage(String key) {
         return messageSource.getMessage(key, null, null);
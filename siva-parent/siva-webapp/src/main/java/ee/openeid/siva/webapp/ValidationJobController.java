@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp;
+
+import ee.openeid.siva.proxy.async.ValidationJob;
+import ee.openeid.siva.proxy.async.ValidationJobService;
+import ee.openeid.siva.proxy.async.ValidationJobStatus;
+import ee.openeid.siva.webapp.request.JSONValidationRequest;
+import ee.openeid.siva.webapp.response.ValidationJobResponse;
+import ee.openeid.siva.webapp.transformer.ValidationRequestToProxyDocumentTransformer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.validation.Valid;
+
+@RestController
+public class ValidationJobController {
+
+    private ValidationJobService validationJobService;
+    private ValidationRequestToProxyDocumentTransformer transformer;
+
+    @RequestMapping(value = "/validateAsync", produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
+    public ResponseEntity<ValidationJobResponse> validateAsync(@Valid @RequestBody JSONValidationRequest validationRequest,
+                                                               @RequestParam(value = "callbackUrl", required = false) String callbackUrl) {
+        ValidationJob job = validationJobService.submit(transformer.transform(validationRequest), callbackUrl);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/validationJobs/{jobId}").buildAndExpand(job.getId()).toUri())
+                .body(createResponse(job));
+    }
+
+    @RequestMapping(value = "/validationJobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.GET)
+    public ValidationJobResponse getValidationJob(@PathVariable("jobId") String jobId) {
+        ValidationJob job = validationJobService.getJob(jobId);
+        if (job.getStatus() == ValidationJobStatus.FAILED) {
+            throw job.getFailure();
+        }
+        return createResponse(job);
+    }
+
+    private static ValidationJobResponse createResponse(ValidationJob job) {
+        ValidationJobResponse response = new ValidationJobResponse();
+        response.setJobId(job.getId());
+        response.setStatus(job.getStatus());
+        response.setValidationReport(job.getReport());
+        response.setValidationReportSignature(job.getReportSignature());
+        return response;
+    }
+
+    @Autowired
+    public void setValidationJobService(ValidationJobService validationJobService) {
+        this.validationJobService = validationJobService;
+    }
+
+    @Autowired
+    public void setTransformer(ValidationRequestToProxyDocumentTransformer transformer) {
+        this.transformer = transformer;
+    }
+}
@@ -17,8 +17,13 @@
 package ee.openeid.siva.webapp.interceptor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.proxy.async.ValidationReportSigner;
 import ee.openeid.siva.signature.SignatureService;
 import ee.openeid.siva.validation.document.report.DetailedReport;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
+import ee.openeid.siva.webapp.response.ValidationJobResponse;
 import ee.openeid.siva.webapp.response.ValidationResponse;
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
 import org.apache.commons.codec.binary.Base64;
@@ -35,9 +40,10 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
 /**
  * Alters the response by creating a signature from the existing response's body and adding the signature into the body.
+ * Reports of validation jobs are signed once when the job is done, their responses are not signed again.
  */
 @RestControllerAdvice
-public class ReportSignatureInterceptor implements ResponseBodyAdvice<Object> {
+public class ReportSignatureInterceptor implements ResponseBodyAdvice<Object>, ValidationReportSigner {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ReportSignatureInterceptor.class);
 
@@ -57,23 +63,40 @@ public class ReportSignatureInterceptor implements ResponseBodyAdvice<Object> {
 
     @Override
     public Object beforeBodyWrite(Object responseObject, MethodParameter returnType, MediaType selectedContentType, Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
-        if (properties.isReportSignatureEnabled()) {
+        if (responseObject instanceof ValidationResponse && !(responseObject instanceof ValidationJobResponse)) {
+            return signReport((ValidationResponse) responseObject);
+        }
+        return responseObject;
+    }
+
+    /**
+     * Adds the signature of a detailed report into the response when report signing is enabled. Used directly for
+     * responses that are not written through this advice, e.g. documents of a batch.
+     */
+    public ValidationResponse signReport(ValidationResponse validationResponse) {
+        String reportSignature = sign(validationResponse.getValidationReport());
+        if (reportSignature != null) {
+            validationResponse.setValidationReportSignature(reportSignature);
+        }
+        return validationResponse;
+    }
+
+    @Override
+    public String sign(SimpleReport report) {
+        if (properties.isReportSignatureEnabled() && report instanceof DetailedReport) {
             try {
-                if (responseObject instanceof ValidationResponse && ((ValidationResponse) responseObject).getValidationReport() instanceof DetailedReport) {
-                    LOGGER.debug("Starting to create report signature");
-                    ValidationResponse validationResponse = (ValidationResponse) responseObject;
-                    String validationReportJsonString = jacksonObjectMapper.writeValueAsString(validationResponse.getValidationReport());
-                    byte[] reportSignatureBytes = signatureService.getSignature(validationReportJsonString.getBytes(), "validationReport.json", "application/json");
-                    validationResponse.setValidationReportSignature(Base64.encodeBase64String(reportSignatureBytes));
-                    LOGGER.debug("Finished creating report signature");
-                    return validationResponse;
-                }
+                LOGGER.debug("Starting to create report signature");
+                byte[] reportSignatureBytes = ValidationStageTimings.time(ValidationStage.SIGN, () -> {
+                    String validationReportJsonString = jacksonObjectMapper.writeValueAsString(report);
+                    return signatureService.getSignature(validationReportJsonString.getBytes(), "validationReport.json", "application/json");
+                });
+                LOGGER.debug("Finished creating report signature");
+                return Base64.encodeBase64String(reportSignatureBytes);
             } catch (Exception e) {
                 LOGGER.error("Error producing report signature", e);
-                return responseObject;
             }
         }
-        return responseObject;
+        return null;
     }
 
     public void setJacksonObjectMapper(ObjectMapper jacksonObjectMapper) {
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.interceptor;
+
+import ee.openeid.siva.validation.metrics.ValidationStageMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Measures the validation pipeline stages of a REST or SOAP request, including decoding the request, signing the
+ * report and writing the response, and publishes them once the response is written.
+ */
+@Component
+public class ValidationStageMetricsFilter extends OncePerRequestFilter {
+
+    private ValidationStageMetrics stageMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    @Autowired
+    public void setStageMetrics(ValidationStageMetrics stageMetrics) {
+        this.stageMetrics = stageMetrics;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Validated document of a validation request, decoded from its base64 representation while the request is read.
+ * <p>
+ * Only the decoded bytes are kept, the base64 text of the document is not held in memory as a whole.
+ * Decoding is as lenient as {@link org.apache.commons.codec.binary.Base64#decodeBase64(String)}, but
+ * any character outside of the base64 alphabet and whitespace marks the document as invalid.
+ */
+@JsonDeserialize(using = Base64DocumentDeserializer.class)
+public final class Base64Document {
+
+    private final byte[] bytes;
+    private final boolean valid;
+    private final boolean empty;
+    private final long decodingTimeInNanos;
+
+    Base64Document(byte[] bytes, boolean valid, boolean empty, long decodingTimeInNanos) {
+        this.bytes = bytes;
+        this.valid = valid;
+        this.empty = empty;
+        this.decodingTimeInNanos = decodingTimeInNanos;
+    }
+
+    public static Base64Document decode(String base64Text) {
+        Base64DocumentDecoder decoder = new Base64DocumentDecoder();
+        try {
+            decoder.write(base64Text);
+            decoder.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return decoder.getDocument();
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public long getDecodingTimeInNanos() {
+        return decodingTimeInNanos;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64OutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Decodes base64 text written to it chunk by chunk, checking the characters on the way.
+ * Decoding stops at the first invalid character.
+ */
+class Base64DocumentDecoder extends Writer {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ByteArrayOutputStream decodedBytes = new ByteArrayOutputStream();
+    private final Base64OutputStream decodingStream = new Base64OutputStream(decodedBytes, false);
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final long startTime = System.nanoTime();
+    private boolean valid = true;
+    private boolean empty = true;
+
+    @Override
+    public void write(char[] characters, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (valid && offset < end) {
+            int chunkLength = Math.min(CHUNK_SIZE, end - offset);
+            for (int i = 0; i < chunkLength; i++) {
+                char character = characters[offset + i];
+                if (!isWhitespace(character)) {
+                    empty = false;
+                    if (character > Byte.MAX_VALUE || !Base64.isBase64((byte) character)) {
+                        valid = false;
+                        return;
+                    }
+                }
+                chunk[i] = (byte) character;
+            }
+            decodingStream.write(chunk, 0, chunkLength);
+            offset += chunkLength;
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        decodingStream.close();
+    }
+
+    Base64Document getDocument() {
+        return new Base64Document(valid ? decodedBytes.toByteArray() : new byte[0], valid, empty, System.nanoTime() - startTime);
+    }
+
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || character == '\n' || character == '\r' || character == '\t';
+    }
+}
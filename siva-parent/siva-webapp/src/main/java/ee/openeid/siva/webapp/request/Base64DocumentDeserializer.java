@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Streams the base64 text of a document from the JSON parser into a {@link Base64DocumentDecoder},
+ * so the text is decoded without creating an intermediate string of the whole document.
+ */
+public class Base64DocumentDeserializer extends StdDeserializer<Base64Document> {
+
+    public Base64DocumentDeserializer() {
+        super(Base64Document.class);
+    }
+
+    @Override
+    public Base64Document deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            Base64DocumentDecoder decoder = new Base64DocumentDecoder();
+            parser.getText(decoder);
+            decoder.close();
+            return decoder.getDocument();
+        } else if (parser.currentToken() != null && parser.currentToken().isScalarValue()) {
+            return Base64Document.decode(parser.getText());
+        }
+        return (Base64Document) context.handleUnexpectedToken(Base64Document.class, parser);
+    }
+}
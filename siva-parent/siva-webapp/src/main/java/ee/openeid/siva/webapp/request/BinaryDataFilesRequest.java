@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request;
+
+import ee.openeid.siva.webapp.request.validation.annotations.ValidDataFileFilename;
+import lombok.Data;
+import org.hibernate.validator.constraints.NotEmpty;
+
+@Data
+public class BinaryDataFilesRequest {
+
+    @NotEmpty
+    private byte[] document;
+
+    @ValidDataFileFilename
+    private String filename;
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request;
+
+import ee.openeid.siva.validation.exception.MalformedDocumentException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.MultipartProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.DataBinder;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.support.ByteArrayMultipartFileEditor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Reads documents uploaded as binary content, either as a {@code multipart/form-data} part or as the
+ * {@code application/octet-stream} request body, and validates the binary requests built from them.
+ * <p>
+ * The document is copied from the request exactly once, a body with a known content length is read
+ * straight into an array of its final size. Uploads are limited by the multipart max file size and
+ * can never exceed the largest array the JVM can allocate. A body shorter than its declared content
+ * length is rejected as a malformed document.
+ */
+@Component
+public class BinaryRequestReader {
+
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private Validator validator;
+    private long maxDocumentSize = -1;
+
+    public void registerDocumentEditor(DataBinder binder) {
+        binder.registerCustomEditor(byte[].class, "document", new ByteArrayMultipartFileEditor());
+    }
+
+    public byte[] readDocument(HttpServletRequest request) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        if (isTooLarge(contentLength)) {
+            throw new MaxUploadSizeExceededException(getDocumentSizeLimit());
+        }
+        if (contentLength >= 0) {
+            byte[] document = new byte[(int) contentLength];
+            try {
+                new DataInputStream(request.getInputStream()).readFully(document);
+            } catch (EOFException e) {
+                throw new MalformedDocumentException(e);
+            }
+            return document;
+        }
+        InputStream inputStream = new BoundedInputStream(request.getInputStream(), getDocumentSizeLimit() + 1);
+        byte[] document = IOUtils.toByteArray(inputStream);
+        if (isTooLarge(document.length)) {
+            throw new MaxUploadSizeExceededException(getDocumentSizeLimit());
+        }
+        return document;
+    }
+
+    public <T> T validate(T request) {
+        Set<ConstraintViolation<T>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return request;
+    }
+
+    private boolean isTooLarge(long documentSize) {
+        return documentSize > getDocumentSizeLimit();
+    }
+
+    private long getDocumentSizeLimit() {
+        return maxDocumentSize < 0 ? MAX_ARRAY_SIZE : Math.min(maxDocumentSize, MAX_ARRAY_SIZE);
+    }
+
+    @Autowired
+    public void setValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+    @Autowired(required = false)
+    public void setMultipartProperties(MultipartProperties multipartProperties) {
+        this.maxDocumentSize = multipartProperties.createMultipartConfig().getMaxFileSize();
+    }
+}
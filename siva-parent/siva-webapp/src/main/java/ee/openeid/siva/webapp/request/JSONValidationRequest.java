@@ -22,8 +22,8 @@ import lombok.Data;
 @Data
 public class JSONValidationRequest implements ValidationRequest {
 
-    @ValidBase64String
-    private String document;
+    @ValidBase64Document
+    private Base64Document document;
 
     @ValidFilename
     private String filename;
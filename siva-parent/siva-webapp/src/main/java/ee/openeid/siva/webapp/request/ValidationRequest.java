@@ -18,7 +18,7 @@ package ee.openeid.siva.webapp.request;
 
 public interface ValidationRequest {
 
-    String getDocument();
+    Base64Document getDocument();
 
     String getFilename();
 
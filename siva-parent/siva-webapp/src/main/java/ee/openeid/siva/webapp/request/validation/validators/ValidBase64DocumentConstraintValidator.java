@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request.validation.validators;
+
+import ee.openeid.siva.webapp.request.Base64Document;
+import ee.openeid.siva.webapp.request.validation.annotations.ValidBase64Document;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class ValidBase64DocumentConstraintValidator implements ConstraintValidator<ValidBase64Document, Base64Document> {
+
+    private static final String NOT_BLANK_MESSAGE = "{org.hibernate.validator.constraints.NotBlank.message}";
+
+    public void initialize(ValidBase64Document constraint) {
+    }
+
+    public boolean isValid(Base64Document document, ConstraintValidatorContext context) {
+        if (document == null || document.isEmpty()) {
+            context.buildConstraintViolationWithTemplate(NOT_BLANK_MESSAGE).addConstraintViolation();
+            return false;
+        }
+        return document.isValid();
+    }
+}
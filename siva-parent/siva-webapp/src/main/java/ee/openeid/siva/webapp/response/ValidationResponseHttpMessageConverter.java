@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * JSON message converter timing the serialization of validation responses as a validation pipeline stage.
+ */
+public class ValidationResponseHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public ValidationResponseHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!(object instanceof ValidationResponse)) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        ValidationStageTimings.time(ValidationStage.SERIALIZE, () -> {
+            super.writeInternal(object, type, outputMessage);
+            return null;
+        });
+    }
+}
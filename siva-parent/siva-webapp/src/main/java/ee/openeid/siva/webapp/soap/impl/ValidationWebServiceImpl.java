@@ -17,10 +17,16 @@
 package ee.openeid.siva.webapp.soap.impl;
 
 import ee.openeid.siva.proxy.ValidationProxy;
+import ee.openeid.siva.proxy.batch.BatchValidationResult;
+import ee.openeid.siva.proxy.batch.BatchValidationService;
+import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.webapp.soap.DocumentValidationFault;
+import ee.openeid.siva.webapp.soap.DocumentValidationResult;
 import ee.openeid.siva.webapp.soap.SoapValidationRequest;
 import ee.openeid.siva.webapp.soap.ValidationReport;
 import ee.openeid.siva.webapp.soap.ValidationWebService;
+import ee.openeid.siva.webapp.soap.interceptor.SoapFaultResponseInterceptor;
 import ee.openeid.siva.webapp.soap.transformer.SoapValidationRequestToProxyDocumentTransformer;
 import ee.openeid.siva.webapp.soap.transformer.ValidationReportSoapResponseTransformer;
 import org.apache.cxf.annotations.SchemaValidation;
@@ -28,6 +34,9 @@ import org.apache.cxf.interceptor.OutFaultInterceptors;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.xml.ws.Holder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @OutFaultInterceptors(interceptors = {"ee.openeid.siva.webapp.soap.interceptor.SoapFaultResponseInterceptor", "ee.openeid.siva.webapp.soap.interceptor.SoapResponseHeaderInterceptor"})
 @SchemaValidation(type = SchemaValidation.SchemaValidationType.IN)
@@ -36,6 +45,7 @@ public class ValidationWebServiceImpl implements ValidationWebService {
     private ValidationProxy validationProxy;
     private SoapValidationRequestToProxyDocumentTransformer requestTransformer;
     private ValidationReportSoapResponseTransformer responseTransformer;
+    private BatchValidationService batchValidationService;
 
     @Override
     public void validateDocument(SoapValidationRequest validationRequest, Holder<ValidationReport> validationReport, Holder<String> validationReportSignature) {
@@ -44,6 +54,33 @@ public class ValidationWebServiceImpl implements ValidationWebService {
         validationReport.value = responseValidationReport;
     }
 
+    @Override
+    public List<DocumentValidationResult> validateDocumentBatch(List<SoapValidationRequest> validationRequests) {
+        // documents are decoded by the transformer, the decoded size is estimated from the base64 text
+        batchValidationService.verifyLimits(validationRequests.size(), validationRequests.stream()
+                .mapToLong(validationRequest -> validationRequest.getDocument() == null ? 0 : validationRequest.getDocument().length() * 3L / 4)
+                .sum());
+        List<ProxyDocument> documents = validationRequests.stream().map(requestTransformer::transform).collect(Collectors.toList());
+        DocumentValidationResult[] results = new DocumentValidationResult[documents.size()];
+        batchValidationService.validate(documents, result -> results[result.getIndex()] = toSoapResult(result));
+        return Arrays.asList(results);
+    }
+
+    private DocumentValidationResult toSoapResult(BatchValidationResult batchValidationResult) {
+        DocumentValidationResult result = new DocumentValidationResult();
+        result.setIndex(batchValidationResult.getIndex());
+        RuntimeException failure = batchValidationResult.getFailure();
+        if (failure == null) {
+            result.setValidationReport(responseTransformer.toSoapResponse(batchValidationResult.getReport()));
+        } else {
+            DocumentValidationFault fault = new DocumentValidationFault();
+            fault.setFaultCode(SoapFaultResponseInterceptor.isClientException(failure) ? "Client" : "Server");
+            fault.setFaultString(failure.getMessage() == null ? failure.getClass().getName() : failure.getMessage());
+            result.setFault(fault);
+        }
+        return result;
+    }
+
     @Autowired
     public void setValidationProxy(ValidationProxy validationProxy) {
         this.validationProxy = validationProxy;
@@ -58,4 +95,9 @@ public class ValidationWebServiceImpl implements ValidationWebService {
     public void setResponseTransformer(ValidationReportSoapResponseTransformer responseTransformer) {
         this.responseTransformer = responseTransformer;
     }
+
+    @Autowired
+    public void setBatchValidationService(BatchValidationService batchValidationService) {
+        this.batchValidationService = batchValidationService;
+    }
 }
@@ -24,11 +24,14 @@ import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.phase.Phase;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 import javax.xml.namespace.QName;
 import javax.xml.soap.SOAPBody;
 import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPMessage;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class AbstractRequestValidationInterceptor extends AbstractSoapInterceptor {
 
@@ -76,6 +79,16 @@ public abstract class AbstractRequestValidationInterceptor extends AbstractSoapI
         return elementNode.getNodeValue() == null ? elementNode.getTextContent() : elementNode.getNodeValue();
     }
 
+    List<String> getElementValuesFromBody(SOAPBody body, String elementName) {
+        NodeList elementNodes = body.getElementsByTagName(elementName);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < elementNodes.getLength(); i++) {
+            Node elementNode = elementNodes.item(i);
+            values.add(elementNode.getNodeValue() == null ? elementNode.getTextContent() : elementNode.getNodeValue());
+        }
+        return values;
+    }
+
     void changeElementValue(Node elementNode, String newValue) {
         if (elementNode.getNodeValue() == null) {
             elementNode.setTextContent(newValue);
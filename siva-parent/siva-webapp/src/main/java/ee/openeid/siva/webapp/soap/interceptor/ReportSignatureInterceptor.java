@@ -18,6 +18,8 @@ package ee.openeid.siva.webapp.soap.interceptor;
 
 import ee.openeid.siva.signature.SignatureService;
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
@@ -27,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 import javax.xml.soap.SOAPBody;
 import javax.xml.soap.SOAPElement;
@@ -51,6 +54,10 @@ import java.io.StringWriter;
 public class ReportSignatureInterceptor extends AbstractSoapInterceptor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ReportSignatureInterceptor.class);
+    private static final String BATCH_RESPONSE_ELEMENT = "ValidateDocumentBatchResponse";
+    private static final String VALIDATION_REPORT_ELEMENT = "ValidationReport";
+    private static final String DETAILED_REPORT_ELEMENT = "ValidationProcess";
+    private static final String VALIDATION_REPORT_SIGNATURE_ELEMENT = "ValidationReportSignature";
 
     @Autowired
     private SignatureService signatureService;
@@ -70,10 +77,11 @@ public class ReportSignatureInterceptor extends AbstractSoapInterceptor {
                 if (soapMessage != null) {
                     SOAPBody responseBody = soapMessage.getSOAPPart().getEnvelope().getBody();
                     SOAPBody requestBody = message.getExchange().getInMessage().getContent(SOAPMessage.class).getSOAPPart().getEnvelope().getBody();
-                    if (reportTypeIsDetailed(requestBody)) {
+                    if (isBatchResponse(responseBody)) {
+                        signDetailedBatchReports((SOAPElement) responseBody.getFirstChild());
+                    } else if (reportTypeIsDetailed(requestBody)) {
                         LOGGER.debug("Starting to create report signature");
-                        byte[] validationReportBytes = getValidationReportContent(responseBody);
-                        byte[] validationReportSignature = signatureService.getSignature(validationReportBytes, "validationReport.xml", "application/xml");
+                        byte[] validationReportSignature = getSignature(responseBody.getFirstChild().getFirstChild());
                         addValidationReportSignature(responseBody, validationReportSignature);
                         LOGGER.debug("Finished creating report signature");
                     }
@@ -90,8 +98,43 @@ public class ReportSignatureInterceptor extends AbstractSoapInterceptor {
         return reportTypeNode != null && "Detailed".equals(reportTypeNode.getNodeValue());
     }
 
-    private byte[] getValidationReportContent(SOAPBody soapBody) throws IOException, SOAPException, TransformerException {
-        Node validationReportNode = soapBody.getFirstChild().getFirstChild();
+    private boolean isBatchResponse(SOAPBody soapBody) {
+        Node responseNode = soapBody.getFirstChild();
+        return responseNode != null && BATCH_RESPONSE_ELEMENT.equals(responseNode.getLocalName());
+    }
+
+    /**
+     * Every detailed report of a batch gets its own signature, so a report can be verified without the other
+     * reports of the batch.
+     */
+    private void signDetailedBatchReports(SOAPElement batchResponseElement) throws IOException, SOAPException, TransformerException {
+        NodeList validationResultNodes = batchResponseElement.getChildNodes();
+        for (int i = 0; i < validationResultNodes.getLength(); i++) {
+            Node validationReportNode = findChild(validationResultNodes.item(i), VALIDATION_REPORT_ELEMENT);
+            if (validationReportNode != null && findChild(validationReportNode, DETAILED_REPORT_ELEMENT) != null) {
+                byte[] validationReportSignature = getSignature(validationReportNode);
+                ((SOAPElement) validationResultNodes.item(i)).addChildElement(VALIDATION_REPORT_SIGNATURE_ELEMENT)
+                        .setTextContent(Base64.encodeBase64String(validationReportSignature));
+            }
+        }
+    }
+
+    private Node findChild(Node parentNode, String localName) {
+        NodeList childNodes = parentNode.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            if (localName.equals(childNodes.item(i).getLocalName())) {
+                return childNodes.item(i);
+            }
+        }
+        return null;
+    }
+
+    private byte[] getSignature(Node validationReportNode) throws IOException, TransformerException {
+        byte[] validationReportContent = getValidationReportContent(validationReportNode);
+        return ValidationStageTimings.time(ValidationStage.SIGN, () -> signatureService.getSignature(validationReportContent, "validationReport.xml", "application/xml"));
+    }
+
+    private byte[] getValidationReportContent(Node validationReportNode) throws TransformerException {
         DOMSource source = new DOMSource(validationReportNode);
         StringWriter stringWriter = new StringWriter();
         Transformer transformer = TransformerFactory.newInstance().newTransformer();
@@ -103,7 +146,7 @@ public class ReportSignatureInterceptor extends AbstractSoapInterceptor {
 
     private void addValidationReportSignature(SOAPBody soapBody, byte[] validationReportSignature) throws SOAPException {
         SOAPElement validationResponseElement = (SOAPElement) soapBody.getFirstChild();
-        validationResponseElement.addChildElement("ValidationReportSignature").setTextContent(Base64.encodeBase64String(validationReportSignature));
+        validationResponseElement.addChildElement(VALIDATION_REPORT_SIGNATURE_ELEMENT).setTextContent(Base64.encodeBase64String(validationReportSignature));
     }
 
     public void setSignatureService(SignatureService signatureService) {
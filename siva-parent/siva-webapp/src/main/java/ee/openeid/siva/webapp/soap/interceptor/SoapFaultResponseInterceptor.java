@@ -16,6 +16,7 @@
 
 package ee.openeid.siva.webapp.soap.interceptor;
 
+import ee.openeid.siva.proxy.exception.BatchLimitExceededException;
 import ee.openeid.siva.proxy.http.RESTValidationProxyRequestException;
 import ee.openeid.siva.validation.exception.DocumentRequirementsException;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
@@ -57,11 +58,15 @@ public class SoapFaultResponseInterceptor extends AbstractSoapInterceptor {
         }
     }
 
-    private boolean isClientException(Throwable t) {
+    /**
+     * Whether the exception is caused by the request, for these the fault code is set to Client.
+     */
+    public static boolean isClientException(Throwable t) {
         if (t instanceof MalformedDocumentException ||
                 t instanceof MalformedSignatureFileException ||
                 t instanceof DocumentRequirementsException ||
                 t instanceof InvalidPolicyException ||
+                t instanceof BatchLimitExceededException ||
                 t instanceof UnmarshalException) {
             return true;
         } else if (t instanceof RESTValidationProxyRequestException) {
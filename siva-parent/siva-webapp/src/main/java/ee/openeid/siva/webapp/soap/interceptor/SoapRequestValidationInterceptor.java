@@ -22,6 +22,7 @@ import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.xml.soap.SOAPBody;
+import java.util.List;
 import java.util.regex.Pattern;
 
 public class SoapRequestValidationInterceptor extends AbstractRequestValidationInterceptor {
@@ -32,40 +33,42 @@ public class SoapRequestValidationInterceptor extends AbstractRequestValidationI
 
     @Override
     void validateRequestBody(SOAPBody body) {
-        validateDocumentElement(body);
-        validateFilenameElement(body);
-        validateDocumentTypeElement(body);
-        validateSignaturePolicyElement(body);
+        validateDocumentElements(body);
+        validateFilenameElements(body);
+        validateDocumentTypeElements(body);
+        validateSignaturePolicyElements(body);
     }
 
-    private void validateDocumentElement(SOAPBody body) {
-        String documentValue = getElementValueFromBody(body, "Document");
-        if (StringUtils.isBlank(documentValue) || !Base64.isBase64(documentValue)) {
+    private void validateDocumentElements(SOAPBody body) {
+        List<String> documentValues = getElementValuesFromBody(body, "Document");
+        if (documentValues.isEmpty() || documentValues.stream().anyMatch(documentValue -> StringUtils.isBlank(documentValue) || !Base64.isBase64(documentValue))) {
             throwFault(errorMessage("validation.error.message.base64"));
         }
     }
 
-    private void validateFilenameElement(SOAPBody body) {
-        String filenameValue = getElementValueFromBody(body, "Filename");
-        if (StringUtils.isBlank(filenameValue) || filenameValue.length() > MAX_FILENAME_LENGTH || filenameValue.length() < 1) {
+    private void validateFilenameElements(SOAPBody body) {
+        List<String> filenameValues = getElementValuesFromBody(body, "Filename");
+        if (filenameValues.isEmpty() || filenameValues.stream().anyMatch(filenameValue -> StringUtils.isBlank(filenameValue) || filenameValue.length() > MAX_FILENAME_LENGTH)) {
             throwFault(errorMessage("validation.error.message.filename"));
         }
     }
 
-    private void validateDocumentTypeElement(SOAPBody body) {
-        String documentValue = getElementValueFromBody(body, "DocumentType");
-        if (!isValidDocumentType(documentValue)) {
+    private void validateDocumentTypeElements(SOAPBody body) {
+        if (!getElementValuesFromBody(body, "DocumentType").stream().allMatch(this::isValidDocumentType)) {
             throwFault(errorMessage("validation.error.message.documentType"));
         }
     }
 
-    private void validateSignaturePolicyElement(SOAPBody body) {
-        String signaturePolicyValue = getElementValueFromBody(body, "SignaturePolicy");
-        if (signaturePolicyValue != null && (!SIGNATURE_POLICY_PATTERN.matcher(signaturePolicyValue).matches() || signaturePolicyValue.length() > MAX_POLICY_LENGTH || signaturePolicyValue.length() < 1)) {
+    private void validateSignaturePolicyElements(SOAPBody body) {
+        if (!getElementValuesFromBody(body, "SignaturePolicy").stream().allMatch(this::isValidSignaturePolicy)) {
             throwFault(errorMessage("validation.error.message.signaturePolicy"));
         }
     }
 
+    private boolean isValidSignaturePolicy(String signaturePolicyValue) {
+        return SIGNATURE_POLICY_PATTERN.matcher(signaturePolicyValue).matches() && signaturePolicyValue.length() <= MAX_POLICY_LENGTH && signaturePolicyValue.length() >= 1;
+    }
+
     private boolean isValidDocumentType(String inputDocumentType) {
         if (inputDocumentType == null) {
             return true;
@@ -25,14 +25,43 @@ import ee.openeid.siva.webapp.soap.*;
 import org.springframework.stereotype.Component;
 
 import javax.xml.bind.*;
-import java.io.StringReader;
-import java.io.StringWriter;
+import javax.xml.bind.util.JAXBSource;
 import java.util.List;
 
 @Component
 public class ValidationReportSoapResponseTransformer {
     private static final String EU_DETAILED_REPORT_PACKAGE = "eu.europa.esig.dss.validation.detailed_report";
 
+    private static final JAXBContext MARSHALLER_CONTEXT;
+    private static final JAXBContext UNMARSHALLER_CONTEXT;
+
+    static {
+        try {
+            MARSHALLER_CONTEXT = JAXBContext.newInstance(eu.europa.esig.dss.jaxb.detailedreport.DetailedReport.class);
+            UNMARSHALLER_CONTEXT = JAXBContext.newInstance(EU_DETAILED_REPORT_PACKAGE);
+        } catch (JAXBException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * JAXB contexts are thread safe, marshallers and unmarshallers are not, hence they are kept per thread.
+     */
+    private static final ThreadLocal<Marshaller> MARSHALLER = ThreadLocal.withInitial(() -> {
+        try {
+            return MARSHALLER_CONTEXT.createMarshaller();
+        } catch (JAXBException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<Unmarshaller> UNMARSHALLER = ThreadLocal.withInitial(() -> {
+        try {
+            return UNMARSHALLER_CONTEXT.createUnmarshaller();
+        } catch (JAXBException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     private static Policy toSoapResponsePolicy(ee.openeid.siva.validation.document.report.Policy policy) {
         Policy responsePolicy = new Policy();
         responsePolicy.setPolicyDescription(policy.getPolicyDescription());
@@ -82,23 +111,14 @@ public class ValidationReportSoapResponseTransformer {
         return responseValidationConclusion;
     }
 
-    @SuppressWarnings("unchecked")
     private ee.openeid.siva.webapp.soap.DetailedReport toSoapDetailedReport(eu.europa.esig.dss.jaxb.detailedreport.DetailedReport detailedReport) {
         try {
             if (detailedReport == null)
                 return null;
-            JAXBContext marshallerContext = JAXBContext.newInstance(eu.europa.esig.dss.jaxb.detailedreport.DetailedReport.class);
-            Marshaller marshaller = marshallerContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            StringWriter writer = new StringWriter();
-            marshaller.marshal(detailedReport, writer);
-            String requestString = writer.toString();
-
-            JAXBContext unMarshallerContext = JAXBContext.newInstance(EU_DETAILED_REPORT_PACKAGE);
-            Unmarshaller unmarshaller = unMarshallerContext.createUnmarshaller();
-            StringReader reader = new StringReader(requestString);
-
-            JAXBElement<eu.europa.esig.dss.validation.detailed_report.DetailedReport> detailedReportJAXBElement = (JAXBElement<eu.europa.esig.dss.validation.detailed_report.DetailedReport>) unmarshaller.unmarshal(reader);
+            // Marshaller events are fed directly to the unmarshaller, no intermediate XML document is created
+            JAXBSource source = new JAXBSource(MARSHALLER.get(), detailedReport);
+            JAXBElement<eu.europa.esig.dss.validation.detailed_report.DetailedReport> detailedReportJAXBElement =
+                    UNMARSHALLER.get().unmarshal(source, eu.europa.esig.dss.validation.detailed_report.DetailedReport.class);
             return transformDetailReport(detailedReportJAXBElement.getValue());
         } catch (JAXBException e) {
             throw new RuntimeException(e);
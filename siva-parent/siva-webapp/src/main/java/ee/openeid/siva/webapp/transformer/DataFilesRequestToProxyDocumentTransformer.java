@@ -17,6 +17,7 @@
 package ee.openeid.siva.webapp.transformer;
 
 import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.webapp.request.BinaryDataFilesRequest;
 import ee.openeid.siva.webapp.request.DataFilesRequest;
 import org.apache.commons.codec.binary.Base64;
 import org.springframework.stereotype.Component;
@@ -31,4 +32,11 @@ public class DataFilesRequestToProxyDocumentTransformer {
         return proxyDocument;
     }
 
+    public ProxyDocument transform(BinaryDataFilesRequest dataFilesRequest) {
+        ProxyDocument proxyDocument = new ProxyDocument();
+        proxyDocument.setName(dataFilesRequest.getFilename());
+        proxyDocument.setBytes(dataFilesRequest.getDocument());
+        return proxyDocument;
+    }
+
 }
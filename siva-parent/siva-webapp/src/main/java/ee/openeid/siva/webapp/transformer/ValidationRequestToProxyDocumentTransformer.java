@@ -19,25 +19,38 @@ package ee.openeid.siva.webapp.transformer;
 import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.proxy.document.ReportType;
 import ee.openeid.siva.proxy.document.typeresolver.DocumentTypeResolver;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
+import ee.openeid.siva.webapp.request.BinaryValidationRequest;
 import ee.openeid.siva.webapp.request.ValidationRequest;
-import org.apache.commons.codec.binary.Base64;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ValidationRequestToProxyDocumentTransformer {
 
     public ProxyDocument transform(ValidationRequest validationRequest) {
+        ValidationStageTimings.record(ValidationStage.DECODE, validationRequest.getDocument().getDecodingTimeInNanos());
+        return transform(validationRequest.getDocument().getBytes(), validationRequest.getFilename(), validationRequest.getDocumentType(),
+                validationRequest.getSignaturePolicy(), validationRequest.getReportType());
+    }
+
+    public ProxyDocument transform(BinaryValidationRequest validationRequest) {
+        return transform(validationRequest.getDocument(), validationRequest.getFilename(), validationRequest.getDocumentType(),
+                validationRequest.getSignaturePolicy(), validationRequest.getReportType());
+    }
+
+    private ProxyDocument transform(byte[] document, String filename, String documentType, String signaturePolicy, String reportType) {
         ProxyDocument proxyDocument = new ProxyDocument();
-        proxyDocument.setName(validationRequest.getFilename());
-        if (validationRequest.getDocumentType() != null)
-            proxyDocument.setDocumentType(DocumentTypeResolver.documentTypeFromString(validationRequest.getDocumentType()));
-        proxyDocument.setBytes(Base64.decodeBase64(validationRequest.getDocument()));
-        if (validationRequest.getReportType() != null) {
-            proxyDocument.setReportType(ReportType.reportTypeFromString(validationRequest.getReportType()));
+        proxyDocument.setName(filename);
+        if (documentType != null)
+            proxyDocument.setDocumentType(DocumentTypeResolver.documentTypeFromString(documentType));
+        proxyDocument.setBytes(document);
+        if (reportType != null) {
+            proxyDocument.setReportType(ReportType.reportTypeFromString(reportType));
         } else {
             proxyDocument.setReportType(ReportType.SIMPLE);
         }
-        proxyDocument.setSignaturePolicy(validationRequest.getSignaturePolicy());
+        proxyDocument.setSignaturePolicy(signaturePolicy);
         return proxyDocument;
     }
 
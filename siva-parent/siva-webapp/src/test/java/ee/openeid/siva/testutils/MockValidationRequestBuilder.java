@@ -16,6 +16,7 @@
 
 package ee.openeid.siva.testutils;
 
+import ee.openeid.siva.webapp.request.Base64Document;
 import ee.openeid.siva.webapp.request.ValidationRequest;
 import org.apache.commons.codec.binary.Base64;
 
@@ -81,8 +82,8 @@ public class MockValidationRequestBuilder {
         private String reportType = DEFAULT_REPORT_TYPE;
 
         @Override
-        public String getDocument() {
-            return document;
+        public Base64Document getDocument() {
+            return Base64Document.decode(document);
         }
 
         @Override
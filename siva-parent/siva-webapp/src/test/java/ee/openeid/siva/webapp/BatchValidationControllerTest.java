@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siva.proxy.ValidationProxy;
+import ee.openeid.siva.proxy.batch.BatchValidationService;
+import ee.openeid.siva.proxy.configuration.ProxyConfigurationProperties;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import ee.openeid.siva.validation.exception.MalformedDocumentException;
+import ee.openeid.siva.webapp.interceptor.ReportSignatureInterceptor;
+import ee.openeid.siva.webapp.request.ValidationRequest;
+import ee.openeid.siva.webapp.transformer.ValidationRequestToProxyDocumentTransformer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.MessageSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.MessageSource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = MessageSourceAutoConfiguration.class)
+public class BatchValidationControllerTest {
+
+    private static final String VALIDATE_BATCH_URL = "/validateBatch";
+    private static final String MALFORMED_FILENAME = "malformed.pdf";
+
+    @Autowired
+    private MessageSource messageSource;
+
+    private ProxyConfigurationProperties properties;
+    private BatchValidationService batchValidationService;
+    private BatchValidationController controller;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        ValidationProxy validationProxy = Mockito.mock(ValidationProxy.class);
+        when(validationProxy.validate(any(ProxyDocument.class))).thenReturn(new SimpleReport(new ValidationConclusion()));
+        when(validationProxy.validate(argThat(new DocumentNamed(MALFORMED_FILENAME)))).thenThrow(new MalformedDocumentException());
+        properties = new ProxyConfigurationProperties();
+        batchValidationService = new BatchValidationService();
+        batchValidationService.setProperties(properties);
+        batchValidationService.setValidationProxy(validationProxy);
+        batchValidationService.init();
+
+        ValidationExceptionHandler exceptionHandler = new ValidationExceptionHandler();
+        exceptionHandler.setMessageSource(messageSource);
+        ReportSignatureInterceptor reportSignatureInterceptor = new ReportSignatureInterceptor();
+        reportSignatureInterceptor.setProperties(new ReportConfigurationProperties(false));
+        controller = new BatchValidationController();
+        controller.setBatchValidationService(batchValidationService);
+        controller.setTransformer(new ValidationRequestToProxyDocumentTransformer());
+        controller.setExceptionHandler(exceptionHandler);
+        controller.setReportSignatureInterceptor(reportSignatureInterceptor);
+        controller.setObjectMapper(new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(exceptionHandler).build();
+    }
+
+    @After
+    public void tearDown() {
+        batchValidationService.close();
+    }
+
+    @Test
+    public void resultOfEveryDocumentIsWrittenOnItsOwnLine() throws Exception {
+        MvcResult result = mockMvc.perform(post(VALIDATE_BATCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchRequest("a.pdf", "b.pdf", "c.pdf").toString().getBytes()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BatchValidationController.NDJSON_CONTENT_TYPE))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        boolean[] returned = new boolean[3];
+        for (String line : lines) {
+            JSONObject itemResponse = new JSONObject(line);
+            assertEquals(200, itemResponse.getInt("status"));
+            returned[itemResponse.getInt("index")] = true;
+        }
+        for (boolean documentReturned : returned) {
+            assertEquals(true, documentReturned);
+        }
+    }
+
+    @Test
+    public void failedDocumentHasSameErrorAsSynchronousValidation() throws Exception {
+        MvcResult result = mockMvc.perform(post(VALIDATE_BATCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchRequest("a.pdf", MALFORMED_FILENAME).toString().getBytes()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            JSONObject itemResponse = new JSONObject(line);
+            if (itemResponse.getInt("index") == 1) {
+                assertEquals(400, itemResponse.getInt("status"));
+                JSONObject requestError = itemResponse.getJSONArray("requestErrors").getJSONObject(0);
+                assertEquals("document", requestError.getString("key"));
+                assertEquals(messageSource.getMessage("validation.error.message.document.malformed", null, null), requestError.getString("message"));
+            } else {
+                assertEquals(200, itemResponse.getInt("status"));
+                assertFalse(itemResponse.isNull("validationReport"));
+            }
+        }
+    }
+
+    @Test
+    public void batchExceedingLimitsIsRejected() throws Exception {
+        properties.getBatch().setMaxDocuments(1);
+
+        mockMvc.perform(post(VALIDATE_BATCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchRequest("a.pdf", "b.pdf").toString().getBytes()))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.requestErrors[0].key", is("documents")));
+    }
+
+    @Test
+    public void batchOverSizeLimitIsRejectedBeforeDocumentsAreTransformed() throws Exception {
+        properties.getBatch().setMaxTotalBytes(5);
+        AtomicInteger transformedDocuments = new AtomicInteger();
+        controller.setTransformer(new ValidationRequestToProxyDocumentTransformer() {
+            @Override
+            public ProxyDocument transform(ValidationRequest validationRequest) {
+                transformedDocuments.incrementAndGet();
+                return super.transform(validationRequest);
+            }
+        });
+
+        mockMvc.perform(post(VALIDATE_BATCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchRequest("a.pdf", "b.pdf").toString().getBytes()))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.requestErrors[0].key", is("documents")));
+        assertEquals(0, transformedDocuments.get());
+    }
+
+    @Test
+    public void invalidDocumentRequestRejectsBatch() throws Exception {
+        mockMvc.perform(post(VALIDATE_BATCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchRequest("a.pdf", "").toString().getBytes()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.requestErrors[0].key", is("documents[1].filename")));
+    }
+
+    @Test
+    public void emptyBatchIsRejected() throws Exception {
+        mockMvc.perform(post(VALIDATE_BATCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchRequest().toString().getBytes()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static JSONObject batchRequest(String... filenames) {
+        JSONArray documents = new JSONArray();
+        for (String filename : filenames) {
+            JSONObject document = new JSONObject();
+            document.put("document", "QVNE");
+            document.put("filename", filename);
+            documents.put(document);
+        }
+        JSONObject batchRequest = new JSONObject();
+        batchRequest.put("documents", documents);
+        return batchRequest;
+    }
+
+    private static class DocumentNamed extends ArgumentMatcher<ProxyDocument> {
+        private final String name;
+
+        DocumentNamed(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean matches(Object argument) {
+            return argument instanceof ProxyDocument && name.equals(((ProxyDocument) argument).getName());
+        }
+    }
+}
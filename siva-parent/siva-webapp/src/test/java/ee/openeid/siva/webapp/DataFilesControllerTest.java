@@ -19,15 +19,21 @@ package ee.openeid.siva.webapp;
 import ee.openeid.siva.proxy.DataFilesProxy;
 import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.validation.document.report.DataFilesReport;
+import ee.openeid.siva.webapp.request.BinaryRequestReader;
 import ee.openeid.siva.webapp.request.DataFilesRequest;
 import ee.openeid.siva.webapp.transformer.DataFilesRequestToProxyDocumentTransformer;
 import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import javax.validation.Validation;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.fileUpload;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
@@ -44,7 +50,10 @@ public class DataFilesControllerTest {
         DataFilesController dataFilesController = new DataFilesController();
         dataFilesController.setDataFilesProxy(dataFilesProxyServiceSpy);
         dataFilesController.setDataFilesTransformer(transformerSpy);
-        mockMvc = standaloneSetup(dataFilesController).build();
+        BinaryRequestReader binaryRequestReader = new BinaryRequestReader();
+        binaryRequestReader.setValidator(Validation.buildDefaultValidatorFactory().getValidator());
+        dataFilesController.setBinaryRequestReader(binaryRequestReader);
+        mockMvc = standaloneSetup(dataFilesController).setControllerAdvice(new ValidationExceptionHandler()).build();
     }
 
     @Test
@@ -110,6 +119,36 @@ public class DataFilesControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void multipartRequestIsCorrectlyMappedToProxyDocument() throws Exception {
+        mockMvc.perform(fileUpload("/getDataFiles")
+                .file(new MockMultipartFile("document", "test.ddoc", MediaType.APPLICATION_OCTET_STREAM_VALUE, "ASD".getBytes()))
+                .param("filename", "test.ddoc"))
+                .andExpect(status().isOk());
+        assertEquals("test.ddoc", dataFilesProxyServiceSpy.document.getName());
+        assertArrayEquals("ASD".getBytes(), dataFilesProxyServiceSpy.document.getBytes());
+    }
+
+    @Test
+    public void octetStreamRequestIsCorrectlyMappedToProxyDocument() throws Exception {
+        mockMvc.perform(post("/getDataFiles")
+                .param("filename", "test.ddoc")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content("ASD".getBytes()))
+                .andExpect(status().isOk());
+        assertEquals("test.ddoc", dataFilesProxyServiceSpy.document.getName());
+        assertArrayEquals("ASD".getBytes(), dataFilesProxyServiceSpy.document.getBytes());
+    }
+
+    @Test
+    public void octetStreamRequestWithInvalidFilenameReturnsErroneousResponse() throws Exception {
+        mockMvc.perform(post("/getDataFiles")
+                .param("filename", "test.bdoc")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content("ASD".getBytes()))
+                .andExpect(status().isBadRequest());
+    }
+
     private JSONObject validRequest() {
         JSONObject jsonObject = new JSONObject();
         jsonObject.put("document", "QVNE");
@@ -144,8 +183,11 @@ public class DataFilesControllerTest {
 
     private class DataFilesProxySpy extends DataFilesProxy {
 
+        private ProxyDocument document;
+
         @Override
         public DataFilesReport getDataFiles(ProxyDocument proxyDocument) {
+            this.document = proxyDocument;
             return null;
         }
     }
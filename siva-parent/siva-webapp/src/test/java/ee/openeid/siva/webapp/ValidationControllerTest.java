@@ -18,17 +18,25 @@ package ee.openeid.siva.webapp;
 
 import ee.openeid.siva.proxy.ValidationProxy;
 import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.document.ReportType;
 import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.webapp.request.BinaryRequestReader;
 import ee.openeid.siva.webapp.request.ValidationRequest;
 import ee.openeid.siva.webapp.transformer.ValidationRequestToProxyDocumentTransformer;
 import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import javax.validation.Validation;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.fileUpload;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
@@ -44,7 +52,10 @@ public class ValidationControllerTest {
         ValidationController validationController = new ValidationController();
         validationController.setValidationProxy(validationProxyServiceSpy);
         validationController.setTransformer(transformerSpy);
-        mockMvc = standaloneSetup(validationController).build();
+        BinaryRequestReader binaryRequestReader = new BinaryRequestReader();
+        binaryRequestReader.setValidator(Validation.buildDefaultValidatorFactory().getValidator());
+        validationController.setBinaryRequestReader(binaryRequestReader);
+        mockMvc = standaloneSetup(validationController).setControllerAdvice(new ValidationExceptionHandler()).build();
     }
 
     @Test
@@ -54,7 +65,7 @@ public class ValidationControllerTest {
             .content(validRequest().toString().getBytes())
         );
         assertEquals("filename.asd", transformerSpy.validationRequest.getFilename());
-        assertEquals("QVNE", transformerSpy.validationRequest.getDocument());
+        assertArrayEquals("ASD".getBytes(), transformerSpy.validationRequest.getDocument().getBytes());
     }
 
     @Test
@@ -128,6 +139,50 @@ public class ValidationControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void multipartRequestIsCorrectlyMappedToProxyDocument() throws Exception {
+        mockMvc.perform(fileUpload("/validate")
+                .file(new MockMultipartFile("document", "filename.asd", MediaType.APPLICATION_OCTET_STREAM_VALUE, "ASD".getBytes()))
+                .param("filename", "filename.asd")
+                .param("reportType", "Detailed"))
+                .andExpect(status().isOk());
+        assertEquals("filename.asd", validationProxyServiceSpy.document.getName());
+        assertEquals(ReportType.DETAILED, validationProxyServiceSpy.document.getReportType());
+        assertArrayEquals("ASD".getBytes(), validationProxyServiceSpy.document.getBytes());
+    }
+
+    @Test
+    public void octetStreamRequestIsCorrectlyMappedToProxyDocument() throws Exception {
+        mockMvc.perform(post("/validate")
+                .param("filename", "filename.asd")
+                .param("signaturePolicy", "POLv4")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content("ASD".getBytes()))
+                .andExpect(status().isOk());
+        assertEquals("filename.asd", validationProxyServiceSpy.document.getName());
+        assertEquals("POLv4", validationProxyServiceSpy.document.getSignaturePolicy());
+        assertArrayEquals("ASD".getBytes(), validationProxyServiceSpy.document.getBytes());
+    }
+
+    @Test
+    public void octetStreamRequestWithEmptyDocumentReturnsErroneousResponse() throws Exception {
+        mockMvc.perform(post("/validate")
+                .param("filename", "filename.asd")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(new byte[0]))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.requestErrors[0].key").value("document"));
+    }
+
+    @Test
+    public void multipartRequestWithInvalidFilenameReturnsErroneousResponse() throws Exception {
+        mockMvc.perform(fileUpload("/validate")
+                .file(new MockMultipartFile("document", "ASD".getBytes()))
+                .param("filename", filenameWithIllegalCharacter("/")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.requestErrors[0].key").value("filename"));
+    }
+
     private String filenameWithIllegalCharacter(String illegalCharacter) {
         return "file" + illegalCharacter + "name.pdf";
     }
@@ -21,6 +21,7 @@ import ee.openeid.siva.proxy.HashcodeValidationProxy;
 import ee.openeid.siva.proxy.ValidationProxy;
 import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.proxy.document.ReportType;
+import ee.openeid.siva.proxy.exception.ValidationServiceOverloadedException;
 import ee.openeid.siva.proxy.http.RESTValidationProxyException;
 import ee.openeid.siva.proxy.http.RESTValidationProxyRequestException;
 import ee.openeid.siva.validation.exception.DocumentRequirementsException;
@@ -178,6 +179,21 @@ public class ValidationExceptionHandlerTest {
         Assert.assertEquals(content, "{\"requestErrors\":[{\"key\":\"document\",\"message\":\"Document malformed or not matching documentType\"}]}");
     }
 
+    @Test
+    public void overloadedValidationServiceIsAnsweredWithServiceUnavailable() throws Exception {
+        when(validationProxy.validate(any(ProxyDocument.class)))
+                .thenThrow(new ValidationServiceOverloadedException("Validation service genericValidationService is overloaded, wait queue is full"));
+        MvcResult result = mockMvc.perform(post(VALIDATE_URL_TEMPLATE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(request().toString().getBytes()))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "5"))
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        Assert.assertEquals(content, "{\"requestErrors\":[{\"key\":\"document\",\"message\":\"Validation service is overloaded, please retry later\"}]}");
+    }
+
     @Test
     public void handlingRESTValidationProxyRequestExceptionPreservesInitialErrorInformation() throws Exception {
         when(validationProxy.validate(any(ProxyDocument.class)))
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp;
+
+import ee.openeid.siva.proxy.ValidationProxy;
+import ee.openeid.siva.proxy.async.ValidationJobService;
+import ee.openeid.siva.proxy.configuration.AsyncValidationProperties;
+import ee.openeid.siva.proxy.document.ProxyDocument;
+import ee.openeid.siva.proxy.exception.ValidationJobRejectedException;
+import ee.openeid.siva.validation.document.report.SimpleReport;
+import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import ee.openeid.siva.validation.exception.MalformedDocumentException;
+import ee.openeid.siva.webapp.transformer.ValidationRequestToProxyDocumentTransformer;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.MessageSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = MessageSourceAutoConfiguration.class)
+public class ValidationJobControllerTest {
+
+    private static final String VALIDATE_ASYNC_URL = "/validateAsync";
+    private static final String VALIDATION_JOBS_URL = "/validationJobs/";
+
+    @Autowired
+    private MessageSource messageSource;
+
+    private ValidationProxy validationProxy;
+    private ValidationJobService validationJobService;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        validationProxy = Mockito.mock(ValidationProxy.class);
+        when(validationProxy.getValidationServiceName(any(ProxyDocument.class))).thenReturn("genericValidationService");
+        AsyncValidationProperties properties = new AsyncValidationProperties();
+        properties.setAllowedCallbackUrls(Collections.singletonList("https://callback.example/"));
+        validationJobService = new ValidationJobService();
+        validationJobService.setProperties(properties);
+        validationJobService.setValidationProxy(validationProxy);
+        validationJobService.init();
+        mockMvc = createMockMvc(validationJobService);
+    }
+
+    @After
+    public void tearDown() {
+        validationJobService.close();
+    }
+
+    @Test
+    public void submittedJobIsAcceptedAndFinishedJobContainsReport() throws Exception {
+        ValidationConclusion validationConclusion = new ValidationConclusion();
+        validationConclusion.setValidSignaturesCount(1);
+        when(validationProxy.validate(any(ProxyDocument.class))).thenReturn(new SimpleReport(validationConclusion));
+
+        String jobId = submitJob()
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").isNotEmpty())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        jobId = jobId.substring(jobId.lastIndexOf('/') + 1);
+
+        awaitDone(jobId)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobId", is(jobId)))
+                .andExpect(jsonPath("$.status", is("FINISHED")))
+                .andExpect(jsonPath("$.validationReport.validationConclusion.validSignaturesCount", is(1)));
+    }
+
+    @Test
+    public void reportOfFinishedJobIsSignedOnce() throws Exception {
+        when(validationProxy.validate(any(ProxyDocument.class))).thenReturn(new SimpleReport(new ValidationConclusion()));
+        AtomicInteger signatureCount = new AtomicInteger();
+        validationJobService.setReportSigner(report -> "signature-" + signatureCount.incrementAndGet());
+
+        String jobId = new JSONObject(submitJob().andReturn().getResponse().getContentAsString()).getString("jobId");
+
+        awaitDone(jobId)
+                .andExpect(jsonPath("$.validationReportSignature", is("signature-1")));
+        mockMvc.perform(get(VALIDATION_JOBS_URL + jobId))
+                .andExpect(jsonPath("$.validationReportSignature", is("signature-1")));
+        assertEquals(1, signatureCount.get());
+    }
+
+    @Test
+    public void failedJobReturnsSameErrorAsSynchronousValidation() throws Exception {
+        when(validationProxy.validate(any(ProxyDocument.class))).thenThrow(new MalformedDocumentException());
+
+        String jobId = new JSONObject(submitJob().andReturn().getResponse().getContentAsString()).getString("jobId");
+
+        awaitDone(jobId)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.requestErrors[0].key", is("document")))
+                .andExpect(jsonPath("$.requestErrors[0].message", is(messageSource.getMessage("validation.error.message.document.malformed", null, null))));
+    }
+
+    @Test
+    public void unknownJobReturnsNotFound() throws Exception {
+        mockMvc.perform(get(VALIDATION_JOBS_URL + "unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.requestErrors[0].key", is("jobId")));
+    }
+
+    @Test
+    public void notAllowedCallbackUrlIsRejected() throws Exception {
+        mockMvc.perform(post(VALIDATE_ASYNC_URL)
+                .param("callbackUrl", "https://attacker.example/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(validRequest().toString().getBytes()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.requestErrors[0].key", is("callbackUrl")));
+    }
+
+    @Test
+    public void fullQueueReturnsServiceUnavailableWithRetryAfter() throws Exception {
+        ValidationJobService rejectingJobService = Mockito.mock(ValidationJobService.class);
+        when(rejectingJobService.submit(any(ProxyDocument.class), any(String.class))).thenThrow(new ValidationJobRejectedException("Queue is full"));
+        mockMvc = createMockMvc(rejectingJobService);
+
+        submitJob()
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, is("5")))
+                .andExpect(jsonPath("$.requestErrors[0].message", is(messageSource.getMessage("validation.job.error.message.rejected", null, null))));
+    }
+
+    private MockMvc createMockMvc(ValidationJobService jobService) {
+        ValidationJobController controller = new ValidationJobController();
+        controller.setValidationJobService(jobService);
+        controller.setTransformer(new ValidationRequestToProxyDocumentTransformer());
+        ValidationExceptionHandler exceptionHandler = new ValidationExceptionHandler();
+        exceptionHandler.setMessageSource(messageSource);
+        return MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(exceptionHandler).build();
+    }
+
+    private ResultActions submitJob() throws Exception {
+        return mockMvc.perform(post(VALIDATE_ASYNC_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(validRequest().toString().getBytes()));
+    }
+
+    private ResultActions awaitDone(String jobId) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            ResultActions result = mockMvc.perform(get(VALIDATION_JOBS_URL + jobId));
+            String status = result.andReturn().getResponse().getStatus() == 200
+                    ? new JSONObject(result.andReturn().getResponse().getContentAsString()).getString("status") : null;
+            if (!"QUEUED".equals(status) && !"RUNNING".equals(status)) {
+                return result;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Validation job " + jobId + " was not done in time");
+    }
+
+    private JSONObject validRequest() {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("document", "QVNE");
+        jsonObject.put("filename", "filename.pdf");
+        return jsonObject;
+    }
+}
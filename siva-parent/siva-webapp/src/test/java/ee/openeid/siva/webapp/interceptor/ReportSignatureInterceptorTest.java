@@ -21,6 +21,7 @@ import ee.openeid.siva.signature.SignatureService;
 import ee.openeid.siva.validation.document.report.DetailedReport;
 import ee.openeid.siva.validation.document.report.ValidatedDocument;
 import ee.openeid.siva.validation.document.report.ValidationConclusion;
+import ee.openeid.siva.webapp.response.ValidationJobResponse;
 import ee.openeid.siva.webapp.response.ValidationResponse;
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
 import org.apache.commons.codec.binary.Base64;
@@ -34,8 +35,11 @@ import java.io.IOException;
 import java.util.Date;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -63,6 +67,23 @@ public class ReportSignatureInterceptorTest {
         assertArrayEquals(getRawSignatureMock(), Base64.decodeBase64(validationResponse.getValidationReportSignature()));
     }
 
+    @Test
+    public void validationJobResponseIsNotSignedAgain() throws IOException {
+        ValidationJobResponse validationJobResponse = new ValidationJobResponse();
+        validationJobResponse.setValidationReport(getValidationResponseMock().getValidationReport());
+        validationJobResponse.setValidationReportSignature("signed-when-job-was-done");
+
+        ValidationResponse validationResponse = (ValidationResponse) reportSignatureInterceptor.beforeBodyWrite(validationJobResponse, null, null, null, null, null);
+        assertEquals("signed-when-job-was-done", validationResponse.getValidationReportSignature());
+        verify(signatureService, never()).getSignature(any(byte[].class), anyString(), anyString());
+    }
+
+    @Test
+    public void reportOfValidationJobIsSigned() throws IOException {
+        String reportSignature = reportSignatureInterceptor.sign(getValidationResponseMock().getValidationReport());
+        assertArrayEquals(getRawSignatureMock(), Base64.decodeBase64(reportSignature));
+    }
+
     private ValidationResponse getValidationResponseMock() {
         ValidationResponse validationResponse = new ValidationResponse();
         DetailedReport detailedReport = new DetailedReport();
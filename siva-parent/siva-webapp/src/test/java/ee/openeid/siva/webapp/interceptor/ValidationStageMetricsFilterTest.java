@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.interceptor;
+
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageMetrics;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ValidationStageMetricsFilterTest {
+
+    private ValidationStageMetricsFilter filter;
+    private GaugeService gaugeService;
+
+    @Before
+    public void setUp() {
+        gaugeService = mock(GaugeService.class);
+        ValidationStageMetrics stageMetrics = new ValidationStageMetrics();
+        stageMetrics.setGaugeService(gaugeService);
+        filter = new ValidationStageMetricsFilter();
+        filter.setStageMetrics(stageMetrics);
+    }
+
+    @Test
+    public void stagesOfRequestArePublishedAfterResponseIsWritten() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("POST", "/validate"), new MockHttpServletResponse(), (request, response) -> {
+            ValidationStageTimings.record(ValidationStage.DECODE, 1_000_000);
+            ValidationStageTimings.tagDocument("BDOC", "POLv3", "Detailed");
+            ValidationStageTimings.tagService("BDOCValidationService");
+            ValidationStageTimings.record(ValidationStage.SIGN, 2_000_000);
+            ValidationStageTimings.record(ValidationStage.SERIALIZE, 3_000_000);
+            verify(gaugeService, never()).submit(anyString(), anyDouble());
+        });
+
+        verify(gaugeService).submit("timer.siva.validation.decode.BDOCValidationService.BDOC.POLv3.Detailed", 1.0);
+        verify(gaugeService).submit("timer.siva.validation.sign.BDOCValidationService.BDOC.POLv3.Detailed", 2.0);
+        verify(gaugeService).submit("timer.siva.validation.serialize.BDOCValidationService.BDOC.POLv3.Detailed", 3.0);
+    }
+
+    @Test
+    public void requestsWithoutValidationPublishNothing() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/monitoring/health"), new MockHttpServletResponse(), (request, response) -> {
+        });
+
+        verify(gaugeService, never()).submit(anyString(), anyDouble());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.binary.Base64;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Base64DocumentTest {
+
+    private static final String INVALID_BASE64 = "Document is not encoded in a valid base64 string";
+    private static final String MAY_NOT_BE_EMPTY = "may not be empty";
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void documentIsDecodedWhileRequestIsRead() throws Exception {
+        Base64Document document = readDocument("QVNE");
+
+        assertTrue(document.isValid());
+        assertFalse(document.isEmpty());
+        assertArrayEquals("ASD".getBytes(StandardCharsets.UTF_8), document.getBytes());
+    }
+
+    @Test
+    public void largeChunkedDocumentIsDecoded() throws Exception {
+        byte[] content = new byte[1024 * 1024 + 7];
+        new Random(1).nextBytes(content);
+
+        Base64Document document = readDocument(new String(Base64.encodeBase64Chunked(content), StandardCharsets.US_ASCII));
+
+        assertTrue(document.isValid());
+        assertArrayEquals(content, document.getBytes());
+    }
+
+    @Test
+    public void documentWithoutPaddingIsDecoded() throws Exception {
+        Base64Document document = readDocument("QVNERg");
+
+        assertTrue(document.isValid());
+        assertArrayEquals("ASDF".getBytes(StandardCharsets.UTF_8), document.getBytes());
+    }
+
+    @Test
+    public void documentWithCharactersOutsideOfBase64AlphabetIsInvalid() throws Exception {
+        Base64Document document = readDocument("ÖÕ::žšPQ;ÜÜ");
+
+        assertFalse(document.isValid());
+        assertFalse(document.isEmpty());
+        assertEquals(0, document.getBytes().length);
+        assertEquals(setOf(INVALID_BASE64), violationMessages(request(document)));
+    }
+
+    @Test
+    public void blankDocumentIsEmptyAndInvalid() throws Exception {
+        Base64Document document = readDocument(" \n ");
+
+        assertTrue(document.isEmpty());
+        assertEquals(setOf(INVALID_BASE64, MAY_NOT_BE_EMPTY), violationMessages(request(document)));
+    }
+
+    @Test
+    public void missingDocumentIsEmptyAndInvalid() {
+        assertEquals(setOf(INVALID_BASE64, MAY_NOT_BE_EMPTY), violationMessages(request(null)));
+    }
+
+    @Test
+    public void stringDocumentIsDecodedSameWayAsStreamedDocument() throws Exception {
+        String base64Text = "QVNE\r\nRg==";
+
+        assertArrayEquals(readDocument(base64Text).getBytes(), Base64Document.decode(base64Text).getBytes());
+        assertArrayEquals(Base64.decodeBase64(base64Text), Base64Document.decode(base64Text).getBytes());
+    }
+
+    private Base64Document readDocument(String base64Text) throws Exception {
+        JSONObject request = new JSONObject();
+        request.put("document", base64Text);
+        request.put("filename", "filename.pdf");
+        return objectMapper.readValue(request.toString().getBytes(StandardCharsets.UTF_8), JSONValidationRequest.class).getDocument();
+    }
+
+    private static JSONValidationRequest request(Base64Document document) {
+        JSONValidationRequest request = new JSONValidationRequest();
+        request.setDocument(document);
+        return request;
+    }
+
+    private static Set<String> violationMessages(JSONValidationRequest request) {
+        return VALIDATOR.validate(request).stream()
+                .filter(violation -> "document".equals(violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> setOf(String... messages) {
+        return Stream.of(messages).collect(Collectors.toSet());
+    }
+}
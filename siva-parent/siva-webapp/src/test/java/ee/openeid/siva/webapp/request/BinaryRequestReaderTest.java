@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.webapp.request;
+
+import ee.openeid.siva.validation.exception.MalformedDocumentException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class BinaryRequestReaderTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final BinaryRequestReader binaryRequestReader = new BinaryRequestReader();
+
+    @Test
+    public void bodyWithContentLengthIsReadFully() throws Exception {
+        assertArrayEquals("ASD".getBytes(), binaryRequestReader.readDocument(requestWithContentLength("ASD".getBytes(), 3)));
+    }
+
+    @Test
+    public void bodyWithoutContentLengthIsReadFully() throws Exception {
+        assertArrayEquals("ASD".getBytes(), binaryRequestReader.readDocument(requestWithContentLength("ASD".getBytes(), -1)));
+    }
+
+    @Test
+    public void contentLengthAboveMaxArraySizeIsRejectedWhenUploadSizeIsNotLimited() throws Exception {
+        expectedException.expect(MaxUploadSizeExceededException.class);
+        binaryRequestReader.readDocument(requestWithContentLength("ASD".getBytes(), Integer.MAX_VALUE - 7L));
+    }
+
+    @Test
+    public void contentLengthAboveIntegerRangeIsRejected() throws Exception {
+        expectedException.expect(MaxUploadSizeExceededException.class);
+        binaryRequestReader.readDocument(requestWithContentLength("ASD".getBytes(), 1L << 32));
+    }
+
+    @Test
+    public void bodyShorterThanContentLengthIsRejectedAsMalformedDocument() throws Exception {
+        expectedException.expect(MalformedDocumentException.class);
+        binaryRequestReader.readDocument(requestWithContentLength("ASD".getBytes(), 10));
+    }
+
+    private static MockHttpServletRequest requestWithContentLength(byte[] content, long contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest() {
+            @Override
+            public long getContentLengthLong() {
+                return contentLength;
+            }
+        };
+        request.setContent(content);
+        return request;
+    }
+}
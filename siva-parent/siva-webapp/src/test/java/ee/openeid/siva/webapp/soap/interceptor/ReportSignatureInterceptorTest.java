@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.w3c.dom.NodeList;
 
 import javax.xml.soap.MessageFactory;
 import javax.xml.soap.SOAPMessage;
@@ -33,6 +34,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 
 import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
@@ -87,6 +89,21 @@ public class ReportSignatureInterceptorTest {
 
     }
 
+    @Test
+    public void whenBatchResponseContainsDetailedReport_thenOnlyDetailedReportIsSigned() throws Exception {
+        mockSoapRequestMessage("Detailed");
+        responseSoapMessage = MessageFactory.newInstance("SOAP 1.1 Protocol").createMessage(null, new ByteArrayInputStream(getSoapBatchResponseMessageMock().getBytes()));
+        doReturn(responseSoapMessage).when(message).getContent(SOAPMessage.class);
+
+        reportSignatureInterceptor.handleMessage(message);
+
+        verify(signatureService, times(1)).getSignature(any(byte[].class), anyString(), anyString());
+        NodeList signatureNodes = responseSoapMessage.getSOAPBody().getElementsByTagName("ValidationReportSignature");
+        assertEquals(1, signatureNodes.getLength());
+        assertEquals("0", signatureNodes.item(0).getParentNode().getFirstChild().getTextContent());
+        assertEquals(Base64.encodeBase64String(getRawSignatureMock()), signatureNodes.item(0).getTextContent());
+    }
+
     private void mockSoapMessage(String requestReportType) throws Exception {
         mockSoapRequestMessage(requestReportType);
         mockSoapResponseMessage();
@@ -172,6 +189,32 @@ public class ReportSignatureInterceptorTest {
                "</soap:Envelope>";
     }
 
+    private String getSoapBatchResponseMessageMock() {
+        return "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+                   "<soap:Body>" +
+                       "<ns2:ValidateDocumentBatchResponse xmlns:ns2=\"http://soap.webapp.siva.openeid.ee/\" xmlns:ns3=\"http://dss.esig.europa.eu/validation/detailed-report\">" +
+                           "<ValidationResult>" +
+                               "<Index>0</Index>" +
+                               "<ns2:ValidationReport>" +
+                                   "<ns2:ValidationConclusion><ValidationTime>2017-10-02T12:04:01Z</ValidationTime></ns2:ValidationConclusion>" +
+                                   "<ns2:ValidationProcess><ns3:BasicBuildingBlocks/></ns2:ValidationProcess>" +
+                               "</ns2:ValidationReport>" +
+                           "</ValidationResult>" +
+                           "<ValidationResult>" +
+                               "<Index>1</Index>" +
+                               "<ns2:ValidationReport>" +
+                                   "<ns2:ValidationConclusion><ValidationTime>2017-10-02T12:04:01Z</ValidationTime></ns2:ValidationConclusion>" +
+                               "</ns2:ValidationReport>" +
+                           "</ValidationResult>" +
+                           "<ValidationResult>" +
+                               "<Index>2</Index>" +
+                               "<Fault><FaultCode>Client</FaultCode><FaultString>Document malformed or not matching documentType</FaultString></Fault>" +
+                           "</ValidationResult>" +
+                       "</ns2:ValidateDocumentBatchResponse>" +
+                   "</soap:Body>" +
+               "</soap:Envelope>";
+    }
+
     private byte[] getRawSignatureMock() {
         return "test".getBytes();
     }
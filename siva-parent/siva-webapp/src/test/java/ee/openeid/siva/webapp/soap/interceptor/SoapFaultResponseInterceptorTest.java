@@ -16,6 +16,7 @@
 
 package ee.openeid.siva.webapp.soap.interceptor;
 
+import ee.openeid.siva.proxy.exception.ValidationServiceOverloadedException;
 import ee.openeid.siva.proxy.http.RESTValidationProxyRequestException;
 import ee.openeid.siva.validation.exception.DocumentRequirementsException;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
@@ -103,4 +104,13 @@ public class SoapFaultResponseInterceptorTest {
         assertTrue(fault.getStatusCode() == 200);
         assertEquals("Client", fault.getFaultCode().toString());
     }
+
+    @Test
+    public void whenSoapFaultIsCausedByValidationServiceOverloadedExceptionThenFaultCodeIsServer() {
+        Fault fault = new Fault(new ValidationServiceOverloadedException("Validation service genericValidationService is overloaded, wait queue is full"));
+        doReturn(fault).when(message).getContent(any());
+        soapFaultResponseInterceptor.handleMessage(message);
+        assertTrue(fault.getStatusCode() == 200);
+        assertEquals(Fault.FAULT_CODE_SERVER, fault.getFaultCode());
+    }
 }
@@ -34,6 +34,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SoapRequestValidationInterceptorTest {
@@ -115,6 +116,16 @@ public class SoapRequestValidationInterceptorTest {
         assertNull(soapFault);
     }
 
+    @Test
+    public void whenAnyDocumentOfBatchIsInvalidThenFaultIsThrownWithInvalidDocumentMessage() throws SOAPException {
+        mockSoapMessage("filename", "c2Q=", "BDOC", "AA");
+        Node invalidDocumentNode = mock(Node.class);
+        doReturn("ÖÄÜ").when(invalidDocumentNode).getNodeValue();
+        doReturn(new MockNodeList(documentNode, invalidDocumentNode)).when(body).getElementsByTagName("Document");
+        Fault soapFault = handleMessageInInterceptor(message);
+        assertFaultWithExpectedMessage(soapFault, INVALID_BASE64);
+    }
+
     private Fault handleMessageInInterceptor(SoapMessage soapMessage) {
         try {
             validationInterceptor.handleMessage(soapMessage);
@@ -170,17 +181,17 @@ public class SoapRequestValidationInterceptorTest {
     }
 
     static class MockNodeList implements NodeList {
-        Node node;
-        MockNodeList(Node node) {
-            this.node = node;
+        Node[] nodes;
+        MockNodeList(Node... nodes) {
+            this.nodes = nodes;
         }
         @Override
         public Node item(int index) {
-            return node;
+            return nodes[index];
         }
         @Override
         public int getLength() {
-            return 1;
+            return nodes.length;
         }
     }
 }
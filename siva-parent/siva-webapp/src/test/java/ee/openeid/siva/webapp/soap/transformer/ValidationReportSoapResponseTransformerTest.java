@@ -30,6 +30,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ValidationReportSoapResponseTransformerTest {
 
@@ -87,6 +90,23 @@ public class ValidationReportSoapResponseTransformerTest {
         Assert.assertEquals("EE", responseValidationReport.getValidationProcess().getTLAnalysis().get(0).getCountryCode());
     }
 
+    @Test
+    public void detailedReportsAreTransformedConcurrently() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ValidationReport>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                DetailedReport detailedReport = new DetailedReport(createMockedValidationConclusion(), createMockedValidationProcess());
+                responses.add(executorService.submit(() -> transformer.toSoapResponse(detailedReport)));
+            }
+            for (Future<ValidationReport> response : responses) {
+                Assert.assertEquals("EE", response.get().getValidationProcess().getTLAnalysis().get(0).getCountryCode());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     @Test
     public void qualifiedDetailedReportIsNull() {
         ee.openeid.siva.validation.document.report.ValidationConclusion validationConclusion = createMockedValidationConclusion();
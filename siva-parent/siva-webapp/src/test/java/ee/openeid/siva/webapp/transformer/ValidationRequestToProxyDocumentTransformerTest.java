@@ -19,15 +19,16 @@ package ee.openeid.siva.webapp.transformer;
 import ee.openeid.siva.proxy.document.DocumentType;
 import ee.openeid.siva.proxy.document.ProxyDocument;
 import ee.openeid.siva.testutils.MockValidationRequestBuilder;
-import org.apache.commons.codec.binary.Base64;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class ValidationRequestToProxyDocumentTransformerTest {
@@ -73,9 +74,10 @@ public class ValidationRequestToProxyDocumentTransformerTest {
     }
 
     @Test
-    public void contentIsCorrectlyTransformedToBytes() {
+    public void contentIsCorrectlyTransformedToBytes() throws Exception {
+        Path filepath = Paths.get(getClass().getClassLoader().getResource(VALID_PDF_FILE).toURI());
         ProxyDocument proxyDocument = transformer.transform(validationRequest);
-        assertEquals(validationRequest.getDocument(), Base64.encodeBase64String(proxyDocument.getBytes()));
+        assertArrayEquals(Files.readAllBytes(filepath), proxyDocument.getBytes());
     }
 
     @Test
@@ -23,7 +23,10 @@ import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.Reports;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
 import ee.openeid.siva.validation.exception.ValidationServiceException;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.siva.validation.service.ValidationService;
+import ee.openeid.siva.validation.service.parallel.ParallelSignatureExecutor;
 import ee.openeid.validation.service.bdoc.report.BDOCValidationReportBuilder;
 import ee.openeid.validation.service.bdoc.signature.policy.BDOCConfigurationService;
 import ee.openeid.validation.service.bdoc.signature.policy.PolicyConfigurationWrapper;
@@ -50,21 +53,23 @@ public class BDOCValidationService implements ValidationService {
 
     private ReportConfigurationProperties reportConfigurationProperties;
     private BDOCConfigurationService configurationService;
+    private ParallelSignatureExecutor signatureExecutor;
 
     @Override
     public Reports validateDocument(ValidationDocument validationDocument) {
         PolicyConfigurationWrapper policyConfiguration = configurationService.loadPolicyConfiguration(validationDocument.getSignaturePolicy());
         Container container;
         try {
-            container = createContainer(validationDocument, policyConfiguration.getConfiguration());
+            container = ValidationStageTimings.time(ValidationStage.PARSE, () -> createContainer(validationDocument, policyConfiguration.getConfiguration()));
         } catch (DigiDoc4JException | DSSException e) {
             LOGGER.error("Unable to create container from validation document", e);
             throw new MalformedDocumentException(e);
         }
         verifyContainerTypeNotDDOC(container.getType());
         try {
-            ValidationResult validationResult = container.validate();
-            return new BDOCValidationReportBuilder(container, validationDocument, policyConfiguration.getPolicy(), validationResult.getErrors(), reportConfigurationProperties.isReportSignatureEnabled()).build();
+            ValidationResult validationResult = ValidationStageTimings.time(ValidationStage.VALIDATE, container::validate);
+            BDOCValidationReportBuilder reportBuilder = new BDOCValidationReportBuilder(container, validationDocument, policyConfiguration.getPolicy(), validationResult.getErrors(), reportConfigurationProperties.isReportSignatureEnabled(), signatureExecutor);
+            return ValidationStageTimings.time(ValidationStage.REPORT, reportBuilder::build);
         } catch (DigiDoc4JException e) {
             throw new MalformedDocumentException(e);
         } catch (Exception e) {
@@ -109,4 +114,9 @@ public class BDOCValidationService implements ValidationService {
     public void setReportConfigurationProperties(ReportConfigurationProperties reportConfigurationProperties) {
         this.reportConfigurationProperties = reportConfigurationProperties;
     }
+
+    @Autowired(required = false)
+    public void setSignatureExecutor(ParallelSignatureExecutor signatureExecutor) {
+        this.signatureExecutor = signatureExecutor;
+    }
 }
@@ -25,6 +25,7 @@ import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.*;
 import ee.openeid.siva.validation.document.report.Error;
 import ee.openeid.siva.validation.document.report.builder.ReportBuilderUtils;
+import ee.openeid.siva.validation.service.parallel.ParallelSignatureExecutor;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
 
 import org.apache.commons.lang3.StringUtils;
@@ -55,13 +56,19 @@ public class BDOCValidationReportBuilder {
     private ValidationPolicy validationPolicy;
     private List<DigiDoc4JException> containerErrors;
     private boolean isReportSignatureEnabled;
+    private ParallelSignatureExecutor signatureExecutor;
 
     public BDOCValidationReportBuilder(Container container, ValidationDocument validationDocument, ValidationPolicy validationPolicy, List<DigiDoc4JException> containerErrors, boolean isReportSignatureEnabled) {
+        this(container, validationDocument, validationPolicy, containerErrors, isReportSignatureEnabled, null);
+    }
+
+    public BDOCValidationReportBuilder(Container container, ValidationDocument validationDocument, ValidationPolicy validationPolicy, List<DigiDoc4JException> containerErrors, boolean isReportSignatureEnabled, ParallelSignatureExecutor signatureExecutor) {
         this.container = container;
         this.validationDocument = validationDocument;
         this.validationPolicy = validationPolicy;
         this.containerErrors = containerErrors;
         this.isReportSignatureEnabled = isReportSignatureEnabled;
+        this.signatureExecutor = signatureExecutor;
     }
 
     private static ValidationWarning createValidationWarning(String content) {
@@ -157,6 +164,9 @@ public class BDOCValidationReportBuilder {
 
     private List<SignatureValidationData> createSignaturesForReport(Container container) {
         List<String> dataFilenames = container.getDataFiles().stream().map(DataFile::getName).collect(Collectors.toList());
+        if (signatureExecutor != null) {
+            return signatureExecutor.map(container.getSignatures(), sig -> createSignatureValidationData(sig, dataFilenames));
+        }
         return container.getSignatures().stream().map(sig -> createSignatureValidationData(sig, dataFilenames)).collect(Collectors.toList());
     }
 
@@ -16,6 +16,7 @@
 
 package ee.openeid.validation.service.bdoc.signature.policy;
 
+import ee.openeid.siva.validation.service.parallel.ParallelSignatureExecutor;
 import ee.openeid.siva.validation.service.signature.policy.InvalidPolicyException;
 import ee.openeid.validation.service.bdoc.configuration.BDOCSignaturePolicyProperties;
 import ee.openeid.validation.service.bdoc.configuration.TSLUtils;
@@ -40,12 +41,16 @@ public class BDOCConfigurationService {
     private BDOCSignaturePolicyProperties properties;
     private BDOCSignaturePolicyService policyService;
     private TrustedListsCertificateSource trustedListSource;
+    private ParallelSignatureExecutor signatureExecutor;
 
     @PostConstruct
     protected void loadAllBDOCConfigurations() {
         properties.getAbstractPolicies().forEach(policy -> {
             Configuration tempConfiguration = policyConfiguration.getConfiguration().copy();
             tempConfiguration.setValidationPolicy(policyService.getAbsolutePath(policy.getName()));
+            if (signatureExecutor != null && signatureExecutor.isEnabled()) {
+                tempConfiguration.setThreadExecutor(signatureExecutor.getExecutorService());
+            }
             LOGGER.info("Adding BDOC validation policy: {}", policy.getName());
             policyList.putIfAbsent(policy.getName(), new PolicyConfigurationWrapper(tempConfiguration, policy));
         });
@@ -97,4 +102,9 @@ public class BDOCConfigurationService {
     public void setTrustedListSource(TrustedListsCertificateSource trustedListSource) {
         this.trustedListSource = trustedListSource;
     }
+
+    @Autowired(required = false)
+    public void setSignatureExecutor(ParallelSignatureExecutor signatureExecutor) {
+        this.signatureExecutor = signatureExecutor;
+    }
 }
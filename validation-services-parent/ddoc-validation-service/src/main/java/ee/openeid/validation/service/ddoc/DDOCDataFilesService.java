@@ -25,7 +25,6 @@ import ee.openeid.validation.service.ddoc.report.DDOCDataFilesReportBuilder;
 import ee.sk.digidoc.DigiDocException;
 import ee.sk.digidoc.SignedDoc;
 import ee.sk.digidoc.factory.DigiDocFactory;
-import ee.sk.utils.ConfigManager;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,9 +39,9 @@ import java.util.List;
 @Service
 public class DDOCDataFilesService implements DataFilesService {
     private static final Logger LOGGER = LoggerFactory.getLogger(DDOCDataFilesService.class);
-    private final Object lock = new Object();
 
     private XMLEntityAttackValidator xmlEntityAttackValidator;
+    private JDigiDocContextPool jDigiDocContextPool;
 
     @Override
     public DataFilesReport getDataFiles(DataFilesDocument dataFilesDocument) {
@@ -50,27 +49,28 @@ public class DDOCDataFilesService implements DataFilesService {
             Security.addProvider(new BouncyCastleProvider());
         }
 
-        xmlEntityAttackValidator.validateAgainstXMLEntityAttacks(dataFilesDocument.getBytes());
+        try {
+            return jDigiDocContextPool.execute(digiDocFactory -> getDataFiles(digiDocFactory, dataFilesDocument));
+        } catch (DigiDocException e) {
+            LOGGER.warn("Unexpected exception when trying to return DDOC document data files: " + e.getMessage(), e);
+            throw new ValidationServiceException(getClass().getSimpleName(), e);
+        }
+    }
 
-        synchronized (lock) {
-            SignedDoc signedDoc = null;
-            try {
-                DigiDocFactory digiDocFactory = ConfigManager.instance().getDigiDocFactory();
-                List<DigiDocException> signedDocInitializationErrors = new ArrayList<>();
-                signedDoc = digiDocFactory.readSignedDocFromStreamOfType(new ByteArrayInputStream(dataFilesDocument.getBytes()), false, signedDocInitializationErrors);
-                if (signedDoc == null) {
-                    throw new MalformedDocumentException();
-                }
+    private DataFilesReport getDataFiles(DigiDocFactory digiDocFactory, DataFilesDocument dataFilesDocument) throws DigiDocException {
+        SignedDoc signedDoc = null;
+        try {
+            List<DigiDocException> signedDocInitializationErrors = new ArrayList<>();
+            signedDoc = xmlEntityAttackValidator.readSignedDoc(digiDocFactory, new ByteArrayInputStream(dataFilesDocument.getBytes()), signedDocInitializationErrors);
+            if (signedDoc == null) {
+                throw new MalformedDocumentException();
+            }
 
-                DDOCDataFilesReportBuilder ddocDataFilesReportBuilder = new DDOCDataFilesReportBuilder(signedDoc.getDataFiles());
-                return ddocDataFilesReportBuilder.build();
-            } catch (DigiDocException e) {
-                LOGGER.warn("Unexpected exception when trying to return DDOC document data files: " + e.getMessage(), e);
-                throw new ValidationServiceException(getClass().getSimpleName(), e);
-            } finally {
-                if (signedDoc != null) {
-                    signedDoc.cleanupDfCache();
-                }
+            DDOCDataFilesReportBuilder ddocDataFilesReportBuilder = new DDOCDataFilesReportBuilder(signedDoc.getDataFiles());
+            return ddocDataFilesReportBuilder.build();
+        } finally {
+            if (signedDoc != null) {
+                signedDoc.cleanupDfCache();
             }
         }
     }
@@ -80,4 +80,9 @@ public class DDOCDataFilesService implements DataFilesService {
         this.xmlEntityAttackValidator = xmlEntityAttackValidator;
     }
 
+    @Autowired
+    public void setJDigiDocContextPool(JDigiDocContextPool jDigiDocContextPool) {
+        this.jDigiDocContextPool = jDigiDocContextPool;
+    }
+
 }
@@ -21,6 +21,8 @@ import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.Reports;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
 import ee.openeid.siva.validation.exception.ValidationServiceException;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.siva.validation.service.ValidationService;
 import ee.openeid.siva.validation.service.signature.policy.SignaturePolicyService;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
@@ -52,17 +54,18 @@ import java.util.ArrayList;
 @Service
 public class DDOCValidationService implements ValidationService {
     private static final Logger LOGGER = LoggerFactory.getLogger(DDOCValidationService.class);
-    private final Object lock = new Object();
+    private static final Object CONFIG_LOCK = new Object();
 
     private ReportConfigurationProperties reportConfigurationProperties;
 
     private DDOCValidationServiceProperties properties;
     private SignaturePolicyService<ValidationPolicy> signaturePolicyService;
     private XMLEntityAttackValidator xmlEntityAttackValidator;
+    private JDigiDocContextPool jDigiDocContextPool;
 
     @PostConstruct
     protected void initConfig() throws DigiDocException, IOException, SAXNotSupportedException, SAXNotRecognizedException, ParserConfigurationException {
-        synchronized (lock) {
+        synchronized (CONFIG_LOCK) {
             final File file = File.createTempFile("siva-ddoc-jdigidoc-", ".cfg");
             try (
                     InputStream inputStream = getClass().getResourceAsStream(properties.getJdigidocConfigurationFile());
@@ -79,6 +82,7 @@ public class DDOCValidationService implements ValidationService {
             }
             ConfigManager.init(file.getAbsolutePath());
             LOGGER.info("DDOC hashcode support in configuration load is: {}", ConfigManager.instance().getProperty("DATAFILE_HASHCODE_MODE"));
+            JDigiDocContextPool.initSharedFactories();
         }
     }
 
@@ -90,31 +94,30 @@ public class DDOCValidationService implements ValidationService {
             Security.addProvider(new BouncyCastleProvider());
         }
 
-        xmlEntityAttackValidator.validateAgainstXMLEntityAttacks(validationDocument.getBytes());
-
-        synchronized (lock) {
-            SignedDoc signedDoc = null;
+        try {
+            return jDigiDocContextPool.execute(digiDocFactory -> validate(digiDocFactory, validationDocument, policy));
+        } catch (MalformedDocumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.warn("Unexpected exception when validating DDOC document: " + e.getMessage(), e);
+            throw new ValidationServiceException(getClass().getSimpleName(), e);
+        }
+    }
 
-            LOGGER.info("DDOC hashcode support in validation is: {}", ConfigManager.instance().getProperty("DATAFILE_HASHCODE_MODE"));
-            try {
-                DigiDocFactory digiDocFactory = ConfigManager.instance().getDigiDocFactory();
-                ArrayList signedDocInitializationErrors = new ArrayList<>();
-                signedDoc = digiDocFactory.readSignedDocFromStreamOfType(new SignatureInputStream(new ByteArrayInputStream(validationDocument.getBytes())), false, signedDocInitializationErrors);
-                if (signedDoc == null || hasNonWarningErrs(signedDoc, signedDocInitializationErrors) || hasNonWarningErrs(signedDoc, validateContainer(signedDoc))) {
-                    throw new MalformedDocumentException();
-                }
+    private Reports validate(DigiDocFactory digiDocFactory, ValidationDocument validationDocument, ValidationPolicy policy) throws DigiDocException {
+        SignedDoc signedDoc = null;
+        try {
+            ArrayList signedDocInitializationErrors = new ArrayList<>();
+            signedDoc = ValidationStageTimings.time(ValidationStage.PARSE, () -> xmlEntityAttackValidator.readSignedDoc(digiDocFactory, new SignatureInputStream(new ByteArrayInputStream(validationDocument.getBytes())), signedDocInitializationErrors));
+            if (signedDoc == null || hasNonWarningErrs(signedDoc, signedDocInitializationErrors) || hasNonWarningErrs(signedDoc, validateContainer(signedDoc))) {
+                throw new MalformedDocumentException();
+            }
 
-                DDOCValidationReportBuilder reportBuilder = new DDOCValidationReportBuilder(signedDoc, validationDocument, policy, reportConfigurationProperties.isReportSignatureEnabled());
-                return reportBuilder.build();
-            } catch (MalformedDocumentException e) {
-                throw e;
-            } catch (Exception e) {
-                LOGGER.warn("Unexpected exception when validating DDOC document: " + e.getMessage(), e);
-                throw new ValidationServiceException(getClass().getSimpleName(), e);
-            } finally {
-                if (signedDoc != null) {
-                    signedDoc.cleanupDfCache();
-                }
+            DDOCValidationReportBuilder reportBuilder = new DDOCValidationReportBuilder(signedDoc, validationDocument, policy, reportConfigurationProperties.isReportSignatureEnabled());
+            return ValidationStageTimings.time(ValidationStage.REPORT, reportBuilder::build);
+        } finally {
+            if (signedDoc != null) {
+                signedDoc.cleanupDfCache();
             }
         }
     }
@@ -144,7 +147,7 @@ public class DDOCValidationService implements ValidationService {
 
 
     private ArrayList validateContainer(SignedDoc signedDoc) {
-        return signedDoc.validate(true);
+        return ValidationStageTimings.time(ValidationStage.VALIDATE, () -> signedDoc.validate(true));
     }
 
     @Autowired
@@ -163,6 +166,11 @@ public class DDOCValidationService implements ValidationService {
         this.xmlEntityAttackValidator = xmlEntityAttackValidator;
     }
 
+    @Autowired
+    public void setJDigiDocContextPool(JDigiDocContextPool jDigiDocContextPool) {
+        this.jDigiDocContextPool = jDigiDocContextPool;
+    }
+
     @Autowired
     public void setReportConfigurationProperties(ReportConfigurationProperties reportConfigurationProperties) {
         this.reportConfigurationProperties = reportConfigurationProperties;
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.validation.service.ddoc;
+
+import ee.sk.digidoc.DigiDocException;
+import ee.sk.digidoc.factory.DigiDocFactory;
+import ee.sk.utils.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the number of concurrently running JDigiDoc parse and validation tasks.
+ * <p>
+ * Every task is handed its own {@link DigiDocFactory} instance, so SAX parser state is never
+ * shared between threads. Shared JDigiDoc factories that are lazily created by {@link ConfigManager}
+ * must be initialized with {@link #initSharedFactories()} before tasks are run concurrently.
+ */
+public class JDigiDocContextPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JDigiDocContextPool.class);
+
+    private final Semaphore permits;
+    private final int parallelism;
+
+    public JDigiDocContextPool(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("DDOC validation parallelism must be at least 1, but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism, true);
+    }
+
+    public static synchronized void initSharedFactories() throws DigiDocException {
+        ConfigManager configManager = ConfigManager.instance();
+        configManager.getCanonicalizationFactory();
+        configManager.getNotaryFactory();
+        configManager.getTslFactory();
+    }
+
+    public <T> T execute(JDigiDocTask<T> task) throws DigiDocException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free JDigiDoc context", e);
+        }
+        try {
+            LOGGER.debug("Acquired JDigiDoc context, {} of {} contexts available", permits.availablePermits(), parallelism);
+            return task.run(ConfigManager.instance().getDigiDocFactory());
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @FunctionalInterface
+    public interface JDigiDocTask<T> {
+        T run(DigiDocFactory digiDocFactory) throws DigiDocException;
+    }
+}
@@ -17,35 +17,69 @@
 package ee.openeid.validation.service.ddoc;
 
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
-import ee.openeid.validation.service.ddoc.security.SecureSAXParsers;
-import ee.sk.digidoc.factory.SignatureInputStream;
+import ee.openeid.validation.service.ddoc.security.XMLEntityAttackGuardInputStream;
+import ee.sk.digidoc.DigiDocException;
+import ee.sk.digidoc.SignedDoc;
+import ee.sk.digidoc.factory.DigiDocFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @ConfigurationProperties(prefix = "siva.ddoc.xmlEntityAttack")
 public class XMLEntityAttackValidator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(XMLEntityAttackValidator.class);
+    private static final Set<Integer> MALFORMED_DOCUMENT_ERROR_CODES = new HashSet<>(Arrays.asList(
+            DigiDocException.ERR_READ_FILE,
+            DigiDocException.ERR_DIGIDOC_BADXML,
+            DigiDocException.ERR_DIGIDOC_FORMAT,
+            DigiDocException.ERR_PARSE_XML,
+            DigiDocException.ERR_XML_CONVERT,
+            DigiDocException.ERR_INPUT_VALUE,
+            DigiDocException.ERR_DF_NAME,
+            DigiDocException.ERR_DATA_FILE_CONTENT_TYPE,
+            DigiDocException.ERR_DATA_FILE_FILE_NAME,
+            DigiDocException.ERR_DATA_FILE_ID,
+            DigiDocException.ERR_DATA_FILE_MIME_TYPE,
+            DigiDocException.ERR_DATA_FILE_SIZE,
+            DigiDocException.ERR_DATA_FILE_DIGEST_TYPE,
+            DigiDocException.ERR_DATA_FILE_DIGEST_VALUE,
+            DigiDocException.ERR_DATA_FILE_ATTR_NAME,
+            DigiDocException.ERR_DATA_FILE_ATTR_VALUE
+    ));
 
-    protected void validateAgainstXMLEntityAttacks(byte[] xmlContent) {
+    /**
+     * Reads the DDOC container with JDigiDoc while guarding the same input stream against XML entity attacks,
+     * so the document is parsed only once. Documents that cannot be parsed or are not in DDOC format are rejected
+     * as malformed, like a separate parse before reading used to reject them.
+     */
+    protected SignedDoc readSignedDoc(DigiDocFactory digiDocFactory, InputStream inputStream, List errors) throws DigiDocException {
+        XMLEntityAttackGuardInputStream guardedInputStream = new XMLEntityAttackGuardInputStream(inputStream);
+        SignedDoc signedDoc;
         try {
-            SAXParser saxParser = SecureSAXParsers.createParser();
-            InputStream inputStream = new SignatureInputStream(new ByteArrayInputStream(xmlContent));
-
-            saxParser.getXMLReader().parse(new InputSource(inputStream));
-        } catch (ParserConfigurationException | SAXException | IOException e) {
-            LOGGER.error("Exception when validation document against XML entity attacks: " + e.getMessage(), e);
-            throw new MalformedDocumentException(e);
+            signedDoc = digiDocFactory.readSignedDocFromStreamOfType(guardedInputStream, false, errors);
+        } catch (DigiDocException e) {
+            if (guardedInputStream.isAttackDetected()) {
+                LOGGER.error("Exception when validating document against XML entity attacks: " + e.getMessage(), e);
+                throw new MalformedDocumentException(e);
+            }
+            if (MALFORMED_DOCUMENT_ERROR_CODES.contains(e.getCode())) {
+                LOGGER.warn("Malformed DDOC document: " + e.getMessage(), e);
+                throw new MalformedDocumentException(e);
+            }
+            throw e;
+        }
+        if (guardedInputStream.isAttackDetected()) {
+            LOGGER.error("XML entity attack detected in document");
+            throw new MalformedDocumentException();
         }
+        return signedDoc;
     }
 
 }
@@ -18,6 +18,7 @@ package ee.openeid.validation.service.ddoc.configuration;
 
 import ee.openeid.siva.validation.service.signature.policy.SignaturePolicyService;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
+import ee.openeid.validation.service.ddoc.JDigiDocContextPool;
 import ee.openeid.validation.service.ddoc.XMLEntityAttackValidator;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -31,4 +32,9 @@ public class DDOCValidationServiceConfiguration {
     public SignaturePolicyService<ValidationPolicy> signaturePolicyService(DDOCSignaturePolicyProperties properties) {
         return new SignaturePolicyService<>(properties);
     }
+
+    @Bean
+    public JDigiDocContextPool jDigiDocContextPool(DDOCValidationServiceProperties properties) {
+        return new JDigiDocContextPool(properties.getParallelism());
+    }
 }
@@ -25,4 +25,5 @@ public class DDOCValidationServiceProperties {
     private static final String DEFAULT_JDIGIDOC_CONF_FILE = "/siva-jdigidoc.cfg";
 
     private String jdigidocConfigurationFile = DEFAULT_JDIGIDOC_CONF_FILE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.validation.service.ddoc.security;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Input stream filter that rejects XML documents declaring a document type.
+ * <p>
+ * XML entities (and therefore entity expansion and external entity attacks) can only be declared
+ * inside a DOCTYPE declaration, which is only allowed in the document prolog. The filter inspects the
+ * prolog while the bytes are passed on to the actual XML parser and stops inspecting as soon as
+ * the root element starts, so the document is parsed only once.
+ * <p>
+ * Inspection is done on bytes, hence documents in encodings that are not ASCII compatible (UTF-16,
+ * UCS-4, EBCDIC) are rejected as well, because a DOCTYPE declaration could be hidden from the filter.
+ */
+public class XMLEntityAttackGuardInputStream extends FilterInputStream {
+
+    private static final int MAX_XML_DECLARATION_LENGTH = 1024;
+    private static final byte[] ASCII_MARKUP = "<?!-DOCTYPE>\"' =encoding".getBytes(StandardCharsets.US_ASCII);
+    private static final Pattern ENCODING_DECLARATION = Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z][A-Za-z0-9._\\-]*)[\"']");
+
+    private enum State {
+        PROLOG, MARKUP_START, DECLARATION_START, COMMENT_START, COMMENT, PROCESSING_INSTRUCTION, BODY, REJECTED
+    }
+
+    private State state = State.PROLOG;
+    private int dashes;
+    private boolean questionMark;
+    private StringBuilder processingInstruction;
+    private boolean attackDetected;
+
+    public XMLEntityAttackGuardInputStream(InputStream in) {
+        super(in);
+    }
+
+    public boolean isAttackDetected() {
+        return attackDetected;
+    }
+
+    @Override
+    public int read() throws IOException {
+        verifyNotRejected();
+        int b = super.read();
+        if (b != -1 && state != State.BODY) {
+            inspect(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        verifyNotRejected();
+        int count = super.read(b, off, len);
+        for (int i = off; i < off + count && state != State.BODY; i++) {
+            inspect(b[i] & 0xFF);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (state == State.BODY) {
+            return super.skip(n);
+        }
+        byte[] buffer = new byte[(int) Math.min(n, 4096)];
+        int count = read(buffer, 0, buffer.length);
+        return count < 0 ? 0 : count;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // Not supported, inspection state cannot be rewound
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void verifyNotRejected() throws XMLEntityAttackException {
+        if (state == State.REJECTED) {
+            throw new XMLEntityAttackException("Document has already been rejected");
+        }
+    }
+
+    private void inspect(int b) throws IOException {
+        if (b == 0) {
+            reject("Document encoding is not ASCII compatible");
+        }
+        switch (state) {
+            case PROLOG:
+                if (b == '<') {
+                    state = State.MARKUP_START;
+                }
+                break;
+            case MARKUP_START:
+                inspectMarkupStart(b);
+                break;
+            case DECLARATION_START:
+                if (b != '-') {
+                    reject("Document type declarations are not allowed");
+                }
+                state = State.COMMENT_START;
+                break;
+            case COMMENT_START:
+                if (b != '-') {
+                    reject("Document type declarations are not allowed");
+                }
+                dashes = 0;
+                state = State.COMMENT;
+                break;
+            case COMMENT:
+                inspectComment(b);
+                break;
+            case PROCESSING_INSTRUCTION:
+                inspectProcessingInstruction(b);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void inspectMarkupStart(int b) throws IOException {
+        if (b == '!') {
+            state = State.DECLARATION_START;
+        } else if (b == '?') {
+            questionMark = false;
+            processingInstruction = new StringBuilder();
+            state = State.PROCESSING_INSTRUCTION;
+        } else if (isNameStartByte(b)) {
+            state = State.BODY;
+        } else {
+            reject("Unexpected content in document prolog");
+        }
+    }
+
+    private void inspectComment(int b) {
+        if (b == '>' && dashes >= 2) {
+            state = State.PROLOG;
+        }
+        dashes = b == '-' ? dashes + 1 : 0;
+    }
+
+    private void inspectProcessingInstruction(int b) throws IOException {
+        if (b == '>' && questionMark) {
+            verifyXmlDeclaration(processingInstruction.toString());
+            state = State.PROLOG;
+            return;
+        }
+        questionMark = b == '?';
+        if (processingInstruction.length() <= MAX_XML_DECLARATION_LENGTH) {
+            processingInstruction.append((char) b);
+        }
+    }
+
+    private void verifyXmlDeclaration(String instruction) throws IOException {
+        if (!instruction.startsWith("xml")) {
+            return;
+        }
+        if (instruction.length() > MAX_XML_DECLARATION_LENGTH) {
+            reject("XML declaration is too long");
+        }
+        Matcher matcher = ENCODING_DECLARATION.matcher(instruction);
+        if (matcher.find() && !isAsciiCompatible(matcher.group(1))) {
+            reject("Declared document encoding is not ASCII compatible: " + matcher.group(1));
+        }
+    }
+
+    private static boolean isAsciiCompatible(String encoding) {
+        try {
+            Charset charset = Charset.forName(encoding);
+            return charset.canEncode() && Arrays.equals(ASCII_MARKUP, new String(ASCII_MARKUP, StandardCharsets.US_ASCII).getBytes(charset));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isNameStartByte(int b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '_' || b == ':' || b >= 0x80;
+    }
+
+    private void reject(String reason) throws XMLEntityAttackException {
+        attackDetected = true;
+        state = State.REJECTED;
+        throw new XMLEntityAttackException(reason);
+    }
+
+    public static class XMLEntityAttackException extends IOException {
+        XMLEntityAttackException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.validation.service.ddoc;
+
+import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
+import ee.openeid.siva.validation.document.ValidationDocument;
+import ee.openeid.siva.validation.document.builder.DummyValidationDocumentBuilder;
+import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.siva.validation.service.signature.policy.SignaturePolicyService;
+import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
+import ee.openeid.validation.service.ddoc.configuration.DDOCSignaturePolicyProperties;
+import ee.openeid.validation.service.ddoc.configuration.DDOCValidationServiceProperties;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class DDOCConcurrentValidationTest {
+
+    private static final String TEST_FILES_LOCATION = "test-files/";
+    private static final List<String> TEST_FILES = Arrays.asList(
+            "ddoc_valid_2_signatures.ddoc",
+            "datafile_xmlns_missing.ddoc",
+            "DigiDoc 1.2 hashcode.ddoc",
+            "DigiDoc 1.3 hashcode.ddoc"
+    );
+    private static final int PARALLELISM = 4;
+    private static final int THREADS = 8;
+    private static final int ITERATIONS_PER_FILE = 20;
+
+    private static DDOCValidationService serialValidationService;
+    private static DDOCValidationService parallelValidationService;
+    private static ExecutorService executorService;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        serialValidationService = createValidationService(1);
+        parallelValidationService = createValidationService(PARALLELISM);
+        executorService = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        executorService.shutdownNow();
+        // PowerMock based tests load their own copy of the provider classes
+        Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    }
+
+    @Test
+    public void concurrentValidationShouldProduceSameReportsAsSerialValidation() throws Exception {
+        Map<String, Reports> serialReports = new HashMap<>();
+        for (String testFile : TEST_FILES) {
+            serialReports.put(testFile, withoutValidationTime(serialValidationService.validateDocument(buildValidationDocument(testFile))));
+        }
+
+        List<Callable<Reports>> tasks = new ArrayList<>();
+        List<String> taskFiles = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS_PER_FILE; i++) {
+            for (String testFile : TEST_FILES) {
+                ValidationDocument validationDocument = buildValidationDocument(testFile);
+                tasks.add(() -> withoutValidationTime(parallelValidationService.validateDocument(validationDocument)));
+                taskFiles.add(testFile);
+            }
+        }
+
+        List<Future<Reports>> results = executorService.invokeAll(tasks);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(taskFiles.get(i), serialReports.get(taskFiles.get(i)), results.get(i).get());
+        }
+    }
+
+    private static DDOCValidationService createValidationService(int parallelism) throws Exception {
+        DDOCValidationServiceProperties properties = new DDOCValidationServiceProperties();
+        properties.setParallelism(parallelism);
+
+        DDOCSignaturePolicyProperties policyProperties = new DDOCSignaturePolicyProperties();
+        policyProperties.initPolicySettings();
+
+        DDOCValidationService validationService = new DDOCValidationService();
+        validationService.setProperties(properties);
+        validationService.setXMLEntityAttackValidator(new XMLEntityAttackValidator());
+        validationService.setSignaturePolicyService(new SignaturePolicyService<ValidationPolicy>(policyProperties));
+        validationService.setJDigiDocContextPool(new JDigiDocContextPool(properties.getParallelism()));
+        validationService.setReportConfigurationProperties(new ReportConfigurationProperties(true));
+        validationService.initConfig();
+        return validationService;
+    }
+
+    private static ValidationDocument buildValidationDocument(String testFile) {
+        return DummyValidationDocumentBuilder
+                .aValidationDocument()
+                .withDocument(TEST_FILES_LOCATION + testFile)
+                .withName(testFile)
+                .build();
+    }
+
+    private static Reports withoutValidationTime(Reports reports) {
+        reports.getSimpleReport().getValidationConclusion().setValidationTime(null);
+        reports.getDetailedReport().getValidationConclusion().setValidationTime(null);
+        return reports;
+    }
+}
@@ -51,8 +51,8 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -76,6 +76,7 @@ public class DDOCServiceTest {
     private static DDOCSignaturePolicyProperties policyProperties = new DDOCSignaturePolicyProperties();
     private static SignaturePolicyService<ValidationPolicy> signaturePolicyService;
     private static XMLEntityAttackValidator xmlEntityAttackValidator;
+    private static JDigiDocContextPool jDigiDocContextPool = new JDigiDocContextPool(1);
     private static SimpleReport validationResult2Signatures;
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -92,10 +93,12 @@ public class DDOCServiceTest {
         validationService.setProperties(properties);
         validationService.setXMLEntityAttackValidator(xmlEntityAttackValidator);
         validationService.setSignaturePolicyService(signaturePolicyService);
+        validationService.setJDigiDocContextPool(jDigiDocContextPool);
         validationService.initConfig();
         validationService.setReportConfigurationProperties(new ReportConfigurationProperties(true));
 
         dataFilesService.setXMLEntityAttackValidator(xmlEntityAttackValidator);
+        dataFilesService.setJDigiDocContextPool(jDigiDocContextPool);
     }
 
     private static ValidationDocument ddocValid2Signatures() throws Exception {
@@ -159,13 +162,12 @@ public class DDOCServiceTest {
 
         given(configManager.getDigiDocFactory()).willReturn(digiDocFactory);
         given(ConfigManager.instance()).willReturn(configManager);
-        when(digiDocFactory.readSignedDocFromStreamOfType(any(ByteArrayInputStream.class), anyBoolean(), anyList())).thenThrow(new DigiDocException(101, "Testing error", new Exception()));
+        when(digiDocFactory.readSignedDocFromStreamOfType(any(InputStream.class), anyBoolean(), anyList())).thenThrow(new DigiDocException(101, "Testing error", new Exception()));
 
         DDOCDataFilesService dataFilesServiceSpy = spy(new DDOCDataFilesService());
+        dataFilesServiceSpy.setJDigiDocContextPool(jDigiDocContextPool);
 
-        XMLEntityAttackValidator xmlEntityAttackValidator = spy(new XMLEntityAttackValidator());
         dataFilesServiceSpy.setXMLEntityAttackValidator(xmlEntityAttackValidator);
-        doNothing().when(xmlEntityAttackValidator).validateAgainstXMLEntityAttacks(any(byte[].class));
 
         expectedException.expect(ValidationServiceException.class);
         dataFilesServiceSpy.getDataFiles(dataFilesDocument);
@@ -180,6 +182,59 @@ public class DDOCServiceTest {
         validationService.validateDocument(validationDocument);
     }
 
+    @Test
+    public void validatingAStructurallyBrokenDDOCResultsInMalformedDocumentException() throws Exception {
+        ValidationDocument validationDocument = buildValidationDocument(VALID_DDOC_2_SIGNATURES);
+        validationDocument.setBytes(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<SignedDoc format=\"DIGIDOC-XML\" version=\"9.9\" xmlns=\"http://www.sk.ee/DigiDoc/v1.3.0#\">" +
+                "<DataFile ContentType=\"EMBEDDED_BASE64\" Filename=\"test.txt\" Id=\"D0\" MimeType=\"text/plain\" Size=\"4\">dGVzdA==</DataFile>" +
+                "</SignedDoc>").getBytes());
+        expectedException.expect(MalformedDocumentException.class);
+        validationService.validateDocument(validationDocument);
+    }
+
+    @Test
+    @PrepareForTest(ConfigManager.class)
+    public void getDataFilesFailsWithFormatExceptionWillThrowMalformedDocumentException() throws Exception {
+        DataFilesDocument dataFilesDocument = new DataFilesDocument();
+        dataFilesDocument.setBytes("<SignedDoc/>".getBytes());
+
+        mockStatic(ConfigManager.class);
+        ConfigManager configManager = mock(ConfigManager.class);
+        DigiDocFactory digiDocFactory = mock(DigiDocFactory.class);
+
+        given(configManager.getDigiDocFactory()).willReturn(digiDocFactory);
+        given(ConfigManager.instance()).willReturn(configManager);
+        when(digiDocFactory.readSignedDocFromStreamOfType(any(InputStream.class), anyBoolean(), anyList())).thenThrow(new DigiDocException(DigiDocException.ERR_DIGIDOC_FORMAT, "Testing error", new Exception()));
+
+        DDOCDataFilesService dataFilesServiceSpy = spy(new DDOCDataFilesService());
+        dataFilesServiceSpy.setJDigiDocContextPool(jDigiDocContextPool);
+        dataFilesServiceSpy.setXMLEntityAttackValidator(xmlEntityAttackValidator);
+
+        expectedException.expect(MalformedDocumentException.class);
+        dataFilesServiceSpy.getDataFiles(dataFilesDocument);
+    }
+
+    @Test
+    public void validatingADDOCWithDoctypeDeclarationResultsInMalformedDocumentException() throws Exception {
+        ValidationDocument validationDocument = buildValidationDocument(VALID_DDOC_2_SIGNATURES);
+        validationDocument.setBytes(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<!DOCTYPE lolz [<!ENTITY lol \"lol\"><!ENTITY lol2 \"&lol;&lol;&lol;&lol;\">]>\n" +
+                "<SignedDoc format=\"DIGIDOC-XML\" version=\"1.3\" xmlns=\"http://www.sk.ee/DigiDoc/v1.3.0#\">&lol2;</SignedDoc>").getBytes());
+        expectedException.expect(MalformedDocumentException.class);
+        validationService.validateDocument(validationDocument);
+    }
+
+    @Test
+    public void getDataFilesDDOCWithDoctypeDeclarationResultsInMalformedDocumentException() throws Exception {
+        DataFilesDocument dataFilesDocument = buildDataFilesDocument();
+        dataFilesDocument.setBytes(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<!DOCTYPE SignedDoc [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>\n" +
+                "<SignedDoc format=\"DIGIDOC-XML\" version=\"1.3\" xmlns=\"http://www.sk.ee/DigiDoc/v1.3.0#\">&xxe;</SignedDoc>").getBytes());
+        expectedException.expect(MalformedDocumentException.class);
+        dataFilesService.getDataFiles(dataFilesDocument);
+    }
+
     @Test
     public void ddocValidationResultShouldIncludeValidationReportPOJO() throws Exception {
         validationResult2Signatures = validationService.validateDocument(ddocValid2Signatures()).getSimpleReport();
@@ -339,14 +394,13 @@ public class DDOCServiceTest {
 
         given(configManager.getDigiDocFactory()).willReturn(digiDocFactory);
         given(ConfigManager.instance()).willReturn(configManager);
-        when(digiDocFactory.readSignedDocFromStreamOfType(any(ByteArrayInputStream.class), anyBoolean(), anyList())).thenThrow(new DigiDocException(101, "Testing error", new Exception()));
+        when(digiDocFactory.readSignedDocFromStreamOfType(any(InputStream.class), anyBoolean(), anyList())).thenThrow(new DigiDocException(101, "Testing error", new Exception()));
 
         DDOCValidationService validationServiceSpy = spy(new DDOCValidationService());
         validationServiceSpy.setSignaturePolicyService(signaturePolicyService);
+        validationServiceSpy.setJDigiDocContextPool(jDigiDocContextPool);
 
-        XMLEntityAttackValidator xmlEntityAttackValidator = spy(new XMLEntityAttackValidator());
         validationServiceSpy.setXMLEntityAttackValidator(xmlEntityAttackValidator);
-        doNothing().when(xmlEntityAttackValidator).validateAgainstXMLEntityAttacks(any(byte[].class));
 
         expectedException.expect(ValidationServiceException.class);
         validationServiceSpy.validateDocument(validationDocument);
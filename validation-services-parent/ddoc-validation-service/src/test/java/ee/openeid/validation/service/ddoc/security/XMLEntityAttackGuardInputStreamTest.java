@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.validation.service.ddoc.security;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class XMLEntityAttackGuardInputStreamTest {
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+    private static final String ROOT_ELEMENT = "<SignedDoc format=\"DIGIDOC-XML\" version=\"1.3\"><DataFile>&lt;!DOCTYPE&gt;</DataFile></SignedDoc>";
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void documentWithoutDoctypeIsPassedThroughUnchanged() throws Exception {
+        byte[] document = ("\uFEFF" + XML_DECLARATION + "<!-- <!DOCTYPE in comment -->\n<?pi data?>\n" + ROOT_ELEMENT).getBytes(StandardCharsets.UTF_8);
+        XMLEntityAttackGuardInputStream inputStream = guard(document);
+
+        assertArrayEquals(document, IOUtils.toByteArray(inputStream));
+        assertFalse(inputStream.isAttackDetected());
+    }
+
+    @Test
+    public void documentReadByteByByteIsPassedThroughUnchanged() throws Exception {
+        byte[] document = (XML_DECLARATION + ROOT_ELEMENT).getBytes(StandardCharsets.UTF_8);
+        XMLEntityAttackGuardInputStream inputStream = guard(document);
+
+        byte[] result = new byte[document.length];
+        for (int i = 0; i < document.length; i++) {
+            result[i] = (byte) inputStream.read();
+        }
+        assertArrayEquals(document, result);
+        assertTrue(inputStream.read() == -1);
+    }
+
+    @Test
+    public void doctypeDeclarationIsRejected() throws Exception {
+        XMLEntityAttackGuardInputStream inputStream = guard((XML_DECLARATION + "<!DOCTYPE lolz [<!ENTITY lol \"lol\">]>\n" + ROOT_ELEMENT).getBytes(StandardCharsets.UTF_8));
+
+        try {
+            IOUtils.toByteArray(inputStream);
+            fail("Document with DOCTYPE declaration should have been rejected");
+        } catch (XMLEntityAttackGuardInputStream.XMLEntityAttackException e) {
+            assertTrue(inputStream.isAttackDetected());
+        }
+    }
+
+    @Test
+    public void doctypeDeclarationWithoutXmlDeclarationIsRejected() throws Exception {
+        expectedException.expect(XMLEntityAttackGuardInputStream.XMLEntityAttackException.class);
+        IOUtils.toByteArray(guard(("<!DOCTYPE SignedDoc SYSTEM \"http://localhost/evil.dtd\">" + ROOT_ELEMENT).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void utf16EncodedDocumentIsRejected() throws Exception {
+        expectedException.expect(XMLEntityAttackGuardInputStream.XMLEntityAttackException.class);
+        IOUtils.toByteArray(guard(("<?xml version=\"1.0\" encoding=\"UTF-16\"?>" + ROOT_ELEMENT).getBytes(StandardCharsets.UTF_16LE)));
+    }
+
+    @Test
+    public void declaredEncodingThatIsNotAsciiCompatibleIsRejected() throws Exception {
+        expectedException.expect(XMLEntityAttackGuardInputStream.XMLEntityAttackException.class);
+        IOUtils.toByteArray(guard(("<?xml version=\"1.0\" encoding=\"IBM037\"?>" + ROOT_ELEMENT).getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void declaredAsciiCompatibleEncodingIsAccepted() throws Exception {
+        byte[] document = ("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>" + ROOT_ELEMENT).getBytes(Charset.forName("ISO-8859-1"));
+        assertArrayEquals(document, IOUtils.toByteArray(guard(document)));
+    }
+
+    @Test
+    public void readingAfterRejectionFails() throws Exception {
+        XMLEntityAttackGuardInputStream inputStream = guard(("<!DOCTYPE x>" + ROOT_ELEMENT).getBytes(StandardCharsets.UTF_8));
+        try {
+            IOUtils.toByteArray(inputStream);
+        } catch (IOException e) {
+            // expected
+        }
+        expectedException.expect(XMLEntityAttackGuardInputStream.XMLEntityAttackException.class);
+        inputStream.read();
+    }
+
+    private static XMLEntityAttackGuardInputStream guard(byte[] document) {
+        return new XMLEntityAttackGuardInputStream(new ByteArrayInputStream(document));
+    }
+}
@@ -21,20 +21,24 @@ import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.Reports;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
 import ee.openeid.siva.validation.exception.ValidationServiceException;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.siva.validation.service.ValidationService;
 import ee.openeid.siva.validation.service.signature.policy.ConstraintLoadingSignaturePolicyService;
 import ee.openeid.siva.validation.service.signature.policy.InvalidPolicyException;
 import ee.openeid.siva.validation.service.signature.policy.properties.ConstraintDefinedPolicy;
+import ee.openeid.tsl.TSLLoadedEvent;
 import ee.openeid.tsl.configuration.AlwaysFailingCRLSource;
 import ee.openeid.tsl.configuration.AlwaysFailingOCSPSource;
+import ee.openeid.validation.service.generic.validator.ConstraintPolicyCache;
+import ee.openeid.validation.service.generic.validator.PoolingDataLoader;
+import ee.openeid.validation.service.generic.validator.SharedCertificateVerifier;
 import ee.openeid.validation.service.generic.validator.report.GenericValidationReportBuilder;
 import eu.europa.esig.dss.DSSDocument;
 import eu.europa.esig.dss.DSSException;
 import eu.europa.esig.dss.InMemoryDocument;
 import eu.europa.esig.dss.MimeType;
-import eu.europa.esig.dss.client.http.commons.CommonsDataLoader;
 import eu.europa.esig.dss.tsl.TrustedListsCertificateSource;
-import eu.europa.esig.dss.validation.CommonCertificateVerifier;
 import eu.europa.esig.dss.validation.SignedDocumentValidator;
 import eu.europa.esig.dss.validation.executor.ValidationLevel;
 import eu.europa.esig.dss.validation.reports.wrapper.CertificateWrapper;
@@ -45,8 +49,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -67,6 +74,9 @@ public class GenericValidationService implements ValidationService {
     private TrustedListsCertificateSource trustedListsCertificateSource;
     private ConstraintLoadingSignaturePolicyService signaturePolicyService;
     private ReportConfigurationProperties reportConfigurationProperties;
+    private final PoolingDataLoader dataLoader = new PoolingDataLoader();
+    private final ConstraintPolicyCache constraintPolicyCache = new ConstraintPolicyCache();
+    private volatile SharedCertificateVerifier certificateVerifier;
 
     private static boolean isInRangeMillis(Date date1, Date date2, int rangeInMillis) {
         Date latestTime = addMilliseconds(date2, rangeInMillis);
@@ -76,6 +86,7 @@ public class GenericValidationService implements ValidationService {
 
     @Override
     public Reports validateDocument(ValidationDocument validationDocument) throws DSSException {
+        SharedCertificateVerifier verifier = null;
         try {
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info("WsValidateDocument: begin");
@@ -84,13 +95,17 @@ public class GenericValidationService implements ValidationService {
             if (validationDocument == null) {
                 throw new ValidationServiceException(getClass().getSimpleName(), new Exception("No request document found"));
             }
-            SignedDocumentValidator validator = createValidatorFromDocument(validationDocument);
+            SignedDocumentValidator validator = ValidationStageTimings.time(ValidationStage.PARSE, () -> createValidatorFromDocument(validationDocument));
+            verifier = getCertificateVerifier();
+            validator.setCertificateVerifier(verifier);
 
             final ConstraintDefinedPolicy policy = signaturePolicyService.getPolicy(validationDocument.getSignaturePolicy());
 
-            final eu.europa.esig.dss.validation.reports.Reports reports =  validator.validateDocument(policy.getConstraintDataStream());
-
-            validateRevocationFreshness(reports);
+            final eu.europa.esig.dss.validation.reports.Reports reports = ValidationStageTimings.time(ValidationStage.VALIDATE, () -> {
+                eu.europa.esig.dss.validation.reports.Reports validationReports = validator.validateDocument(constraintPolicyCache.get(policy));
+                validateRevocationFreshness(validationReports);
+                return validationReports;
+            });
 
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info(
@@ -108,7 +123,7 @@ public class GenericValidationService implements ValidationService {
                     policy,
                     reportConfigurationProperties.isReportSignatureEnabled()
             );
-            return reportBuilder.build();
+            return ValidationStageTimings.time(ValidationStage.REPORT, reportBuilder::build);
         } catch (InvalidPolicyException e) {
             endExceptionally(e);
             throw e;
@@ -118,17 +133,32 @@ public class GenericValidationService implements ValidationService {
         } catch (Exception e) {
             endExceptionally(e);
             throw new ValidationServiceException(getClass().getSimpleName(), e);
+        } finally {
+            if (verifier != null) {
+                verifier.clearSignatureRevocationSources();
+            }
         }
     }
 
+    @PostConstruct
+    public void compilePolicies() {
+        signaturePolicyService.getSignaturePolicies().values().forEach(constraintPolicyCache::get);
+    }
+
+    @EventListener
+    public void onTSLLoaded(TSLLoadedEvent event) {
+        certificateVerifier = createCertificateVerifier();
+    }
+
+    @PreDestroy
+    public void close() {
+        dataLoader.close();
+    }
+
     protected SignedDocumentValidator createValidatorFromDocument(final ValidationDocument validationDocument) {
         final DSSDocument dssDocument = createDssDocument(validationDocument);
         SignedDocumentValidator validator = SignedDocumentValidator.fromDocument(dssDocument);
 
-        CommonCertificateVerifier certificateVerifier = new CommonCertificateVerifier(trustedListsCertificateSource,
-                new AlwaysFailingCRLSource(), new AlwaysFailingOCSPSource(), new CommonsDataLoader());
-        LOGGER.info("Certificate pool size: {}", getCertificatePoolSize(certificateVerifier));
-        validator.setCertificateVerifier(certificateVerifier);
         validator.setValidationLevel(VALIDATION_LEVEL);
 
         return validator;
@@ -175,7 +205,27 @@ public class GenericValidationService implements ValidationService {
         return Collections.min(timestamps, Comparator.comparing(TimestampWrapper::getProductionTime));
     }
 
-    private int getCertificatePoolSize(CommonCertificateVerifier certificateVerifier) {
+    private SharedCertificateVerifier getCertificateVerifier() {
+        SharedCertificateVerifier verifier = certificateVerifier;
+        if (verifier == null) {
+            synchronized (this) {
+                if (certificateVerifier == null) {
+                    certificateVerifier = createCertificateVerifier();
+                }
+                verifier = certificateVerifier;
+            }
+        }
+        return verifier;
+    }
+
+    private SharedCertificateVerifier createCertificateVerifier() {
+        SharedCertificateVerifier verifier = new SharedCertificateVerifier(trustedListsCertificateSource,
+                new AlwaysFailingCRLSource(), new AlwaysFailingOCSPSource(), dataLoader);
+        LOGGER.info("Certificate pool size: {}", getCertificatePoolSize(verifier));
+        return verifier;
+    }
+
+    private int getCertificatePoolSize(SharedCertificateVerifier certificateVerifier) {
         return certificateVerifier.getTrustedCertSource().getCertificatePool().getNumberOfCertificates();
     }
 
@@ -208,6 +258,7 @@ public class GenericValidationService implements ValidationService {
     @Autowired
     public void setTrustedListsCertificateSource(TrustedListsCertificateSource trustedListsCertificateSource) {
         this.trustedListsCertificateSource = trustedListsCertificateSource;
+        this.certificateVerifier = null;
     }
 
     @Autowired
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.validation.service.generic.configuration;
+
+import ee.openeid.siva.validation.service.signature.policy.ConstraintLoadingSignaturePolicyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Periodically reloads generic signature policies whose constraint file has been modified on disk.
+ */
+@Component
+public class SignaturePolicyReloader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignaturePolicyReloader.class);
+
+    private ConstraintLoadingSignaturePolicyService signaturePolicyService;
+
+    @Scheduled(initialDelayString = "${siva.europe.signaturePolicy.reloadCheckIntervalInMillis:60000}",
+            fixedDelayString = "${siva.europe.signaturePolicy.reloadCheckIntervalInMillis:60000}")
+    public void reloadModifiedPolicies() {
+        List<String> reloadedPolicies = signaturePolicyService.reloadModifiedPolicies();
+        if (!reloadedPolicies.isEmpty()) {
+            LOGGER.info("Reloaded generic signature policies: {}", reloadedPolicies);
+        }
+    }
+
+    @Autowired
+    @Qualifier(value = "GenericPolicyService")
+    public void setSignaturePolicyService(ConstraintLoadingSignaturePolicyService signaturePolicyService) {
+        this.signaturePolicyService = signaturePolicyService;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.validation.service.generic.validator;
+
+import ee.openeid.siva.validation.service.signature.policy.properties.ConstraintDefinedPolicy;
+import eu.europa.esig.dss.validation.ValidationResourceManager;
+import eu.europa.esig.dss.validation.policy.EtsiValidationPolicy;
+import eu.europa.esig.dss.validation.policy.ValidationPolicy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the DSS validation policy compiled from the constraint of each signature policy, so the constraint
+ * XML is unmarshalled once per loaded constraint instead of once per validation.
+ * <p>
+ * A policy is compiled again when its constraint data has been replaced by a policy reload. Compiled
+ * policies are only read during validation and are shared by concurrently running validations.
+ */
+public class ConstraintPolicyCache {
+
+    private final Map<String, CompiledPolicy> compiledPolicies = new ConcurrentHashMap<>();
+
+    public ValidationPolicy get(ConstraintDefinedPolicy policy) {
+        CompiledPolicy compiledPolicy = compiledPolicies.get(policy.getName());
+        if (compiledPolicy != null && compiledPolicy.constraintData == policy.getConstraintData()) {
+            return compiledPolicy.validationPolicy;
+        }
+        return compiledPolicies.compute(policy.getName(), (name, cachedPolicy) ->
+                cachedPolicy != null && cachedPolicy.constraintData == policy.getConstraintData() ? cachedPolicy : compile(policy)
+        ).validationPolicy;
+    }
+
+    private static CompiledPolicy compile(ConstraintDefinedPolicy policy) {
+        return new CompiledPolicy(policy.getConstraintData(), new EtsiValidationPolicy(ValidationResourceManager.loadPolicyData(policy.getConstraintDataStream())));
+    }
+
+    private static class CompiledPolicy {
+        private final byte[] constraintData;
+        private final ValidationPolicy validationPolicy;
+
+        CompiledPolicy(byte[] constraintData, ValidationPolicy validationPolicy) {
+            this.constraintData = constraintData;
+            this.validationPolicy = validationPolicy;
+        }
+    }
+}
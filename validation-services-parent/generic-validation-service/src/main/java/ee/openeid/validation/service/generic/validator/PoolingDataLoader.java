@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.validation.service.generic.validator;
+
+import eu.europa.esig.dss.DSSException;
+import eu.europa.esig.dss.client.http.commons.CommonsDataLoader;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data loader that keeps one pooling HTTP client per scheme, host and port for the lifetime of the loader,
+ * instead of creating and closing a client for every request.
+ */
+public class PoolingDataLoader extends CommonsDataLoader implements Closeable {
+
+    private final Map<String, CloseableHttpClient> httpClients = new ConcurrentHashMap<>();
+
+    @Override
+    protected byte[] httpGet(final String url) {
+        final URI uri = URI.create(url.trim());
+        final HttpGet httpRequest = new HttpGet(uri);
+        if (contentType != null) {
+            httpRequest.setHeader(CONTENT_TYPE, contentType);
+        }
+        return execute(uri, url, httpRequest);
+    }
+
+    @Override
+    public byte[] post(final String url, final byte[] content) throws DSSException {
+        final URI uri = URI.create(url.trim());
+        final HttpPost httpRequest = new HttpPost(uri);
+        httpRequest.setEntity(new ByteArrayEntity(content));
+        if (contentType != null) {
+            httpRequest.setHeader(CONTENT_TYPE, contentType);
+        }
+        return execute(uri, url, httpRequest);
+    }
+
+    @Override
+    public void close() {
+        httpClients.values().forEach(IOUtils::closeQuietly);
+        httpClients.clear();
+    }
+
+    private byte[] execute(URI uri, String url, HttpRequestBase httpRequest) {
+        HttpResponse httpResponse = null;
+        try {
+            CloseableHttpClient client = httpClients.computeIfAbsent(uri.getScheme() + "://" + uri.getAuthority(), origin -> getHttpClient(url));
+            httpResponse = getHttpResponse(client, httpRequest, url);
+            return readHttpResponse(url, httpResponse);
+        } finally {
+            httpRequest.releaseConnection();
+            if (httpResponse != null) {
+                EntityUtils.consumeQuietly(httpResponse.getEntity());
+            }
+        }
+    }
+}
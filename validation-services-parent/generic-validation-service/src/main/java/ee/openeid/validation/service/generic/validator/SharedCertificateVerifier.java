@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.validation.service.generic.validator;
+
+import eu.europa.esig.dss.client.http.DataLoader;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.x509.CertificateSource;
+import eu.europa.esig.dss.x509.crl.CRLSource;
+import eu.europa.esig.dss.x509.crl.ListCRLSource;
+import eu.europa.esig.dss.x509.ocsp.ListOCSPSource;
+import eu.europa.esig.dss.x509.ocsp.OCSPSource;
+
+/**
+ * Certificate verifier that can be shared by concurrently running validations.
+ * <p>
+ * DSS document validators store the revocation data found in the validated signatures into the certificate
+ * verifier. These sources are kept per thread, the rest of the verifier configuration is shared. Call
+ * {@link #clearSignatureRevocationSources()} after the validation to release the revocation data of the document.
+ */
+public class SharedCertificateVerifier extends CommonCertificateVerifier {
+
+    private final ThreadLocal<ListCRLSource> signatureCRLSource = new ThreadLocal<>();
+    private final ThreadLocal<ListOCSPSource> signatureOCSPSource = new ThreadLocal<>();
+
+    public SharedCertificateVerifier(CertificateSource trustedCertSource, CRLSource crlSource, OCSPSource ocspSource, DataLoader dataLoader) {
+        super(trustedCertSource, crlSource, ocspSource, dataLoader);
+    }
+
+    @Override
+    public ListCRLSource getSignatureCRLSource() {
+        return signatureCRLSource.get();
+    }
+
+    @Override
+    public void setSignatureCRLSource(ListCRLSource signatureCRLSource) {
+        this.signatureCRLSource.set(signatureCRLSource);
+    }
+
+    @Override
+    public ListOCSPSource getSignatureOCSPSource() {
+        return signatureOCSPSource.get();
+    }
+
+    @Override
+    public void setSignatureOCSPSource(ListOCSPSource signatureOCSPSource) {
+        this.signatureOCSPSource.set(signatureOCSPSource);
+    }
+
+    public void clearSignatureRevocationSources() {
+        signatureCRLSource.remove();
+        signatureOCSPSource.remove();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.validation.service.generic.validator;
+
+import ee.openeid.siva.validation.service.signature.policy.properties.ConstraintDefinedPolicy;
+import eu.europa.esig.dss.validation.policy.ValidationPolicy;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ConstraintPolicyCacheTest {
+
+    private final ConstraintPolicyCache constraintPolicyCache = new ConstraintPolicyCache();
+
+    @Test
+    public void policyIsCompiledOnce() throws IOException {
+        ConstraintDefinedPolicy policy = createPolicy();
+
+        ValidationPolicy validationPolicy = constraintPolicyCache.get(policy);
+
+        assertNotNull(validationPolicy.getPolicyName());
+        assertSame(validationPolicy, constraintPolicyCache.get(policy));
+    }
+
+    @Test
+    public void policyIsCompiledAgainWhenConstraintIsReloaded() throws IOException {
+        ConstraintDefinedPolicy policy = createPolicy();
+        ValidationPolicy validationPolicy = constraintPolicyCache.get(policy);
+
+        ConstraintDefinedPolicy reloadedPolicy = createPolicy();
+
+        ValidationPolicy reloadedValidationPolicy = constraintPolicyCache.get(reloadedPolicy);
+        assertNotSame(validationPolicy, reloadedValidationPolicy);
+        assertSame(reloadedValidationPolicy, constraintPolicyCache.get(reloadedPolicy));
+    }
+
+    private ConstraintDefinedPolicy createPolicy() throws IOException {
+        ConstraintDefinedPolicy policy = new ConstraintDefinedPolicy();
+        policy.setName("POLv4");
+        policy.setConstraintData(IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("generic_constraint_qes.xml")));
+        return policy;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.validation.service.generic.validator;
+
+import ee.openeid.tsl.configuration.AlwaysFailingCRLSource;
+import ee.openeid.tsl.configuration.AlwaysFailingOCSPSource;
+import eu.europa.esig.dss.x509.CommonTrustedCertificateSource;
+import eu.europa.esig.dss.x509.crl.ListCRLSource;
+import eu.europa.esig.dss.x509.ocsp.ListOCSPSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SharedCertificateVerifierTest {
+
+    private PoolingDataLoader dataLoader;
+    private SharedCertificateVerifier certificateVerifier;
+
+    @Before
+    public void setUp() {
+        dataLoader = new PoolingDataLoader();
+        certificateVerifier = new SharedCertificateVerifier(new CommonTrustedCertificateSource(),
+                new AlwaysFailingCRLSource(), new AlwaysFailingOCSPSource(), dataLoader);
+    }
+
+    @After
+    public void tearDown() {
+        dataLoader.close();
+    }
+
+    @Test
+    public void signatureRevocationSourcesAreNotVisibleToOtherThreads() throws Exception {
+        ListCRLSource crlSource = new ListCRLSource();
+        ListOCSPSource ocspSource = new ListOCSPSource();
+        certificateVerifier.setSignatureCRLSource(crlSource);
+        certificateVerifier.setSignatureOCSPSource(ocspSource);
+
+        CompletableFuture.runAsync(() -> {
+            assertNull(certificateVerifier.getSignatureCRLSource());
+            assertNull(certificateVerifier.getSignatureOCSPSource());
+        }).get();
+
+        assertSame(crlSource, certificateVerifier.getSignatureCRLSource());
+        assertSame(ocspSource, certificateVerifier.getSignatureOCSPSource());
+    }
+
+    @Test
+    public void clearedSignatureRevocationSourcesAreReleased() {
+        certificateVerifier.setSignatureCRLSource(new ListCRLSource());
+        certificateVerifier.setSignatureOCSPSource(new ListOCSPSource());
+
+        certificateVerifier.clearSignatureRevocationSources();
+
+        assertNull(certificateVerifier.getSignatureCRLSource());
+        assertNull(certificateVerifier.getSignatureOCSPSource());
+    }
+
+    @Test
+    public void sharedComponentsAreReturned() {
+        assertSame(dataLoader, certificateVerifier.getDataLoader());
+    }
+}
@@ -18,18 +18,20 @@ package ee.openeid.validation.service.timestamptoken;
 
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
 import ee.openeid.siva.validation.document.ValidationDocument;
+import ee.openeid.siva.validation.document.ZipContainer;
 import ee.openeid.siva.validation.document.report.Error;
 import ee.openeid.siva.validation.document.report.Reports;
 import ee.openeid.siva.validation.document.report.TimeStampTokenValidationData;
 import ee.openeid.siva.validation.exception.DocumentRequirementsException;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.siva.validation.service.ValidationService;
 import ee.openeid.siva.validation.service.signature.policy.SignaturePolicyService;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
 import ee.openeid.validation.service.timestamptoken.validator.report.TimeStampTokenValidationReportBuilder;
 import eu.europa.esig.dss.DSSUtils;
 import eu.europa.esig.dss.DigestAlgorithm;
-import eu.europa.esig.dss.InMemoryDocument;
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x500.style.BCStyle;
@@ -47,17 +49,18 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.security.Provider;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipException;
 
 import static ee.openeid.siva.validation.document.report.builder.ReportBuilderUtils.emptyWhenNull;
 import static ee.openeid.siva.validation.document.report.builder.ReportBuilderUtils.getDateFormatterWithGMTZone;
 
 @Service
 public class TimeStampTokenValidationService implements ValidationService {
+    private static final Provider BOUNCY_CASTLE_PROVIDER = new BouncyCastleProvider();
     private static final String TIMESTAMP_FILE = "TIMESTAMP.TST";
     private static final String META_INF_FOLDER = "META-INF/";
     private static final String MIME_TYPE = "mimetype";
@@ -72,16 +75,19 @@ public class TimeStampTokenValidationService implements ValidationService {
     @Override
     public Reports validateDocument(ValidationDocument validationDocument) {
 
-        List<InMemoryDocument> documents = getFilesFromContainer(validationDocument);
-        validateContainer(documents);
-        TimeStampToken timeStampToken = getTimeStamp(documents);
-        List<Error> errors = validateTimeStamp(documents, timeStampToken);
+        ZipContainer container = ValidationStageTimings.time(ValidationStage.PARSE, () -> openContainer(validationDocument));
+        List<ZipContainer.Entry> entries = new ArrayList<>(container.getEntries());
+        TimeStampToken timeStampToken = ValidationStageTimings.time(ValidationStage.PARSE, () -> {
+            validateContainer(entries);
+            return getTimeStamp(container, entries);
+        });
+        List<Error> errors = ValidationStageTimings.time(ValidationStage.VALIDATE, () -> validateTimeStamp(container, entries, timeStampToken));
         Date signedTime = timeStampToken.getTimeStampInfo().getGenTime();
         String signedBy = getTimeStampTokenSigner(timeStampToken);
 
         TimeStampTokenValidationData timeStampTokenValidationData = generateTimeStampTokenData(signedTime, signedBy, errors);
         TimeStampTokenValidationReportBuilder reportBuilder = new TimeStampTokenValidationReportBuilder(validationDocument, signaturePolicyService.getPolicy(validationDocument.getSignaturePolicy()), timeStampTokenValidationData, reportConfigurationProperties.isReportSignatureEnabled());
-        return reportBuilder.build();
+        return ValidationStageTimings.time(ValidationStage.REPORT, reportBuilder::build);
     }
 
     private TimeStampTokenValidationData generateTimeStampTokenData(Date signedTime, String signedBy, List<Error> errors) {
@@ -97,7 +103,7 @@ public class TimeStampTokenValidationService implements ValidationService {
         return timeStampTokenValidationData;
     }
 
-    private void validateContainer(List<InMemoryDocument> documents) {
+    private void validateContainer(List<ZipContainer.Entry> documents) {
         documents.removeIf(d -> d.getName().equals(META_INF_FOLDER));
         long dataFileCount = documents.stream()
                 .filter(d -> !d.getName().startsWith(META_INF_FOLDER))
@@ -123,26 +129,26 @@ public class TimeStampTokenValidationService implements ValidationService {
         return path.substring(path.lastIndexOf("/") + 1);
     }
 
-    private TimeStampToken getTimeStamp(List<InMemoryDocument> documents) {
+    private TimeStampToken getTimeStamp(ZipContainer container, List<ZipContainer.Entry> documents) {
 
         try {
-            CMSSignedData cms = new CMSSignedData(documents.stream()
-                    .filter(d -> d.getName().toUpperCase().endsWith(TIMESTAMP_FILE)).findAny().orElseThrow(IllegalArgumentException::new).getBytes());
+            CMSSignedData cms = new CMSSignedData(container.getContent(documents.stream()
+                    .filter(d -> d.getName().toUpperCase().endsWith(TIMESTAMP_FILE)).findAny().orElseThrow(IllegalArgumentException::new)));
             return new TimeStampToken(cms);
         } catch (CMSException | TSPException | IOException e) {
             throw new MalformedDocumentException(e);
         }
     }
 
-    private List<Error> validateTimeStamp(List<InMemoryDocument> documents, TimeStampToken timeStampToken) {
+    private List<Error> validateTimeStamp(ZipContainer container, List<ZipContainer.Entry> documents, TimeStampToken timeStampToken) {
         List<Error> errors = new ArrayList<>();
         boolean isSignatureValid = isSignatureValid(timeStampToken);
         if (!isSignatureValid) {
             errors.add(mapError("Signature not intact"));
         }
-        byte[] dataFile = documents.stream()
+        byte[] dataFile = getContent(container, documents.stream()
                 .filter(d -> !d.getName().startsWith(META_INF_FOLDER))
-                .filter(d -> !d.getName().endsWith(MIME_TYPE)).findAny().orElseThrow(IllegalArgumentException::new).getBytes();
+                .filter(d -> !d.getName().endsWith(MIME_TYPE)).findAny().orElseThrow(IllegalArgumentException::new));
         boolean isMessageImprintsValid = isMessageImprintsValid(dataFile, timeStampToken);
         if (isSignatureValid && !isMessageImprintsValid) {
             errors.add(mapError("Signature not intact"));
@@ -163,7 +169,7 @@ public class TimeStampTokenValidationService implements ValidationService {
             X509CertificateHolder cert = (X509CertificateHolder) certIt.next();
             Certificate x509Cert = CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(cert.getEncoded()));
 
-            SignerInformationVerifier signerInfoVerifier = sigVerifierBuilder.setProvider(BouncyCastleProvider.PROVIDER_NAME).build(x509Cert.getPublicKey());
+            SignerInformationVerifier signerInfoVerifier = sigVerifierBuilder.setProvider(BOUNCY_CASTLE_PROVIDER).build(x509Cert.getPublicKey());
             return timeStampToken.isSignatureValid(signerInfoVerifier);
         } catch (Exception e) {
             throw new MalformedDocumentException(e);
@@ -194,18 +200,22 @@ public class TimeStampTokenValidationService implements ValidationService {
         return Arrays.equals(timeStampToken.getTimeStampInfo().getMessageImprintDigest(), digestValue);
     }
 
-    private List<InMemoryDocument> getFilesFromContainer(ValidationDocument validationDocument) {
-        List<InMemoryDocument> documents = new ArrayList<>();
-        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(validationDocument.getBytes()));) {
+    private ZipContainer openContainer(ValidationDocument validationDocument) {
+        try {
+            ZipContainer container = ZipContainer.open(validationDocument.getBytes(), validationDocument.getZipContainer());
+            validationDocument.setZipContainer(container);
+            return container;
+        } catch (ZipException e) {
+            throw new MalformedDocumentException(e);
+        }
+    }
 
-            ZipEntry entry;
-            while ((entry = zipStream.getNextEntry()) != null) {
-                documents.add(new InMemoryDocument(zipStream, entry.getName()));
-            }
-        } catch (IOException e) {
+    private byte[] getContent(ZipContainer container, ZipContainer.Entry entry) {
+        try {
+            return container.getContent(entry);
+        } catch (ZipException e) {
             throw new MalformedDocumentException(e);
         }
-        return documents;
     }
 
     @Autowired
@@ -18,6 +18,7 @@ package ee.openeid.validation.service.timestamptoken;
 
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
 import ee.openeid.siva.validation.document.ValidationDocument;
+import ee.openeid.siva.validation.document.ZipContainer;
 import ee.openeid.siva.validation.document.builder.DummyValidationDocumentBuilder;
 import ee.openeid.siva.validation.document.report.SimpleReport;
 import ee.openeid.siva.validation.document.report.TimeStampTokenValidationData;
@@ -89,6 +90,16 @@ public class TimeStampTokenValidationServiceTest {
         Assert.assertEquals("Signature not intact", simpleReport.getValidationConclusion().getTimeStampTokens().get(0).getError().get(0).getContent());
     }
 
+    @Test
+    public void containerOpenedBeforeValidationIsReused() throws Exception {
+        ValidationDocument validationDocument = buildValidationDocument("timestamptoken-ddoc.asics");
+        ZipContainer container = ZipContainer.open(validationDocument.getBytes());
+        validationDocument.setZipContainer(container);
+
+        validationService.validateDocument(validationDocument);
+
+        Assert.assertSame(container, validationDocument.getZipContainer());
+    }
 
     private ValidationDocument buildValidationDocument(String testFile) throws Exception {
         return DummyValidationDocumentBuilder
@@ -27,6 +27,7 @@ import ee.openeid.tsl.configuration.TSLLoaderConfigurationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -41,6 +42,7 @@ public class TSLLoader {
     private TSLLoaderConfigurationProperties configurationProperties;
     private TrustedListsCertificateSource trustedListSource;
     private KeyStoreCertificateSource keyStoreCertificateSource;
+    private ApplicationEventPublisher applicationEventPublisher;
 
     @PostConstruct
     public void init() {
@@ -74,6 +76,9 @@ public class TSLLoader {
             tslValidationJob.refresh();
             LOGGER.info("Finished loading TSL over the network");
         }
+        if (applicationEventPublisher != null) {
+            applicationEventPublisher.publishEvent(new TSLLoadedEvent(this));
+        }
     }
 
     @Autowired
@@ -96,4 +101,9 @@ public class TSLLoader {
         this.trustedListSource = trustedListSource;
     }
 
+    @Autowired
+    public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
 }
@@ -29,6 +29,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -50,6 +51,8 @@ public class TSLLoaderTest {
     private TrustedListsCertificateSource trustedListSource;
     @Mock
     private KeyStoreCertificateSource keyStoreCertificateSource;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
 
     @InjectMocks
     private TSLLoader tslLoader;
@@ -108,4 +111,10 @@ public class TSLLoaderTest {
         initCacheLoadingConfigurationProperties();
         verify(tslValidationJob).setFilterTerritories(DEFAULT_TRUSTED_TERRITORIES);
     }
+
+    @Test
+    public void tslLoadedEventShouldBePublishedAfterLoading() {
+        initCacheLoadingConfigurationProperties();
+        verify(applicationEventPublisher).publishEvent(any(TSLLoadedEvent.class));
+    }
 }
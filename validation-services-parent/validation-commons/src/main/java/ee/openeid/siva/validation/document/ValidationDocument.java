@@ -16,11 +16,16 @@
 
 package ee.openeid.siva.validation.document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.List;
 
 @Data
+@EqualsAndHashCode(exclude = "zipContainer")
+@ToString(exclude = "zipContainer")
 public class ValidationDocument {
 
     private byte[] bytes;
@@ -33,4 +38,7 @@ public class ValidationDocument {
 
     private List<Datafile> datafiles;
 
+    @JsonIgnore
+    private ZipContainer zipContainer;
+
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.validation.document;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only view of a ZIP container held in memory.
+ * <p>
+ * Only the central directory is read when the container is opened, entries are inflated on first
+ * access and kept for later callers. The same container can be passed along with the document, so
+ * detecting the container type, validating it and extracting its data files inflate each entry once.
+ * ZIP64 containers are not supported.
+ * <p>
+ * Inflating stops as soon as an entry grows past the size declared in the central directory, and the
+ * declared sizes of all inflated entries of a container may not exceed {@value #MAX_INFLATED_SIZE} bytes.
+ */
+public final class ZipContainer {
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    private static final int CENTRAL_DIRECTORY_HEADER_LENGTH = 46;
+    private static final int LOCAL_FILE_HEADER_LENGTH = 30;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int ENCRYPTED_FLAG = 1;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int INFLATE_BUFFER_SIZE = 8192;
+    static final long MAX_INFLATED_SIZE = 1L << 30;
+
+    private final byte[] bytes;
+    private final List<Entry> entries;
+    private final Map<Entry, byte[]> inflatedEntries = new ConcurrentHashMap<>();
+    private final long maxInflatedSize;
+    private final AtomicLong inflatedSize = new AtomicLong();
+
+    private ZipContainer(byte[] bytes, List<Entry> entries, long maxInflatedSize) {
+        this.bytes = bytes;
+        this.entries = entries;
+        this.maxInflatedSize = maxInflatedSize;
+    }
+
+    public static ZipContainer open(byte[] bytes) throws ZipException {
+        return open(bytes, MAX_INFLATED_SIZE);
+    }
+
+    static ZipContainer open(byte[] bytes, long maxInflatedSize) throws ZipException {
+        int endOfCentralDirectory = findEndOfCentralDirectory(bytes);
+        int entryCount = readShort(bytes, endOfCentralDirectory + 10);
+        long centralDirectoryOffset = readInt(bytes, endOfCentralDirectory + 16);
+        if (entryCount == 0xFFFF || centralDirectoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("ZIP64 containers are not supported");
+        }
+
+        List<Entry> entries = new ArrayList<>(entryCount);
+        int offset = (int) centralDirectoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (offset + CENTRAL_DIRECTORY_HEADER_LENGTH > endOfCentralDirectory || readInt(bytes, offset) != CENTRAL_DIRECTORY_SIGNATURE) {
+                throw new ZipException("Invalid central directory header");
+            }
+            int nameLength = readShort(bytes, offset + 28);
+            int headerLength = CENTRAL_DIRECTORY_HEADER_LENGTH + nameLength + readShort(bytes, offset + 30) + readShort(bytes, offset + 32);
+            if (offset + headerLength > endOfCentralDirectory) {
+                throw new ZipException("Invalid central directory header");
+            }
+            entries.add(new Entry(
+                    new String(bytes, offset + CENTRAL_DIRECTORY_HEADER_LENGTH, nameLength, StandardCharsets.UTF_8),
+                    readShort(bytes, offset + 8),
+                    readShort(bytes, offset + 10),
+                    readInt(bytes, offset + 16),
+                    readInt(bytes, offset + 20),
+                    readInt(bytes, offset + 24),
+                    readInt(bytes, offset + 42)));
+            offset += headerLength;
+        }
+        return new ZipContainer(bytes, Collections.unmodifiableList(entries), maxInflatedSize);
+    }
+
+    /**
+     * Returns the given container when it has been opened from the same bytes, otherwise opens the bytes.
+     */
+    public static ZipContainer open(byte[] bytes, ZipContainer container) throws ZipException {
+        if (container != null && container.bytes == bytes) {
+            return container;
+        }
+        return open(bytes);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the inflated content of the entry. The returned array is shared with other callers and must not be modified.
+     */
+    public byte[] getContent(Entry entry) throws ZipException {
+        byte[] content = inflatedEntries.get(entry);
+        if (content != null) {
+            return content;
+        }
+        reserveInflatedSize(entry);
+        try {
+            content = inflate(entry);
+        } catch (ZipException | RuntimeException e) {
+            inflatedSize.addAndGet(-entry.size);
+            throw e;
+        }
+        byte[] previousContent = inflatedEntries.putIfAbsent(entry, content);
+        if (previousContent != null) {
+            inflatedSize.addAndGet(-entry.size);
+            return previousContent;
+        }
+        return content;
+    }
+
+    private void reserveInflatedSize(Entry entry) throws ZipException {
+        if (inflatedSize.addAndGet(entry.size) > maxInflatedSize) {
+            inflatedSize.addAndGet(-entry.size);
+            throw new ZipException("Inflated size of container exceeds " + maxInflatedSize + " bytes: " + entry.getName());
+        }
+    }
+
+    private byte[] inflate(Entry entry) throws ZipException {
+        if ((entry.flags & ENCRYPTED_FLAG) != 0) {
+            throw new ZipException("Encrypted entries are not supported: " + entry.getName());
+        }
+        long localHeaderOffset = entry.localHeaderOffset;
+        if (localHeaderOffset + LOCAL_FILE_HEADER_LENGTH > bytes.length || readInt(bytes, (int) localHeaderOffset) != LOCAL_FILE_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local file header: " + entry.getName());
+        }
+        long dataOffset = localHeaderOffset + LOCAL_FILE_HEADER_LENGTH
+                + readShort(bytes, (int) localHeaderOffset + 26) + readShort(bytes, (int) localHeaderOffset + 28);
+        if (dataOffset + entry.compressedSize > bytes.length) {
+            throw new ZipException("Entry exceeds container: " + entry.getName());
+        }
+
+        byte[] content;
+        if (entry.method == STORED) {
+            content = Arrays.copyOfRange(bytes, (int) dataOffset, (int) (dataOffset + entry.compressedSize));
+        } else if (entry.method == DEFLATED) {
+            content = inflate(entry, (int) dataOffset);
+        } else {
+            throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.getName());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        if (content.length != entry.size || crc.getValue() != entry.crc) {
+            throw new ZipException("Invalid entry size or CRC: " + entry.getName());
+        }
+        return content;
+    }
+
+    private byte[] inflate(Entry entry, int dataOffset) throws ZipException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, dataOffset, (int) entry.compressedSize);
+            ByteArrayOutputStream content = new ByteArrayOutputStream((int) Math.min(entry.size, INFLATE_BUFFER_SIZE * 16));
+            byte[] buffer = new byte[INFLATE_BUFFER_SIZE];
+            boolean dummyByteAdded = false;
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (content.size() + (long) inflated > entry.size) {
+                    throw new ZipException("Entry exceeds its declared size: " + entry.getName());
+                }
+                if (inflated > 0) {
+                    content.write(buffer, 0, inflated);
+                } else if (inflater.needsInput() && !dummyByteAdded) {
+                    // raw inflater may need one extra byte to detect the end of the deflate stream
+                    inflater.setInput(new byte[1]);
+                    dummyByteAdded = true;
+                } else if (inflater.needsInput() || inflater.needsDictionary()) {
+                    throw new ZipException("Unexpected end of deflated entry: " + entry.getName());
+                }
+            }
+            return content.toByteArray();
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflated entry " + entry.getName() + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int findEndOfCentralDirectory(byte[] bytes) throws ZipException {
+        int lowestOffset = Math.max(0, bytes.length - END_OF_CENTRAL_DIRECTORY_LENGTH - MAX_COMMENT_LENGTH);
+        for (int offset = bytes.length - END_OF_CENTRAL_DIRECTORY_LENGTH; offset >= lowestOffset; offset--) {
+            if (readInt(bytes, offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                long centralDirectoryEnd = readInt(bytes, offset + 16) + readInt(bytes, offset + 12);
+                if (centralDirectoryEnd <= offset) {
+                    return offset;
+                }
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long readInt(byte[] bytes, int offset) {
+        return (readShort(bytes, offset) | (long) readShort(bytes, offset + 2) << 16) & 0xFFFFFFFFL;
+    }
+
+    public static final class Entry {
+
+        private final String name;
+        private final int flags;
+        private final int method;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        private Entry(String name, int flags, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+}
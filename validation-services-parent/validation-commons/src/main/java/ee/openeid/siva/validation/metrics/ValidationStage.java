@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.validation.metrics;
+
+/**
+ * Stages of the validation pipeline with a latency metric of their own.
+ */
+public enum ValidationStage {
+
+    /**
+     * Decoding the base64 document of a request.
+     */
+    DECODE("decode"),
+
+    /**
+     * Choosing the validation service of a document.
+     */
+    ROUTE("route"),
+
+    /**
+     * Reading the document or container before validation.
+     */
+    PARSE("parse"),
+
+    /**
+     * Validating the signatures with DSS, digidoc4j, jdigidoc or the X-Road verifier.
+     */
+    VALIDATE("validate"),
+
+    /**
+     * Building the validation reports from the validation result.
+     */
+    REPORT("report"),
+
+    /**
+     * Signing the validation report.
+     */
+    SIGN("sign"),
+
+    /**
+     * Writing the validation response.
+     */
+    SERIALIZE("serialize");
+
+    private final String metricName;
+
+    ValidationStage(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
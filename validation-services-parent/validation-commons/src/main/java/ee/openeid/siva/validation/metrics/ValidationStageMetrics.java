@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.validation.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the latency of every validation pipeline stage as a timer named
+ * {@code timer.siva.validation.<stage>.<service>.<documentType>.<policy>.<reportType>}.
+ * <p>
+ * A validation is measured between {@link #open()} and closing the returned scope, the stages timed on the
+ * thread in between are published when the outermost scope is closed, once all the tags are known. With
+ * Dropwizard metrics on the classpath the timers are backed by histograms of the stage latencies.
+ */
+@Component
+public class ValidationStageMetrics {
+
+    static final String METRIC_PREFIX = "timer.siva.validation.";
+    private static final Scope NESTED_SCOPE = () -> {
+    };
+
+    private GaugeService gaugeService;
+
+    /**
+     * Starts measuring a validation on the current thread. When a validation is already measured, e.g. by the
+     * request around it, the stages are added to it and closing the returned scope publishes nothing.
+     */
+    public Scope open() {
+        if (ValidationStageTimings.current() != null) {
+            return NESTED_SCOPE;
+        }
+        ValidationStageTimings timings = ValidationStageTimings.bind();
+        return () -> {
+            ValidationStageTimings.unbind();
+            publish(timings);
+        };
+    }
+
+    private void publish(ValidationStageTimings timings) {
+        if (gaugeService == null || timings.getDurations().isEmpty()) {
+            return;
+        }
+        String tags = timings.getMetricTags();
+        timings.getDurations().forEach((stage, durationInNanos) ->
+                gaugeService.submit(METRIC_PREFIX + stage.getMetricName() + "." + tags, durationInNanos / 1_000_000.0));
+    }
+
+    @Autowired(required = false)
+    public void setGaugeService(GaugeService gaugeService) {
+        this.gaugeService = gaugeService;
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
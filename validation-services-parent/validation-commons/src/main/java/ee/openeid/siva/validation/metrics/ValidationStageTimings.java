@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.validation.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Durations of the pipeline stages of the validation running on the current thread, with the tags they are
+ * published with.
+ * <p>
+ * Timings are bound to the thread by {@link ValidationStageMetrics#open()}. Stages timed while nothing is bound,
+ * e.g. by a validation service used on its own, are run without recording them. A stage run more than once
+ * during a validation, e.g. validating the data file of a timestamped container, is recorded as the sum of its
+ * runs. Tags that are not known are published as {@value #UNKNOWN_TAG}.
+ */
+public final class ValidationStageTimings {
+
+    static final String UNKNOWN_TAG = "unknown";
+    /**
+     * Tag of a value outside of the known values of a tag, so that request input does not create new metric names.
+     */
+    public static final String OTHER_TAG = "OTHER";
+    private static final Pattern INVALID_TAG_CHARACTERS = Pattern.compile("[^A-Za-z0-9_-]");
+    private static final ThreadLocal<ValidationStageTimings> CURRENT = new ThreadLocal<>();
+
+    private final Map<ValidationStage, Long> durations = new EnumMap<>(ValidationStage.class);
+    private String service;
+    private String documentType;
+    private String policy;
+    private String reportType;
+
+    ValidationStageTimings() {
+    }
+
+    public static <R, E extends Exception> R time(ValidationStage stage, Step<R, E> step) throws E {
+        long start = System.nanoTime();
+        try {
+            return step.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public static void record(ValidationStage stage, long durationInNanos) {
+        ValidationStageTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.durations.merge(stage, durationInNanos, Long::sum);
+        }
+    }
+
+    /**
+     * Tags the current validation with the service it was routed to. Only the first routing is kept, so a data
+     * file validated after its container does not change the service of the container.
+     */
+    public static void tagService(String service) {
+        ValidationStageTimings timings = CURRENT.get();
+        if (timings != null && timings.service == null) {
+            timings.service = service;
+        }
+    }
+
+    /**
+     * Tags the current validation with the given document properties, {@code null} values leave the tag as it was.
+     */
+    public static void tagDocument(String documentType, String policy, String reportType) {
+        ValidationStageTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.documentType = documentType != null ? documentType : timings.documentType;
+            timings.policy = policy != null ? policy : timings.policy;
+            timings.reportType = reportType != null ? reportType : timings.reportType;
+        }
+    }
+
+    static ValidationStageTimings current() {
+        return CURRENT.get();
+    }
+
+    static ValidationStageTimings bind() {
+        ValidationStageTimings timings = new ValidationStageTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    Map<ValidationStage, Long> getDurations() {
+        return durations;
+    }
+
+    /**
+     * Tags as metric name segments in the order service, document type, policy and report type.
+     */
+    String getMetricTags() {
+        return String.join(".", toMetricTag(service), toMetricTag(documentType), toMetricTag(policy), toMetricTag(reportType));
+    }
+
+    private static String toMetricTag(String value) {
+        if (value == null || value.isEmpty()) {
+            return UNKNOWN_TAG;
+        }
+        return INVALID_TAG_CHARACTERS.matcher(value).replaceAll("_");
+    }
+
+    @FunctionalInterface
+    public interface Step<R, E extends Exception> {
+        R run() throws E;
+    }
+}
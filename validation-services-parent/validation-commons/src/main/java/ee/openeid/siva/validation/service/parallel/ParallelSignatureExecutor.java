@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.validation.service.parallel;
+
+import ee.openeid.siva.validation.configuration.ParallelValidationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fans per-signature work of a single validation request out over a fork-join pool shared by all requests.
+ * <p>
+ * The signatures of a request are split into at most {@code maxParallelismPerRequest} contiguous ranges,
+ * the last range is processed on the calling thread and the results are joined in the original order,
+ * so the outcome is identical to processing the signatures one by one. When parallel validation is
+ * disabled or the request has fewer than {@code minSignatures} signatures, the work is done sequentially.
+ */
+@Component
+public class ParallelSignatureExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelSignatureExecutor.class);
+
+    private ParallelValidationProperties properties;
+    private ForkJoinPool pool;
+
+    public ParallelSignatureExecutor() {
+    }
+
+    public ParallelSignatureExecutor(ParallelValidationProperties properties) {
+        this.properties = properties;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.isEnabled()) {
+            pool = new ForkJoinPool(properties.getParallelism());
+            LOGGER.info("Parallel signature validation enabled with parallelism {} and per request cap {}",
+                    properties.getParallelism(), properties.getMaxParallelismPerRequest());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return pool != null;
+    }
+
+    /**
+     * Shared pool for libraries that submit per-signature validation tasks themselves, {@code null} when
+     * parallel validation is disabled.
+     */
+    public ExecutorService getExecutorService() {
+        return pool;
+    }
+
+    public <T, R> List<R> map(List<T> items, Function<T, R> function) {
+        int ranges = Math.min(items.size(), properties.getMaxParallelismPerRequest());
+        if (!isEnabled() || items.size() < properties.getMinSignatures() || ranges < 2) {
+            return items.stream().map(function).collect(Collectors.toList());
+        }
+        List<CompletableFuture<List<R>>> forkedRanges = new ArrayList<>(ranges - 1);
+        for (int range = 0; range < ranges - 1; range++) {
+            List<T> rangeItems = items.subList(rangeStart(items.size(), ranges, range), rangeStart(items.size(), ranges, range + 1));
+            forkedRanges.add(CompletableFuture.supplyAsync(() -> mapRange(rangeItems, function), pool));
+        }
+        List<R> lastRange = mapRange(items.subList(rangeStart(items.size(), ranges, ranges - 1), items.size()), function);
+
+        List<R> results = new ArrayList<>(items.size());
+        forkedRanges.forEach(forkedRange -> results.addAll(join(forkedRange)));
+        results.addAll(lastRange);
+        return results;
+    }
+
+    private static int rangeStart(int size, int ranges, int range) {
+        return (int) ((long) size * range / ranges);
+    }
+
+    private static <T, R> List<R> mapRange(List<T> items, Function<T, R> function) {
+        List<R> results = new ArrayList<>(items.size());
+        items.forEach(item -> results.add(function.apply(item)));
+        return results;
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Autowired
+    public void setProperties(ParallelValidationProperties properties) {
+        this.properties = properties;
+    }
+}
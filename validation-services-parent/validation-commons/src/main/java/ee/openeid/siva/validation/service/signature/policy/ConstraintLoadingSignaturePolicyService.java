@@ -23,6 +23,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class ConstraintLoadingSignaturePolicyService extends SignaturePolicyService<ConstraintDefinedPolicy> {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConstraintLoadingSignaturePolicyService.class);
@@ -36,10 +40,7 @@ public class ConstraintLoadingSignaturePolicyService extends SignaturePolicyServ
         signaturePolicyProperties.getAbstractPolicies().forEach(policy -> {
             LOGGER.info("Loading policy: " + policy);
             try {
-                byte[] policyData = getContentFromPolicyPath(policy.getConstraintPath());
-                InputStream policyDataStream = new ByteArrayInputStream(policyData);
-                validateAgainstSchema(policyDataStream);
-                policy.setConstraintData(policyData);
+                loadConstraint(policy);
                 ConstraintDefinedPolicy existingPolicyData = getSignaturePolicies().putIfAbsent(policy.getName(), policy);
                 if (existingPolicyData == null) {
                     LOGGER.info("Policy: " + policy + " loaded successfully");
@@ -53,6 +54,62 @@ public class ConstraintLoadingSignaturePolicyService extends SignaturePolicyServ
         loadDefaultPolicy(signaturePolicyProperties);
     }
 
+    /**
+     * Reloads policies whose constraint file on an absolute path has been modified since it was loaded.
+     * Reloaded policies are swapped in as new policy instances, a policy whose modified constraint
+     * cannot be loaded keeps its previously loaded constraint.
+     *
+     * @return names of reloaded policies
+     */
+    public synchronized List<String> reloadModifiedPolicies() {
+        Map<String, ConstraintDefinedPolicy> policies = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        policies.putAll(getSignaturePolicies());
+        List<String> reloadedPolicies = new ArrayList<>();
+        for (Map.Entry<String, ConstraintDefinedPolicy> entry : policies.entrySet()) {
+            ConstraintDefinedPolicy policy = entry.getValue();
+            if (!isConstraintModified(policy)) {
+                continue;
+            }
+            ConstraintDefinedPolicy reloadedPolicy = new ConstraintDefinedPolicy(policy);
+            reloadedPolicy.setConstraintPath(policy.getConstraintPath());
+            try {
+                loadConstraint(reloadedPolicy);
+                entry.setValue(reloadedPolicy);
+                reloadedPolicies.add(entry.getKey());
+                LOGGER.info("Policy: " + policy + " reloaded successfully");
+            } catch (Exception e) {
+                policy.setConstraintLastModified(reloadedPolicy.getConstraintLastModified());
+                LOGGER.error("Could not reload policy " + policy + ", keeping previously loaded constraint due to: " + e);
+            }
+        }
+        if (!reloadedPolicies.isEmpty()) {
+            String defaultPolicyName = getDefaultPolicy().getName();
+            setSignaturePolicies(policies);
+            setDefaultPolicy(policies.get(defaultPolicyName));
+        }
+        return reloadedPolicies;
+    }
+
+    private boolean isConstraintModified(ConstraintDefinedPolicy policy) {
+        File constraintFile = new File(policy.getConstraintPath());
+        if (!constraintFile.isAbsolute()) {
+            return false;
+        }
+        long lastModified = constraintFile.lastModified();
+        return lastModified != 0 && lastModified != policy.getConstraintLastModified();
+    }
+
+    private void loadConstraint(ConstraintDefinedPolicy policy) throws IOException {
+        File constraintFile = new File(policy.getConstraintPath());
+        if (constraintFile.isAbsolute()) {
+            policy.setConstraintLastModified(constraintFile.lastModified());
+        }
+        byte[] policyData = getContentFromPolicyPath(policy.getConstraintPath());
+        InputStream policyDataStream = new ByteArrayInputStream(policyData);
+        validateAgainstSchema(policyDataStream);
+        policy.setConstraintData(policyData);
+    }
+
     private void validateAgainstSchema(InputStream policyDataStream) {
         PolicySchemaValidator.validate(policyDataStream);
     }
@@ -75,6 +132,8 @@ public class ConstraintLoadingSignaturePolicyService extends SignaturePolicyServ
             throw new PolicyPathNotFoundException("Could not find: " + policyPath);
         }
 
-        return IOUtils.toByteArray(policyDataStream);
+        try (InputStream constraintStream = policyDataStream) {
+            return IOUtils.toByteArray(constraintStream);
+        }
     }
 }
@@ -16,6 +16,7 @@
 
 package ee.openeid.siva.validation.service.signature.policy;
 
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.siva.validation.service.signature.policy.properties.SignaturePolicyProperties;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
 import lombok.Getter;
@@ -31,8 +32,8 @@ import java.util.TreeMap;
 public class SignaturePolicyService<T extends ValidationPolicy> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SignaturePolicyService.class);
 
-    private T defaultPolicy;
-    private Map<String, T> signaturePolicies = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private volatile T defaultPolicy;
+    private volatile Map<String, T> signaturePolicies = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
     public SignaturePolicyService(SignaturePolicyProperties<T> signaturePolicyProperties) {
         LOGGER.info("Loading signature abstractPolicies for: " + signaturePolicyProperties.getClass().getSimpleName());
@@ -42,8 +43,10 @@ public class SignaturePolicyService<T extends ValidationPolicy> {
     public T getPolicy(String policyName) {
         T policy = StringUtils.isEmpty(policyName) ? defaultPolicy : signaturePolicies.get(policyName);
         if (policy == null) {
+            ValidationStageTimings.tagDocument(null, ValidationStageTimings.OTHER_TAG, null);
             throw new InvalidPolicyException(policyName, signaturePolicies.keySet());
         }
+        ValidationStageTimings.tagDocument(null, policy.getName(), null);
         return policy;
     }
 
@@ -27,10 +27,11 @@ import java.io.InputStream;
 @Getter
 @Setter
 @NoArgsConstructor
-@ToString(exclude = "constraintData")
+@ToString(exclude = {"constraintData", "constraintLastModified"})
 public class ConstraintDefinedPolicy extends ValidationPolicy {
     private String constraintPath;
     private byte[] constraintData;
+    private long constraintLastModified;
 
     public ConstraintDefinedPolicy(ValidationPolicy validationPolicy) {
         setName(validationPolicy.getName());
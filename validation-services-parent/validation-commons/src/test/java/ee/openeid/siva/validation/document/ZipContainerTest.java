@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.validation.document;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ZipContainerTest {
+
+    private static final byte[] MIME_TYPE = "application/vnd.etsi.asic-s+zip".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_FILE = dataFile();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void entriesAreReadFromCentralDirectory() throws Exception {
+        ZipContainer container = ZipContainer.open(asicsContainer(null));
+
+        List<String> names = container.getEntries().stream().map(ZipContainer.Entry::getName).collect(Collectors.toList());
+        assertEquals(asList("mimetype", "META-INF/", "META-INF/timestamp.tst", "test.pdf"), names);
+        assertTrue(container.getEntries().get(1).isDirectory());
+        assertEquals(DATA_FILE.length, container.getEntries().get(3).getSize());
+    }
+
+    @Test
+    public void storedAndDeflatedEntriesAreInflated() throws Exception {
+        ZipContainer container = ZipContainer.open(asicsContainer(null));
+
+        assertArrayEquals(MIME_TYPE, container.getContent(container.getEntries().get(0)));
+        assertArrayEquals(DATA_FILE, container.getContent(container.getEntries().get(3)));
+    }
+
+    @Test
+    public void inflatedEntryIsReused() throws Exception {
+        ZipContainer container = ZipContainer.open(asicsContainer(null));
+        ZipContainer.Entry dataFile = container.getEntries().get(3);
+
+        assertSame(container.getContent(dataFile), container.getContent(dataFile));
+    }
+
+    @Test
+    public void containerIsReusedOnlyForSameBytes() throws Exception {
+        byte[] bytes = asicsContainer(null);
+        ZipContainer container = ZipContainer.open(bytes);
+
+        assertSame(container, ZipContainer.open(bytes, container));
+        assertNotSame(container, ZipContainer.open(bytes.clone(), container));
+        assertNotSame(container, ZipContainer.open(bytes, null));
+    }
+
+    @Test
+    public void containerWithCommentIsRead() throws Exception {
+        ZipContainer container = ZipContainer.open(asicsContainer("PK\u0005\u0006 looks like end of central directory"));
+
+        assertArrayEquals(DATA_FILE, container.getContent(container.getEntries().get(3)));
+    }
+
+    @Test
+    public void documentWithoutCentralDirectoryIsRejected() throws Exception {
+        expectedException.expect(ZipException.class);
+        ZipContainer.open(randomBytes(1000));
+    }
+
+    @Test
+    public void corruptedEntryIsRejected() throws Exception {
+        byte[] bytes = asicsContainer(null);
+        ZipContainer container = ZipContainer.open(bytes);
+        int dataFileOffset = indexOf(bytes, "test.pdf".getBytes(StandardCharsets.UTF_8)) + "test.pdf".length();
+        bytes[dataFileOffset + 10] ^= 0xFF;
+
+        expectedException.expect(ZipException.class);
+        container.getContent(container.getEntries().get(3));
+    }
+
+    @Test
+    public void entryInflatingPastDeclaredSizeIsRejected() throws Exception {
+        byte[] bytes = zipBomb();
+        int centralDirectoryHeader = lastIndexOf(bytes, "bomb.bin".getBytes(StandardCharsets.UTF_8)) - 46;
+        bytes[centralDirectoryHeader + 24] = 100;
+        bytes[centralDirectoryHeader + 25] = 0;
+        bytes[centralDirectoryHeader + 26] = 0;
+        bytes[centralDirectoryHeader + 27] = 0;
+        ZipContainer container = ZipContainer.open(bytes);
+
+        expectedException.expect(ZipException.class);
+        expectedException.expectMessage("Entry exceeds its declared size: bomb.bin");
+        container.getContent(container.getEntries().get(0));
+    }
+
+    @Test
+    public void containerInflatingPastMaxInflatedSizeIsRejected() throws Exception {
+        ZipContainer container = ZipContainer.open(asicsContainer(null), DATA_FILE.length + 100);
+        container.getContent(container.getEntries().get(3));
+
+        expectedException.expect(ZipException.class);
+        expectedException.expectMessage("Inflated size of container exceeds");
+        container.getContent(container.getEntries().get(2));
+    }
+
+    private static byte[] zipBomb() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zipStream = new ZipOutputStream(bytes)) {
+            zipStream.putNextEntry(new ZipEntry("bomb.bin"));
+            byte[] zeros = new byte[1024 * 1024];
+            for (int i = 0; i < 16; i++) {
+                zipStream.write(zeros);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] asicsContainer(String comment) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zipStream = new ZipOutputStream(bytes)) {
+            ZipEntry mimeType = new ZipEntry("mimetype");
+            mimeType.setMethod(ZipEntry.STORED);
+            mimeType.setSize(MIME_TYPE.length);
+            CRC32 crc = new CRC32();
+            crc.update(MIME_TYPE);
+            mimeType.setCrc(crc.getValue());
+            zipStream.putNextEntry(mimeType);
+            zipStream.write(MIME_TYPE);
+            zipStream.putNextEntry(new ZipEntry("META-INF/"));
+            zipStream.putNextEntry(new ZipEntry("META-INF/timestamp.tst"));
+            zipStream.write(randomBytes(2000));
+            zipStream.putNextEntry(new ZipEntry("test.pdf"));
+            zipStream.write(DATA_FILE);
+            if (comment != null) {
+                zipStream.setComment(comment);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] dataFile() {
+        StringBuilder dataFile = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            dataFile.append("data file line ").append(i).append('\n');
+        }
+        return dataFile.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte[] value) {
+        for (int i = bytes.length - value.length; i >= 0; i--) {
+            int j = 0;
+            while (j < value.length && bytes[i + j] == value[j]) {
+                j++;
+            }
+            if (j == value.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] value) {
+        for (int i = 0; i <= bytes.length - value.length; i++) {
+            int j = 0;
+            while (j < value.length && bytes[i + j] == value[j]) {
+                j++;
+            }
+            if (j == value.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+
+package ee.openeid.siva.validation.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ValidationStageMetricsTest {
+
+    private ValidationStageMetrics stageMetrics;
+    private GaugeService gaugeService;
+
+    @Before
+    public void setUp() {
+        gaugeService = mock(GaugeService.class);
+        stageMetrics = new ValidationStageMetrics();
+        stageMetrics.setGaugeService(gaugeService);
+    }
+
+    @After
+    public void tearDown() {
+        ValidationStageTimings.unbind();
+    }
+
+    @Test
+    public void stagesArePublishedWithTagsWhenScopeIsClosed() {
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            ValidationStageTimings.time(ValidationStage.PARSE, () -> "container");
+            ValidationStageTimings.record(ValidationStage.VALIDATE, 2_000_000);
+            ValidationStageTimings.tagService("genericValidationService");
+            ValidationStageTimings.tagDocument("PDF", "POLv4", "Simple");
+            verify(gaugeService, never()).submit(anyString(), anyDouble());
+        }
+
+        verify(gaugeService).submit(startsWith("timer.siva.validation.parse.genericValidationService.PDF.POLv4.Simple"), anyDouble());
+        verify(gaugeService).submit("timer.siva.validation.validate.genericValidationService.PDF.POLv4.Simple", 2.0);
+        assertNull(ValidationStageTimings.current());
+    }
+
+    @Test
+    public void repeatedStageIsPublishedAsSumOfItsRuns() {
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            ValidationStageTimings.record(ValidationStage.VALIDATE, 1_000_000);
+            ValidationStageTimings.record(ValidationStage.VALIDATE, 3_000_000);
+        }
+
+        verify(gaugeService).submit("timer.siva.validation.validate.unknown.unknown.unknown.unknown", 4.0);
+    }
+
+    @Test
+    public void nestedScopeAddsStagesToOuterScope() {
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            try (ValidationStageMetrics.Scope nestedScope = stageMetrics.open()) {
+                ValidationStageTimings.tagService("DDOCValidationService");
+                ValidationStageTimings.record(ValidationStage.PARSE, 1_000_000);
+            }
+            verify(gaugeService, never()).submit(anyString(), anyDouble());
+            ValidationStageTimings.tagService("genericValidationService");
+            ValidationStageTimings.record(ValidationStage.SIGN, 1_000_000);
+        }
+
+        verify(gaugeService, times(2)).submit(startsWith("timer.siva.validation."), eq(1.0));
+        verify(gaugeService).submit("timer.siva.validation.sign.DDOCValidationService.unknown.unknown.unknown", 1.0);
+    }
+
+    @Test
+    public void tagsAreSanitizedIntoMetricNameSegments() {
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            ValidationStageTimings.tagDocument("ASICE", "POL v4.1", null);
+            ValidationStageTimings.record(ValidationStage.ROUTE, 1_000_000);
+        }
+
+        verify(gaugeService).submit("timer.siva.validation.route.unknown.ASICE.POL_v4_1.unknown", 1.0);
+    }
+
+    @Test
+    public void stagesAreNotRecordedWithoutScope() {
+        assertEquals("report", ValidationStageTimings.time(ValidationStage.REPORT, () -> "report"));
+
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            assertEquals(0, ValidationStageTimings.current().getDurations().size());
+        }
+        verify(gaugeService, never()).submit(anyString(), anyDouble());
+    }
+
+    @Test
+    public void failedStageIsRecorded() {
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            ValidationStageTimings.time(ValidationStage.PARSE, () -> {
+                throw new IOException("Malformed container");
+            });
+        } catch (IOException e) {
+            assertEquals("Malformed container", e.getMessage());
+        }
+
+        verify(gaugeService).submit(startsWith("timer.siva.validation.parse."), anyDouble());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Riigi Infosüsteemide Amet
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and limitations under the Licence.
+ */
+package ee.openeid.siva.validation.service.parallel;
+
+import ee.openeid.siva.validation.configuration.ParallelValidationProperties;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelSignatureExecutorTest {
+
+    private static final int SIGNATURES = 40;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private ParallelSignatureExecutor executor;
+
+    @After
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void resultsKeepSignatureOrder() {
+        executor = createExecutor(true, 4);
+
+        List<Integer> results = executor.map(signatures(), signature -> signature * 2);
+
+        assertEquals(signatures().stream().map(signature -> signature * 2).collect(Collectors.toList()), results);
+    }
+
+    @Test
+    public void signaturesAreProcessedOnCallingThreadWhenDisabled() {
+        executor = createExecutor(false, 4);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        executor.map(signatures(), signature -> threads.add(Thread.currentThread()));
+
+        assertFalse(executor.isEnabled());
+        assertEquals(1, threads.size());
+        assertTrue(threads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void concurrentSignaturesOfRequestDoNotExceedCap() {
+        executor = createExecutor(true, 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        executor.map(signatures(), signature -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep();
+            return running.decrementAndGet();
+        });
+
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void exceptionFromForkedSignatureIsRethrown() {
+        executor = createExecutor(true, 4);
+
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Signature 0 failed");
+        executor.map(signatures(), signature -> {
+            if (signature == 0) {
+                throw new IllegalStateException("Signature 0 failed");
+            }
+            return signature;
+        });
+    }
+
+    private static ParallelSignatureExecutor createExecutor(boolean enabled, int maxParallelismPerRequest) {
+        ParallelValidationProperties properties = new ParallelValidationProperties();
+        properties.setEnabled(enabled);
+        properties.setParallelism(8);
+        properties.setMaxParallelismPerRequest(maxParallelismPerRequest);
+        return new ParallelSignatureExecutor(properties);
+    }
+
+    private static List<Integer> signatures() {
+        return IntStream.range(0, SIGNATURES).boxed().collect(Collectors.toList());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -21,12 +21,16 @@ import ee.openeid.siva.validation.service.signature.policy.properties.SignatureP
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static java.util.Arrays.stream;
@@ -46,6 +50,9 @@ public class ConstraintLoadingSignaturePolicyServiceTest {
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void whenSignaturePolicesDoNotContainDefaultPolicyThenThrowException() {
         expectedException.expect(DefaultPolicyNotDefinedException.class);
@@ -127,10 +134,52 @@ public class ConstraintLoadingSignaturePolicyServiceTest {
         assertNotNull(signaturePolicyService.getPolicy("pol2"));
     }
 
+    @Test
+    public void modifiedPolicyFromAbsolutePathGetsReloaded() throws IOException {
+        File constraintFile = copyConstraint(VALID_ABSOLUTE_PATH_CONSTRAINT);
+        ConstraintLoadingSignaturePolicyService signaturePolicyService = createSignaturePolicyService("pol1", createValidationPolicy("pol1", constraintFile.getAbsolutePath()));
+        ConstraintDefinedPolicy loadedPolicy = signaturePolicyService.getPolicy("pol1");
+
+        Files.write(constraintFile.toPath(), Files.readAllBytes(Paths.get(VALID_ABSOLUTE_PATH_CONSTRAINT)));
+        constraintFile.setLastModified(loadedPolicy.getConstraintLastModified() + 10000);
+
+        assertEquals(Collections.singletonList("pol1"), signaturePolicyService.reloadModifiedPolicies());
+        ConstraintDefinedPolicy reloadedPolicy = signaturePolicyService.getPolicy("pol1");
+        assertNotSame(loadedPolicy, reloadedPolicy);
+        assertSame(reloadedPolicy, signaturePolicyService.getPolicy(""));
+        assertEquals(constraintFile.lastModified(), reloadedPolicy.getConstraintLastModified());
+        assertTrue(signaturePolicyService.reloadModifiedPolicies().isEmpty());
+    }
+
+    @Test
+    public void invalidModifiedPolicyKeepsPreviouslyLoadedConstraint() throws IOException {
+        File constraintFile = copyConstraint(VALID_ABSOLUTE_PATH_CONSTRAINT);
+        ConstraintLoadingSignaturePolicyService signaturePolicyService = createSignaturePolicyService("pol1", createValidationPolicy("pol1", constraintFile.getAbsolutePath()));
+        ConstraintDefinedPolicy loadedPolicy = signaturePolicyService.getPolicy("pol1");
+
+        Files.write(constraintFile.toPath(), Files.readAllBytes(Paths.get(INVALID_ABSOLUTE_PATH_CONSTRAINT)));
+        constraintFile.setLastModified(loadedPolicy.getConstraintLastModified() + 10000);
+
+        assertTrue(signaturePolicyService.reloadModifiedPolicies().isEmpty());
+        assertSame(loadedPolicy, signaturePolicyService.getPolicy("pol1"));
+    }
+
+    @Test
+    public void policyFromClasspathIsNotReloaded() {
+        ConstraintLoadingSignaturePolicyService signaturePolicyService = createSignaturePolicyService("pol1", createValidationPolicy("pol1", VALID_CLASSPATH_CONSTRAINT));
+        assertTrue(signaturePolicyService.reloadModifiedPolicies().isEmpty());
+    }
+
+    private File copyConstraint(String constraintPath) throws IOException {
+        File constraintFile = temporaryFolder.newFile("constraint.xml");
+        Files.write(constraintFile.toPath(), Files.readAllBytes(Paths.get(constraintPath)));
+        return constraintFile;
+    }
+
     private ConstraintLoadingSignaturePolicyService createSignaturePolicyService(String defaultPolicy, ConstraintDefinedPolicy... policyPaths) {
         List<ConstraintDefinedPolicy> policies = new ArrayList<>();
         stream(policyPaths).forEach(policies::add);
-        SignaturePolicyProperties signaturePolicyProperties = new SignaturePolicyProperties();
+        SignaturePolicyProperties<ConstraintDefinedPolicy> signaturePolicyProperties = new SignaturePolicyProperties<>();
         signaturePolicyProperties.setAbstractPolicies(policies);
         signaturePolicyProperties.setAbstractDefaultPolicy(defaultPolicy);
         return new SignaturePolicyServiceImpl(signaturePolicyProperties);
@@ -160,7 +209,7 @@ public class ConstraintLoadingSignaturePolicyServiceTest {
     }
 
     private class SignaturePolicyServiceImpl extends ConstraintLoadingSignaturePolicyService {
-        public SignaturePolicyServiceImpl(SignaturePolicyProperties signaturePolicyProperties) {
+        public SignaturePolicyServiceImpl(SignaturePolicyProperties<ConstraintDefinedPolicy> signaturePolicyProperties) {
             super(signaturePolicyProperties);
         }
     }
@@ -18,6 +18,8 @@ package ee.openeid.siva.xroad;
 
 import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.Reports;
+import ee.openeid.siva.validation.metrics.ValidationStageMetrics;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.siva.validation.service.ValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
@@ -32,7 +34,11 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @SpringBootApplication
 public class XROADValidationApplication extends SpringBootServletInitializer {
+    private static final String XROAD_SERVICE = "XROADValidationService";
+    private static final String XROAD_DOCUMENT_TYPE = "XROAD";
+
     private ValidationService validationService;
+    private ValidationStageMetrics stageMetrics = new ValidationStageMetrics();
 
     public static void main(String... args) {
         SpringApplication.run(XROADValidationApplication.class, args);
@@ -40,7 +46,11 @@ public class XROADValidationApplication extends SpringBootServletInitializer {
 
     @RequestMapping(value = "/xroad-validation", method = RequestMethod.POST)
     public Reports validateXroad(@RequestBody ValidationDocument validationDocument) {
-        return validationService.validateDocument(validationDocument);
+        try (ValidationStageMetrics.Scope scope = stageMetrics.open()) {
+            ValidationStageTimings.tagService(XROAD_SERVICE);
+            ValidationStageTimings.tagDocument(XROAD_DOCUMENT_TYPE, null, null);
+            return validationService.validateDocument(validationDocument);
+        }
     }
 
     @Override
@@ -52,4 +62,9 @@ public class XROADValidationApplication extends SpringBootServletInitializer {
     public void setValidationService(ValidationService validationService) {
         this.validationService = validationService;
     }
+
+    @Autowired(required = false)
+    public void setStageMetrics(ValidationStageMetrics stageMetrics) {
+        this.stageMetrics = stageMetrics;
+    }
 }
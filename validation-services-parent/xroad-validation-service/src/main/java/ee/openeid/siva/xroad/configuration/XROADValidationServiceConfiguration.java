@@ -19,6 +19,7 @@ package ee.openeid.siva.xroad.configuration;
 import ee.openeid.siva.monitoring.configuration.MonitoringConfiguration;
 import ee.openeid.siva.monitoring.indicator.UrlHealthIndicator;
 import ee.openeid.siva.validation.configuration.ReportConfigurationProperties;
+import ee.openeid.siva.validation.metrics.ValidationStageMetrics;
 import ee.openeid.siva.validation.service.signature.policy.SignaturePolicyService;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -37,6 +38,11 @@ public class XROADValidationServiceConfiguration extends MonitoringConfiguration
         return new SignaturePolicyService<>(properties);
     }
 
+    @Bean
+    public ValidationStageMetrics validationStageMetrics() {
+        return new ValidationStageMetrics();
+    }
+
     @Override
     public List<UrlHealthIndicator.ExternalLink> getDefaultExternalLinks() {
         return new ArrayList<>();
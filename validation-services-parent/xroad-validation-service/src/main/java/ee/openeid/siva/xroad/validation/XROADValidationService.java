@@ -21,6 +21,8 @@ import ee.openeid.siva.validation.document.ValidationDocument;
 import ee.openeid.siva.validation.document.report.Reports;
 import ee.openeid.siva.validation.exception.MalformedDocumentException;
 import ee.openeid.siva.validation.exception.ValidationServiceException;
+import ee.openeid.siva.validation.metrics.ValidationStage;
+import ee.openeid.siva.validation.metrics.ValidationStageTimings;
 import ee.openeid.siva.validation.service.ValidationService;
 import ee.openeid.siva.validation.service.signature.policy.SignaturePolicyService;
 import ee.openeid.siva.validation.service.signature.policy.properties.ValidationPolicy;
@@ -39,7 +41,6 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 
 @Service
 public class XROADValidationService implements ValidationService {
@@ -52,20 +53,24 @@ public class XROADValidationService implements ValidationService {
     @Override
     public Reports validateDocument(ValidationDocument validationDocument) {
         ValidationPolicy policy = signaturePolicyService.getPolicy(validationDocument.getSignaturePolicy());
-        final InputStream inputStream = new ByteArrayInputStream(Base64.decodeBase64(validationDocument.getDataBase64Encoded()));
         AsicContainer container;
         try {
-            container = AsicContainer.read(inputStream);
+            container = ValidationStageTimings.time(ValidationStage.PARSE, () -> AsicContainer.read(new ByteArrayInputStream(Base64.decodeBase64(validationDocument.getDataBase64Encoded()))));
         } catch (Exception e) {
             LOGGER.error("Unable to create AsicContainer from validation document", e);
             throw new MalformedDocumentException(e);
         }
         final AsicContainerVerifier verifier = new AsicContainerVerifier(container);
         try {
-            verifier.verify();
-            return new XROADValidationReportBuilder(verifier, validationDocument, policy, reportConfigurationProperties.isReportSignatureEnabled()).build();
+            ValidationStageTimings.time(ValidationStage.VALIDATE, () -> {
+                verifier.verify();
+                return verifier;
+            });
+            XROADValidationReportBuilder reportBuilder = new XROADValidationReportBuilder(verifier, validationDocument, policy, reportConfigurationProperties.isReportSignatureEnabled());
+            return ValidationStageTimings.time(ValidationStage.REPORT, reportBuilder::build);
         } catch (CodedException codedException) {
-            return new XROADValidationReportBuilder(verifier, validationDocument, policy, reportConfigurationProperties.isReportSignatureEnabled(), codedException).build();
+            XROADValidationReportBuilder reportBuilder = new XROADValidationReportBuilder(verifier, validationDocument, policy, reportConfigurationProperties.isReportSignatureEnabled(), codedException);
+            return ValidationStageTimings.time(ValidationStage.REPORT, reportBuilder::build);
         } catch (Exception e) {
             LOGGER.warn("There was an error validating the document", e);
             throw new ValidationServiceException(getClass().getSimpleName(), e);